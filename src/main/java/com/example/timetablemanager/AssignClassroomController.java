@@ -2,6 +2,7 @@ package com.example.timetablemanager;
 
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.geometry.Insets;
@@ -36,6 +37,12 @@ public class AssignClassroomController {
     @FXML
     private Button buttonAssign;
 
+    @FXML
+    private Button buttonAutoAssign;
+
+    @FXML
+    private Button buttonOptimize;
+
     @FXML
     private Button buttonSave;
 
@@ -47,6 +54,10 @@ public class AssignClassroomController {
 
     private static final Logger LOGGER = Logger.getLogger(AssignClassroomController.class.getName());
 
+    // Fixed seed so optimizing the same timetable twice proposes the same changes
+    private static final long OPTIMIZER_SEED = 42;
+    private static final long OPTIMIZER_TIME_BUDGET_MILLIS = 5_000;
+
     // The list that holds "Course -> Classroom" outline items
     private ObservableList<String> outline = FXCollections.observableArrayList();
 
@@ -69,6 +80,8 @@ public class AssignClassroomController {
 
         // Button actions
         buttonAssign.setOnAction(event -> handleAssign());
+        buttonAutoAssign.setOnAction(event -> handleAutoAssign());
+        buttonOptimize.setOnAction(event -> handleOptimize());
         buttonSave.setOnAction(event -> handleSave());
         buttonBack.setOnAction(event -> switchScene("mainLayout.fxml"));
         buttonDelete.setOnAction(event -> handleDelete());
@@ -158,10 +171,7 @@ public class AssignClassroomController {
         }
 
         // Availability check
-        Course selectedCourse = Database.getAllCourses().stream()
-                .filter(c -> c.getCourseID().equals(courseName))
-                .findFirst()
-                .orElse(null);
+        Course selectedCourse = Database.getRepository().get(courseName);
 
         if (selectedCourse == null) {
             showAlert(Alert.AlertType.ERROR, "Error", "Selected course not found.");
@@ -211,6 +221,130 @@ public class AssignClassroomController {
         listViewOutline.setItems(outline);
 
     }
+
+    /**
+     * Handles the Auto Assign button action: places every unallocated course
+     * into the tightest free classroom in one run and saves the result.
+     */
+    private void handleAutoAssign() {
+        List<Course> courses = Database.getAllCourses();
+        Map<String, Integer> capacities = Database.getClassroomCapacities();
+
+        Task<ClassroomAssignmentSolver.Result> solveTask = new Task<>() {
+            @Override
+            protected ClassroomAssignmentSolver.Result call() throws Exception {
+                ClassroomAssignmentSolver.Result result = new ClassroomAssignmentSolver(courses, capacities).solve();
+                Database.allocateCourses(result.getAssignments());
+                return result;
+            }
+        };
+
+        solveTask.setOnSucceeded(event -> {
+            buttonAutoAssign.setDisable(false);
+            ClassroomAssignmentSolver.Result result = solveTask.getValue();
+            result.getAssignments().forEach((course, classroom) ->
+                    outline.add(String.format("%s -> %s", course, classroom)));
+            populateCoursesListView();
+
+            StringBuilder message = new StringBuilder();
+            message.append(result.getAssignments().size()).append(" course(s) assigned.");
+            if (!result.getUnplaced().isEmpty()) {
+                message.append("\n").append(result.getUnplaced().size()).append(" course(s) could not be placed:");
+                int shown = 0;
+                for (Map.Entry<String, String> entry : result.getUnplaced().entrySet()) {
+                    if (shown++ == 20) {
+                        message.append("\n...");
+                        break;
+                    }
+                    message.append("\n").append(entry.getKey()).append(": ").append(entry.getValue());
+                }
+            }
+            showAlert(result.getUnplaced().isEmpty() ? Alert.AlertType.INFORMATION : Alert.AlertType.WARNING,
+                    "Auto Assign", message.toString());
+        });
+
+        solveTask.setOnFailed(event -> {
+            buttonAutoAssign.setDisable(false);
+            LOGGER.log(Level.SEVERE, "Automatic assignment failed", solveTask.getException());
+            showAlert(Alert.AlertType.ERROR, "Error", "Automatic assignment failed: " + solveTask.getException().getMessage());
+        });
+
+        buttonAutoAssign.setDisable(true);
+        Thread thread = new Thread(solveTask);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Searches for better classrooms for the already allocated courses (less wasted seats and
+     * fewer room changes for lecturers) in the background and applies the result after confirmation.
+     */
+    private void handleOptimize() {
+        List<Course> courses = Database.getAllCourses();
+        Map<String, Integer> capacities = Database.getClassroomCapacities();
+
+        Task<TimetableOptimizer.Result> optimizeTask = new Task<>() {
+            @Override
+            protected TimetableOptimizer.Result call() {
+                return new TimetableOptimizer(courses, capacities)
+                        .setTimeBudgetMillis(OPTIMIZER_TIME_BUDGET_MILLIS)
+                        .optimize(OPTIMIZER_SEED);
+            }
+        };
+
+        optimizeTask.setOnSucceeded(event -> {
+            buttonOptimize.setDisable(false);
+            TimetableOptimizer.Result result = optimizeTask.getValue();
+            List<TimetableOptimizer.Change> changes = result.getChanges();
+            if (changes.isEmpty()) {
+                showAlert(Alert.AlertType.INFORMATION, "Optimize", "No better classroom allocation was found.");
+                return;
+            }
+
+            StringBuilder message = new StringBuilder();
+            message.append(String.format("Cost %d -> %d with %d classroom change(s):",
+                    result.getInitialCost(), result.getFinalCost(), changes.size()));
+            for (int i = 0; i < changes.size(); i++) {
+                if (i == 20) {
+                    message.append("\n...");
+                    break;
+                }
+                message.append("\n").append(changes.get(i));
+            }
+
+            Alert confirm = new Alert(Alert.AlertType.CONFIRMATION, message.toString(), ButtonType.YES, ButtonType.NO);
+            confirm.setTitle("Optimize");
+            confirm.setHeaderText("Apply the optimized classroom allocation?");
+            if (confirm.showAndWait().orElse(ButtonType.NO) != ButtonType.YES) {
+                return;
+            }
+
+            Map<String, String> moves = new LinkedHashMap<>();
+            for (TimetableOptimizer.Change change : changes) {
+                moves.put(change.getCourseId(), change.getToClassroom());
+            }
+            try {
+                Database.changeClassrooms(moves);
+                moves.forEach((course, classroom) -> outline.add(String.format("%s -> %s", course, classroom)));
+                populateCoursesListView();
+            } catch (Exception e) {
+                LOGGER.log(Level.SEVERE, "Applying the optimized allocation failed", e);
+                showAlert(Alert.AlertType.ERROR, "Error", "Applying the optimized allocation failed: " + e.getMessage());
+            }
+        });
+
+        optimizeTask.setOnFailed(event -> {
+            buttonOptimize.setDisable(false);
+            LOGGER.log(Level.SEVERE, "Optimization failed", optimizeTask.getException());
+            showAlert(Alert.AlertType.ERROR, "Error", "Optimization failed: " + optimizeTask.getException().getMessage());
+        });
+
+        buttonOptimize.setDisable(true);
+        Thread thread = new Thread(optimizeTask);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
     /**
      * Normalizes the time format to ensure two-digit hours (e.g., "8:30" -> "08:30").
      */
@@ -300,9 +434,6 @@ public class AssignClassroomController {
                 throw new IllegalArgumentException("Loaded root is not a valid JavaFX parent node.");
             }
 
-            ttManagerController controller = loader.getController();
-            controller.refreshTable();
-
             Stage stage = (Stage) buttonBack.getScene().getWindow();
             Scene scene = stage.getScene();
             scene.setRoot((javafx.scene.Parent) newRoot);
@@ -358,10 +489,7 @@ public class AssignClassroomController {
                 String[] parts = item.split(" \\| ");
                 String courseID = parts[0].trim();
 
-                Course course = Database.getAllCourses().stream()
-                        .filter(c -> c.getCourseID().equals(courseID))
-                        .findFirst()
-                        .orElse(null);
+                Course course = Database.getRepository().get(courseID);
 
                 if (course != null) {
                     // Determine if the course is assigned to a classroom
@@ -449,6 +577,7 @@ public class AssignClassroomController {
      * *********************************************************************/
     private class ClassroomListCell extends ListCell<String> {
         private final Tooltip tooltip;
+        private final ScheduleView miniSchedule;
 
         public ClassroomListCell() {
             tooltip = new Tooltip();
@@ -456,6 +585,17 @@ public class AssignClassroomController {
             tooltip.setShowDelay(Duration.ZERO);
             tooltip.setHideDelay(Duration.ZERO);
             tooltip.setShowDuration(Duration.INDEFINITE);
+
+            // One schedule per cell, filled when its tooltip is about to show
+            miniSchedule = new ScheduleView();
+            miniSchedule.setCellSize(70, 22);
+            miniSchedule.setPlaceholder("There is no course assigned for this classroom yet");
+            tooltip.setGraphic(miniSchedule);
+            tooltip.setOnShowing(event -> {
+                if (getItem() != null) {
+                    showClassroomSchedule(miniSchedule, getItem().split(" \\| ")[0].trim());
+                }
+            });
         }
 
         @Override
@@ -466,145 +606,21 @@ public class AssignClassroomController {
                 setTooltip(null);
             } else {
                 setText(item);
-
-                String[] parts = item.split(" \\| ");
-                String classroomName = parts[0].trim();
-
-                GridPane miniSchedule = createClassroomScheduleGridPane(classroomName);
-                if (miniSchedule != null) {
-                    tooltip.setGraphic(miniSchedule);
-                    setTooltip(tooltip);
-                } else {
-                    setTooltip(null);
-                }
-            }
-        }
-    }
-
-    /**
-     * Creates a "mini" schedule GridPane (Days vs Times) for the given classroom,
-     * coloring each course differently and handling multi-slot durations.
-     */
-    private GridPane createClassroomScheduleGridPane(String classroomName) {
-        // Day/time lists
-        List<String> days = List.of("Monday", "Tuesday", "Wednesday", "Thursday", "Friday", "Saturday", "Sunday");
-        List<String> times = List.of(
-                "08:30", "09:25", "10:20", "11:15", "12:10",
-                "13:05", "14:00", "14:55", "15:50", "16:45",
-                "17:40", "18:35", "19:30", "20:25", "21:20", "22:15"
-        );
-
-        List<Course> scheduledCourses = Database.getAllAllocationsForClassroom(classroomName);
-        if (scheduledCourses == null) {
-            scheduledCourses = new ArrayList<>();
-        }
-
-        // If you'd like a "No courses assigned" placeholder, handle here:
-        if (scheduledCourses.isEmpty()) {
-            GridPane emptyGrid = new GridPane();
-            emptyGrid.setPadding(new Insets(10));
-            Label placeholder = new Label("There is no course assigned for this classroom yet");
-            placeholder.setStyle("-fx-text-fill: #333; -fx-font-size: 14px;");
-            emptyGrid.add(placeholder, 0, 0);
-            return emptyGrid;
-        }
-
-        // Build the schedule grid
-        GridPane grid = new GridPane();
-        grid.setHgap(1);
-        grid.setVgap(1);
-        grid.setPadding(new Insets(5));
-
-        // Top-left corner
-        Label timeHeader = new Label("Time");
-        timeHeader.setStyle("-fx-font-weight: bold; -fx-background-color: #d3d3d3; -fx-alignment: CENTER;");
-        grid.add(timeHeader, 0, 0);
-
-        // Day headers
-        for (int i = 0; i < days.size(); i++) {
-            Label dayLabel = new Label(days.get(i));
-            dayLabel.setStyle("-fx-font-weight: bold; -fx-background-color: #d3d3d3; -fx-alignment: CENTER;");
-            grid.add(dayLabel, i + 1, 0);
-        }
-
-        // Time labels
-        for (int i = 0; i < times.size(); i++) {
-            Label timeLabel = new Label(times.get(i));
-            timeLabel.setStyle("-fx-font-weight: bold; -fx-background-color: #d3d3d3; -fx-alignment: CENTER_LEFT;");
-            grid.add(timeLabel, 0, i + 1);
-        }
-
-        // Fill cells with empty placeholders
-        for (int col = 1; col <= days.size(); col++) {
-            for (int row = 1; row <= times.size(); row++) {
-                Label emptyLabel = new Label();
-                emptyLabel.setStyle(
-                        "-fx-background-color: #ffffff;" +
-                                "-fx-border-color: #e0e0e0;" +
-                                "-fx-border-width: 0.5px;"
-                );
-                grid.add(emptyLabel, col, row);
+                setTooltip(tooltip);
             }
         }
-
-        // Place each scheduled course
-        for (Course c : scheduledCourses) {
-            String timeToStart = c.getTimeToStart();
-            if (timeToStart == null || !timeToStart.contains(" ")) {
-                continue; // Skip invalid entries
-            }
-
-            String[] tParts = timeToStart.split(" ");
-            if (tParts.length < 2) continue;
-
-            String day = capitalizeFirstLetter(tParts[0]);
-            String startTime = tParts[1];
-
-            int dayIndex = days.indexOf(day);
-            if (dayIndex < 0) continue;
-
-            int rowIndex = times.indexOf(startTime);
-            if (rowIndex < 0) continue;
-
-            int duration = c.getDuration();
-            for (int offset = 0; offset < duration; offset++) {
-                int currentRow = rowIndex + offset;
-                if (currentRow >= times.size()) break;
-
-                String colorHex = toRgbString(getColorForCourse(c.getCourseID()));
-
-                Label courseLabel = new Label(c.getCourseID());
-                courseLabel.setStyle(
-                        "-fx-background-color: " + colorHex + ";" +
-                                "-fx-text-fill: #ffffff;" +
-                                "-fx-alignment: CENTER;" +
-                                "-fx-font-weight: bold;" +
-                                "-fx-padding: 3px;" +
-                                "-fx-border-color: #e0e0e0;" +
-                                "-fx-border-width: 0.5px;"
-                );
-
-                removeNodeIfExists(grid, dayIndex + 1, currentRow + 1);
-                grid.add(courseLabel, dayIndex + 1, currentRow + 1);
-            }
-        }
-
-        return grid;
     }
 
     /**
-     * Remove any existing node from the specified (col, row) in the grid.
+     * Shows the courses of the given classroom in a "mini" schedule,
+     * coloring each course differently.
      */
-    private void removeNodeIfExists(GridPane grid, int col, int row) {
-        List<javafx.scene.Node> toRemove = new ArrayList<>();
-        for (javafx.scene.Node n : grid.getChildren()) {
-            Integer cIndex = GridPane.getColumnIndex(n);
-            Integer rIndex = GridPane.getRowIndex(n);
-            if (cIndex != null && rIndex != null && cIndex == col && rIndex == row) {
-                toRemove.add(n);
-            }
+    private void showClassroomSchedule(ScheduleView schedule, String classroomName) {
+        List<ScheduleView.Entry> entries = new ArrayList<>();
+        for (Course c : Database.getRepository().getByClassroom(classroomName)) {
+            entries.add(new ScheduleView.Entry(c, getColorForCourse(c.getCourseID()), Color.WHITE));
         }
-        grid.getChildren().removeAll(toRemove);
+        schedule.setEntries(entries);
     }
 
     /**
@@ -622,16 +638,6 @@ public class AssignClassroomController {
         return courseColors.get(courseID);
     }
 
-    /**
-     * Converts a Color object to #RGB for CSS usage.
-     */
-    private String toRgbString(Color color) {
-        return String.format("#%02X%02X%02X",
-                (int) (color.getRed() * 255),
-                (int) (color.getGreen() * 255),
-                (int) (color.getBlue() * 255));
-    }
-
     /**
      * Validates if the provided day is a valid day of the week.
      */
@@ -0,0 +1,263 @@
+package com.example.timetablemanager;
+
+import javafx.beans.value.ChangeListener;
+import javafx.concurrent.Task;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+import javafx.stage.Window;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Loads the data of a screen off the JavaFX thread, so switching scenes does not freeze the window
+ * while the database is read.
+ *
+ * A controller creates one loader at the start of initialize() and hands it its loads. Each load
+ * runs as a Task on a small shared pool of daemon threads (-Dtimetablemanager.loaderThreads,
+ * default up to 4) and hands its result to the controller on the JavaFX thread. Starting a load
+ * with the same name as a running one cancels the running one, e.g. when a different course is
+ * picked before the students of the previous one arrived. All loads are cancelled when the screen
+ * is left: when its root is replaced by another scene root or its window is closed.
+ *
+ * The time from creating the loader until its first loads are all shown is the screen's time to
+ * interactive. It is printed for every screen and summed up per screen when the app exits.
+ */
+public class BackgroundLoader {
+
+    private static final int THREADS = Integer.getInteger("timetablemanager.loaderThreads",
+            Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors())));
+
+    private static final ExecutorService executor = Executors.newFixedThreadPool(THREADS, new ThreadFactory() {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "background-loader-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    // Time to interactive per screen, in the order the screens were first shown
+    private static final Map<String, Stats> statsByScene = new LinkedHashMap<>();
+
+    private final String sceneName;
+    private final Node owner;
+    private final long createdAt = System.nanoTime();
+    private final Map<String, Task<?>> running = new HashMap<>();
+    private boolean interactive;
+    private boolean left;
+    // Time spent in the background by the loads before the screen became interactive
+    private long backgroundNanos;
+
+    private Window watchedWindow;
+    private final ChangeListener<Boolean> showingListener = (obs, wasShowing, showing) -> {
+        if (wasShowing && !showing) {
+            leave();
+        }
+    };
+    private final ChangeListener<Window> windowListener = (obs, oldWindow, newWindow) -> watchWindow(newWindow);
+    private final ChangeListener<Scene> sceneListener = (obs, oldScene, newScene) -> {
+        if (oldScene != null) {
+            oldScene.windowProperty().removeListener(windowListener);
+        }
+        if (newScene == null) {
+            // Another screen took over the scene
+            if (oldScene != null) {
+                leave();
+            }
+        } else {
+            newScene.windowProperty().addListener(windowListener);
+            watchWindow(newScene.getWindow());
+        }
+    };
+
+    /**
+     * @param sceneName Name of the screen in the timing reports.
+     * @param owner     A node of the screen; the loads are cancelled once it leaves its scene or window.
+     */
+    public BackgroundLoader(String sceneName, Node owner) {
+        this.sceneName = sceneName;
+        this.owner = owner;
+        owner.sceneProperty().addListener(sceneListener);
+        sceneListener.changed(owner.sceneProperty(), null, owner.getScene());
+    }
+
+    /**
+     * Runs {@code work} in the background and passes its result to {@code onLoaded} on the JavaFX thread.
+     * A failure is printed and the result is not passed on.
+     *
+     * @param name Names the load; a running load with the same name is cancelled.
+     */
+    public <T> Task<T> load(String name, Callable<T> work, Consumer<T> onLoaded) {
+        return load(name, work, onLoaded, null);
+    }
+
+    /**
+     * @param onFailed Called on the JavaFX thread if the work throws, e.g. to show an error instead of a placeholder.
+     */
+    public <T> Task<T> load(String name, Callable<T> work, Consumer<T> onLoaded, Consumer<Throwable> onFailed) {
+        cancel(name);
+        long queuedAt = System.nanoTime();
+        long[] workNanos = new long[1];
+        Task<T> task = new Task<>() {
+            @Override
+            protected T call() throws Exception {
+                long startedAt = System.nanoTime();
+                try {
+                    return work.call();
+                } finally {
+                    workNanos[0] = System.nanoTime() - startedAt;
+                }
+            }
+        };
+        task.setOnSucceeded(e -> {
+            finished(name, task, workNanos[0]);
+            onLoaded.accept(task.getValue());
+            System.out.println("Loaded " + name + " for " + sceneName + " in " + millis(System.nanoTime() - queuedAt)
+                    + " ms (" + millis(workNanos[0]) + " ms in the background)");
+            checkInteractive();
+        });
+        task.setOnFailed(e -> {
+            finished(name, task, workNanos[0]);
+            System.err.println("Error loading " + name + " for " + sceneName + ": " + task.getException().getMessage());
+            task.getException().printStackTrace();
+            if (onFailed != null) {
+                onFailed.accept(task.getException());
+            }
+            checkInteractive();
+        });
+        task.setOnCancelled(e -> System.out.println("Cancelled loading " + name + " for " + sceneName));
+
+        if (left) {
+            task.cancel();
+            return task;
+        }
+        running.put(name, task);
+        executor.execute(task);
+        return task;
+    }
+
+    /**
+     * @return Whether the load with this name is still running.
+     */
+    public boolean isLoading(String name) {
+        return running.containsKey(name);
+    }
+
+    /**
+     * Cancels the load with this name if it is still running; its result is not passed on anymore.
+     */
+    public void cancel(String name) {
+        Task<?> task = running.remove(name);
+        if (task != null) {
+            task.cancel(true);
+        }
+    }
+
+    /**
+     * Cancels the running loads; their results are not passed on anymore.
+     */
+    public void cancelAll() {
+        for (Task<?> task : new ArrayList<>(running.values())) {
+            task.cancel(true);
+        }
+        running.clear();
+    }
+
+    private void finished(String name, Task<?> task, long workNanos) {
+        if (running.get(name) == task) {
+            running.remove(name);
+        }
+        if (!interactive) {
+            backgroundNanos += workNanos;
+        }
+    }
+
+    private void checkInteractive() {
+        if (interactive || !running.isEmpty()) {
+            return;
+        }
+        interactive = true;
+        long nanos = System.nanoTime() - createdAt;
+        synchronized (statsByScene) {
+            statsByScene.computeIfAbsent(sceneName, k -> new Stats()).add(nanos);
+        }
+        System.out.println(sceneName + " interactive after " + millis(nanos) + " ms ("
+                + millis(backgroundNanos) + " ms of loading in the background)");
+    }
+
+    private void leave() {
+        if (left) {
+            return;
+        }
+        left = true;
+        cancelAll();
+        owner.sceneProperty().removeListener(sceneListener);
+        if (owner.getScene() != null) {
+            owner.getScene().windowProperty().removeListener(windowListener);
+        }
+        watchWindow(null);
+    }
+
+    private void watchWindow(Window window) {
+        if (watchedWindow != null) {
+            watchedWindow.showingProperty().removeListener(showingListener);
+        }
+        watchedWindow = window;
+        if (window != null) {
+            window.showingProperty().addListener(showingListener);
+        }
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.1f", nanos / 1_000_000.0);
+    }
+
+    /**
+     * Prints the time to interactive of every screen shown since the app started.
+     */
+    public static void printReport() {
+        synchronized (statsByScene) {
+            if (statsByScene.isEmpty()) {
+                return;
+            }
+            System.out.println("Time to interactive per screen (ms): screen, times shown, average, max");
+            for (Map.Entry<String, Stats> entry : statsByScene.entrySet()) {
+                Stats stats = entry.getValue();
+                System.out.println("  " + entry.getKey() + ", " + stats.getCount() + ", "
+                        + millis(stats.getTotalNanos() / stats.getCount()) + ", " + millis(stats.getMaxNanos()));
+            }
+        }
+    }
+
+    private static class Stats {
+        private int count;
+        private long totalNanos;
+        private long maxNanos;
+
+        void add(long nanos) {
+            count++;
+            totalNanos += nanos;
+            maxNanos = Math.max(maxNanos, nanos);
+        }
+
+        int getCount() {
+            return count;
+        }
+
+        long getTotalNanos() {
+            return totalNanos;
+        }
+
+        long getMaxNanos() {
+            return maxNanos;
+        }
+    }
+}
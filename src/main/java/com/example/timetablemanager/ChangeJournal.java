@@ -0,0 +1,650 @@
+package com.example.timetablemanager;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.sql.*;
+import java.text.SimpleDateFormat;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Append-only journal of the changes made through Database, kept in the Journal table of the
+ * database itself, so a change and its journal row are committed together.
+ *
+ * A row holds the primitive operations (see Op) that turned the state before it into the state
+ * after it. Undo and redo are journaled as new rows that apply the inverse or the original
+ * operations again, so applying the rows in order always reproduces the database, and applying
+ * their inverses newest first takes it back. restore() uses both to rebuild any earlier point.
+ *
+ * CLEAR and IMPORT rows mark changes that are not journaled operation by operation: the
+ * timetable was emptied, or rows came from a CSV import. Undo stops at them, and a restore to a
+ * point before one of them has to start from a backup (see DatabaseBackup) or an empty database.
+ */
+final class ChangeJournal {
+
+    /**
+     * What a journal row records. Stored by ordinal, so new kinds go at the end.
+     */
+    enum Kind {
+        CHANGE,  // a change made through Database
+        UNDO,    // the inverse of the CHANGE row {@code target}
+        REDO,    // the CHANGE row {@code target} once more
+        CLEAR,   // every timetable table was emptied
+        IMPORT,  // rows came from a CSV import
+        RESTORE  // the database was restored to the state after row {@code target}; changes nothing
+    }
+
+    /**
+     * The primitive operations changes are made of, each with a fixed number of arguments. Stored
+     * by ordinal, so new types go at the end.
+     */
+    enum OpType {
+        ADD_COURSE(4),       // courseName, lecturer, duration, timeToStart
+        REMOVE_COURSE(4),
+        ADD_STUDENT(1),      // studentName
+        REMOVE_STUDENT(1),
+        ADD_CLASSROOM(2),    // classroomName, capacity
+        REMOVE_CLASSROOM(2),
+        ALLOCATE(2),         // courseName, classroomName
+        DEALLOCATE(2),
+        MOVE(3),             // courseName, from classroomName, to classroomName
+        ENROLL(2),           // courseName, studentName
+        UNENROLL(2);
+
+        final int arity;
+
+        OpType(int arity) {
+            this.arity = arity;
+        }
+    }
+
+    private static final int CLEAR = Kind.CLEAR.ordinal();
+    private static final int IMPORT = Kind.IMPORT.ordinal();
+
+    // Undo and redo stacks as of row syncedSeq, most recent change first
+    private final Deque<Entry> undoable = new ArrayDeque<>();
+    private final Deque<Entry> redoable = new ArrayDeque<>();
+    private long syncedSeq = -1;
+
+    /**
+     * Appends a row on {@code conn}, inside the caller's transaction if one is open.
+     *
+     * @param target The row an UNDO, REDO or RESTORE row refers to, otherwise 0.
+     * @param ops    The operations of a CHANGE, UNDO or REDO row, otherwise null.
+     */
+    static void append(Connection conn, Kind kind, long target, String description, List<Op> ops) throws SQLException {
+        String sql = "INSERT INTO Journal (time, kind, target, description, ops) VALUES (?, ?, ?, ?, ?)";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setLong(1, System.currentTimeMillis());
+            pstmt.setInt(2, kind.ordinal());
+            if (target > 0) {
+                pstmt.setLong(3, target);
+            } else {
+                pstmt.setNull(3, Types.INTEGER);
+            }
+            pstmt.setString(4, description);
+            pstmt.setBytes(5, ops == null ? null : encode(ops));
+            pstmt.executeUpdate();
+        }
+    }
+
+    /**
+     * @return The most recent rows, newest first.
+     */
+    static List<Entry> entries(Connection conn, int limit) throws SQLException {
+        List<Entry> entries = new ArrayList<>();
+        String sql = "SELECT seq, time, kind, target, description FROM Journal ORDER BY seq DESC LIMIT ?";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    entries.add(new Entry(rs));
+                }
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * @return The change undo() would take back, or null if there is none.
+     */
+    synchronized Entry nextUndo(Connection conn) throws SQLException {
+        sync(conn);
+        return undoable.peek();
+    }
+
+    /**
+     * @return The change redo() would apply again, or null if there is none.
+     */
+    synchronized Entry nextRedo(Connection conn) throws SQLException {
+        sync(conn);
+        return redoable.peek();
+    }
+
+    /**
+     * Takes back the most recent change that is not undone yet, inside the caller's transaction.
+     *
+     * @return The operations applied to the database, or null if there was nothing to undo.
+     */
+    synchronized List<Op> undo(Connection conn) throws SQLException {
+        sync(conn);
+        Entry entry = undoable.peek();
+        if (entry == null) {
+            return null;
+        }
+        List<Op> ops = inverse(readOps(conn, entry.getSeq()));
+        apply(conn, ops);
+        append(conn, Kind.UNDO, entry.getSeq(), "Undo " + entry.getDescription(), ops);
+        return ops;
+    }
+
+    /**
+     * Applies the most recently undone change again, inside the caller's transaction.
+     *
+     * @return The operations applied to the database, or null if there was nothing to redo.
+     */
+    synchronized List<Op> redo(Connection conn) throws SQLException {
+        sync(conn);
+        Entry entry = redoable.peek();
+        if (entry == null) {
+            return null;
+        }
+        List<Op> ops = readOps(conn, entry.getSeq());
+        apply(conn, ops);
+        append(conn, Kind.REDO, entry.getSeq(), "Redo " + entry.getDescription(), ops);
+        return ops;
+    }
+
+    /**
+     * Catches up with the rows committed since the last call. The first call reads back to the
+     * last CLEAR or IMPORT row, which undo cannot go past.
+     */
+    private void sync(Connection conn) throws SQLException {
+        String sql = syncedSeq < 0
+                ? "SELECT seq, time, kind, target, description FROM Journal WHERE seq >= "
+                + "(SELECT IFNULL(MAX(seq), 0) FROM Journal WHERE kind IN (" + CLEAR + ", " + IMPORT + ")) ORDER BY seq"
+                : "SELECT seq, time, kind, target, description FROM Journal WHERE seq > ? ORDER BY seq";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            if (syncedSeq >= 0) {
+                pstmt.setLong(1, syncedSeq);
+            }
+            syncedSeq = Math.max(syncedSeq, 0);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    Entry entry = new Entry(rs);
+                    switch (entry.getKind()) {
+                        case CHANGE -> {
+                            undoable.push(entry);
+                            redoable.clear();
+                        }
+                        case UNDO -> move(undoable, redoable, entry.getTarget());
+                        case REDO -> move(redoable, undoable, entry.getTarget());
+                        case CLEAR, IMPORT -> {
+                            undoable.clear();
+                            redoable.clear();
+                        }
+                        case RESTORE -> {
+                            // The state is the one of the rows before it
+                        }
+                    }
+                    syncedSeq = entry.getSeq();
+                }
+            }
+        }
+    }
+
+    private static void move(Deque<Entry> from, Deque<Entry> to, long target) {
+        if (!from.isEmpty() && from.peek().getSeq() == target) {
+            to.push(from.pop());
+        } else {
+            // Not written by this class; better no history than a wrong one
+            from.clear();
+            to.clear();
+        }
+    }
+
+    private static List<Op> readOps(Connection conn, long seq) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT ops FROM Journal WHERE seq = ?")) {
+            pstmt.setLong(1, seq);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next()) {
+                    throw new SQLException("Journal entry #" + seq + " does not exist.");
+                }
+                return decode(rs.getBytes(1));
+            }
+        }
+    }
+
+    /**
+     * @return The operations that take the database back: the inverse of each operation, last one first.
+     */
+    static List<Op> inverse(List<Op> ops) {
+        List<Op> inverse = new ArrayList<>(ops.size());
+        for (int i = ops.size() - 1; i >= 0; i--) {
+            inverse.add(ops.get(i).inverse());
+        }
+        return inverse;
+    }
+
+    /**
+     * Applies operations to the database on {@code conn}, inside the caller's transaction.
+     */
+    static void apply(Connection conn, List<Op> ops) throws SQLException {
+        for (Op op : ops) {
+            String[] a = op.args;
+            switch (op.type) {
+                case ADD_COURSE -> {
+                    try (PreparedStatement pstmt = conn.prepareStatement(Database.INSERT_COURSE_SQL)) {
+                        Database.bindCourse(pstmt, a[0], a[1], Integer.parseInt(a[2]), a[3]);
+                        pstmt.executeUpdate();
+                    }
+                }
+                case REMOVE_COURSE -> update(conn, "DELETE FROM Courses WHERE courseName = ?", a[0]);
+                case ADD_STUDENT -> update(conn, Database.INSERT_STUDENT_SQL, a[0]);
+                case REMOVE_STUDENT -> update(conn, "DELETE FROM Students WHERE studentName = ?", a[0]);
+                case ADD_CLASSROOM -> {
+                    try (PreparedStatement pstmt = conn.prepareStatement(
+                            "INSERT INTO Classrooms (classroomName, capacity) VALUES (?, ?)")) {
+                        pstmt.setString(1, a[0]);
+                        pstmt.setInt(2, Integer.parseInt(a[1]));
+                        pstmt.executeUpdate();
+                    }
+                }
+                case REMOVE_CLASSROOM -> update(conn, "DELETE FROM Classrooms WHERE classroomName = ?", a[0]);
+                case ALLOCATE -> update(conn, Database.INSERT_ALLOCATION_SQL, a[0], a[1]);
+                case DEALLOCATE -> update(conn, "DELETE FROM Allocated WHERE courseId = " + Database.COURSE_ID
+                        + " AND classroomId = " + Database.CLASSROOM_ID, a[0], a[1]);
+                case MOVE -> update(conn, "UPDATE Allocated SET classroomId = " + Database.CLASSROOM_ID
+                        + " WHERE courseId = " + Database.COURSE_ID + " AND classroomId = " + Database.CLASSROOM_ID,
+                        a[2], a[0], a[1]);
+                case ENROLL -> {
+                    // The student row normally exists already (ADD_STUDENT comes first); this keeps replays safe
+                    update(conn, Database.INSERT_STUDENT_SQL, a[1]);
+                    update(conn, Database.INSERT_ENROLLMENT_SQL, a[0], a[1]);
+                }
+                case UNENROLL -> update(conn, "DELETE FROM Enrollments WHERE courseId = " + Database.COURSE_ID
+                        + " AND studentId = " + Database.STUDENT_ID, a[0], a[1]);
+            }
+        }
+    }
+
+    private static void update(Connection conn, String sql, String... params) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < params.length; i++) {
+                pstmt.setString(i + 1, params[i]);
+            }
+            pstmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Writes a copy of the database as it was right after row {@code seq} to {@code target}, with
+     * the journal up to that row followed by a RESTORE row.
+     *
+     * If no CLEAR or IMPORT row came after it, the live database is copied and rewound by applying
+     * the inverse of every later row, newest first. Otherwise the copy starts from the newest backup
+     * taken between the last CLEAR or IMPORT row before {@code seq} and {@code seq} itself (or from
+     * an empty database if that row is a CLEAR) and the rows in between are applied again.
+     *
+     * @param live    A connection to the live database; it is only read.
+     * @param backups Backups to start from, newest first (see DatabaseBackup.list).
+     */
+    static void restore(Connection live, long seq, List<File> backups, File target) throws SQLException, IOException {
+        if (rowTime(live, seq) == null) {
+            throw new SQLException("Journal entry #" + seq + " does not exist.");
+        }
+        long latest = queryLong(live, "SELECT IFNULL(MAX(seq), 0) FROM Journal");
+        Files.deleteIfExists(target.toPath());
+
+        if (queryLong(live, "SELECT COUNT(*) FROM Journal WHERE seq > ? AND kind IN (" + CLEAR + ", " + IMPORT + ")", seq) == 0) {
+            try (Statement stmt = live.createStatement()) {
+                stmt.executeUpdate("backup to \"" + target.getAbsolutePath() + "\"");
+            }
+            try (Connection copy = open(target)) {
+                rewind(copy, seq);
+            }
+        } else {
+            long reset = queryLong(live, "SELECT IFNULL(MAX(seq), 0) FROM Journal WHERE seq <= ? AND kind IN ("
+                    + CLEAR + ", " + IMPORT + ")", seq);
+            if (!replayOntoBackup(live, seq, reset, backups, target)) {
+                if (reset == 0 || queryLong(live, "SELECT kind FROM Journal WHERE seq = ?", reset) != CLEAR) {
+                    throw new SQLException("No backup holds the timetable as it was at journal entry #" + seq
+                            + ". A restore to a point after a CSV import needs a backup taken after that import.");
+                }
+                Files.deleteIfExists(target.toPath());
+                try (Connection copy = open(target)) {
+                    Database.createTables(copy);
+                    SchemaMigrations.migrate(copy);
+                    try (Statement stmt = copy.createStatement()) {
+                        stmt.executeUpdate("DELETE FROM Journal");
+                    }
+                    replay(live, copy, 0, reset, seq);
+                }
+            }
+        }
+
+        try (Connection copy = open(target)) {
+            // New rows continue after the live journal, so their numbers never repeat ones of the discarded rows
+            try (PreparedStatement pstmt = copy.prepareStatement("UPDATE sqlite_sequence SET seq = ? WHERE name = 'Journal'")) {
+                pstmt.setLong(1, latest);
+                pstmt.executeUpdate();
+            }
+            append(copy, Kind.RESTORE, seq, "Restored to #" + seq, null);
+        }
+    }
+
+    /**
+     * Applies the inverse of every row after {@code seq}, newest first, and drops those rows.
+     */
+    private static void rewind(Connection copy, long seq) throws SQLException {
+        List<List<Op>> later = new ArrayList<>();
+        try (PreparedStatement pstmt = copy.prepareStatement("SELECT ops FROM Journal WHERE seq > ? ORDER BY seq DESC")) {
+            pstmt.setLong(1, seq);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    later.add(decode(rs.getBytes(1)));
+                }
+            }
+        }
+        copy.setAutoCommit(false);
+        for (List<Op> ops : later) {
+            apply(copy, inverse(ops));
+        }
+        try (PreparedStatement pstmt = copy.prepareStatement("DELETE FROM Journal WHERE seq > ?")) {
+            pstmt.setLong(1, seq);
+            pstmt.executeUpdate();
+        }
+        copy.commit();
+        copy.setAutoCommit(true);
+    }
+
+    /**
+     * Tries the backups newest first and replays the live rows after the first one that fits.
+     * A backup fits if its journal ends between {@code reset} and {@code seq} at a row that is the
+     * same in the live journal, i.e. it was taken on the way to {@code seq}.
+     */
+    private static boolean replayOntoBackup(Connection live, long seq, long reset, List<File> backups, File target)
+            throws SQLException, IOException {
+        for (File backup : backups) {
+            try (InputStream in = new GZIPInputStream(new BufferedInputStream(new FileInputStream(backup)))) {
+                Files.copy(in, target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                System.err.println("Skipping unreadable backup " + backup + ": " + e.getMessage());
+                continue;
+            }
+            try (Connection copy = open(target)) {
+                SchemaMigrations.migrate(copy);
+                long base = queryLong(copy, "SELECT IFNULL(MAX(seq), 0) FROM Journal");
+                if (base < reset || base > seq || base == 0 || !Objects.equals(rowTime(copy, base), rowTime(live, base))) {
+                    continue;
+                }
+                System.out.println("Restoring from " + backup.getName() + " (journal entry #" + base + ").");
+                replay(live, copy, base, base, seq);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Copies the live rows in {@code (from, to]} into the copy's journal and applies the operations
+     * of those in {@code (applyFrom, to]}.
+     */
+    private static void replay(Connection live, Connection copy, long from, long applyFrom, long to) throws SQLException {
+        String select = "SELECT seq, time, kind, target, description, ops FROM Journal WHERE seq > ? AND seq <= ? ORDER BY seq";
+        String insert = "INSERT INTO Journal (seq, time, kind, target, description, ops) VALUES (?, ?, ?, ?, ?, ?)";
+        copy.setAutoCommit(false);
+        try (PreparedStatement rows = live.prepareStatement(select);
+             PreparedStatement pstmt = copy.prepareStatement(insert)) {
+            rows.setLong(1, from);
+            rows.setLong(2, to);
+            try (ResultSet rs = rows.executeQuery()) {
+                while (rs.next()) {
+                    long seq = rs.getLong("seq");
+                    byte[] ops = rs.getBytes("ops");
+                    if (seq > applyFrom && ops != null) {
+                        apply(copy, decode(ops));
+                    }
+                    pstmt.setLong(1, seq);
+                    pstmt.setLong(2, rs.getLong("time"));
+                    pstmt.setInt(3, rs.getInt("kind"));
+                    pstmt.setObject(4, rs.getObject("target"));
+                    pstmt.setString(5, rs.getString("description"));
+                    pstmt.setBytes(6, ops);
+                    pstmt.executeUpdate();
+                }
+            }
+        }
+        copy.commit();
+        copy.setAutoCommit(true);
+    }
+
+    private static Connection open(File file) throws SQLException {
+        Connection conn = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("PRAGMA foreign_keys = ON");
+        }
+        return conn;
+    }
+
+    private static Long rowTime(Connection conn, long seq) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT time FROM Journal WHERE seq = ?")) {
+            pstmt.setLong(1, seq);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : null;
+            }
+        }
+    }
+
+    private static long queryLong(Connection conn, String sql, long... params) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < params.length; i++) {
+                pstmt.setLong(i + 1, params[i]);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        }
+    }
+
+    /**
+     * Operations are stored as a count followed by, per operation, its type and its arguments
+     * (a presence flag, then the modified UTF-8 string).
+     */
+    static byte[] encode(List<Op> ops) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(4 + 24 * ops.size());
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(ops.size());
+            for (Op op : ops) {
+                out.writeByte(op.type.ordinal());
+                for (String arg : op.args) {
+                    out.writeBoolean(arg != null);
+                    if (arg != null) {
+                        out.writeUTF(arg);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // an in-memory stream does not fail
+        }
+        return bytes.toByteArray();
+    }
+
+    static List<Op> decode(byte[] bytes) {
+        if (bytes == null) {
+            return List.of();
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            int count = in.readInt();
+            List<Op> ops = new ArrayList<>(count);
+            OpType[] types = OpType.values();
+            for (int i = 0; i < count; i++) {
+                OpType type = types[in.readUnsignedByte()];
+                String[] args = new String[type.arity];
+                for (int j = 0; j < args.length; j++) {
+                    args[j] = in.readBoolean() ? in.readUTF() : null;
+                }
+                ops.add(new Op(type, args));
+            }
+            return ops;
+        } catch (IOException | ArrayIndexOutOfBoundsException e) {
+            throw new IllegalStateException("Corrupt journal entry", e);
+        }
+    }
+
+    /**
+     * One primitive operation; the factory methods name its arguments.
+     */
+    static final class Op {
+        final OpType type;
+        final String[] args;
+
+        private Op(OpType type, String... args) {
+            this.type = type;
+            this.args = args;
+        }
+
+        static Op addCourse(String courseName, String lecturer, int duration, String timeToStart) {
+            return new Op(OpType.ADD_COURSE, courseName, lecturer, String.valueOf(duration), timeToStart);
+        }
+
+        static Op removeCourse(String courseName, String lecturer, int duration, String timeToStart) {
+            return new Op(OpType.REMOVE_COURSE, courseName, lecturer, String.valueOf(duration), timeToStart);
+        }
+
+        static Op addStudent(String studentName) {
+            return new Op(OpType.ADD_STUDENT, studentName);
+        }
+
+        static Op addClassroom(String classroomName, int capacity) {
+            return new Op(OpType.ADD_CLASSROOM, classroomName, String.valueOf(capacity));
+        }
+
+        static Op allocate(String courseName, String classroomName) {
+            return new Op(OpType.ALLOCATE, courseName, classroomName);
+        }
+
+        static Op deallocate(String courseName, String classroomName) {
+            return new Op(OpType.DEALLOCATE, courseName, classroomName);
+        }
+
+        static Op move(String courseName, String fromClassroom, String toClassroom) {
+            return new Op(OpType.MOVE, courseName, fromClassroom, toClassroom);
+        }
+
+        static Op enroll(String courseName, String studentName) {
+            return new Op(OpType.ENROLL, courseName, studentName);
+        }
+
+        static Op unenroll(String courseName, String studentName) {
+            return new Op(OpType.UNENROLL, courseName, studentName);
+        }
+
+        Op inverse() {
+            return switch (type) {
+                case ADD_COURSE -> new Op(OpType.REMOVE_COURSE, args);
+                case REMOVE_COURSE -> new Op(OpType.ADD_COURSE, args);
+                case ADD_STUDENT -> new Op(OpType.REMOVE_STUDENT, args);
+                case REMOVE_STUDENT -> new Op(OpType.ADD_STUDENT, args);
+                case ADD_CLASSROOM -> new Op(OpType.REMOVE_CLASSROOM, args);
+                case REMOVE_CLASSROOM -> new Op(OpType.ADD_CLASSROOM, args);
+                case ALLOCATE -> new Op(OpType.DEALLOCATE, args);
+                case DEALLOCATE -> new Op(OpType.ALLOCATE, args);
+                case MOVE -> new Op(OpType.MOVE, args[0], args[2], args[1]);
+                case ENROLL -> new Op(OpType.UNENROLL, args);
+                case UNENROLL -> new Op(OpType.ENROLL, args);
+            };
+        }
+
+        @Override
+        public String toString() {
+            return type + Arrays.toString(args);
+        }
+    }
+
+    /**
+     * One undoable step: a description for the UI and its operations in the order they were applied.
+     */
+    static final class Change {
+        private String description;
+        private final List<Op> ops = new ArrayList<>();
+
+        Change(String description) {
+            this.description = description;
+        }
+
+        Change add(Op op) {
+            ops.add(op);
+            return this;
+        }
+
+        /**
+         * Adds the operations of a later change, so both are undone as one step.
+         */
+        Change append(Change other) {
+            if (!other.isEmpty()) {
+                description = isEmpty() ? other.description : description + "; " + other.description;
+                ops.addAll(other.ops);
+            }
+            return this;
+        }
+
+        String getDescription() {
+            return description;
+        }
+
+        List<Op> getOps() {
+            return ops;
+        }
+
+        boolean isEmpty() {
+            return ops.isEmpty();
+        }
+    }
+
+    /**
+     * A journal row without its operations, as listed in the history.
+     */
+    static final class Entry {
+        private final long seq;
+        private final long time;
+        private final Kind kind;
+        private final long target;
+        private final String description;
+
+        private Entry(ResultSet rs) throws SQLException {
+            this.seq = rs.getLong("seq");
+            this.time = rs.getLong("time");
+            this.kind = Kind.values()[rs.getInt("kind")];
+            this.target = rs.getLong("target");
+            this.description = rs.getString("description");
+        }
+
+        long getSeq() {
+            return seq;
+        }
+
+        long getTime() {
+            return time;
+        }
+
+        Kind getKind() {
+            return kind;
+        }
+
+        long getTarget() {
+            return target;
+        }
+
+        String getDescription() {
+            return description;
+        }
+
+        @Override
+        public String toString() {
+            return "#" + seq + "  " + new SimpleDateFormat("dd.MM.yy HH:mm:ss").format(new java.util.Date(time))
+                    + "  " + description;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.timetablemanager;
+
+import java.util.*;
+
+/**
+ * Assigns classrooms to every course that does not have one yet, in a single run.
+ *
+ * Courses that already have a classroom are kept as they are and block their slots.
+ * The remaining courses are placed greedily, hardest first (most students, then longest),
+ * each into the smallest free classroom that can hold it. Rooms are kept sorted by capacity,
+ * so finding the first room that is large enough is a binary search and each candidate room
+ * is checked with one bitmap lookup.
+ */
+public class ClassroomAssignmentSolver {
+
+    /**
+     * Outcome of a solver run: the new course -> classroom assignments and, for every
+     * course that could not be placed, the reason why.
+     */
+    public static class Result {
+        private final Map<String, String> assignments = new LinkedHashMap<>();
+        private final Map<String, String> unplaced = new LinkedHashMap<>();
+
+        public Map<String, String> getAssignments() {
+            return assignments;
+        }
+
+        public Map<String, String> getUnplaced() {
+            return unplaced;
+        }
+    }
+
+    private final List<Course> courses;
+    private final String[] roomNames;
+    private final int[] roomCapacities;
+
+    /**
+     * @param courses             All courses; those with a classroom are treated as fixed.
+     * @param classroomCapacities Classroom name -> capacity.
+     */
+    public ClassroomAssignmentSolver(List<Course> courses, Map<String, Integer> classroomCapacities) {
+        this.courses = courses;
+
+        List<Map.Entry<String, Integer>> rooms = new ArrayList<>(classroomCapacities.entrySet());
+        rooms.sort(Map.Entry.comparingByValue());
+        this.roomNames = new String[rooms.size()];
+        this.roomCapacities = new int[rooms.size()];
+        for (int i = 0; i < rooms.size(); i++) {
+            roomNames[i] = rooms.get(i).getKey();
+            roomCapacities[i] = rooms.get(i).getValue();
+        }
+    }
+
+    public Result solve() {
+        Result result = new Result();
+        SlotOccupancyIndex occupancy = new SlotOccupancyIndex();
+        List<Course> pending = new ArrayList<>();
+
+        for (Course course : courses) {
+            String classroom = course.getClassroom();
+            if (classroom != null && !classroom.isBlank()) {
+                place(occupancy, classroom, course);
+            } else {
+                pending.add(course);
+            }
+        }
+
+        pending.sort(Comparator.comparingInt(ClassroomAssignmentSolver::enrolled).reversed()
+                .thenComparing(Comparator.comparingInt(Course::getDuration).reversed())
+                .thenComparing(Course::getCourseID));
+
+        int largest = roomCapacities.length == 0 ? 0 : roomCapacities[roomCapacities.length - 1];
+
+        for (Course course : pending) {
+            String time = TimeSlots.timePart(course.getTimeToStart());
+            int day = TimeSlots.dayIndex(TimeSlots.dayPart(course.getTimeToStart()));
+            int startSlot = TimeSlots.startSlot(time);
+            if (day < 0 || startSlot < 0) {
+                result.unplaced.put(course.getCourseID(), "Invalid or missing time: \"" + course.getTimeToStart() + "\"");
+                continue;
+            }
+            // A bad time is the reason even if no room is free; the slots past the day would never clash
+            if (course.getDuration() < 1) {
+                result.unplaced.put(course.getCourseID(), "Invalid duration: " + course.getDuration());
+                continue;
+            }
+            if (!TimeSlots.fitsInDay(time, course.getDuration())) {
+                result.unplaced.put(course.getCourseID(), "Runs past the end of the day: " + course.getDuration()
+                        + " lectures from " + course.getTimeToStart());
+                continue;
+            }
+            int endSlot = TimeSlots.endSlot(time, course.getDuration());
+
+            int students = enrolled(course);
+            int first = firstRoomWithCapacity(students);
+            if (first == roomCapacities.length) {
+                result.unplaced.put(course.getCourseID(), roomNames.length == 0
+                        ? "There are no classrooms"
+                        : "No classroom can hold " + students + " students (largest capacity: " + largest + ")");
+                continue;
+            }
+
+            String chosen = null;
+            for (int i = first; i < roomNames.length; i++) {
+                if (occupancy.isFree(roomNames[i], day, startSlot, endSlot)) {
+                    chosen = roomNames[i];
+                    break;
+                }
+            }
+
+            if (chosen == null) {
+                result.unplaced.put(course.getCourseID(), "All " + (roomNames.length - first)
+                        + " classrooms with enough capacity are taken on " + course.getTimeToStart());
+            } else {
+                occupancy.add(chosen, course.getCourseID(), day, startSlot, endSlot);
+                result.assignments.put(course.getCourseID(), chosen);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return Index of the smallest room with at least {@code students} seats, or the room count if none.
+     */
+    private int firstRoomWithCapacity(int students) {
+        int low = 0;
+        int high = roomCapacities.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (roomCapacities[mid] < students) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static void place(SlotOccupancyIndex occupancy, String classroom, Course course) {
+        String time = TimeSlots.timePart(course.getTimeToStart());
+        occupancy.add(classroom, course.getCourseID(),
+                TimeSlots.dayIndex(TimeSlots.dayPart(course.getTimeToStart())),
+                TimeSlots.startSlot(time),
+                TimeSlots.endSlot(time, course.getDuration()));
+    }
+
+    private static int enrolled(Course course) {
+        return course.getStudents() != null ? course.getStudents().size() : 0;
+    }
+}
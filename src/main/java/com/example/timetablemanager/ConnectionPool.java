@@ -0,0 +1,431 @@
+package com.example.timetablemanager;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A small pool for one SQLite database file: one writer connection and a fixed number of
+ * read-only reader connections, all in WAL mode so readers never wait for the writer.
+ *
+ * Connections are handed out as leases that must be closed (try-with-resources); closing a
+ * lease returns the connection to the pool instead of closing it. The writer is guarded by
+ * a reentrant lock, so a thread that already holds it (e.g. inside
+ * Database.beginTransaction) gets the same connection again and joins its transaction.
+ *
+ * Leases held longer than the leak threshold are reported once, together with the stack
+ * trace of the code that acquired them.
+ *
+ * Every connection is tuned with the same pragmas (see configure) and keeps an LRU cache of
+ * its prepared statements (see StatementCache).
+ */
+public class ConnectionPool implements AutoCloseable {
+
+    private static final long ACQUIRE_TIMEOUT_MILLIS = 30_000;
+    private static final long LEAK_THRESHOLD_MILLIS = 60_000;
+    private static final int BUSY_TIMEOUT_MILLIS = 5_000;
+    private static final int PAGE_CACHE_KIB = 16 * 1024;
+    private static final long MMAP_SIZE_BYTES = 256L * 1024 * 1024;
+    private static final int STATEMENT_CACHE_SIZE = 64;
+
+    /**
+     * Last work on the writer connection while the pool closes (see close(CloseAction)).
+     */
+    public interface CloseAction {
+        void run(Connection writer) throws SQLException;
+    }
+
+    private final Connection writer;
+    private final ReentrantLock writerLock = new ReentrantLock(true);
+    private final BlockingQueue<Connection> idleReaders;
+    private final List<Connection> allReaders = new ArrayList<>();
+    private final Map<Connection, StatementCache> statementCaches = new ConcurrentHashMap<>();
+
+    private final Map<Connection, Lease> activeLeases = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService leakDetector;
+    private volatile boolean closed;
+
+    // Metrics
+    private final AtomicLong readerAcquisitions = new AtomicLong();
+    private final AtomicLong writerAcquisitions = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong leaks = new AtomicLong();
+    private final AtomicLong statementCacheHits = new AtomicLong();
+    private final AtomicLong statementCacheMisses = new AtomicLong();
+
+    /**
+     * Opens all connections up front.
+     *
+     * @param url         JDBC URL of the database.
+     * @param readerCount Number of reader connections (at least 1).
+     */
+    public ConnectionPool(String url, int readerCount) throws SQLException {
+        writer = DriverManager.getConnection(url);
+        try (Statement stmt = writer.createStatement()) {
+            stmt.execute("PRAGMA journal_mode = WAL");
+        }
+        configure(writer, false);
+
+        int readers = Math.max(1, readerCount);
+        idleReaders = new ArrayBlockingQueue<>(readers);
+        try {
+            for (int i = 0; i < readers; i++) {
+                Connection reader = DriverManager.getConnection(url);
+                allReaders.add(reader);
+                configure(reader, true);
+                idleReaders.add(reader);
+            }
+        } catch (SQLException e) {
+            closeQuietly();
+            throw e;
+        }
+
+        leakDetector = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "connection-leak-detector");
+            thread.setDaemon(true);
+            return thread;
+        });
+        leakDetector.scheduleWithFixedDelay(this::reportLeaks, LEAK_THRESHOLD_MILLIS, LEAK_THRESHOLD_MILLIS / 2,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Per-connection settings:
+     * <ul>
+     *     <li>synchronous = NORMAL: in WAL mode a commit no longer waits for fsync, only checkpoints do;
+     *     a power loss can lose the last commits but never corrupts the database</li>
+     *     <li>cache_size / mmap_size: a larger page cache, and reads straight from the memory-mapped file</li>
+     *     <li>foreign_keys = ON: SQLite ignores the REFERENCES / ON DELETE CASCADE clauses without it</li>
+     *     <li>query_only (readers): a reader can never write by accident</li>
+     * </ul>
+     */
+    private void configure(Connection connection, boolean readOnly) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("PRAGMA busy_timeout = " + BUSY_TIMEOUT_MILLIS);
+            stmt.execute("PRAGMA synchronous = NORMAL");
+            stmt.execute("PRAGMA cache_size = -" + PAGE_CACHE_KIB);
+            stmt.execute("PRAGMA mmap_size = " + MMAP_SIZE_BYTES);
+            stmt.execute("PRAGMA foreign_keys = ON");
+            if (readOnly) {
+                stmt.execute("PRAGMA query_only = ON");
+            }
+        }
+        statementCaches.put(connection, new StatementCache(connection, STATEMENT_CACHE_SIZE,
+                statementCacheHits, statementCacheMisses));
+    }
+
+    /**
+     * Borrows a read-only connection; waits if all readers are in use.
+     */
+    public Connection reader() throws SQLException {
+        ensureOpen();
+        long start = System.nanoTime();
+        Connection reader;
+        try {
+            reader = idleReaders.poll(ACQUIRE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a reader connection", e);
+        }
+        if (reader == null) {
+            timeouts.incrementAndGet();
+            throw new SQLException("Timed out after " + ACQUIRE_TIMEOUT_MILLIS + " ms waiting for a reader connection");
+        }
+        recordWait(start);
+        readerAcquisitions.incrementAndGet();
+        return lease(reader, false);
+    }
+
+    /**
+     * Borrows the writer connection; waits while another thread holds it.
+     */
+    public Connection writer() throws SQLException {
+        ensureOpen();
+        long start = System.nanoTime();
+        try {
+            if (!writerLock.tryLock(ACQUIRE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                timeouts.incrementAndGet();
+                throw new SQLException("Timed out after " + ACQUIRE_TIMEOUT_MILLIS + " ms waiting for the writer connection");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for the writer connection", e);
+        }
+        recordWait(start);
+        writerAcquisitions.incrementAndGet();
+        return lease(writer, true);
+    }
+
+    /**
+     * @return True if the calling thread currently holds the writer.
+     */
+    public boolean holdsWriter() {
+        return writerLock.isHeldByCurrentThread();
+    }
+
+    public Metrics getMetrics() {
+        return new Metrics(readerAcquisitions.get(), writerAcquisitions.get(), totalWaitNanos.get(), maxWaitNanos.get(),
+                timeouts.get(), leaks.get(), allReaders.size() - idleReaders.size(), writerLock.isLocked(),
+                statementCacheHits.get(), statementCacheMisses.get());
+    }
+
+    @Override
+    public void close() {
+        close(null);
+    }
+
+    /**
+     * Closes the pool like close(), but first runs {@code lastAction} on the writer. No lease can be
+     * acquired any more and no write is in progress at that point, so the action sees the final
+     * state of the database. It is skipped if the writer could not be acquired in time.
+     */
+    public void close(CloseAction lastAction) {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        leakDetector.shutdownNow();
+        Metrics metrics = getMetrics();
+
+        // Give a running write (e.g. a cancelled import) the chance to roll back first
+        boolean writerFree = false;
+        try {
+            writerFree = writerLock.tryLock(ACQUIRE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            if (!activeLeases.isEmpty()) {
+                System.err.println("Closing connection pool with " + activeLeases.size() + " connection(s) still in use.");
+            }
+            if (writerFree && lastAction != null) {
+                try {
+                    lastAction.run(writer);
+                } catch (SQLException | RuntimeException e) {
+                    System.err.println("Error while closing the connection pool: " + e.getMessage());
+                }
+            }
+            if (writerFree) {
+                // Fold the WAL back into the database file so copies of the .db file are complete
+                try (Statement stmt = writer.createStatement()) {
+                    stmt.execute("PRAGMA wal_checkpoint(TRUNCATE)");
+                } catch (SQLException e) {
+                    System.err.println("WAL checkpoint failed: " + e.getMessage());
+                }
+            }
+            System.out.println("Connection pool closed. " + metrics);
+            closeQuietly();
+        } finally {
+            if (writerFree) {
+                writerLock.unlock();
+            }
+        }
+    }
+
+    private void closeQuietly() {
+        List<Connection> connections = new ArrayList<>(allReaders);
+        connections.add(writer);
+        for (Connection connection : connections) {
+            StatementCache cache = statementCaches.remove(connection);
+            if (cache != null) {
+                cache.clear();
+            }
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                System.err.println("Error while closing pooled connection: " + e.getMessage());
+            }
+        }
+    }
+
+    private void ensureOpen() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+    }
+
+    private void recordWait(long start) {
+        long waited = System.nanoTime() - start;
+        totalWaitNanos.addAndGet(waited);
+        maxWaitNanos.accumulateAndGet(waited, Math::max);
+    }
+
+    /**
+     * Wraps the physical connection so that close() hands it back to the pool.
+     */
+    private Connection lease(Connection physical, boolean isWriter) {
+        Lease lease = new Lease(physical, isWriter);
+        // The writer can be leased several times by the same thread; only the outermost lease is tracked
+        activeLeases.putIfAbsent(physical, lease);
+        StatementCache cache = statementCaches.get(physical);
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "close":
+                            lease.release();
+                            return null;
+                        case "isClosed":
+                            return lease.released || physical.isClosed();
+                        case "unwrap":
+                        case "isWrapperFor":
+                            break;
+                        default:
+                            if (lease.released) {
+                                throw new SQLException("Connection lease has already been returned to the pool");
+                            }
+                            if (method.getName().equals("prepareStatement") && args.length == 1) {
+                                return cache.prepare((String) args[0]);
+                            }
+                    }
+                    return invoke(physical, method, args);
+                });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void reportLeaks() {
+        long now = System.nanoTime();
+        for (Lease lease : activeLeases.values()) {
+            long heldMillis = TimeUnit.NANOSECONDS.toMillis(now - lease.acquiredAt);
+            if (heldMillis > LEAK_THRESHOLD_MILLIS && !lease.reported) {
+                lease.reported = true;
+                leaks.incrementAndGet();
+                System.err.println("Possible connection leak: " + (lease.isWriter ? "writer" : "reader")
+                        + " held by thread '" + lease.threadName + "' for " + heldMillis + " ms, acquired at:");
+                lease.acquiredBy.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * One borrowing of a connection.
+     */
+    private class Lease {
+        final Connection physical;
+        final boolean isWriter;
+        final long acquiredAt = System.nanoTime();
+        final String threadName = Thread.currentThread().getName();
+        final Throwable acquiredBy = new Throwable("Connection acquired here");
+        volatile boolean released;
+        volatile boolean reported;
+
+        Lease(Connection physical, boolean isWriter) {
+            this.physical = physical;
+            this.isWriter = isWriter;
+        }
+
+        synchronized void release() {
+            if (released) {
+                return;
+            }
+            released = true;
+            // Only removes the outermost lease of the writer; nested ones were never tracked
+            activeLeases.remove(physical, this);
+            if (isWriter) {
+                writerLock.unlock();
+            } else {
+                idleReaders.offer(physical);
+            }
+        }
+    }
+
+    /**
+     * Snapshot of the pool counters.
+     */
+    public static class Metrics {
+        private final long readerAcquisitions;
+        private final long writerAcquisitions;
+        private final long totalWaitNanos;
+        private final long maxWaitNanos;
+        private final long timeouts;
+        private final long leaks;
+        private final int activeReaders;
+        private final boolean writerInUse;
+        private final long statementCacheHits;
+        private final long statementCacheMisses;
+
+        Metrics(long readerAcquisitions, long writerAcquisitions, long totalWaitNanos, long maxWaitNanos,
+                long timeouts, long leaks, int activeReaders, boolean writerInUse,
+                long statementCacheHits, long statementCacheMisses) {
+            this.readerAcquisitions = readerAcquisitions;
+            this.writerAcquisitions = writerAcquisitions;
+            this.totalWaitNanos = totalWaitNanos;
+            this.maxWaitNanos = maxWaitNanos;
+            this.timeouts = timeouts;
+            this.leaks = leaks;
+            this.activeReaders = activeReaders;
+            this.writerInUse = writerInUse;
+            this.statementCacheHits = statementCacheHits;
+            this.statementCacheMisses = statementCacheMisses;
+        }
+
+        public long getReaderAcquisitions() {
+            return readerAcquisitions;
+        }
+
+        public long getWriterAcquisitions() {
+            return writerAcquisitions;
+        }
+
+        public long getTotalWaitNanos() {
+            return totalWaitNanos;
+        }
+
+        public long getMaxWaitNanos() {
+            return maxWaitNanos;
+        }
+
+        public long getTimeouts() {
+            return timeouts;
+        }
+
+        public long getLeaks() {
+            return leaks;
+        }
+
+        public int getActiveReaders() {
+            return activeReaders;
+        }
+
+        public boolean isWriterInUse() {
+            return writerInUse;
+        }
+
+        public long getStatementCacheHits() {
+            return statementCacheHits;
+        }
+
+        public long getStatementCacheMisses() {
+            return statementCacheMisses;
+        }
+
+        @Override
+        public String toString() {
+            long acquisitions = readerAcquisitions + writerAcquisitions;
+            return String.format("Acquisitions: %d reader / %d writer, wait avg %.3f ms max %.3f ms, "
+                            + "timeouts: %d, leaks: %d, in use: %d reader(s)%s, statement cache: %d hits / %d misses",
+                    readerAcquisitions, writerAcquisitions,
+                    acquisitions == 0 ? 0.0 : totalWaitNanos / 1e6 / acquisitions, maxWaitNanos / 1e6,
+                    timeouts, leaks, activeReaders, writerInUse ? " + writer" : "",
+                    statementCacheHits, statementCacheMisses);
+        }
+    }
+}
@@ -43,6 +43,27 @@ public class Course {
         return "N/A";
     }
 
+    /**
+     * @return The 0-based day (Monday = 0), or -1 if timeToStart has no valid day.
+     */
+    public int getDayIndex() {
+        return TimeSlots.dayIndex(TimeSlots.dayPart(timeToStart));
+    }
+
+    /**
+     * @return The first slot of the course (see TimeSlots), or -1 if the time is outside the grid.
+     */
+    public int getStartSlot() {
+        return TimeSlots.startSlot(TimeSlots.timePart(timeToStart));
+    }
+
+    /**
+     * @return The slot after the last one the course covers, or -1 if the time is outside the grid.
+     */
+    public int getEndSlot() {
+        return TimeSlots.endSlot(TimeSlots.timePart(timeToStart), duration);
+    }
+
     /* */
     public void assignClassroom(String classroom) {
         this.classroom = classroom;
@@ -7,7 +7,6 @@ import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.stage.Stage;
 
-import java.io.File;
 import java.io.IOException;
 import java.sql.*;
 
@@ -31,10 +30,6 @@ public class CourseSchedulerController {
         this.mainController = mainController;
     }
 
-    private static final String dbPath = System.getProperty("user.home") + File.separator + "Documents" + File.separator + "TimetableManagement";
-    private static final String DB_URL = "jdbc:sqlite:" + dbPath + File.separator + "TimetableManagement.db";
-    private Connection conn = null;
-
     private Course currentCourse; // To keep track of the current course
 
     public ttManagerController getMainController() {
@@ -43,42 +38,33 @@ public class CourseSchedulerController {
 
     @FXML
     public void initialize() {
-        try {
-            conn = DriverManager.getConnection(DB_URL);
-            System.out.println("Connected to the database.");
+        // Removed loadCourseData(); since we use setCourseData
 
-            // Removed loadCourseData(); since we use setCourseData
+        loadStudents();
 
-            loadStudents();
+        deleteCourseButton.setOnAction(event -> deleteCourse());
 
-            deleteCourseButton.setOnAction(event -> deleteCourse());
+        // Double-click on classroom label to open Classroom Scheduler
+        classroomLbl.setOnMouseClicked(event -> {
+            if (event.getClickCount() == 2) { // Double-click
+                String selectedClassroom = classroomLbl.getText();
+                openClassroomDetails(selectedClassroom);
+            }
+        });
 
-            // Double-click on classroom label to open Classroom Scheduler
-            classroomLbl.setOnMouseClicked(event -> {
-                if (event.getClickCount() == 2) { // Double-click
-                    String selectedClassroom = classroomLbl.getText();
-                    openClassroomDetails(selectedClassroom);
+        // Double-click on student to open Student Details
+        studentsListView.setOnMouseClicked(event -> {
+            if (event.getClickCount() == 2) {
+                String selectedStudent = studentsListView.getSelectionModel().getSelectedItem();
+                if (selectedStudent != null) {
+                    System.out.println(selectedStudent);
+                    openStudentDetails(selectedStudent);
                 }
-            });
-
-            // Double-click on student to open Student Details
-            studentsListView.setOnMouseClicked(event -> {
-                if (event.getClickCount() == 2) {
-                    String selectedStudent = studentsListView.getSelectionModel().getSelectedItem();
-                    if (selectedStudent != null) {
-                        System.out.println(selectedStudent);
-                        openStudentDetails(selectedStudent);
-                    }
-                }
-            });
-
-            // Handle Back Button
-            backButton.setOnAction(event -> handleBackButton());
+            }
+        });
 
-        } catch (SQLException e) {
-            System.err.println("Failed to connect to the database: " + e.getMessage());
-            showAlert(Alert.AlertType.ERROR, "Database Connection Error", "Failed to connect to the database.");
-        }
+        // Handle Back Button
+        backButton.setOnAction(event -> handleBackButton());
     }
 
     /**
@@ -107,7 +93,8 @@ public class CourseSchedulerController {
     public void loadStudents() {
         String query = "SELECT studentName FROM Students";
 
-        try (PreparedStatement pstmt = conn.prepareStatement(query);
+        try (Connection conn = Database.reader();
+             PreparedStatement pstmt = conn.prepareStatement(query);
              ResultSet rs = pstmt.executeQuery()) {
             while (rs.next()) {
                 studentsListView.getItems().add(rs.getString("studentName"));
@@ -135,71 +122,21 @@ public class CourseSchedulerController {
 
         confirmationDialog.showAndWait().ifPresent(response -> {
             if (response == ButtonType.OK) {
-                // Delete course from database
-                String deleteQuery = "DELETE FROM Courses WHERE courseName = ?";
-                String deleteAllocationQuery = "DELETE FROM Allocated WHERE courseName = ?";
-                String deleteEnrollmentsQuery = "DELETE FROM Enrollments WHERE courseName = ?";
-
-                try (PreparedStatement pstmtCourse = conn.prepareStatement(deleteQuery);
-                     PreparedStatement pstmtAllocation = conn.prepareStatement(deleteAllocationQuery);
-                     PreparedStatement pstmtEnrollments = conn.prepareStatement(deleteEnrollmentsQuery)) {
-
-                    // Start transaction
-                    conn.setAutoCommit(false);
-
-                    // Delete from Enrollments
-                    pstmtEnrollments.setString(1, courseName);
-                    pstmtEnrollments.executeUpdate();
-
-                    // Delete from Allocated
-                    pstmtAllocation.setString(1, courseName);
-                    pstmtAllocation.executeUpdate();
-
-                    // Delete from Courses
-                    pstmtCourse.setString(1, courseName);
-                    int rowsAffected = pstmtCourse.executeUpdate();
-
-                    if (rowsAffected > 0) {
-                        // Commit transaction
-                        conn.commit();
+                try {
+                    if (Database.deleteCourse(courseName)) {
                         showAlert(Alert.AlertType.INFORMATION, "Successful", "Course successfully deleted.");
-                        refreshTimetableView();
-                        closeCourseScheduler();
+                        closeCourseScheduler(); // The main table drops the course on its own
                     } else {
-                        conn.rollback();
                         showAlert(Alert.AlertType.WARNING, "Delete Error", "Course not found or could not be deleted.");
                     }
-
                 } catch (SQLException e) {
-                    try {
-                        conn.rollback();
-                    } catch (SQLException ex) {
-                        System.err.println("Failed to rollback transaction: " + ex.getMessage());
-                    }
                     e.printStackTrace();
                     showAlert(Alert.AlertType.ERROR, "Database Error", "An error occurred while deleting the course.");
-                } finally {
-                    try {
-                        conn.setAutoCommit(true);
-                    } catch (SQLException e) {
-                        System.err.println("Failed to reset auto-commit: " + e.getMessage());
-                    }
                 }
             }
         });
     }
 
-    /**
-     * Refreshes the timetable view in the main controller.
-     */
-    private void refreshTimetableView() {
-        if (mainController != null) {
-            mainController.refreshTable(); // Call the refreshTable method in the main controller
-        } else {
-            System.err.println("Main controller reference is null.");
-        }
-    }
-
     /**
      * Closes the current Course Scheduler window.
      */
@@ -0,0 +1,437 @@
+package com.example.timetablemanager;
+
+import java.util.*;
+
+/**
+ * In-memory n-gram index for the search box of the main table. It covers course ID, lecturer,
+ * day and time, classroom and the names of the enrolled students.
+ *
+ * A query is a list of terms that must all match (AND). A term matches a course if it occurs
+ * anywhere in one of these fields, ignoring case; a prefix restricts it to one field:
+ * {@code id:}, {@code lecturer:}, {@code time:} (or {@code day:}), {@code room:} and {@code student:}.
+ * Quotes keep spaces in a term, e.g. {@code student:"Ali Yilmaz" monday}.
+ *
+ * Most fields have few distinct values (rooms, lecturers, times, student names), so each field
+ * indexes its distinct values by every 1, 2 and 3 character substring, and each value lists the
+ * courses that have it. A term of up to three characters is then one lookup; a longer term
+ * checks only the values sharing its rarest three-character substring. The courses of the
+ * matching values are combined in bit sets over the course numbers.
+ *
+ * The index follows the repository through its change events. A reload only marks it stale; it
+ * is built again by the next search, or ahead of time by prepare() on a background thread, so
+ * loading a timetable does not wait for it. Queries may run on any thread.
+ */
+public final class CourseSearchIndex implements TimetableRepository.Listener {
+
+    public enum Field {
+        ID, LECTURER, TIME, ROOM, STUDENT
+    }
+
+    private static final int GRAM = 3;
+    // Compact the course numbers once more than half of them belong to removed courses
+    private static final int MIN_COMPACT_SIZE = 1024;
+
+    private final TimetableRepository repository;
+
+    // Courses by course number; removed courses leave a null until the next compaction
+    private final List<Course> docs = new ArrayList<>();
+    // The indexed values of each course, per field, to undo them when the course changes
+    private final List<String[][]> docValues = new ArrayList<>();
+    private final Map<Course, Integer> docIds = new IdentityHashMap<>();
+    private final ValueIndex[] fields = new ValueIndex[Field.values().length];
+    // Whether the index has to be built from the repository before the next search
+    private boolean stale = true;
+
+    public CourseSearchIndex(TimetableRepository repository) {
+        this.repository = repository;
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = new ValueIndex();
+        }
+        repository.addListener(this);
+    }
+
+    /**
+     * Called by the repository while it holds its lock.
+     */
+    @Override
+    public synchronized void changed(TimetableRepository.Change change) {
+        if (stale) {
+            return; // the rebuild reads the repository as it is then
+        }
+        Course course = change.getCourse();
+        switch (change.getType()) {
+            case RELOADED -> stale = true;
+            case ADDED -> add(course);
+            case REMOVED -> remove(course);
+            case CLASSROOM_CHANGED, ENROLLMENT_CHANGED -> update(course);
+        }
+    }
+
+    /**
+     * Builds the index now if it is stale, so the next search answers right away.
+     */
+    public void prepare() {
+        synchronized (this) {
+            if (!stale) {
+                return;
+            }
+        }
+        // Locks in the same order as changed(): repository first, so no change slips in while building
+        synchronized (repository) {
+            synchronized (this) {
+                if (stale) {
+                    long start = System.nanoTime();
+                    rebuild(repository.getAll());
+                    stale = false;
+                    System.out.printf("Indexed %d courses for search in %.1f ms%n", docIds.size(), (System.nanoTime() - start) / 1e6);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The courses matching every term of the query, in the order they were added, or all
+     * courses for a blank query.
+     */
+    public List<Course> search(String query) {
+        prepare();
+        return find(parse(query));
+    }
+
+    private synchronized List<Course> find(List<Term> terms) {
+        BitSet matches = null;
+        for (Term term : terms) {
+            BitSet termMatches = new BitSet(docs.size());
+            if (term.field == null) {
+                for (ValueIndex field : fields) {
+                    field.match(term.text, termMatches);
+                }
+            } else {
+                fields[term.field.ordinal()].match(term.text, termMatches);
+            }
+            if (matches == null) {
+                matches = termMatches;
+            } else {
+                matches.and(termMatches);
+            }
+            if (matches.isEmpty()) {
+                return new ArrayList<>();
+            }
+        }
+
+        List<Course> result = new ArrayList<>(matches == null ? docIds.size() : matches.cardinality());
+        if (matches == null) {
+            for (Course course : docs) {
+                if (course != null) {
+                    result.add(course);
+                }
+            }
+        } else {
+            for (int doc = matches.nextSetBit(0); doc >= 0; doc = matches.nextSetBit(doc + 1)) {
+                result.add(docs.get(doc));
+            }
+        }
+        return result;
+    }
+
+    public int size() {
+        prepare();
+        synchronized (this) {
+            return docIds.size();
+        }
+    }
+
+    private void rebuild(Collection<Course> courses) {
+        docs.clear();
+        docValues.clear();
+        docIds.clear();
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = new ValueIndex();
+        }
+        for (Course course : courses) {
+            add(course);
+        }
+    }
+
+    private void add(Course course) {
+        if (docIds.containsKey(course)) {
+            update(course);
+            return;
+        }
+        int doc = docs.size();
+        String[][] values = valuesOf(course);
+        docs.add(course);
+        docValues.add(values);
+        docIds.put(course, doc);
+        for (int f = 0; f < fields.length; f++) {
+            for (String value : values[f]) {
+                fields[f].add(value, doc);
+            }
+        }
+    }
+
+    private void remove(Course course) {
+        Integer doc = docIds.remove(course);
+        if (doc == null) {
+            return;
+        }
+        String[][] values = docValues.get(doc);
+        for (int f = 0; f < fields.length; f++) {
+            for (String value : values[f]) {
+                fields[f].remove(value, doc);
+            }
+        }
+        docs.set(doc, null);
+        docValues.set(doc, null);
+
+        if (docs.size() >= MIN_COMPACT_SIZE && docIds.size() < docs.size() / 2) {
+            List<Course> live = new ArrayList<>(docIds.size());
+            for (Course c : docs) {
+                if (c != null) {
+                    live.add(c);
+                }
+            }
+            rebuild(live);
+        }
+    }
+
+    /**
+     * Re-indexes the fields of a course whose classroom or students changed.
+     */
+    private void update(Course course) {
+        Integer doc = docIds.get(course);
+        if (doc == null) {
+            add(course);
+            return;
+        }
+        String[][] oldValues = docValues.get(doc);
+        String[][] newValues = valuesOf(course);
+        for (int f = 0; f < fields.length; f++) {
+            if (Arrays.equals(oldValues[f], newValues[f])) {
+                continue;
+            }
+            Set<String> kept = new HashSet<>(Arrays.asList(newValues[f]));
+            for (String value : oldValues[f]) {
+                if (!kept.contains(value)) {
+                    fields[f].remove(value, doc);
+                }
+            }
+            for (String value : newValues[f]) {
+                fields[f].add(value, doc);
+            }
+        }
+        docValues.set(doc, newValues);
+    }
+
+    /**
+     * @return The lower-case values of the course, indexed by Field.
+     */
+    private static String[][] valuesOf(Course course) {
+        String[][] values = new String[Field.values().length][];
+        values[Field.ID.ordinal()] = single(course.getCourseID());
+        values[Field.LECTURER.ordinal()] = single(course.getLecturer());
+        values[Field.TIME.ordinal()] = single(course.getTimeToStart());
+        values[Field.ROOM.ordinal()] = single(course.getClassroom());
+        Set<String> students = new LinkedHashSet<>();
+        for (Student student : course.getStudents()) {
+            if (student.getFullName() != null && !student.getFullName().isEmpty()) {
+                students.add(lower(student.getFullName()));
+            }
+        }
+        values[Field.STUDENT.ordinal()] = students.toArray(new String[0]);
+        return values;
+    }
+
+    private static String[] single(String value) {
+        return value == null || value.isEmpty() ? new String[0] : new String[]{lower(value)};
+    }
+
+    private static String lower(String text) {
+        return text.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Splits a query into terms at spaces outside quotes, and takes off field prefixes.
+     * Colons of unknown prefixes stay part of the term, so "08:30" is an ordinary term.
+     */
+    static List<Term> parse(String query) {
+        List<Term> terms = new ArrayList<>();
+        if (query == null) {
+            return terms;
+        }
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i <= query.length(); i++) {
+            char ch = i < query.length() ? query.charAt(i) : ' ';
+            if (ch == '"') {
+                quoted = !quoted;
+            } else if (Character.isWhitespace(ch) && !quoted || i == query.length()) {
+                addTerm(terms, current.toString());
+                current.setLength(0);
+            } else {
+                current.append(ch);
+            }
+        }
+        return terms;
+    }
+
+    private static void addTerm(List<Term> terms, String token) {
+        String text = lower(token.trim());
+        Field field = null;
+        int colon = text.indexOf(':');
+        if (colon > 0) {
+            field = fieldOf(text.substring(0, colon));
+            if (field != null) {
+                text = text.substring(colon + 1).trim();
+            }
+        }
+        if (!text.isEmpty()) {
+            terms.add(new Term(field, text));
+        }
+    }
+
+    private static Field fieldOf(String prefix) {
+        return switch (prefix) {
+            case "id", "course" -> Field.ID;
+            case "lecturer" -> Field.LECTURER;
+            case "time", "day" -> Field.TIME;
+            case "room", "classroom" -> Field.ROOM;
+            case "student" -> Field.STUDENT;
+            default -> null;
+        };
+    }
+
+    /**
+     * One term of a query; a null field means any field.
+     */
+    static class Term {
+        final Field field;
+        final String text;
+
+        Term(Field field, String text) {
+            this.field = field;
+            this.text = text;
+        }
+
+        @Override
+        public String toString() {
+            return field == null ? text : field + ":" + text;
+        }
+    }
+
+    /**
+     * The distinct values of one field, indexed by their substrings of up to GRAM characters,
+     * with the courses that have each value.
+     */
+    private static class ValueIndex {
+        private final Map<String, Integer> valueIds = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+        private final List<IntList> docsByValue = new ArrayList<>();
+        private final Map<String, IntList> valuesByGram = new HashMap<>();
+
+        void add(String value, int doc) {
+            Integer id = valueIds.get(value);
+            if (id == null) {
+                id = values.size();
+                valueIds.put(value, id);
+                values.add(value);
+                docsByValue.add(new IntList());
+                for (int length = 1; length <= GRAM; length++) {
+                    for (int start = 0; start + length <= value.length(); start++) {
+                        valuesByGram.computeIfAbsent(value.substring(start, start + length), k -> new IntList()).add(id);
+                    }
+                }
+            }
+            docsByValue.get(id).add(doc);
+        }
+
+        /**
+         * The value stays indexed without courses until the next rebuild.
+         */
+        void remove(String value, int doc) {
+            Integer id = valueIds.get(value);
+            if (id != null) {
+                docsByValue.get(id).remove(doc);
+            }
+        }
+
+        /**
+         * Sets the courses having a value that contains the term.
+         */
+        void match(String term, BitSet result) {
+            if (term.length() <= GRAM) {
+                // Every substring of this length is indexed, so the values containing it are exact
+                IntList ids = valuesByGram.get(term);
+                if (ids != null) {
+                    for (int i = 0; i < ids.size(); i++) {
+                        docsByValue.get(ids.get(i)).setAll(result);
+                    }
+                }
+                return;
+            }
+            IntList rarest = null;
+            for (int start = 0; start + GRAM <= term.length(); start++) {
+                IntList ids = valuesByGram.get(term.substring(start, start + GRAM));
+                if (ids == null) {
+                    return; // no value contains this part of the term
+                }
+                if (rarest == null || ids.size() < rarest.size()) {
+                    rarest = ids;
+                }
+            }
+            for (int i = 0; i < rarest.size(); i++) {
+                int id = rarest.get(i);
+                if (values.get(id).contains(term)) {
+                    docsByValue.get(id).setAll(result);
+                }
+            }
+        }
+    }
+
+    /**
+     * A sorted set of ints in an array; adding the largest value so far is an append.
+     */
+    private static class IntList {
+        private int[] data = new int[2];
+        private int size;
+
+        int size() {
+            return size;
+        }
+
+        int get(int index) {
+            return data[index];
+        }
+
+        void add(int value) {
+            int index = size;
+            if (size > 0 && data[size - 1] >= value) {
+                index = Arrays.binarySearch(data, 0, size, value);
+                if (index >= 0) {
+                    return;
+                }
+                index = -index - 1;
+            }
+            if (size == data.length) {
+                data = Arrays.copyOf(data, size * 2);
+            }
+            System.arraycopy(data, index, data, index + 1, size - index);
+            data[index] = value;
+            size++;
+        }
+
+        void remove(int value) {
+            int index = Arrays.binarySearch(data, 0, size, value);
+            if (index >= 0) {
+                System.arraycopy(data, index + 1, data, index, size - index - 1);
+                size--;
+            }
+        }
+
+        void setAll(BitSet bits) {
+            for (int i = 0; i < size; i++) {
+                bits.set(data[i]);
+            }
+        }
+    }
+}
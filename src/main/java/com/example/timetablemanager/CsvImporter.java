@@ -0,0 +1,981 @@
+package com.example.timetablemanager;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Imports the course and classroom CSV files in a single streaming pass.
+ *
+ * Every file goes through a three stage pipeline:
+ * <ol>
+ *     <li>a reader thread maps the file window by window and cuts it into line-aligned blocks,</li>
+ *     <li>a pool of parser threads tokenizes and validates the blocks in parallel,</li>
+ *     <li>the calling thread (the only one touching the connection) writes the parsed rows.</li>
+ * </ol>
+ * Parsed blocks travel through a bounded queue in file order, so the reader blocks as soon as
+ * it is a few blocks ahead of the writer and memory stays flat however large the input is.
+ *
+ * Blocks are not copied out of the mapping: CsvTokenizer works on the mapped bytes, and lecturer,
+ * student and classroom names as well as start times go through SymbolTables shared by the parsers,
+ * so each of them is decoded once, on its first occurrence, instead of once per cell.
+ *
+ * Rows are written through JDBC batches that are executed and committed every
+ * {@link #setChunkRows chunk} rows, so every finished chunk is durable. Progress is reported
+ * from the bytes written so far; the files are never read twice.
+ *
+ * Course file: {@code course;Day HH:mm;duration;lecturer;student;student;...}
+ * Classroom file: {@code classroom;capacity}. Both start with a header line.
+ */
+public class CsvImporter {
+
+    public static final int DEFAULT_CHUNK_ROWS = 5000;
+    private static final int BLOCK_BYTES = 256 * 1024;
+    private static final int WINDOW_BYTES = 64 * 1024 * 1024;
+
+    /**
+     * Receives the number of bytes read so far and the total size of both files.
+     */
+    public interface ProgressListener {
+        void progress(long bytesRead, long totalBytes);
+    }
+
+    private int chunkRows = DEFAULT_CHUNK_ROWS;
+    private int blockBytes = BLOCK_BYTES;
+    private int windowBytes = WINDOW_BYTES;
+    private int parallelism = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    private ProgressListener progressListener = (bytesRead, totalBytes) -> { };
+    private BooleanSupplier cancelled = () -> false;
+
+    private final SymbolTable<String> names = SymbolTable.ofStrings();
+    private final SymbolTable<StartTime> startTimes = new SymbolTable<>(StartTime::new);
+
+    /**
+     * @param chunkRows Number of batched rows (courses, students, enrollments, classrooms) per commit.
+     */
+    public CsvImporter setChunkRows(int chunkRows) {
+        this.chunkRows = Math.max(1, chunkRows);
+        return this;
+    }
+
+    /**
+     * @param parallelism Number of parser threads (the reader and the writer come on top).
+     */
+    public CsvImporter setParallelism(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+        return this;
+    }
+
+    /**
+     * Sizes of the parse blocks and of the mapped windows of a file. Small sizes put many line
+     * breaks on block and window edges, which is what the tests want.
+     */
+    CsvImporter setBufferSizes(int blockBytes, int windowBytes) {
+        this.blockBytes = Math.max(1, blockBytes);
+        this.windowBytes = Math.max(this.blockBytes, windowBytes);
+        return this;
+    }
+
+    public CsvImporter setProgressListener(ProgressListener progressListener) {
+        this.progressListener = progressListener;
+        return this;
+    }
+
+    /**
+     * @param cancelled Checked before every block; when it returns true the current chunk is rolled back
+     *                  and a CancellationException is thrown. Chunks committed before stay in the database.
+     */
+    public CsvImporter setCancelled(BooleanSupplier cancelled) {
+        this.cancelled = cancelled;
+        return this;
+    }
+
+    /**
+     * Imports both files through the given connection, which should be the writer.
+     */
+    public Result importFiles(Connection conn, File courseCsv, File classroomCsv) throws IOException, SQLException {
+        long totalBytes = Math.max(1, courseCsv.length() + classroomCsv.length());
+        Result result = new Result();
+
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        ExecutorService parsers = newParserPool();
+        try (PreparedStatement courseStmt = conn.prepareStatement(Database.UPSERT_COURSE_SQL);
+             PreparedStatement studentStmt = conn.prepareStatement(Database.INSERT_STUDENT_SQL);
+             PreparedStatement enrollmentStmt = conn.prepareStatement(Database.INSERT_ENROLLMENT_SQL);
+             PreparedStatement classroomStmt = conn.prepareStatement(Database.UPSERT_CLASSROOM_SQL)) {
+            // Committed with the first chunk; undo stops here since the import itself is not journaled row by row
+            ChangeJournal.append(conn, ChangeJournal.Kind.IMPORT, 0, importDescription(courseCsv, classroomCsv), null);
+            Chunk chunk = new Chunk(conn, result, courseStmt, studentStmt, enrollmentStmt, classroomStmt);
+            long[] bytesDone = {0};
+            PipelineStage writeStage = block -> {
+                chunk.write(block);
+                bytesDone[0] += block.bytes;
+                progressListener.progress(bytesDone[0], totalBytes);
+            };
+
+            // 1) Process Course CSV
+            runPipeline(courseCsv, this::parseCourseBlock, parsers, writeStage);
+            // 2) Process Classroom CSV
+            runPipeline(classroomCsv, this::parseClassroomBlock, parsers, writeStage);
+            chunk.commit();
+            progressListener.progress(totalBytes, totalBytes);
+        } catch (SQLException | IOException | RuntimeException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+            parsers.shutdownNow();
+        }
+        return result;
+    }
+
+    /**
+     * Brings the database in line with the files by writing only what differs, instead of clearing
+     * it and importing everything again. Courses, students and classrooms are matched by name:
+     * <ul>
+     *     <li>new rows are inserted, rows whose values changed are updated in place (ids are kept),</li>
+     *     <li>courses, students, enrollments and classrooms that are no longer in the files are deleted,</li>
+     *     <li>classroom allocations survive unless their course or classroom is deleted or the course
+     *     moved to another time (the classroom may not be free then).</li>
+     * </ul>
+     * Unlike {@link #importFiles}, the whole delta is one transaction: it is applied completely or,
+     * on error or cancellation, not at all.
+     */
+    public Changes importDelta(Connection conn, File courseCsv, File classroomCsv) throws IOException, SQLException {
+        long totalBytes = Math.max(1, courseCsv.length() + classroomCsv.length());
+        Changes changes = new Changes();
+
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        ExecutorService parsers = newParserPool();
+        try (Delta delta = new Delta(conn, changes)) {
+            ChangeJournal.append(conn, ChangeJournal.Kind.IMPORT, 0, importDescription(courseCsv, classroomCsv), null);
+            long[] bytesDone = {0};
+            PipelineStage diffStage = block -> {
+                delta.write(block);
+                bytesDone[0] += block.bytes;
+                progressListener.progress(bytesDone[0], totalBytes);
+            };
+
+            runPipeline(courseCsv, this::parseCourseBlock, parsers, diffStage);
+            runPipeline(classroomCsv, this::parseClassroomBlock, parsers, diffStage);
+            delta.finish();
+            conn.commit();
+            progressListener.progress(totalBytes, totalBytes);
+        } catch (SQLException | IOException | RuntimeException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+            parsers.shutdownNow();
+        }
+        return changes;
+    }
+
+    private static String importDescription(File courseCsv, File classroomCsv) {
+        return "Imported " + courseCsv.getName() + " and " + classroomCsv.getName();
+    }
+
+    /**
+     * Runs only the read and parse stages over a course file and counts what would be written.
+     * Used by CsvImportBenchmark to measure parsing without SQLite, and by the tests.
+     */
+    Result parseCourses(File courseCsv) throws IOException, SQLException {
+        Result result = new Result();
+        ExecutorService parsers = newParserPool();
+        try {
+            runPipeline(courseCsv, this::parseCourseBlock, parsers, block -> {
+                result.courses += block.courseCount;
+                result.enrollments += block.studentCount;
+                result.skippedLines += block.skippedLines;
+            });
+        } finally {
+            parsers.shutdownNow();
+        }
+        return result;
+    }
+
+    private ExecutorService newParserPool() {
+        return Executors.newFixedThreadPool(parallelism, r -> {
+            Thread thread = new Thread(r, "csv-parser");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Turns the bytes {@code [start, end)} of a mapped window into rows; {@code firstBlock} means the
+     * header line has to be skipped.
+     */
+    private interface BlockParser {
+        ParsedBlock parse(ByteBuffer window, int start, int end, boolean firstBlock);
+    }
+
+    private interface PipelineStage {
+        void accept(ParsedBlock block) throws SQLException;
+    }
+
+    /**
+     * Maps the file on a separate thread, parses its blocks on the parser pool and hands them
+     * to {@code writeStage} on the calling thread, in file order.
+     */
+    private void runPipeline(File file, BlockParser parser, ExecutorService parsers, PipelineStage writeStage)
+            throws IOException, SQLException {
+        // Futures in file order; a full queue stops the reader (backpressure)
+        BlockingQueue<Future<ParsedBlock>> queue = new ArrayBlockingQueue<>(2 * parallelism + 2);
+        Future<ParsedBlock> endOfFile = CompletableFuture.completedFuture(null);
+
+        Thread reader = new Thread(() -> {
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                long size = channel.size();
+                long position = 0;
+                boolean firstBlock = true;
+                while (position < size) {
+                    int windowSize = (int) Math.min(windowBytes, size - position);
+                    boolean lastWindow = position + windowSize == size;
+                    MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, windowSize);
+                    int blockStart = 0;
+                    while (blockStart < windowSize) {
+                        int blockEnd = Math.min(blockStart + blockBytes, windowSize);
+                        if (blockEnd < windowSize || !lastWindow) {
+                            blockEnd = lineBoundary(window, blockStart, blockEnd, windowSize);
+                            if (blockEnd < 0 && !lastWindow) {
+                                break; // the last line continues in the next window
+                            }
+                            if (blockEnd < 0) {
+                                blockEnd = windowSize; // the rest is the file's last line, without a line break
+                            }
+                        }
+                        int from = blockStart;
+                        int to = blockEnd;
+                        boolean skipHeader = firstBlock;
+                        queue.put(parsers.submit(() -> parser.parse(window, from, to, skipHeader)));
+                        firstBlock = false;
+                        blockStart = blockEnd;
+                    }
+                    if (blockStart == 0) {
+                        throw new IOException("Line longer than " + windowBytes + " bytes in " + file);
+                    }
+                    position += blockStart;
+                }
+                queue.put(endOfFile);
+            } catch (InterruptedException e) {
+                // The writer stopped early and no longer reads the queue
+            } catch (IOException | RuntimeException e) {
+                queue.clear();
+                queue.offer(CompletableFuture.failedFuture(e));
+            }
+        }, "csv-reader");
+        reader.setDaemon(true);
+        reader.start();
+
+        try {
+            while (true) {
+                ParsedBlock block = await(queue.take());
+                if (block == null) {
+                    break;
+                }
+                if (cancelled.getAsBoolean()) {
+                    throw new CancellationException("CSV import cancelled");
+                }
+                writeStage.accept(block);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("CSV import interrupted");
+        } finally {
+            reader.interrupt();
+            for (Future<ParsedBlock> future : queue) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    private static ParsedBlock await(Future<ParsedBlock> future) throws IOException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            if (cause instanceof RuntimeException re) {
+                throw re;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Finds where a block ending near {@code end} may be cut: after the last line break before
+     * {@code end}, or else after the first one behind it. A "\r" only counts when the byte after it
+     * is known not to be "\n", so a "\r\n" is never torn apart.
+     *
+     * @return The index after the line break, or -1 if there is none before {@code limit}.
+     */
+    static int lineBoundary(ByteBuffer window, int start, int end, int limit) {
+        for (int i = end - 1; i >= start; i--) {
+            int cut = lineBreakEnd(window, i, limit);
+            if (cut > 0) {
+                return cut;
+            }
+        }
+        for (int i = end; i < limit; i++) {
+            int cut = lineBreakEnd(window, i, limit);
+            if (cut > 0) {
+                return cut;
+            }
+        }
+        return -1;
+    }
+
+    private static int lineBreakEnd(ByteBuffer window, int i, int limit) {
+        byte b = window.get(i);
+        if (b == '\n') {
+            return i + 1;
+        }
+        if (b == '\r' && i + 1 < limit && window.get(i + 1) != '\n') {
+            return i + 1;
+        }
+        return -1;
+    }
+
+    private ParsedBlock parseCourseBlock(ByteBuffer window, int start, int end, boolean skipHeader) {
+        ParsedBlock parsed = new ParsedBlock(end - start);
+        CsvTokenizer tokenizer = new CsvTokenizer(window, start, end);
+        if (skipHeader) {
+            tokenizer.nextLine();
+        }
+        while (tokenizer.nextLine()) {
+            int fields = tokenizer.fieldCount();
+            if (fields < 4) {
+                System.err.println("Skipping invalid line: " + tokenizer.lineText());
+                parsed.skippedLines++;
+                continue;
+            }
+            int duration = tokenizer.digits(2);
+            if (duration < 0) {
+                System.err.println("Invalid duration for " + tokenizer.fieldText(0) + ": " + tokenizer.fieldText(2));
+                parsed.skippedLines++;
+                continue;
+            }
+            // Course names are unique per file, so interning them would only fill the table
+            String courseName = tokenizer.fieldText(0);
+            String lecturer = intern(names, tokenizer, 3);
+            StartTime startTime = intern(startTimes, tokenizer, 1);
+            // Next columns might be students
+            int course = parsed.addCourse(courseName, lecturer, duration, startTime);
+            for (int f = 4; f < fields; f++) {
+                parsed.addStudent(course, intern(names, tokenizer, f));
+            }
+        }
+        return parsed;
+    }
+
+    private ParsedBlock parseClassroomBlock(ByteBuffer window, int start, int end, boolean skipHeader) {
+        ParsedBlock parsed = new ParsedBlock(end - start);
+        CsvTokenizer tokenizer = new CsvTokenizer(window, start, end);
+        if (skipHeader) {
+            tokenizer.nextLine();
+        }
+        while (tokenizer.nextLine()) {
+            if (tokenizer.fieldCount() < 2) {
+                System.err.println("Skipping invalid line: " + tokenizer.lineText());
+                parsed.skippedLines++;
+                continue;
+            }
+            String classroomName = intern(names, tokenizer, 0);
+            try {
+                parsed.classrooms.add(new ClassroomRow(classroomName, Integer.parseInt(tokenizer.fieldText(1))));
+            } catch (NumberFormatException e) {
+                System.err.println("Invalid capacity for classroom " + classroomName);
+                parsed.skippedLines++;
+            }
+        }
+        return parsed;
+    }
+
+    private static <T> T intern(SymbolTable<T> symbols, CsvTokenizer tokenizer, int field) {
+        return symbols.intern(tokenizer.buffer(), tokenizer.fieldStart(field), tokenizer.fieldEnd(field));
+    }
+
+    /**
+     * @return The number of distinct lecturer, student and classroom names seen so far.
+     */
+    int distinctNames() {
+        return names.size();
+    }
+
+    /**
+     * The rows of one block, ready to be bound. Courses are kept column by column in arrays that
+     * grow by doubling, so a block costs a handful of allocations however many lines it has;
+     * the students of course {@code i} are {@code students[studentEnds[i - 1] .. studentEnds[i])}.
+     */
+    private static class ParsedBlock {
+        final long bytes;
+        int courseCount;
+        String[] courseNames = new String[64];
+        String[] lecturers = new String[64];
+        int[] durations = new int[64];
+        StartTime[] startTimes = new StartTime[64];
+        int[] studentEnds = new int[64];
+        int studentCount;
+        String[] students = new String[128];
+        final List<ClassroomRow> classrooms = new ArrayList<>();
+        int skippedLines;
+
+        ParsedBlock(long bytes) {
+            this.bytes = bytes;
+        }
+
+        int addCourse(String courseName, String lecturer, int duration, StartTime startTime) {
+            if (courseCount == courseNames.length) {
+                int capacity = courseCount * 2;
+                courseNames = Arrays.copyOf(courseNames, capacity);
+                lecturers = Arrays.copyOf(lecturers, capacity);
+                durations = Arrays.copyOf(durations, capacity);
+                startTimes = Arrays.copyOf(startTimes, capacity);
+                studentEnds = Arrays.copyOf(studentEnds, capacity);
+            }
+            courseNames[courseCount] = courseName;
+            lecturers[courseCount] = lecturer;
+            durations[courseCount] = duration;
+            startTimes[courseCount] = startTime;
+            studentEnds[courseCount] = studentCount;
+            return courseCount++;
+        }
+
+        void addStudent(int course, String student) {
+            if (studentCount == students.length) {
+                students = Arrays.copyOf(students, studentCount * 2);
+            }
+            students[studentCount++] = student;
+            studentEnds[course] = studentCount;
+        }
+
+        int firstStudent(int course) {
+            return course == 0 ? 0 : studentEnds[course - 1];
+        }
+    }
+
+    /**
+     * A TimeToStart value, normalized and mapped to slots (see TimeSlots) once per distinct value.
+     */
+    private static class StartTime {
+        final String timeToStart;
+        final String time;
+        final int dayOfWeek;
+        final int startSlot;
+
+        StartTime(String startTime) {
+            this.timeToStart = TimeSlots.normalize(startTime);
+            this.time = TimeSlots.timePart(timeToStart);
+            this.dayOfWeek = TimeSlots.dayIndex(TimeSlots.dayPart(timeToStart));
+            this.startSlot = TimeSlots.startSlot(time);
+        }
+
+        int endSlot(int duration) {
+            return startSlot < 0 ? -1 : TimeSlots.endSlot(time, duration);
+        }
+    }
+
+    private record ClassroomRow(String classroomName, int capacity) {
+    }
+
+    /**
+     * The batches of the chunk currently being built.
+     */
+    private class Chunk {
+        final Connection conn;
+        final Result result;
+        final PreparedStatement courseStmt;
+        final PreparedStatement studentStmt;
+        final PreparedStatement enrollmentStmt;
+        final PreparedStatement classroomStmt;
+        int rows;
+
+        Chunk(Connection conn, Result result, PreparedStatement courseStmt, PreparedStatement studentStmt,
+              PreparedStatement enrollmentStmt, PreparedStatement classroomStmt) {
+            this.conn = conn;
+            this.result = result;
+            this.courseStmt = courseStmt;
+            this.studentStmt = studentStmt;
+            this.enrollmentStmt = enrollmentStmt;
+            this.classroomStmt = classroomStmt;
+        }
+
+        void write(ParsedBlock block) throws SQLException {
+            result.skippedLines += block.skippedLines;
+            for (int course = 0; course < block.courseCount; course++) {
+                // Insert course
+                String courseName = block.courseNames[course];
+                int duration = block.durations[course];
+                StartTime startTime = block.startTimes[course];
+                Database.bindCourse(courseStmt, courseName, block.lecturers[course], duration,
+                        startTime.timeToStart, startTime.dayOfWeek, startTime.startSlot, startTime.endSlot(duration));
+                courseStmt.addBatch();
+                rows++;
+                result.courses++;
+
+                // Insert students + enrollments
+                for (int s = block.firstStudent(course); s < block.studentEnds[course]; s++) {
+                    String student = block.students[s];
+                    studentStmt.setString(1, student);
+                    studentStmt.addBatch();
+
+                    enrollmentStmt.setString(1, courseName);
+                    enrollmentStmt.setString(2, student);
+                    enrollmentStmt.addBatch();
+                    rows += 2;
+                    result.enrollments++;
+                }
+                if (rows >= chunkRows) {
+                    commit();
+                }
+            }
+            for (ClassroomRow classroom : block.classrooms) {
+                // Insert classroom
+                classroomStmt.setString(1, classroom.classroomName());
+                classroomStmt.setInt(2, classroom.capacity());
+                classroomStmt.addBatch();
+                rows++;
+                result.classrooms++;
+                if (rows >= chunkRows) {
+                    commit();
+                }
+            }
+        }
+
+        /**
+         * Executes the batches (courses before enrollments, which look the course up) and commits.
+         */
+        void commit() throws SQLException {
+            if (rows == 0) {
+                return;
+            }
+            courseStmt.executeBatch();
+            studentStmt.executeBatch();
+            enrollmentStmt.executeBatch();
+            classroomStmt.executeBatch();
+            conn.commit();
+            rows = 0;
+            result.chunks++;
+        }
+    }
+
+    /**
+     * The current contents of the database, diffed against the parsed blocks. Writes are batched and
+     * executed every {@link #setChunkRows chunk} rows, but only committed by importDelta.
+     */
+    private class Delta implements AutoCloseable {
+        final Connection conn;
+        final Changes changes;
+        final PreparedStatement courseStmt;
+        final PreparedStatement studentStmt;
+        final PreparedStatement enrollmentStmt;
+        final PreparedStatement classroomStmt;
+        final PreparedStatement releaseAllocationsStmt;
+
+        // Existing rows by name; new rows are added with id 0 so duplicates in the files compare against them
+        final Map<String, StoredCourse> courses = new HashMap<>();
+        final Map<String, Integer> unseenStudents = new HashMap<>();
+        final Map<String, Integer> studentIds = new HashMap<>();
+        final Set<Long> unseenEnrollments = new HashSet<>();
+        final Map<String, StoredClassroom> classrooms = new HashMap<>();
+        int rows;
+
+        Delta(Connection conn, Changes changes) throws SQLException {
+            this.conn = conn;
+            this.changes = changes;
+            courseStmt = conn.prepareStatement(Database.UPSERT_COURSE_SQL);
+            studentStmt = conn.prepareStatement(Database.INSERT_STUDENT_SQL);
+            enrollmentStmt = conn.prepareStatement(Database.INSERT_ENROLLMENT_SQL);
+            classroomStmt = conn.prepareStatement(Database.UPSERT_CLASSROOM_SQL);
+            releaseAllocationsStmt = conn.prepareStatement("DELETE FROM Allocated WHERE courseId = ?");
+            load();
+        }
+
+        private void load() throws SQLException {
+            try (Statement stmt = conn.createStatement()) {
+                try (ResultSet rs = stmt.executeQuery(
+                        "SELECT courseId, courseName, lecturer, duration, timeToStart FROM Courses")) {
+                    while (rs.next()) {
+                        courses.put(rs.getString(2), new StoredCourse(rs.getInt(1), rs.getString(3), rs.getInt(4),
+                                TimeSlots.normalize(rs.getString(5))));
+                    }
+                }
+                try (ResultSet rs = stmt.executeQuery("SELECT studentId, studentName FROM Students")) {
+                    while (rs.next()) {
+                        studentIds.put(rs.getString(2), rs.getInt(1));
+                    }
+                }
+                unseenStudents.putAll(studentIds);
+                try (ResultSet rs = stmt.executeQuery("SELECT courseId, studentId FROM Enrollments")) {
+                    while (rs.next()) {
+                        unseenEnrollments.add(enrollmentKey(rs.getInt(1), rs.getInt(2)));
+                    }
+                }
+                try (ResultSet rs = stmt.executeQuery("SELECT classroomId, classroomName, capacity FROM Classrooms")) {
+                    while (rs.next()) {
+                        classrooms.put(rs.getString(2), new StoredClassroom(rs.getInt(1), rs.getInt(3)));
+                    }
+                }
+            }
+        }
+
+        private static long enrollmentKey(int courseId, int studentId) {
+            return ((long) courseId << 32) | (studentId & 0xffffffffL);
+        }
+
+        void write(ParsedBlock block) throws SQLException {
+            changes.skippedLines += block.skippedLines;
+            for (int course = 0; course < block.courseCount; course++) {
+                String courseName = block.courseNames[course];
+                String lecturer = block.lecturers[course];
+                int duration = block.durations[course];
+                StartTime startTime = block.startTimes[course];
+
+                StoredCourse stored = courses.get(courseName);
+                if (stored == null || stored.changed(lecturer, duration, startTime.timeToStart)) {
+                    Database.bindCourse(courseStmt, courseName, lecturer, duration,
+                            startTime.timeToStart, startTime.dayOfWeek, startTime.startSlot, startTime.endSlot(duration));
+                    courseStmt.addBatch();
+                    rows++;
+                    if (stored == null) {
+                        changes.coursesAdded++;
+                        stored = new StoredCourse(0, lecturer, duration, startTime.timeToStart);
+                        courses.put(courseName, stored);
+                    } else {
+                        if (stored.id > 0 && !stored.rescheduled
+                                && (stored.duration != duration || !stored.timeToStart.equals(startTime.timeToStart))) {
+                            // The allocated classroom may not be free at the new time
+                            stored.rescheduled = true;
+                            releaseAllocationsStmt.setInt(1, stored.id);
+                            releaseAllocationsStmt.addBatch();
+                        }
+                        if (stored.id > 0 && !stored.updated) {
+                            changes.coursesUpdated++;
+                        }
+                        stored.updated = true;
+                        stored.lecturer = lecturer;
+                        stored.duration = duration;
+                        stored.timeToStart = startTime.timeToStart;
+                    }
+                }
+                stored.seen = true;
+
+                for (int s = block.firstStudent(course); s < block.studentEnds[course]; s++) {
+                    String student = block.students[s];
+                    Integer studentId = studentIds.get(student);
+                    if (studentId != null) {
+                        unseenStudents.remove(student);
+                        if (stored.id > 0 && unseenEnrollments.remove(enrollmentKey(stored.id, studentId))) {
+                            continue; // enrolled already
+                        }
+                    } else {
+                        studentStmt.setString(1, student);
+                        studentStmt.addBatch();
+                        rows++;
+                    }
+                    enrollmentStmt.setString(1, courseName);
+                    enrollmentStmt.setString(2, student);
+                    enrollmentStmt.addBatch();
+                    rows++;
+                }
+                if (rows >= chunkRows) {
+                    flush();
+                }
+            }
+            for (ClassroomRow classroom : block.classrooms) {
+                StoredClassroom stored = classrooms.get(classroom.classroomName());
+                if (stored == null || stored.capacity != classroom.capacity()) {
+                    classroomStmt.setString(1, classroom.classroomName());
+                    classroomStmt.setInt(2, classroom.capacity());
+                    classroomStmt.addBatch();
+                    rows++;
+                    if (stored == null) {
+                        changes.classroomsAdded++;
+                        stored = new StoredClassroom(0, classroom.capacity());
+                        classrooms.put(classroom.classroomName(), stored);
+                    } else if (stored.id > 0 && !stored.updated) {
+                        changes.classroomsUpdated++;
+                        stored.updated = true;
+                    }
+                    stored.capacity = classroom.capacity();
+                }
+                stored.seen = true;
+                if (rows >= chunkRows) {
+                    flush();
+                }
+            }
+        }
+
+        /**
+         * Executes the pending batches: courses and students before the enrollments that look them up.
+         */
+        void flush() throws SQLException {
+            courseStmt.executeBatch();
+            changes.studentsAdded += sum(studentStmt.executeBatch());
+            // INSERT OR IGNORE: an enrollment listed twice in the file is only counted once
+            changes.enrollmentsAdded += sum(enrollmentStmt.executeBatch());
+            changes.allocationsReleased += sum(releaseAllocationsStmt.executeBatch());
+            classroomStmt.executeBatch();
+            rows = 0;
+        }
+
+        private static int sum(int[] updateCounts) {
+            int total = 0;
+            for (int count : updateCounts) {
+                total += Math.max(count, 0);
+            }
+            return total;
+        }
+
+        /**
+         * Deletes everything the files no longer contain. Enrollments and allocations of deleted
+         * courses, students and classrooms go with them (ON DELETE CASCADE).
+         */
+        void finish() throws SQLException {
+            flush();
+            try (PreparedStatement deleteEnrollment = conn.prepareStatement(
+                    "DELETE FROM Enrollments WHERE courseId = ? AND studentId = ?")) {
+                for (long key : unseenEnrollments) {
+                    deleteEnrollment.setInt(1, (int) (key >>> 32));
+                    deleteEnrollment.setInt(2, (int) key);
+                    deleteEnrollment.addBatch();
+                }
+                changes.enrollmentsRemoved = sum(deleteEnrollment.executeBatch());
+            }
+            try (PreparedStatement countAllocations = conn.prepareStatement(
+                    "SELECT COUNT(*) FROM Allocated");
+                 PreparedStatement deleteCourse = conn.prepareStatement("DELETE FROM Courses WHERE courseId = ?");
+                 PreparedStatement deleteStudent = conn.prepareStatement("DELETE FROM Students WHERE studentId = ?");
+                 PreparedStatement deleteClassroom = conn.prepareStatement(
+                         "DELETE FROM Classrooms WHERE classroomId = ?")) {
+                int allocationsBefore = count(countAllocations);
+                for (StoredCourse course : courses.values()) {
+                    if (!course.seen) {
+                        deleteCourse.setInt(1, course.id);
+                        deleteCourse.addBatch();
+                    } else if (course.id > 0 && !course.updated) {
+                        changes.coursesUnchanged++;
+                    }
+                }
+                changes.coursesRemoved = sum(deleteCourse.executeBatch());
+                for (int studentId : unseenStudents.values()) {
+                    deleteStudent.setInt(1, studentId);
+                    deleteStudent.addBatch();
+                }
+                changes.studentsRemoved = sum(deleteStudent.executeBatch());
+                for (StoredClassroom classroom : classrooms.values()) {
+                    if (!classroom.seen) {
+                        deleteClassroom.setInt(1, classroom.id);
+                        deleteClassroom.addBatch();
+                    }
+                }
+                changes.classroomsRemoved = sum(deleteClassroom.executeBatch());
+                changes.allocationsKept = count(countAllocations);
+                changes.allocationsReleased += allocationsBefore - changes.allocationsKept;
+            }
+        }
+
+        private static int count(PreparedStatement pstmt) throws SQLException {
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+
+        @Override
+        public void close() throws SQLException {
+            courseStmt.close();
+            studentStmt.close();
+            enrollmentStmt.close();
+            classroomStmt.close();
+            releaseAllocationsStmt.close();
+        }
+    }
+
+    /**
+     * A course as it is in the database (id 0 = inserted by this delta).
+     */
+    private static class StoredCourse {
+        final int id;
+        String lecturer;
+        int duration;
+        String timeToStart;
+        boolean seen;
+        boolean updated;
+        boolean rescheduled;
+
+        StoredCourse(int id, String lecturer, int duration, String timeToStart) {
+            this.id = id;
+            this.lecturer = lecturer;
+            this.duration = duration;
+            this.timeToStart = timeToStart;
+        }
+
+        boolean changed(String lecturer, int duration, String timeToStart) {
+            return this.duration != duration || !Objects.equals(this.lecturer, lecturer)
+                    || !Objects.equals(this.timeToStart, timeToStart);
+        }
+    }
+
+    /**
+     * A classroom as it is in the database (id 0 = inserted by this delta).
+     */
+    private static class StoredClassroom {
+        final int id;
+        int capacity;
+        boolean seen;
+        boolean updated;
+
+        StoredClassroom(int id, int capacity) {
+            this.id = id;
+            this.capacity = capacity;
+        }
+    }
+
+    /**
+     * What an import wrote.
+     */
+    public static class Result {
+        private int courses;
+        private int enrollments;
+        private int classrooms;
+        private int skippedLines;
+        private int chunks;
+
+        public int getCourses() {
+            return courses;
+        }
+
+        public int getEnrollments() {
+            return enrollments;
+        }
+
+        public int getClassrooms() {
+            return classrooms;
+        }
+
+        public int getSkippedLines() {
+            return skippedLines;
+        }
+
+        public int getChunks() {
+            return chunks;
+        }
+
+        @Override
+        public String toString() {
+            return courses + " courses, " + enrollments + " enrollments, " + classrooms + " classrooms in "
+                    + chunks + " commits (" + skippedLines + " lines skipped)";
+        }
+    }
+
+    /**
+     * What a delta import changed.
+     */
+    public static class Changes {
+        private int coursesAdded;
+        private int coursesUpdated;
+        private int coursesRemoved;
+        private int coursesUnchanged;
+        private int studentsAdded;
+        private int studentsRemoved;
+        private int enrollmentsAdded;
+        private int enrollmentsRemoved;
+        private int classroomsAdded;
+        private int classroomsUpdated;
+        private int classroomsRemoved;
+        private int allocationsKept;
+        private int allocationsReleased;
+        private int skippedLines;
+
+        public int getCoursesAdded() {
+            return coursesAdded;
+        }
+
+        public int getCoursesUpdated() {
+            return coursesUpdated;
+        }
+
+        public int getCoursesRemoved() {
+            return coursesRemoved;
+        }
+
+        public int getCoursesUnchanged() {
+            return coursesUnchanged;
+        }
+
+        public int getStudentsAdded() {
+            return studentsAdded;
+        }
+
+        public int getStudentsRemoved() {
+            return studentsRemoved;
+        }
+
+        public int getEnrollmentsAdded() {
+            return enrollmentsAdded;
+        }
+
+        public int getEnrollmentsRemoved() {
+            return enrollmentsRemoved;
+        }
+
+        public int getClassroomsAdded() {
+            return classroomsAdded;
+        }
+
+        public int getClassroomsUpdated() {
+            return classroomsUpdated;
+        }
+
+        public int getClassroomsRemoved() {
+            return classroomsRemoved;
+        }
+
+        public int getAllocationsKept() {
+            return allocationsKept;
+        }
+
+        public int getAllocationsReleased() {
+            return allocationsReleased;
+        }
+
+        public int getSkippedLines() {
+            return skippedLines;
+        }
+
+        /**
+         * @return True if the files matched the database.
+         */
+        public boolean isEmpty() {
+            return coursesAdded + coursesUpdated + coursesRemoved + studentsAdded + studentsRemoved
+                    + enrollmentsAdded + enrollmentsRemoved + classroomsAdded + classroomsUpdated
+                    + classroomsRemoved + allocationsReleased == 0;
+        }
+
+        @Override
+        public String toString() {
+            return "Courses: " + coursesAdded + " added, " + coursesUpdated + " updated, " + coursesRemoved
+                    + " removed, " + coursesUnchanged + " unchanged\n"
+                    + "Students: " + studentsAdded + " added, " + studentsRemoved + " removed\n"
+                    + "Enrollments: " + enrollmentsAdded + " added, " + enrollmentsRemoved + " removed\n"
+                    + "Classrooms: " + classroomsAdded + " added, " + classroomsUpdated + " updated, "
+                    + classroomsRemoved + " removed\n"
+                    + "Classroom allocations: " + allocationsKept + " kept, " + allocationsReleased + " released"
+                    + (skippedLines > 0 ? "\n" + skippedLines + " invalid lines skipped" : "");
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.timetablemanager;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * Splits a region of a (usually memory-mapped) buffer into lines and {@code ;}-separated
+ * fields without creating objects per line: fields are only offsets into the buffer, kept in
+ * arrays that are reused for every line. Values are turned into Strings by the caller, e.g.
+ * through a SymbolTable.
+ *
+ * Lines end at "\n", "\r" or "\r\n" like BufferedReader.readLine, and fields follow
+ * {@code line.split(";")}: trailing empty fields are dropped, an empty line has one empty field.
+ * Works for any charset in which ';', '\r' and '\n' are single ASCII bytes (e.g. UTF-8).
+ */
+class CsvTokenizer {
+
+    private final ByteBuffer buffer;
+    private final int end;
+    private int position;
+
+    private int lineStart;
+    private int lineEnd;
+    private int fieldCount;
+    private int[] fieldStarts = new int[16];
+    private int[] fieldEnds = new int[16];
+
+    /**
+     * @param buffer The bytes; only read with absolute gets, so one buffer can be shared by several tokenizers.
+     * @param start  First byte of the region.
+     * @param end    End of the region (exclusive).
+     */
+    CsvTokenizer(ByteBuffer buffer, int start, int end) {
+        this.buffer = buffer;
+        this.position = start;
+        this.end = end;
+    }
+
+    /**
+     * Moves to the next line.
+     *
+     * @return False at the end of the region.
+     */
+    boolean nextLine() {
+        if (position >= end) {
+            return false;
+        }
+        lineStart = position;
+        int i = position;
+        byte b = 0;
+        while (i < end && (b = buffer.get(i)) != '\n' && b != '\r') {
+            i++;
+        }
+        lineEnd = i;
+        position = i + 1;
+        if (i < end && b == '\r' && position < end && buffer.get(position) == '\n') {
+            position++;
+        }
+        splitFields();
+        return true;
+    }
+
+    private void splitFields() {
+        fieldCount = 0;
+        int fieldStart = lineStart;
+        for (int i = lineStart; i < lineEnd; i++) {
+            if (buffer.get(i) == ';') {
+                addField(fieldStart, i);
+                fieldStart = i + 1;
+            }
+        }
+        addField(fieldStart, lineEnd);
+        if (lineEnd > lineStart) {
+            while (fieldCount > 0 && fieldStarts[fieldCount - 1] == fieldEnds[fieldCount - 1]) {
+                fieldCount--;
+            }
+        }
+    }
+
+    private void addField(int start, int end) {
+        if (fieldCount == fieldStarts.length) {
+            fieldStarts = java.util.Arrays.copyOf(fieldStarts, fieldCount * 2);
+            fieldEnds = java.util.Arrays.copyOf(fieldEnds, fieldCount * 2);
+        }
+        fieldStarts[fieldCount] = start;
+        fieldEnds[fieldCount] = end;
+        fieldCount++;
+    }
+
+    int fieldCount() {
+        return fieldCount;
+    }
+
+    int fieldStart(int field) {
+        return fieldStarts[field];
+    }
+
+    int fieldEnd(int field) {
+        return fieldEnds[field];
+    }
+
+    ByteBuffer buffer() {
+        return buffer;
+    }
+
+    /**
+     * Reads the digits of a field like "2" or "2 hours", ignoring everything else.
+     *
+     * @return The number, 0 if there are no digits, or -1 if it does not fit in an int.
+     */
+    int digits(int field) {
+        long value = 0;
+        for (int i = fieldStarts[field]; i < fieldEnds[field]; i++) {
+            byte b = buffer.get(i);
+            if (b >= '0' && b <= '9') {
+                value = value * 10 + (b - '0');
+                if (value > Integer.MAX_VALUE) {
+                    return -1;
+                }
+            }
+        }
+        return (int) value;
+    }
+
+    /**
+     * Decodes a field; allocates, so meant for rare values and error messages.
+     */
+    String fieldText(int field) {
+        return decode(fieldStarts[field], fieldEnds[field]);
+    }
+
+    /**
+     * Decodes the current line; allocates, so meant for error messages.
+     */
+    String lineText() {
+        return decode(lineStart, lineEnd);
+    }
+
+    private String decode(int start, int end) {
+        byte[] bytes = new byte[end - start];
+        buffer.get(start, bytes);
+        return new String(bytes, Charset.defaultCharset());
+    }
+}
@@ -1,14 +1,21 @@
 package com.example.timetablemanager;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.sql.*;
-import java.time.LocalTime;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-
-import static java.sql.DriverManager.getConnection;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * This static class is responsible for creating and managing the timetable database.
@@ -18,28 +25,64 @@ import static java.sql.DriverManager.getConnection;
  * - Allocated: Manages the allocation of courses to classrooms.
  * - Students: Stores student information.
  * - Enrollments: Manages the enrollments of students in courses.
+ * Every change made through this class is also recorded in the Journal table (see ChangeJournal),
+ * which backs undo / redo and restoring earlier versions of the timetable.
  *
  * The database is created and stored in the user's home directory under the Documents folder.
  */
 public class Database {
-    private static final String dbPath = System.getProperty("user.home") + File.separator + "Documents" + File.separator + "TimetableManagement";
-    private static final String url = "jdbc:sqlite:" + dbPath + File.separator + "TimetableManagement.db";
-    private static Connection conn = null;
-
-    // In-memory course list
-    private static List<Course> courseList = new ArrayList<>();
+    private static final String dbPath = System.getProperty("timetablemanager.dbPath",
+            System.getProperty("user.home") + File.separator + "Documents" + File.separator + "TimetableManagement");
+    private static final File dbFile = new File(dbPath, "TimetableManagement.db");
+    private static final File snapshotFile = new File(dbPath, TimetableSnapshot.FILE_NAME);
+    private static final String url = "jdbc:sqlite:" + dbFile.getPath();
+    private static final int READER_CONNECTIONS = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    private static volatile ConnectionPool pool = null;
+
+    // Writer lease held between beginTransaction and commitTransaction / rollbackTransaction
+    private static Connection transaction = null;
+
+    // Changes made inside that transaction, journaled as one step when it commits
+    private static ChangeJournal.Change transactionChange = null;
+
+    // Undo / redo history of the open database
+    private static ChangeJournal journal = new ChangeJournal();
+
+    // In-memory courses, indexed by ID, classroom, lecturer, day and student
+    private static final TimetableRepository repository = new TimetableRepository();
+    // Full-text index of the courses for the main table's search box
+    private static final CourseSearchIndex searchIndex = new CourseSearchIndex(repository);
+    private static final StudentTimetables studentTimetables = new StudentTimetables(repository);
     private static List<Student> allStudents = new ArrayList<>();
 
+    // Classroom name -> capacity, replaced as a whole so background readers always see a complete map
+    private static volatile Map<String, Integer> classroomCapacities = Map.of();
+
+    // Which weekly slots every classroom is allocated in (kept in sync with the Allocated table)
+    private static final SlotOccupancyIndex classroomOccupancy = new SlotOccupancyIndex();
+
+    // Which weekly slots every student has a course in (kept in sync with the Enrollments table)
+    private static final SlotOccupancyIndex studentOccupancy = new SlotOccupancyIndex();
+
+    // Which weekly slots every lecturer teaches in (kept in sync with the Courses table)
+    private static final SlotOccupancyIndex lecturerOccupancy = new SlotOccupancyIndex();
+
     // Transaction Management Methods
 
     /**
      * Begins a database transaction by setting auto-commit to false.
+     * The calling thread keeps the writer connection until the transaction is committed or rolled back,
+     * so the single-statement write methods it calls in between join the transaction.
      */
     public static void beginTransaction() throws SQLException {
-        if (conn == null || conn.isClosed()) {
-            connect();
+        Connection writer = writer();
+        if (transaction != null) {
+            writer.close();
+            throw new SQLException("A transaction is already in progress.");
         }
-        conn.setAutoCommit(false);
+        writer.setAutoCommit(false);
+        transaction = writer;
+        transactionChange = new ChangeJournal.Change("");
         System.out.println("Transaction started.");
     }
 
@@ -47,10 +90,27 @@ public class Database {
      * Commits the current database transaction and sets auto-commit back to true.
      */
     public static void commitTransaction() throws SQLException {
-        if (conn != null && !conn.isClosed()) {
-            conn.commit();
-            conn.setAutoCommit(true);
-            System.out.println("Transaction committed.");
+        if (transaction != null) {
+            Connection writer = transaction;
+            try {
+                if (!transactionChange.isEmpty()) {
+                    ChangeJournal.append(writer, ChangeJournal.Kind.CHANGE, 0,
+                            transactionChange.getDescription(), transactionChange.getOps());
+                }
+                writer.commit();
+                writer.setAutoCommit(true);
+                System.out.println("Transaction committed.");
+            } catch (SQLException e) {
+                // The pooled writer must not go back with the transaction still open
+                writer.rollback();
+                writer.setAutoCommit(true);
+                loadAllCourses();
+                throw e;
+            } finally {
+                transaction = null;
+                transactionChange = null;
+                writer.close();
+            }
         }
     }
 
@@ -58,51 +118,302 @@ public class Database {
      * Rolls back the current database transaction and sets auto-commit back to true.
      */
     public static void rollbackTransaction() {
+        if (transaction == null) {
+            return;
+        }
+        Connection writer = transaction;
         try {
-            if (conn != null && !conn.isClosed()) {
+            writer.rollback();
+            writer.setAutoCommit(true);
+            System.out.println("Transaction rolled back.");
+        } catch (SQLException e) {
+            System.err.println("Error during transaction rollback: " + e.getMessage());
+        } finally {
+            transaction = null;
+            transactionChange = null;
+            try {
+                writer.close();
+            } catch (SQLException e) {
+                System.err.println("Error while releasing the writer connection: " + e.getMessage());
+            }
+        }
+        loadAllCourses(); // In-memory state may contain changes that were just undone
+    }
+
+    /**
+     * Database work done by inTransaction.
+     */
+    interface TransactionWork<T> {
+        T run(Connection conn) throws SQLException;
+    }
+
+    /**
+     * Runs {@code work} on the writer in a transaction of its own, or as part of the transaction
+     * opened by beginTransaction, which then commits or rolls it back with everything else.
+     */
+    static <T> T inTransaction(TransactionWork<T> work) throws SQLException {
+        try (Connection conn = writer()) {
+            if (!conn.getAutoCommit()) {
+                return work.run(conn);
+            }
+            try {
+                conn.setAutoCommit(false);
+                T result = work.run(conn);
+                conn.commit();
+                return result;
+            } catch (SQLException | RuntimeException e) {
                 conn.rollback();
+                throw e;
+            } finally {
                 conn.setAutoCommit(true);
-                System.out.println("Transaction rolled back.");
             }
+        }
+    }
+
+    /**
+     * Records a change made on {@code conn} in the journal, in the same transaction. Between
+     * beginTransaction and commitTransaction the changes are collected and journaled as one
+     * step when the transaction commits, so they are undone together.
+     */
+    private static void journal(Connection conn, ChangeJournal.Change change) throws SQLException {
+        if (change.isEmpty()) {
+            return;
+        }
+        if (transaction != null) {
+            transactionChange.append(change);
+        } else {
+            ChangeJournal.append(conn, ChangeJournal.Kind.CHANGE, 0, change.getDescription(), change.getOps());
+        }
+    }
+
+    // Undo / redo
+
+    /**
+     * @return What undo() would take back, e.g. "Move CENG101 to M102", or null if there is nothing to undo.
+     */
+    public static String getUndoDescription() {
+        try (Connection conn = reader()) {
+            ChangeJournal.Entry entry = journal.nextUndo(conn);
+            return entry == null ? null : entry.getDescription();
         } catch (SQLException e) {
-            System.err.println("Error during transaction rollback: " + e.getMessage());
+            System.err.println("Error while reading the change journal: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * @return What redo() would apply again, or null if there is nothing to redo.
+     */
+    public static String getRedoDescription() {
+        try (Connection conn = reader()) {
+            ChangeJournal.Entry entry = journal.nextRedo(conn);
+            return entry == null ? null : entry.getDescription();
+        } catch (SQLException e) {
+            System.err.println("Error while reading the change journal: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Takes back the most recent change that is not undone yet. Undo goes back as far as the last
+     * CSV import or blank start.
+     *
+     * @return True if there was a change to undo.
+     */
+    public static boolean undo() throws SQLException {
+        return applyFromJournal(true);
+    }
+
+    /**
+     * Applies the most recently undone change again.
+     *
+     * @return True if there was a change to redo.
+     */
+    public static boolean redo() throws SQLException {
+        return applyFromJournal(false);
+    }
+
+    private static boolean applyFromJournal(boolean undo) throws SQLException {
+        if (transaction != null) {
+            throw new SQLException("Cannot " + (undo ? "undo" : "redo") + " while a transaction is in progress.");
+        }
+        List<ChangeJournal.Op> ops = inTransaction(conn -> undo ? journal.undo(conn) : journal.redo(conn));
+        if (ops == null) {
+            return false;
+        }
+        for (ChangeJournal.Op op : ops) {
+            applyToModel(op);
+        }
+        System.out.println((undo ? "Undone: " : "Redone: ") + ops.size() + " operation(s).");
+        return true;
+    }
+
+    /**
+     * Brings the in-memory model and the occupancy indexes in line with an operation applied to the database.
+     */
+    private static void applyToModel(ChangeJournal.Op op) {
+        String[] a = op.args;
+        switch (op.type) {
+            case ADD_COURSE -> cacheNewCourse(a[0], a[1], Integer.parseInt(a[2]), a[3], "");
+            case REMOVE_COURSE -> uncacheCourse(a[0]);
+            case ADD_STUDENT -> allStudents.add(new Student(a[0], new ArrayList<>()));
+            case REMOVE_STUDENT -> allStudents.removeIf(student -> student.getFullName().equals(a[0]));
+            case ADD_CLASSROOM, REMOVE_CLASSROOM -> loadClassrooms();
+            case ALLOCATE -> cacheAllocation(a[0], a[1]);
+            case DEALLOCATE -> uncacheAllocation(a[0], a[1]);
+            case MOVE -> {
+                uncacheAllocation(a[0], a[1]);
+                cacheAllocation(a[0], a[2]);
+            }
+            case ENROLL -> cacheEnrollment(a[0], a[1]);
+            case UNENROLL -> uncacheEnrollment(a[0], a[1]);
+        }
+    }
+
+    /**
+     * @return The most recent journal entries, newest first, for picking a point to restore.
+     */
+    static List<ChangeJournal.Entry> getJournal(int limit) throws SQLException {
+        try (Connection conn = reader()) {
+            return ChangeJournal.entries(conn, limit);
+        }
+    }
+
+    /**
+     * Restores the timetable to how it was right after journal entry {@code seq} (see
+     * ChangeJournal.restore). The current database is backed up first, then replaced by the
+     * restored copy and loaded again. Slow for large timetables; call it off the UI thread.
+     */
+    public static void restoreTo(long seq) throws SQLException, IOException {
+        DatabaseBackup.run();
+
+        File restored = new File(dbPath, "TimetableManagement.restore");
+        try (Connection conn = reader()) {
+            ChangeJournal.restore(conn, seq, DatabaseBackup.list(), restored);
+        } catch (SQLException | IOException | RuntimeException e) {
+            Files.deleteIfExists(restored.toPath());
+            throw e;
+        }
+
+        synchronized (Database.class) {
+            close();
+            Files.deleteIfExists(snapshotFile.toPath());
+            Files.deleteIfExists(new File(dbFile.getPath() + "-wal").toPath());
+            Files.deleteIfExists(new File(dbFile.getPath() + "-shm").toPath());
+            Files.move(restored.toPath(), dbFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            connect();
         }
+        System.out.println("Database restored to journal entry #" + seq + ".");
     }
 
-    // Create database connection
-    public static Connection connect() {
+    /**
+     * Opens the connection pool and loads the in-memory model; does nothing if it is already open.
+     * The model comes from the snapshot written by the last clean shutdown if the database has not
+     * changed since (see TimetableSnapshot), otherwise from SQL.
+     */
+    public static synchronized void connect() {
+        if (pool != null) {
+            return;
+        }
         File dbDir = new File(dbPath);
         if (!dbDir.exists()) {
             dbDir.mkdir();
         }
 
+        // Checked before the pool opens the database file
+        long start = System.nanoTime();
+        TimetableSnapshot snapshot = TimetableSnapshot.open(snapshotFile, dbFile);
         try {
-            if (conn == null || conn.isClosed()) {
-                conn = getConnection(url);
-                System.out.println("Connected to database!");
-                createTables(); // Create tables when connected
+            pool = new ConnectionPool(url, READER_CONNECTIONS);
+            journal = new ChangeJournal();
+            System.out.println("Connected to database!");
+            try (Connection conn = pool.writer()) {
+                createTables(conn); // Create tables when connected
+                migrateSchema(conn);
+            }
+            if (snapshot != null) {
+                loadSnapshot(snapshot);
+                System.out.printf("Loaded %d courses from the timetable snapshot in %.1f ms.%n",
+                        repository.size(), (System.nanoTime() - start) / 1e6);
+            } else {
+                loadClassrooms();
                 loadAllCourses(); // Load courses into memory
                 loadStudents();
             }
         } catch (SQLException e) {
             System.err.println("Connection error: " + e.getMessage());
         }
-        return conn;
     }
 
-    public static void close() {
-        try {
-            if (conn != null) {
-                conn.close();
-                System.out.println("Database connection closed!");
+    /**
+     * Borrows a read-only connection from the pool. Close it (try-with-resources) to give it back.
+     */
+    public static Connection reader() throws SQLException {
+        return openPool().reader();
+    }
+
+    /**
+     * Borrows the writer connection from the pool. Close it (try-with-resources) to give it back;
+     * other threads wait for it in the meantime, so keep it only as long as needed.
+     */
+    public static Connection writer() throws SQLException {
+        return openPool().writer();
+    }
+
+    /**
+     * @return Usage counters of the connection pool, or null if the database is not connected.
+     */
+    public static ConnectionPool.Metrics getPoolMetrics() {
+        ConnectionPool current = pool;
+        return current == null ? null : current.getMetrics();
+    }
+
+    private static ConnectionPool openPool() throws SQLException {
+        ConnectionPool current = pool;
+        if (current == null) {
+            connect();
+            current = pool;
+            if (current == null) {
+                throw new SQLException("Database is not available: " + url);
             }
-        } catch (SQLException e) {
-            System.err.println("An error occurred while closing the connection: " + e.getMessage());
+        }
+        return current;
+    }
+
+    public static synchronized void close() {
+        if (pool != null) {
+            pool.close();
+            pool = null;
+            System.out.println("Database connection closed!");
+        }
+    }
+
+    /**
+     * Closes the database when the application exits and writes a snapshot of it for the next start.
+     * The snapshot is read from the database, not from the in-memory model, right before the pool
+     * checkpoints the WAL, and written once the database file is closed and no longer changes.
+     */
+    public static synchronized void shutdown() {
+        if (pool == null) {
+            return;
+        }
+        byte[][] payload = new byte[1][];
+        pool.close(writer -> payload[0] = TimetableSnapshot.read(writer));
+        pool = null;
+        System.out.println("Database connection closed!");
+        if (payload[0] == null) {
+            return;
+        }
+        try {
+            TimetableSnapshot.write(snapshotFile, payload[0], dbFile);
+            System.out.println("Timetable snapshot written (" + payload[0].length + " bytes).");
+        } catch (IOException e) {
+            System.err.println("Error while writing the timetable snapshot: " + e.getMessage());
         }
     }
 
     // CREATE TABLES (Creates five tables: Courses,Classrooms,Allocated,Students,Enrollments)
-    private static void createTables() {
+    static void createTables(Connection conn) {
         String createCoursesTable = """
                 CREATE TABLE IF NOT EXISTS Courses (
                     courseId INTEGER PRIMARY KEY AUTOINCREMENT,
@@ -161,91 +472,325 @@ public class Database {
     }
 
 
+    // Upgrade databases created by older versions (see SchemaMigrations)
+    private static void migrateSchema(Connection conn) {
+        try {
+            SchemaMigrations.migrate(conn);
+        } catch (SQLException e) {
+            System.err.println("Error while migrating the database schema: " + e.getMessage());
+        }
+    }
+
     // Load all courses into the in-memory list (Includes courses and enrolled students)
     public static void loadAllCourses() {
-        courseList.clear();
-        String sql = "SELECT DISTINCT courseName, timeToStart, duration, lecturer FROM Courses";
-        String sql2 = "SELECT classroomName FROM Allocated WHERE courseName = ?";
-        String sql3 = "SELECT capacity FROM Classrooms WHERE classroomName = ?";
-        try (Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+        classroomOccupancy.clear();
+        studentOccupancy.clear();
+        lecturerOccupancy.clear();
+        try (Connection conn = reader()) {
+            repository.replaceAll(loadCourseGraph(conn));
+            for (Course course : repository.getAll()) {
+                indexAllocation(course.getCourseID(), course.getClassroom());
+                indexLecturer(course);
+                for (Student student : course.getStudents()) {
+                    indexEnrollment(course.getCourseID(), student.getFullName());
+                }
+            }
 
-            boolean coursesFound = false;
+            if (repository.size() > 0) {
+                System.out.println("Courses loaded into memory.");
+            } else {
+                System.out.println("No courses found in the database.");
+            }
 
-            while (rs.next()) {
-                String courseName = rs.getString("courseName");
-                int duration = rs.getInt("duration");
-                String lecturer = rs.getString("lecturer");
+        } catch (SQLException e) {
+            System.err.println("Error while loading courses: " + e.getMessage());
+        }
+    }
 
-                // Fetch enrolled students
-                List<String> enrolledStudentNames = getStudentsEnrolledInCourse(courseName);
-                List<Student> enrolledStudents = new ArrayList<>();
-                for (String studentName : enrolledStudentNames) {
-                    enrolledStudents.add(new Student(studentName, new ArrayList<>()));
-                }
+    /**
+     * Fills the in-memory model and the occupancy indexes from a snapshot; the same result as
+     * loadClassrooms, loadAllCourses and loadStudents, without touching the database.
+     */
+    private static void loadSnapshot(TimetableSnapshot snapshot) {
+        classroomCapacities = Collections.unmodifiableMap(snapshot.classroomCapacities());
+        classroomOccupancy.clear();
+        studentOccupancy.clear();
+        lecturerOccupancy.clear();
+        List<Course> loaded = snapshot.courses();
+        repository.replaceAll(loaded);
+
+        Map<String, String> lecturerKeys = new HashMap<>();
+        for (int i = 0; i < loaded.size(); i++) {
+            Course course = loaded.get(i);
+            String courseName = course.getCourseID();
+            int day = snapshot.day(i);
+            int startSlot = snapshot.startSlot(i);
+            int endSlot = snapshot.endSlot(i);
+            if (!course.getClassroom().isEmpty()) {
+                classroomOccupancy.add(course.getClassroom(), courseName, day, startSlot, endSlot);
+            }
+            String lecturer = course.getLecturer() == null ? null
+                    : lecturerKeys.computeIfAbsent(course.getLecturer(), Database::lecturerKey);
+            if (lecturer != null) {
+                lecturerOccupancy.add(lecturer, courseName, day, startSlot, endSlot);
+            }
+            for (Student student : course.getStudents()) {
+                studentOccupancy.add(student.getFullName(), courseName, day, startSlot, endSlot);
+            }
+        }
 
-                int capacity = 0; // default capacity
-                String classroomName = ""; // no classroom info here
-                String startTime = rs.getString("timeToStart");
+        allStudents.clear();
+        allStudents.addAll(snapshot.students());
+    }
 
-                // Fetch allocated classroom
-                try (PreparedStatement pstmt2 = conn.prepareStatement(sql2)) {
-                    pstmt2.setString(1, courseName);
-                    try (ResultSet rs2 = pstmt2.executeQuery()) {
-                        if (rs2.next()) {
-                            classroomName = rs2.getString("classroomName");
-                        }
-                    }
-                }
+    // The queries behind the in-memory model, shared with TimetableSnapshot
+    static final String CLASSROOMS_SQL = "SELECT classroomName, capacity FROM Classrooms ORDER BY classroomId";
+    static final String STUDENTS_SQL = "SELECT studentId, studentName FROM Students";
+    static final String COURSE_GRAPH_SQL = """
+            SELECT c.courseName, c.timeToStart, c.duration, c.lecturer, cl.classroomName, cl.capacity
+            FROM Courses c
+            LEFT JOIN Allocated a ON a.courseId = c.courseId
+            LEFT JOIN Classrooms cl ON cl.classroomId = a.classroomId
+            ORDER BY c.courseId, a.allocationID
+            """;
+    static final String ENROLLMENT_GRAPH_SQL = """
+            SELECT c.courseName, s.studentName
+            FROM Enrollments e
+            JOIN Courses c ON c.courseId = e.courseId
+            JOIN Students s ON s.studentId = e.studentId
+            ORDER BY e.courseId
+            """;
 
-                // Fetch classroom capacity
-                if (!classroomName.isEmpty()) {
-                    try (PreparedStatement pstmt3 = conn.prepareStatement(sql3)) {
-                        pstmt3.setString(1, classroomName);
-                        try (ResultSet rs3 = pstmt3.executeQuery()) {
-                            if (rs3.next()) {
-                                capacity = rs3.getInt("capacity");
-                            }
-                        }
-                    }
+    /**
+     * Builds the whole Course/Student graph with a constant number of queries:
+     * one join for courses, allocations and classroom capacities, and one scan
+     * over Enrollments ordered by course. Students are shared between courses,
+     * so every Student also knows the courses it is enrolled in.
+     *
+     * @param connection The connection to read from.
+     * @return The courses in insertion order.
+     */
+    static List<Course> loadCourseGraph(Connection connection) throws SQLException {
+        Map<String, Course> coursesByName = new LinkedHashMap<>();
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(COURSE_GRAPH_SQL)) {
+            while (rs.next()) {
+                String courseName = rs.getString("courseName");
+                if (coursesByName.containsKey(courseName)) {
+                    continue; // Same as before: only the first allocation of a course counts
                 }
-
+                String classroomName = rs.getString("classroomName");
                 Course course = new Course(
                         courseName,
-                        capacity,
-                        enrolledStudents,
-                        classroomName,
-                        startTime,
-                        duration,
-                        lecturer
+                        classroomName != null ? rs.getInt("capacity") : 0,
+                        new ArrayList<>(),
+                        classroomName != null ? classroomName : "",
+                        rs.getString("timeToStart"),
+                        rs.getInt("duration"),
+                        rs.getString("lecturer")
                 );
+                coursesByName.put(courseName, course);
+            }
+        }
 
-                courseList.add(course);
-                coursesFound = true;
+        Map<String, Student> studentsByName = new HashMap<>();
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(ENROLLMENT_GRAPH_SQL)) {
+            Course current = null;
+            String currentName = null;
+            while (rs.next()) {
+                String courseName = rs.getString("courseName");
+                if (!courseName.equals(currentName)) {
+                    currentName = courseName;
+                    current = coursesByName.get(courseName);
+                }
+                if (current == null) {
+                    continue; // Enrollment for a course that no longer exists
+                }
+                Student student = studentsByName.computeIfAbsent(rs.getString("studentName"),
+                        name -> new Student(name, new ArrayList<>()));
+                current.getStudents().add(student);
+                student.getEnrolledCourses().add(current);
             }
+        }
 
-            if (coursesFound) {
-                System.out.println("Courses loaded into memory.");
-            } else {
-                System.out.println("No courses found in the database.");
+        return new ArrayList<>(coursesByName.values());
+    }
+
+    /**
+     * Marks the course's weekly slots as taken in the classroom's occupancy bitmap.
+     */
+    private static void indexAllocation(String courseName, String classroomName) {
+        Course course = repository.get(courseName);
+        if (course == null || classroomName == null || classroomName.isEmpty()) {
+            return;
+        }
+        String timeToStart = course.getTimeToStart();
+        String time = TimeSlots.timePart(timeToStart);
+        classroomOccupancy.add(classroomName, courseName,
+                TimeSlots.dayIndex(TimeSlots.dayPart(timeToStart)),
+                TimeSlots.startSlot(time),
+                TimeSlots.endSlot(time, course.getDuration()));
+    }
+
+    /**
+     * Marks the course's weekly slots as taken in the student's occupancy bitmap.
+     */
+    private static void indexEnrollment(String courseName, String studentName) {
+        Course course = repository.get(courseName);
+        if (course == null || studentName == null) {
+            return;
+        }
+        String timeToStart = course.getTimeToStart();
+        String time = TimeSlots.timePart(timeToStart);
+        studentOccupancy.add(studentName, courseName,
+                TimeSlots.dayIndex(TimeSlots.dayPart(timeToStart)),
+                TimeSlots.startSlot(time),
+                TimeSlots.endSlot(time, course.getDuration()));
+    }
+
+    /**
+     * Marks the course's weekly slots as taken in its lecturer's occupancy bitmap.
+     */
+    private static void indexLecturer(Course course) {
+        String lecturer = lecturerKey(course.getLecturer());
+        if (lecturer == null) {
+            return;
+        }
+        String timeToStart = course.getTimeToStart();
+        String time = TimeSlots.timePart(timeToStart);
+        lecturerOccupancy.add(lecturer, course.getCourseID(),
+                TimeSlots.dayIndex(TimeSlots.dayPart(timeToStart)),
+                TimeSlots.startSlot(time),
+                TimeSlots.endSlot(time, course.getDuration()));
+    }
+
+    /**
+     * Lecturer names are free text, so "Dr. Smith" and "dr.  smith" are treated as the same person.
+     *
+     * @return The normalized name, or null for a blank lecturer.
+     */
+    static String lecturerKey(String lecturer) {
+        if (lecturer == null || lecturer.isBlank()) {
+            return null;
+        }
+        return lecturer.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Keeps the in-memory course list in step with a course row that was just inserted.
+     */
+    private static void cacheNewCourse(String courseName, String lecturer, int duration, String timeToStart, String classroomName) {
+        Course course = new Course(courseName, classroomCapacities.getOrDefault(classroomName, 0), new ArrayList<>(),
+                classroomName, timeToStart, duration, lecturer);
+        repository.put(course);
+        indexAllocation(courseName, classroomName);
+        indexLecturer(course);
+    }
+
+    /**
+     * Drops a course that was just deleted from the in-memory course list and the occupancy indexes.
+     */
+    private static void uncacheCourse(String courseName) {
+        repository.remove(courseName);
+        classroomOccupancy.removeCourse(courseName);
+        studentOccupancy.removeCourse(courseName);
+        lecturerOccupancy.removeCourse(courseName);
+    }
+
+    /**
+     * Keeps the in-memory course and the classroom index in step with an allocation row that was just inserted.
+     */
+    private static void cacheAllocation(String courseName, String classroomName) {
+        repository.setClassroom(courseName, classroomName, classroomCapacities.getOrDefault(classroomName, 0));
+        indexAllocation(courseName, classroomName);
+    }
+
+    /**
+     * Keeps the in-memory course and the classroom index in step with an allocation row that was just deleted.
+     */
+    private static void uncacheAllocation(String courseName, String classroomName) {
+        classroomOccupancy.remove(classroomName, courseName);
+        Course course = repository.get(courseName);
+        if (course != null && classroomName.equals(course.getClassroom())) {
+            repository.setClassroom(courseName, "", 0);
+        }
+    }
+
+    /**
+     * Keeps the course's student list and the student index in step with an enrollment row that was just inserted.
+     */
+    private static void cacheEnrollment(String courseName, String studentName) {
+        repository.enroll(courseName, studentName);
+        indexEnrollment(courseName, studentName);
+    }
+
+    /**
+     * Keeps the course's student list and the student index in step with an enrollment row that was just deleted.
+     */
+    private static void uncacheEnrollment(String courseName, String studentName) {
+        repository.unenroll(courseName, studentName);
+        studentOccupancy.remove(studentName, courseName);
+    }
+
+    /**
+     * @return The classrooms the course is allocated to, read on {@code conn} so it sees the open transaction.
+     */
+    private static Set<String> allocatedClassrooms(Connection conn, String courseName) throws SQLException {
+        Set<String> classrooms = new LinkedHashSet<>();
+        try (PreparedStatement pstmt = conn.prepareStatement(ALLOCATED_CLASSROOM_SQL)) {
+            pstmt.setString(1, courseName);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    classrooms.add(rs.getString(1));
+                }
+            }
+        }
+        return classrooms;
+    }
+
+    /**
+     * @return The students enrolled in the course, read on {@code conn} so it sees the open transaction.
+     */
+    private static Set<String> enrolledStudents(Connection conn, String courseName) throws SQLException {
+        Set<String> students = new LinkedHashSet<>();
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT s.studentName FROM Enrollments e "
+                + "JOIN Students s ON s.studentId = e.studentId WHERE e.courseId = " + COURSE_ID)) {
+            pstmt.setString(1, courseName);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    students.add(rs.getString(1));
+                }
             }
+        }
+        return students;
+    }
 
-        } catch (SQLException e) {
-            System.err.println("Error while loading courses: " + e.getMessage());
+    /**
+     * Adds a MOVE to {@code change} for every classroom the course leaves for {@code toClassroom}.
+     */
+    private static ChangeJournal.Change moves(ChangeJournal.Change change, String courseName,
+                                              Set<String> fromClassrooms, String toClassroom) {
+        for (String fromClassroom : fromClassrooms) {
+            if (!fromClassroom.equals(toClassroom)) {
+                change.add(ChangeJournal.Op.move(courseName, fromClassroom, toClassroom));
+            }
         }
+        return change;
     }
 
     public static List<Course> loadCoursesofStudents(String student) {
         String query = """
-                SELECT DISTINCT * FROM Courses
-                     WHERE  courseName IN (
-                             SELECT DISTINCT courseName
+                SELECT * FROM Courses
+                     WHERE  courseId IN (
+                             SELECT courseId
                              FROM Enrollments
-                             WHERE studentName = ?)""";
+                             WHERE studentId = (SELECT studentId FROM Students WHERE studentName = ?))""";
 
         List<Course> courses = new ArrayList<>();
 
-        try (PreparedStatement pstmt = conn.prepareStatement(query)
+        try (Connection conn = reader();
+             PreparedStatement pstmt = conn.prepareStatement(query)
         ) {
             pstmt.setString(1, student);
             ResultSet rs = pstmt.executeQuery();
@@ -266,18 +811,19 @@ public class Database {
 
     public static List<Course> loadCoursesForStudent1(String studentName) {
         String query = """
-            SELECT DISTINCT c.courseName, c.timeToStart, c.duration, c.lecturer
+            SELECT c.courseName, c.timeToStart, c.duration, c.lecturer
             FROM Courses c
-            JOIN Enrollments e ON c.courseName = e.courseName
-            WHERE e.studentName = ?
+            JOIN Enrollments e ON c.courseId = e.courseId
+            WHERE e.studentId = (SELECT studentId FROM Students WHERE studentName = ?)
     """;
 
-        String queryAllocated = "SELECT classroomName FROM Allocated WHERE courseName = ?";
+        String queryAllocated = ALLOCATED_CLASSROOM_SQL;
         String queryCapacity = "SELECT capacity FROM Classrooms WHERE classroomName = ?";
 
         List<Course> courses = new ArrayList<>();
 
-        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+        try (Connection conn = reader();
+             PreparedStatement pstmt = conn.prepareStatement(query)) {
             pstmt.setString(1, studentName);
             ResultSet rs = pstmt.executeQuery();
 
@@ -290,7 +836,7 @@ public class Database {
                 String lecturer = rs.getString("lecturer");
 
                 // Fetch enrolled students for this course
-                List<String> enrolledStudentNames = getStudentsEnrolledInCourse(courseName);
+                List<String> enrolledStudentNames = getStudentsEnrolledInCourse(conn, courseName);
                 List<Student> enrolledStudents = new ArrayList<>();
                 for (String name : enrolledStudentNames) {
                     enrolledStudents.add(new Student(name, new ArrayList<>()));
@@ -365,9 +911,8 @@ public class Database {
     }
 
     public static void loadStudents() {
-        String query = "SELECT studentId, studentName FROM Students";
-
-        try (PreparedStatement pstmt = conn.prepareStatement(query);
+        try (Connection conn = reader();
+             PreparedStatement pstmt = conn.prepareStatement(STUDENTS_SQL);
              ResultSet rs = pstmt.executeQuery()) {
 
             allStudents.clear();
@@ -385,17 +930,73 @@ public class Database {
         return new ArrayList<>(allStudents);
     }
 
+    /**
+     * @return The indexed in-memory courses, for lookups by ID, classroom, lecturer, day or student.
+     */
+    public static TimetableRepository getRepository() {
+        return repository;
+    }
+
+    /**
+     * @return The search index over the in-memory courses, kept current with the repository.
+     */
+    public static CourseSearchIndex getSearchIndex() {
+        return searchIndex;
+    }
+
+    /**
+     * @return The weekly timetable of every student, kept current with the repository.
+     */
+    public static StudentTimetables getStudentTimetables() {
+        return studentTimetables;
+    }
+
     public static List<Course> getAllCourses() {
-        return new ArrayList<>(courseList);
+        return repository.getAll();
     }
 
     public static void reloadCourses() {
+        loadClassrooms();
         loadAllCourses();
     }
 
+    // Load all classrooms and their capacities into memory
+    public static void loadClassrooms() {
+        Map<String, Integer> loaded = new LinkedHashMap<>();
+        try (Connection conn = reader();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(CLASSROOMS_SQL)) {
+            while (rs.next()) {
+                loaded.putIfAbsent(rs.getString("classroomName"), rs.getInt("capacity"));
+            }
+            classroomCapacities = Collections.unmodifiableMap(loaded);
+        } catch (SQLException e) {
+            System.err.println("Error while loading classrooms: " + e.getMessage());
+        }
+    }
+
     public static List<String> getStudentsEnrolledInCourse(String courseName) {
+        try (Connection conn = reader()) {
+            return getStudentsEnrolledInCourse(conn, courseName);
+        } catch (SQLException e) {
+            System.err.println("Error while fetching students for course '" + courseName + "': " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Same as above on a connection the caller already holds, so a caller that is reading with a
+     * reader lease does not wait for a second one from the pool.
+     */
+    static List<String> getStudentsEnrolledInCourse(Connection conn, String courseName) throws SQLException {
         List<String> students = new ArrayList<>();
-        String sql = "SELECT DISTINCT studentName FROM Enrollments WHERE courseName = ?";
+        String sql = """
+                SELECT s.studentName
+                FROM Enrollments e
+                JOIN Students s ON s.studentId = e.studentId
+                WHERE e.courseId = (SELECT courseId FROM Courses WHERE courseName = ?)
+                ORDER BY e.enrollmentId
+                """;
 
         try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, courseName);
@@ -404,20 +1005,72 @@ public class Database {
             while (rs.next()) {
                 students.add(rs.getString("studentName"));
             }
-        } catch (SQLException e) {
-            System.err.println("Error while fetching students for course '" + courseName + "': " + e.getMessage());
         }
         return students;
     }
 
+    // Allocated and Enrollments reference rows by integer id; these resolve the names the public API takes
+    static final String COURSE_ID = "(SELECT courseId FROM Courses WHERE courseName = ?)";
+    static final String CLASSROOM_ID = "(SELECT classroomId FROM Classrooms WHERE classroomName = ?)";
+    static final String STUDENT_ID = "(SELECT studentId FROM Students WHERE studentName = ?)";
+
+    static final String INSERT_ALLOCATION_SQL =
+            "INSERT INTO Allocated (courseId, classroomId) VALUES (" + COURSE_ID + ", " + CLASSROOM_ID + ")";
+    static final String INSERT_STUDENT_SQL = "INSERT OR IGNORE INTO Students (studentName) VALUES (?)";
+    static final String INSERT_ENROLLMENT_SQL =
+            "INSERT OR IGNORE INTO Enrollments (courseId, studentId) VALUES (" + COURSE_ID + ", " + STUDENT_ID + ")";
+    private static final String ALLOCATED_CLASSROOM_SQL = "SELECT cl.classroomName FROM Allocated a "
+            + "JOIN Classrooms cl ON cl.classroomId = a.classroomId "
+            + "WHERE a.courseId = " + COURSE_ID + " ORDER BY a.allocationID";
+
+    static final String INSERT_COURSE_SQL =
+            "INSERT INTO Courses (courseName, lecturer, duration, timeToStart, dayOfWeek, startSlot, endSlot) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    // Updates in place instead of INSERT OR REPLACE, which would give the row a new id and orphan its enrollments
+    static final String UPSERT_COURSE_SQL = INSERT_COURSE_SQL
+            + " ON CONFLICT (courseName) DO UPDATE SET lecturer = excluded.lecturer, duration = excluded.duration,"
+            + " timeToStart = excluded.timeToStart, dayOfWeek = excluded.dayOfWeek,"
+            + " startSlot = excluded.startSlot, endSlot = excluded.endSlot";
+    static final String UPSERT_CLASSROOM_SQL = """
+            INSERT INTO Classrooms (classroomName, capacity) VALUES (?, ?)
+            ON CONFLICT (classroomName) DO UPDATE SET capacity = excluded.capacity""";
+
+    /**
+     * Binds a course row for INSERT_COURSE_SQL / UPSERT_COURSE_SQL, including its slot columns.
+     */
+    static void bindCourse(PreparedStatement pstmt, String courseName, String lecturer, int duration, String timeToStart) throws SQLException {
+        pstmt.setString(1, courseName);
+        pstmt.setString(2, lecturer);
+        pstmt.setInt(3, duration);
+        pstmt.setString(4, timeToStart);
+        SchemaMigrations.bindTimeSlots(pstmt, 5, timeToStart, duration);
+    }
+
+    /**
+     * Same as above with the slot columns already computed, e.g. by the parser threads of CsvImporter.
+     */
+    static void bindCourse(PreparedStatement pstmt, String courseName, String lecturer, int duration, String timeToStart,
+                           int dayOfWeek, int startSlot, int endSlot) throws SQLException {
+        pstmt.setString(1, courseName);
+        pstmt.setString(2, lecturer);
+        pstmt.setInt(3, duration);
+        pstmt.setString(4, timeToStart);
+        SchemaMigrations.bindTimeSlots(pstmt, 5, dayOfWeek, startSlot, endSlot);
+    }
+
     public static void addCourse(String courseName, String lecturer, int duration, String timeToStart) {
-        String sql = "INSERT INTO Courses (courseName, lecturer, duration, timeToStart) VALUES (?, ?, ?, ?)";
-        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, courseName);
-            pstmt.setString(2, lecturer);
-            pstmt.setInt(3, duration);
-            pstmt.setString(4, timeToStart);
-            pstmt.executeUpdate();
+        String normalizedTime = TimeSlots.normalize(timeToStart);
+        try {
+            inTransaction(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(INSERT_COURSE_SQL)) {
+                    bindCourse(pstmt, courseName, lecturer, duration, normalizedTime);
+                    pstmt.executeUpdate();
+                }
+                journal(conn, new ChangeJournal.Change("Add course " + courseName)
+                        .add(ChangeJournal.Op.addCourse(courseName, lecturer, duration, normalizedTime)));
+                return null;
+            });
+            cacheNewCourse(courseName, lecturer, duration, normalizedTime, "");
             System.out.println("Course added successfully!");
         } catch (SQLException e) {
             System.err.println("Error while adding course: " + e.getMessage());
@@ -433,48 +1086,65 @@ public class Database {
         String day = parts[0];
         String time = parts[1];
 
-        // Check if the classroom is available excluding the current course
-        if (!isClassroomAvailable(classroomName, day, time, duration, courseName)) {
-            throw new SQLException("Classroom " + classroomName + " is not available on " + day + " at " + time + " for duration " + duration + " hours.");
+        int dayIndex = TimeSlots.dayIndex(day);
+        int startSlot = TimeSlots.startSlot(time);
+        if (dayIndex < 0 || startSlot < 0) {
+            throw new SQLException("Invalid day/time: " + day + " " + time);
         }
+        int endSlot = TimeSlots.endSlot(time, duration);
 
-        String insertCourseSQL = "INSERT INTO Courses (courseName, lecturer, duration, timeToStart) VALUES (?, ?, ?, ?)";
-        String allocateClassroomSQL = "INSERT INTO Allocated (courseName, classroomName) VALUES (?, ?)";
-
+        String normalizedTime = TimeSlots.normalize(timeToStart);
         try {
-            conn.setAutoCommit(false);
-
-            try (PreparedStatement pstmt1 = conn.prepareStatement(insertCourseSQL)) {
-                pstmt1.setString(1, courseName);
-                pstmt1.setString(2, lecturer);
-                pstmt1.setInt(3, duration);
-                pstmt1.setString(4, timeToStart);
-                pstmt1.executeUpdate();
-            }
+            inTransaction(conn -> {
+                // Checked on the writer, so no other allocation can take the slots before the insert
+                if (!isClassroomFree(conn, classroomName, dayIndex, startSlot, endSlot, courseName)) {
+                    throw new SQLException("Classroom " + classroomName + " is not available on " + day + " at " + time + " for duration " + duration + " hours.");
+                }
 
-            try (PreparedStatement pstmt2 = conn.prepareStatement(allocateClassroomSQL)) {
-                pstmt2.setString(1, courseName);
-                pstmt2.setString(2, classroomName);
-                pstmt2.executeUpdate();
-            }
+                try (PreparedStatement pstmt1 = conn.prepareStatement(INSERT_COURSE_SQL)) {
+                    bindCourse(pstmt1, courseName, lecturer, duration, normalizedTime);
+                    pstmt1.executeUpdate();
+                }
+
+                try (PreparedStatement pstmt2 = conn.prepareStatement(INSERT_ALLOCATION_SQL)) {
+                    pstmt2.setString(1, courseName);
+                    pstmt2.setString(2, classroomName);
+                    pstmt2.executeUpdate();
+                }
 
-            conn.commit();
+                journal(conn, new ChangeJournal.Change("Add course " + courseName)
+                        .add(ChangeJournal.Op.addCourse(courseName, lecturer, duration, normalizedTime))
+                        .add(ChangeJournal.Op.allocate(courseName, classroomName)));
+                return null;
+            });
+            cacheNewCourse(courseName, lecturer, duration, normalizedTime, classroomName);
             System.out.println("Course added and classroom allocated successfully.");
         } catch (SQLException e) {
-            conn.rollback();
             System.err.println("Transaction failed: " + e.getMessage());
             throw e;
-        } finally {
-            conn.setAutoCommit(true);
         }
     }
 
     public static void addEnrollment(String courseName, String studentName) {
-        String sql = "INSERT INTO Enrollments (courseName, studentName) VALUES (?, ?)";
-        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, courseName);
-            pstmt.setString(2, studentName);
-            pstmt.executeUpdate();
+        try {
+            inTransaction(conn -> {
+                ChangeJournal.Change change = new ChangeJournal.Change("Enroll " + studentName + " in " + courseName);
+                try (PreparedStatement studentStmt = conn.prepareStatement(INSERT_STUDENT_SQL);
+                     PreparedStatement pstmt = conn.prepareStatement(INSERT_ENROLLMENT_SQL)) {
+                    studentStmt.setString(1, studentName);
+                    if (studentStmt.executeUpdate() > 0) {
+                        change.add(ChangeJournal.Op.addStudent(studentName));
+                    }
+                    pstmt.setString(1, courseName);
+                    pstmt.setString(2, studentName);
+                    if (pstmt.executeUpdate() > 0) {
+                        change.add(ChangeJournal.Op.enroll(courseName, studentName));
+                    }
+                }
+                journal(conn, change);
+                return null;
+            });
+            cacheEnrollment(courseName, studentName);
             System.out.println("Enrollment added successfully: " + studentName + " -> " + courseName);
         } catch (SQLException e) {
             System.err.println("Error while adding enrollment: " + e.getMessage());
@@ -482,8 +1152,9 @@ public class Database {
     }
 
     public static boolean isEnrollmentExists(String courseName, String studentName) {
-        String query = "SELECT 1 FROM Enrollments WHERE courseName = ? AND studentName = ?";
-        try (PreparedStatement stmt = conn.prepareStatement(query)) {
+        String query = "SELECT 1 FROM Enrollments WHERE courseId = " + COURSE_ID + " AND studentId = " + STUDENT_ID;
+        try (Connection conn = reader();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
             stmt.setString(1, courseName);
             stmt.setString(2, studentName);
             try (ResultSet rs = stmt.executeQuery()) {
@@ -495,11 +1166,32 @@ public class Database {
         }
     }
 
+    /**
+     * @return True if the database holds at least one course, i.e. there is a timetable an import would replace.
+     */
+    public static boolean hasCourses() {
+        try (Connection conn = reader();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT EXISTS (SELECT 1 FROM Courses)")) {
+            return rs.next() && rs.getInt(1) == 1;
+        } catch (SQLException e) {
+            System.err.println("Error checking for courses: " + e.getMessage());
+            return false;
+        }
+    }
+
     public static void addStudent(String studentName) {
         String sql = "INSERT INTO Students (studentName) VALUES (?)";
-        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, studentName);
-            pstmt.executeUpdate();
+        try {
+            inTransaction(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setString(1, studentName);
+                    pstmt.executeUpdate();
+                }
+                journal(conn, new ChangeJournal.Change("Add student " + studentName)
+                        .add(ChangeJournal.Op.addStudent(studentName)));
+                return null;
+            });
             System.out.println("Student added successfully: " + studentName);
         } catch (SQLException e) {
             System.err.println("Error while adding student: " + e.getMessage());
@@ -508,10 +1200,20 @@ public class Database {
 
     public static void addClassroom(String classroomName, int capacity) {
         String sql = "INSERT INTO Classrooms (classroomName, capacity) VALUES (?, ?)";
-        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, classroomName);
-            pstmt.setInt(2, capacity);
-            pstmt.executeUpdate();
+        try {
+            inTransaction(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setString(1, classroomName);
+                    pstmt.setInt(2, capacity);
+                    pstmt.executeUpdate();
+                }
+                journal(conn, new ChangeJournal.Change("Add classroom " + classroomName)
+                        .add(ChangeJournal.Op.addClassroom(classroomName, capacity)));
+                return null;
+            });
+            Map<String, Integer> updated = new LinkedHashMap<>(classroomCapacities);
+            updated.put(classroomName, capacity);
+            classroomCapacities = Collections.unmodifiableMap(updated);
             System.out.println("Classroom added successfully: " + classroomName);
         } catch (SQLException e) {
             System.err.println("Error while adding classroom: " + e.getMessage());
@@ -522,7 +1224,8 @@ public class Database {
     // Method to check if the classroom has enough capacity
     public static boolean hasSufficientCapacity(String classroomName, int numberOfStudents) {
         String sql = "SELECT capacity FROM Classrooms WHERE classroomName = ?";
-        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try (Connection conn = reader();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, classroomName);
             ResultSet rs = pstmt.executeQuery();
             if (rs.next()) {
@@ -537,8 +1240,9 @@ public class Database {
 
     public static void allocateCourseToClassroom(String courseName, String classroomName) {
         // Check if already allocated
-        String checkAllocation = "SELECT COUNT(*) FROM Allocated WHERE courseName = ? AND classroomName = ?";
-        try (PreparedStatement pstmt = conn.prepareStatement(checkAllocation)) {
+        String checkAllocation = "SELECT COUNT(*) FROM Allocated WHERE courseId = " + COURSE_ID + " AND classroomId = " + CLASSROOM_ID;
+        try (Connection conn = reader();
+             PreparedStatement pstmt = conn.prepareStatement(checkAllocation)) {
             pstmt.setString(1, courseName);
             pstmt.setString(2, classroomName);
             ResultSet rs = pstmt.executeQuery();
@@ -559,27 +1263,75 @@ public class Database {
             return;
         }
 
-        String sql = "INSERT INTO Allocated (courseName, classroomName) VALUES (?, ?)";
-        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, courseName);
-            pstmt.setString(2, classroomName);
-            pstmt.executeUpdate();
+        try {
+            inTransaction(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(INSERT_ALLOCATION_SQL)) {
+                    pstmt.setString(1, courseName);
+                    pstmt.setString(2, classroomName);
+                    pstmt.executeUpdate();
+                }
+                journal(conn, new ChangeJournal.Change("Allocate " + courseName + " to " + classroomName)
+                        .add(ChangeJournal.Op.allocate(courseName, classroomName)));
+                return null;
+            });
+            Course course = repository.get(courseName);
+            if (course != null && (course.getClassroom() == null || course.getClassroom().isEmpty())) {
+                repository.setClassroom(courseName, classroomName, classroomCapacities.getOrDefault(classroomName, 0));
+            }
+            indexAllocation(courseName, classroomName);
             System.out.println("Course allocated to classroom successfully: " + courseName + " -> " + classroomName);
         } catch (SQLException e) {
             System.err.println("Error while allocating course to classroom: " + e.getMessage());
         }
     }
 
+    /**
+     * Writes many course -> classroom allocations in one batched transaction.
+     * Capacity and availability are expected to be checked by the caller (see ClassroomAssignmentSolver).
+     *
+     * @param assignments Course name -> classroom name.
+     */
+    public static void allocateCourses(Map<String, String> assignments) throws SQLException {
+        if (assignments.isEmpty()) {
+            return;
+        }
+        try {
+            inTransaction(conn -> {
+                ChangeJournal.Change change = new ChangeJournal.Change("Allocate " + assignments.size() + " course(s) to classrooms");
+                try (PreparedStatement pstmt = conn.prepareStatement(INSERT_ALLOCATION_SQL)) {
+                    for (Map.Entry<String, String> assignment : assignments.entrySet()) {
+                        pstmt.setString(1, assignment.getKey());
+                        pstmt.setString(2, assignment.getValue());
+                        pstmt.addBatch();
+                        change.add(ChangeJournal.Op.allocate(assignment.getKey(), assignment.getValue()));
+                    }
+                    pstmt.executeBatch();
+                }
+                journal(conn, change);
+                return null;
+            });
+        } catch (SQLException e) {
+            System.err.println("Batch allocation failed: " + e.getMessage());
+            throw e;
+        }
+
+        for (Map.Entry<String, String> assignment : assignments.entrySet()) {
+            cacheAllocation(assignment.getKey(), assignment.getValue());
+        }
+        System.out.println(assignments.size() + " courses allocated to classrooms.");
+    }
+
     public static List<Course> getAllAllocatedClassrooms(String classroomName) {
         List<Course> allocations = new ArrayList<>();
         String sql = """
                 SELECT c.courseName, c.timeToStart, c.duration, c.lecturer
                 FROM Allocated a
-                JOIN Courses c ON a.courseName = c.courseName
-                WHERE a.classroomName = ?
+                JOIN Courses c ON a.courseId = c.courseId
+                WHERE a.classroomId = (SELECT classroomId FROM Classrooms WHERE classroomName = ?)
                 """;
 
-        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try (Connection conn = reader();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, classroomName);
             ResultSet rs = pstmt.executeQuery();
 
@@ -590,7 +1342,7 @@ public class Database {
                 String lecturer = rs.getString("lecturer");
 
                 // Fetch enrolled students
-                List<String> enrolledStudentNames = getStudentsEnrolledInCourse(courseName);
+                List<String> enrolledStudentNames = getStudentsEnrolledInCourse(conn, courseName);
                 List<Student> enrolledStudents = new ArrayList<>();
                 for (String studentName : enrolledStudentNames) {
                     enrolledStudents.add(new Student(studentName, new ArrayList<>()));
@@ -617,12 +1369,23 @@ public class Database {
     }
 
     public static void deallocateCourseFromClassroom(String courseName, String classroomName) {
-        String sql = "DELETE FROM Allocated WHERE courseName = ? AND classroomName = ?";
-        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, courseName);
-            pstmt.setString(2, classroomName);
-            int rowsAffected = pstmt.executeUpdate();
+        String sql = "DELETE FROM Allocated WHERE courseId = " + COURSE_ID + " AND classroomId = " + CLASSROOM_ID;
+        try {
+            int rowsAffected = inTransaction(conn -> {
+                int rows;
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setString(1, courseName);
+                    pstmt.setString(2, classroomName);
+                    rows = pstmt.executeUpdate();
+                }
+                if (rows > 0) {
+                    journal(conn, new ChangeJournal.Change("Deallocate " + courseName + " from " + classroomName)
+                            .add(ChangeJournal.Op.deallocate(courseName, classroomName)));
+                }
+                return rows;
+            });
             if (rowsAffected > 0) {
+                uncacheAllocation(courseName, classroomName);
                 System.out.println("Course deallocated from classroom successfully: " + courseName + " -> " + classroomName);
             } else {
                 System.out.println("No allocation found for course " + courseName + " in classroom " + classroomName);
@@ -637,11 +1400,12 @@ public class Database {
         String sql = """
                 SELECT c.courseName, c.timeToStart, c.duration, c.lecturer
                 FROM Allocated a
-                JOIN Courses c ON a.courseName = c.courseName
-                WHERE a.classroomName = ?
+                JOIN Courses c ON a.courseId = c.courseId
+                WHERE a.classroomId = (SELECT classroomId FROM Classrooms WHERE classroomName = ?)
                 """;
 
-        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try (Connection conn = reader();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, classroomName);
             ResultSet rs = pstmt.executeQuery();
 
@@ -652,7 +1416,7 @@ public class Database {
                 String lecturer = rs.getString("lecturer");
 
                 // Fetch enrolled students
-                List<String> enrolledStudentNames = getStudentsEnrolledInCourse(courseName);
+                List<String> enrolledStudentNames = getStudentsEnrolledInCourse(conn, courseName);
                 List<Student> enrolledStudents = new ArrayList<>();
                 for (String studentName : enrolledStudentNames) {
                     enrolledStudents.add(new Student(studentName, new ArrayList<>()));
@@ -680,27 +1444,63 @@ public class Database {
 
     public static List<String> getAllClassroomsWithCapacities() {
         List<String> classrooms = new ArrayList<>();
-        String sql = "SELECT DISTINCT classroomName, capacity FROM Classrooms";
+        for (Map.Entry<String, Integer> entry : classroomCapacities.entrySet()) {
+            classrooms.add(entry.getKey() + " | " + entry.getValue());
+        }
+        return classrooms;
+    }
 
-        try {
-            PreparedStatement stmt = conn.prepareStatement(sql);
-            ResultSet rs = stmt.executeQuery();
-            while (rs.next()) {
-                String classroomName = rs.getString("classroomName");
-                int capacity = rs.getInt("capacity");
-                classrooms.add(classroomName + " | " + capacity);
+    /**
+     * @return Classroom name -> capacity for every classroom, in insertion order.
+     */
+    public static Map<String, Integer> getClassroomCapacities() {
+        return classroomCapacities;
+    }
+
+    /**
+     * Availability and conflicting courses of every classroom for one day, time and duration,
+     * computed in a single pass over the cached classrooms and the occupancy bitmap.
+     * Does not touch the database, so it can run on a background thread.
+     *
+     * @param day      The day of the week, or null if none is chosen yet.
+     * @param time     The start time in "HH:mm" format, or null if none is chosen yet.
+     * @param duration The duration in hours.
+     * @return One Classroom per room; all rooms are available when day or time is missing.
+     */
+    public static List<Classroom> getClassroomAvailability(String day, String time, int duration) {
+        Map<String, Integer> classrooms = classroomCapacities;
+        List<Classroom> result = new ArrayList<>(classrooms.size());
+
+        int dayIndex = TimeSlots.dayIndex(day);
+        int startSlot = TimeSlots.startSlot(time);
+        if (day == null || time == null || dayIndex < 0 || startSlot < 0) {
+            for (Map.Entry<String, Integer> entry : classrooms.entrySet()) {
+                result.add(new Classroom(entry.getKey(), entry.getValue(), true, new ArrayList<>()));
             }
-            rs.close();
-            stmt.close();
-        } catch (SQLException e) {
-            System.err.println("Error fetching classrooms with capacities: " + e.getMessage());
+            return result;
         }
-        return classrooms;
+        int endSlot = TimeSlots.endSlot(time, duration);
+
+        for (Map.Entry<String, Integer> entry : classrooms.entrySet()) {
+            String classroomName = entry.getKey();
+            Set<String> occupants = classroomOccupancy.occupants(classroomName, dayIndex, startSlot, endSlot);
+            List<Course> conflictingCourses = new ArrayList<>();
+            for (String courseName : occupants) {
+                Course existing = repository.get(courseName);
+                if (existing != null) {
+                    conflictingCourses.add(new Course(courseName, 0, new ArrayList<>(), classroomName,
+                            existing.getTimeToStart(), existing.getDuration(), existing.getLecturer()));
+                }
+            }
+            result.add(new Classroom(classroomName, entry.getValue(), occupants.isEmpty(), conflictingCourses));
+        }
+        return result;
     }
 
     /**
      * Enhanced method to check if a classroom is available at a given day and time,
      * excluding a specific course (useful during swaps).
+     * Asks the database with a range predicate on the slot columns (see CLASSROOM_OVERLAP_SQL).
      *
      * @param classroomName   The name of the classroom to check.
      * @param day             The day of the week (e.g., "Monday").
@@ -710,89 +1510,19 @@ public class Database {
      * @return True if the classroom is available, false otherwise.
      */
     public static boolean isClassroomAvailable(String classroomName, String day, String startTime, int duration, String currentCourseId) {
-        // Define time formatter
-        DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("HH:mm");
-        LocalTime desiredStart;
-        try {
-            desiredStart = LocalTime.parse(startTime, timeFormatter);
-        } catch (DateTimeParseException e) {
-            System.err.println("Invalid time format: " + startTime);
+        int dayIndex = TimeSlots.dayIndex(day);
+        int startSlot = TimeSlots.startSlot(startTime);
+        if (dayIndex < 0 || startSlot < 0) {
+            System.err.println("Invalid day/time: " + day + " " + startTime);
             return false;
         }
-
-        // Calculate desired time slots based on duration
-        List<timeRange> desiredSlots = new ArrayList<>();
-        for (int i = 0; i < duration; i++) {
-            LocalTime slotStart = desiredStart.plusMinutes(i * (45 + 10)); // Lecture + Break
-            LocalTime slotEnd = slotStart.plusMinutes(45); // Lecture duration
-            desiredSlots.add(new timeRange(slotStart, slotEnd));
-        }
-
-        // SQL query to fetch existing allocations for the classroom on the selected day
-        String sql = """
-            SELECT c.courseName, c.timeToStart, c.duration, c.lecturer
-            FROM Allocated a
-            JOIN Courses c ON a.courseName = c.courseName
-            WHERE a.classroomName = ? AND c.timeToStart LIKE ?
-        """;
-
-        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, classroomName);
-            pstmt.setString(2, day + " %"); // Only courses on the selected day
-            ResultSet rs = pstmt.executeQuery();
-
-            while (rs.next()) {
-                String courseName = rs.getString("courseName");
-                String timeToStart = rs.getString("timeToStart");
-                int existingDuration = rs.getInt("duration");
-                String lecturer = rs.getString("lecturer");
-
-                // Skip the current course being swapped
-                if (courseName.equals(currentCourseId)) {
-                    continue;
-                }
-
-                // Split the timeToStart into day and time
-                String[] parts = timeToStart.split(" ");
-                if (parts.length < 2) {
-                    System.err.println("Invalid timeToStart format: " + timeToStart);
-                    continue;
-                }
-                String existingDay = parts[0];
-                String existingTime = parts[1];
-
-                LocalTime existingStart;
-                try {
-                    existingStart = LocalTime.parse(existingTime, timeFormatter);
-                } catch (DateTimeParseException e) {
-                    System.err.println("Invalid time format in database: " + existingTime);
-                    continue;
-                }
-
-                // Calculate existing time slots based on duration
-                List<timeRange> existingSlots = new ArrayList<>();
-                for (int i = 0; i < existingDuration; i++) {
-                    LocalTime slotStart = existingStart.plusMinutes(i * (45 + 10));
-                    LocalTime slotEnd = slotStart.plusMinutes(45);
-                    existingSlots.add(new timeRange(slotStart, slotEnd));
-                }
-
-                // Check for any overlapping slots
-                for (timeRange desired : desiredSlots) {
-                    for (timeRange existing : existingSlots) {
-                        if (desired.overlapsWith(existing)) {
-                            return false; // Overlap found
-                        }
-                    }
-                }
-            }
-            rs.close();
+        int endSlot = TimeSlots.endSlot(startTime, duration);
+        try (Connection conn = reader()) {
+            return isClassroomFree(conn, classroomName, dayIndex, startSlot, endSlot, currentCourseId);
         } catch (SQLException e) {
             System.err.println("Error while checking classroom availability: " + e.getMessage());
             return false;
         }
-
-        return true; // No overlaps found
     }
 
     /**
@@ -821,98 +1551,70 @@ public class Database {
      */
     public static List<Course> getConflictingCourses(String classroomName, String day, String time, int duration) {
         List<Course> conflictingCourses = new ArrayList<>();
-        DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("HH:mm");
-        LocalTime desiredStart;
-        try {
-            desiredStart = LocalTime.parse(time, timeFormatter);
-        } catch (DateTimeParseException e) {
-            System.err.println("Invalid time format: " + time);
+        int dayIndex = TimeSlots.dayIndex(day);
+        int startSlot = TimeSlots.startSlot(time);
+        if (dayIndex < 0 || startSlot < 0) {
+            System.err.println("Invalid day/time: " + day + " " + time);
             return conflictingCourses;
         }
+        int endSlot = TimeSlots.endSlot(time, duration);
 
-        // Calculate desired time slots based on duration
-        List<timeRange> desiredSlots = new ArrayList<>();
-        for (int i = 0; i < duration; i++) {
-            LocalTime slotStart = desiredStart.plusMinutes(i * (45 + 10));
-            LocalTime slotEnd = slotStart.plusMinutes(45);
-            desiredSlots.add(new timeRange(slotStart, slotEnd));
+        try (Connection conn = reader();
+             PreparedStatement pstmt = conn.prepareStatement(CLASSROOM_OVERLAP_SQL)) {
+            bindClassroomOverlap(pstmt, classroomName, dayIndex, startSlot, endSlot);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                conflictingCourses.add(new Course(
+                        rs.getString("courseName"),
+                        0, // capacity not needed here
+                        new ArrayList<>(), // students not needed here
+                        classroomName,
+                        rs.getString("timeToStart"),
+                        rs.getInt("duration"),
+                        rs.getString("lecturer")
+                ));
+            }
+        } catch (SQLException e) {
+            System.err.println("Error while fetching conflicting courses: " + e.getMessage());
         }
+        return conflictingCourses;
+    }
 
-        // SQL query to fetch existing allocations for the classroom on the selected day
-        String sql = """
+    // Courses allocated to a classroom whose slots overlap [startSlot, endSlot) of a day; the
+    // range predicate is answered from idx_courses_time_slot. Courses outside the grid have NULL
+    // slots and never match.
+    private static final String CLASSROOM_OVERLAP_SQL = """
             SELECT c.courseName, c.timeToStart, c.duration, c.lecturer
-            FROM Allocated a
-            JOIN Courses c ON a.courseName = c.courseName
-            WHERE a.classroomName = ? AND c.timeToStart LIKE ?
-        """;
+            FROM Courses c
+            JOIN Allocated a ON a.courseId = c.courseId
+            WHERE c.dayOfWeek = ? AND c.startSlot < ? AND c.endSlot > ?
+              AND a.classroomId = (SELECT classroomId FROM Classrooms WHERE classroomName = ?)
+            ORDER BY c.startSlot
+            """;
+
+    private static void bindClassroomOverlap(PreparedStatement pstmt, String classroomName, int day, int startSlot, int endSlot) throws SQLException {
+        pstmt.setInt(1, day);
+        pstmt.setInt(2, endSlot);
+        pstmt.setInt(3, startSlot);
+        pstmt.setString(4, classroomName);
+    }
 
-        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, classroomName);
-            pstmt.setString(2, day + " %"); // Only courses on the selected day
+    /**
+     * @return True if no course other than {@code ignoredCourse} is allocated to the classroom
+     * during [startSlot, endSlot) of the day.
+     */
+    private static boolean isClassroomFree(Connection conn, String classroomName, int day, int startSlot, int endSlot,
+                                           String ignoredCourse) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(CLASSROOM_OVERLAP_SQL)) {
+            bindClassroomOverlap(pstmt, classroomName, day, startSlot, endSlot);
             ResultSet rs = pstmt.executeQuery();
-
             while (rs.next()) {
-                String courseName = rs.getString("courseName");
-                String timeToStart = rs.getString("timeToStart");
-                int existingDuration = rs.getInt("duration");
-                String lecturer = rs.getString("lecturer");
-
-                // Split the timeToStart into day and time
-                String[] parts = timeToStart.split(" ");
-                if (parts.length < 2) {
-                    System.err.println("Invalid timeToStart format: " + timeToStart);
-                    continue;
-                }
-                String existingDay = parts[0];
-                String existingTime = parts[1];
-
-                LocalTime existingStart;
-                try {
-                    existingStart = LocalTime.parse(existingTime, timeFormatter);
-                } catch (DateTimeParseException e) {
-                    System.err.println("Invalid time format in database: " + existingTime);
-                    continue;
-                }
-
-                // Calculate existing time slots based on duration
-                List<timeRange> existingSlots = new ArrayList<>();
-                for (int i = 0; i < existingDuration; i++) {
-                    LocalTime slotStart = existingStart.plusMinutes(i * (45 + 10));
-                    LocalTime slotEnd = slotStart.plusMinutes(45);
-                    existingSlots.add(new timeRange(slotStart, slotEnd));
-                }
-
-                // Check for any overlapping slots
-                boolean hasOverlap = false;
-                for (timeRange desired : desiredSlots) {
-                    for (timeRange existing : existingSlots) {
-                        if (desired.overlapsWith(existing)) {
-                            hasOverlap = true;
-                            break;
-                        }
-                    }
-                    if (hasOverlap) break;
-                }
-
-                if (hasOverlap) {
-                    Course conflictingCourse = new Course(
-                            courseName,
-                            0, // capacity not needed here
-                            new ArrayList<>(), // students not needed here
-                            classroomName,
-                            timeToStart,
-                            existingDuration,
-                            lecturer
-                    );
-                    conflictingCourses.add(conflictingCourse);
+                if (!rs.getString("courseName").equals(ignoredCourse)) {
+                    return false;
                 }
             }
-
-        } catch (SQLException e) {
-            System.err.println("Error while fetching conflicting courses: " + e.getMessage());
         }
-
-        return conflictingCourses;
+        return true;
     }
 
     /**
@@ -922,36 +1624,310 @@ public class Database {
      * @param classroom The new classroom name.
      */
     public static void changeClassroom(String course, String classroom) {
-        String checkAllocation = "SELECT COUNT(*) FROM Allocated WHERE courseName = ?";
-        try (PreparedStatement checkStmt = conn.prepareStatement(checkAllocation)) {
-            checkStmt.setString(1, course);
-            ResultSet rs = checkStmt.executeQuery();
-
-            if (rs.next() && rs.getInt(1) > 0) {
-                String updateStmtStr = "UPDATE Allocated SET classroomName = ? WHERE courseName = ?";
+        String updateStmtStr = "UPDATE Allocated SET classroomId = " + CLASSROOM_ID + " WHERE courseId = " + COURSE_ID;
+        try {
+            boolean changed = inTransaction(conn -> {
+                Set<String> oldClassrooms = allocatedClassrooms(conn, course);
+                if (oldClassrooms.isEmpty()) {
+                    return false;
+                }
                 try (PreparedStatement updateStmt = conn.prepareStatement(updateStmtStr)) {
                     updateStmt.setString(1, classroom);
                     updateStmt.setString(2, course);
                     updateStmt.executeUpdate();
-                    System.out.println("Classroom updated successfully for course: " + course);
                 }
+                journal(conn, moves(new ChangeJournal.Change("Move " + course + " to " + classroom),
+                        course, oldClassrooms, classroom));
+                return true;
+            });
+
+            if (changed) {
+                classroomOccupancy.removeCourse(course);
+                cacheAllocation(course, classroom);
+                System.out.println("Classroom updated successfully for course: " + course);
             } else {
                 System.out.println("No existing allocation found for course: " + course);
             }
-            rs.close();
         } catch (SQLException e) {
             System.err.println("Error while changing classroom: " + e.getMessage());
         }
     }
 
+    /**
+     * Moves many already allocated courses to other classrooms in one transaction,
+     * e.g. the changes proposed by TimetableOptimizer. Either all moves are written or none.
+     *
+     * @param changes Course name -> new classroom name.
+     */
+    public static void changeClassrooms(Map<String, String> changes) throws SQLException {
+        if (changes.isEmpty()) {
+            return;
+        }
+        String sql = "UPDATE Allocated SET classroomId = " + CLASSROOM_ID + " WHERE courseId = " + COURSE_ID;
+        try {
+            inTransaction(conn -> {
+                ChangeJournal.Change moves = new ChangeJournal.Change("Move " + changes.size() + " course(s) to other classrooms");
+                for (Map.Entry<String, String> change : changes.entrySet()) {
+                    moves(moves, change.getKey(), allocatedClassrooms(conn, change.getKey()), change.getValue());
+                }
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    for (Map.Entry<String, String> change : changes.entrySet()) {
+                        pstmt.setString(1, change.getValue());
+                        pstmt.setString(2, change.getKey());
+                        pstmt.addBatch();
+                    }
+                    pstmt.executeBatch();
+                }
+                journal(conn, moves);
+                return null;
+            });
+        } catch (SQLException e) {
+            System.err.println("Batch classroom change failed: " + e.getMessage());
+            throw e;
+        }
+
+        // Free all old slots first, moves may swap rooms between courses
+        for (String courseName : changes.keySet()) {
+            classroomOccupancy.removeCourse(courseName);
+        }
+        for (Map.Entry<String, String> change : changes.entrySet()) {
+            cacheAllocation(change.getKey(), change.getValue());
+        }
+        System.out.println(changes.size() + " courses moved to other classrooms.");
+    }
+
+    /**
+     * Replaces all enrollments of a course with the given students in one transaction.
+     *
+     * @param courseName   The course whose enrollments are replaced.
+     * @param studentNames The students that should be enrolled afterwards.
+     */
+    public static void replaceEnrollments(String courseName, List<String> studentNames) throws SQLException {
+        String deleteSql = "DELETE FROM Enrollments WHERE courseId = " + COURSE_ID;
+        try {
+            inTransaction(conn -> {
+                Set<String> oldStudents = enrolledStudents(conn, courseName);
+                try (PreparedStatement deleteStmt = conn.prepareStatement(deleteSql)) {
+                    deleteStmt.setString(1, courseName);
+                    deleteStmt.executeUpdate();
+                }
+                int[] newStudents;
+                try (PreparedStatement studentStmt = conn.prepareStatement(INSERT_STUDENT_SQL);
+                     PreparedStatement insertStmt = conn.prepareStatement(INSERT_ENROLLMENT_SQL)) {
+                    for (String studentName : studentNames) {
+                        studentStmt.setString(1, studentName);
+                        studentStmt.addBatch();
+                        insertStmt.setString(1, courseName);
+                        insertStmt.setString(2, studentName);
+                        insertStmt.addBatch();
+                    }
+                    newStudents = studentStmt.executeBatch();
+                    insertStmt.executeBatch();
+                }
+
+                // Only the difference is journaled, students that stay enrolled are not touched by undo
+                ChangeJournal.Change change = new ChangeJournal.Change("Update enrollments of " + courseName);
+                Set<String> kept = new HashSet<>(studentNames);
+                for (String studentName : oldStudents) {
+                    if (!kept.contains(studentName)) {
+                        change.add(ChangeJournal.Op.unenroll(courseName, studentName));
+                    }
+                }
+                for (int i = 0; i < studentNames.size(); i++) {
+                    if (newStudents[i] > 0) {
+                        change.add(ChangeJournal.Op.addStudent(studentNames.get(i)));
+                    }
+                }
+                for (String studentName : new LinkedHashSet<>(studentNames)) {
+                    if (!oldStudents.contains(studentName)) {
+                        change.add(ChangeJournal.Op.enroll(courseName, studentName));
+                    }
+                }
+                journal(conn, change);
+                return null;
+            });
+        } catch (SQLException e) {
+            System.err.println("Error while replacing enrollments: " + e.getMessage());
+            throw e;
+        }
+
+        Course course = repository.get(courseName);
+        if (course != null) {
+            for (Student student : new ArrayList<>(course.getStudents())) {
+                uncacheEnrollment(courseName, student.getFullName());
+            }
+        }
+        studentOccupancy.removeCourse(courseName);
+        for (String studentName : studentNames) {
+            cacheEnrollment(courseName, studentName);
+        }
+    }
+
+    /**
+     * Finds the students that already have another course at the given time, all in one pass
+     * over the student slot bitmaps (no queries).
+     *
+     * @param studentNames    The students to check, e.g. everyone about to be enrolled.
+     * @param timeToStart     "Day HH:mm" of the proposed course.
+     * @param duration        Duration in lecture hours.
+     * @param ignoredCourseId Course that does not count as a clash (the course being edited), or null.
+     * @return Student name -> clashing course names; empty if nobody clashes or the time is invalid.
+     */
+    public static Map<String, Set<String>> getStudentClashes(Collection<String> studentNames, String timeToStart,
+                                                             int duration, String ignoredCourseId) {
+        String time = TimeSlots.timePart(timeToStart);
+        return studentOccupancy.conflicts(studentNames,
+                TimeSlots.dayIndex(TimeSlots.dayPart(timeToStart)),
+                TimeSlots.startSlot(time),
+                TimeSlots.endSlot(time, duration),
+                ignoredCourseId);
+    }
+
+    /**
+     * Deletes a course together with its enrollments and allocations in one transaction.
+     *
+     * @return True if the course existed and was deleted.
+     */
+    public static boolean deleteCourse(String courseName) throws SQLException {
+        boolean deleted;
+        try {
+            deleted = inTransaction(conn -> {
+                // The journal keeps everything needed to put the course back with its rooms and students
+                ChangeJournal.Change change = new ChangeJournal.Change("Delete " + courseName);
+                ChangeJournal.Op removeCourse;
+                try (PreparedStatement pstmt = conn.prepareStatement(
+                        "SELECT lecturer, duration, timeToStart FROM Courses WHERE courseName = ?")) {
+                    pstmt.setString(1, courseName);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        if (!rs.next()) {
+                            return false;
+                        }
+                        removeCourse = ChangeJournal.Op.removeCourse(courseName, rs.getString("lecturer"),
+                                rs.getInt("duration"), rs.getString("timeToStart"));
+                    }
+                }
+                for (String studentName : enrolledStudents(conn, courseName)) {
+                    change.add(ChangeJournal.Op.unenroll(courseName, studentName));
+                }
+                for (String classroomName : allocatedClassrooms(conn, courseName)) {
+                    change.add(ChangeJournal.Op.deallocate(courseName, classroomName));
+                }
+                change.add(removeCourse);
+
+                try (PreparedStatement enrollments = conn.prepareStatement("DELETE FROM Enrollments WHERE courseId = " + COURSE_ID);
+                     PreparedStatement allocations = conn.prepareStatement("DELETE FROM Allocated WHERE courseId = " + COURSE_ID);
+                     PreparedStatement course = conn.prepareStatement("DELETE FROM Courses WHERE courseName = ?")) {
+                    enrollments.setString(1, courseName);
+                    enrollments.executeUpdate();
+                    allocations.setString(1, courseName);
+                    allocations.executeUpdate();
+                    course.setString(1, courseName);
+                    course.executeUpdate();
+                }
+                journal(conn, change);
+                return true;
+            });
+        } catch (SQLException e) {
+            System.err.println("Error while deleting course: " + e.getMessage());
+            throw e;
+        }
+
+        if (deleted) {
+            uncacheCourse(courseName);
+            System.out.println("Course deleted: " + courseName);
+        }
+        return deleted;
+    }
+
+    /**
+     * @param lecturer        The lecturer (compared ignoring case and extra spaces).
+     * @param timeToStart     "Day HH:mm" of the proposed course.
+     * @param duration        Duration in lecture hours.
+     * @param ignoredCourseId Course that does not count as a conflict (the course being edited), or null.
+     * @return Names of the lecturer's other courses overlapping the given time.
+     */
+    public static Set<String> getLecturerConflicts(String lecturer, String timeToStart, int duration, String ignoredCourseId) {
+        String key = lecturerKey(lecturer);
+        if (key == null) {
+            return Set.of();
+        }
+        String time = TimeSlots.timePart(timeToStart);
+        Set<String> conflicts = lecturerOccupancy.occupants(key,
+                TimeSlots.dayIndex(TimeSlots.dayPart(timeToStart)),
+                TimeSlots.startSlot(time),
+                TimeSlots.endSlot(time, duration));
+        conflicts.remove(ignoredCourseId);
+        return conflicts;
+    }
+
+    /**
+     * Finds every pair of overlapping courses taught by the same lecturer. Each course is
+     * dropped into the (at most 16) slots of its lecturer's day, so the work is linear in
+     * the number of courses plus the number of conflicts reported.
+     */
+    public static List<LecturerConflict> getAllLecturerConflicts() {
+        Map<String, List<Course>[]> slotsByLecturerDay = new LinkedHashMap<>();
+        for (Course course : repository.getAll()) {
+            String key = lecturerKey(course.getLecturer());
+            String time = TimeSlots.timePart(course.getTimeToStart());
+            int day = TimeSlots.dayIndex(TimeSlots.dayPart(course.getTimeToStart()));
+            int start = TimeSlots.startSlot(time);
+            if (key == null || day < 0 || start < 0) {
+                continue;
+            }
+            @SuppressWarnings({"unchecked", "rawtypes"})
+            List<Course>[] slots = slotsByLecturerDay.computeIfAbsent(key + "|" + day,
+                    k -> new List[TimeSlots.SLOTS_PER_DAY]);
+            int end = TimeSlots.endSlot(time, course.getDuration());
+            for (int slot = start; slot < end; slot++) {
+                if (slots[slot] == null) {
+                    slots[slot] = new ArrayList<>(2);
+                }
+                slots[slot].add(course);
+            }
+        }
+
+        List<LecturerConflict> conflicts = new ArrayList<>();
+        Set<String> reported = new HashSet<>();
+        for (List<Course>[] slots : slotsByLecturerDay.values()) {
+            for (List<Course> slot : slots) {
+                if (slot == null || slot.size() < 2) {
+                    continue;
+                }
+                for (int i = 0; i < slot.size(); i++) {
+                    for (int j = i + 1; j < slot.size(); j++) {
+                        Course first = slot.get(i);
+                        Course second = slot.get(j);
+                        if (reported.add(first.getCourseID() + "|" + second.getCourseID())) {
+                            conflicts.add(new LecturerConflict(first.getLecturer(), first.getCourseID(),
+                                    second.getCourseID(), TimeSlots.dayPart(first.getTimeToStart())));
+                        }
+                    }
+                }
+            }
+        }
+        return conflicts;
+    }
+
     public static void removeStudentFromCourse(String courseName, String studentName) {
-        String sql = "DELETE FROM Enrollments WHERE courseName = ? AND studentName = ?";
-        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, courseName);
-            pstmt.setString(2, studentName);
-            int rowsAffected = pstmt.executeUpdate();
+        String sql = "DELETE FROM Enrollments WHERE courseId = " + COURSE_ID + " AND studentId = " + STUDENT_ID;
+        try {
+            int rowsAffected = inTransaction(conn -> {
+                int rows;
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setString(1, courseName);
+                    pstmt.setString(2, studentName);
+                    rows = pstmt.executeUpdate();
+                }
+                if (rows > 0) {
+                    journal(conn, new ChangeJournal.Change("Remove " + studentName + " from " + courseName)
+                            .add(ChangeJournal.Op.unenroll(courseName, studentName)));
+                }
+                return rows;
+            });
 
             if (rowsAffected > 0) {
+                uncacheEnrollment(courseName, studentName);
                 System.out.println("Student removed from course successfully: " + studentName + " -> " + courseName);
             } else {
                 System.out.println("No enrollment found for student " + studentName + " in course " + courseName);
@@ -965,7 +1941,8 @@ public class Database {
     public static List<String> getAllClassroomNames() {
         List<String> classroomNames = new ArrayList<>();
         String sql = "SELECT DISTINCT classroomName FROM Classrooms";
-        try (Statement stmt = connect().createStatement();
+        try (Connection conn = reader();
+             Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             while (rs.next()) {
                 classroomNames.add(rs.getString("classroomName"));
@@ -981,7 +1958,8 @@ public class Database {
         List<Integer> classroomCapacities = new ArrayList<>();
         String sql = "SELECT DISTINCT capacity FROM Classrooms WHERE classroomName = ?";
 
-        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try (Connection conn = reader();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, classroomName); // Set the parameter value
             try (ResultSet rs = pstmt.executeQuery()) {
                 while (rs.next()) {
@@ -998,7 +1976,8 @@ public class Database {
     public static List<Student> getAllStudents() {
         List<Student> students = new ArrayList<>();
         String sql = "SELECT studentId, studentName FROM Students";
-        try (PreparedStatement pstmt = conn.prepareStatement(sql);
+        try (Connection conn = reader();
+             PreparedStatement pstmt = conn.prepareStatement(sql);
              ResultSet rs = pstmt.executeQuery()) {
             while (rs.next()) {
                 String id = String.valueOf(rs.getInt("studentId"));
@@ -1016,7 +1995,8 @@ public class Database {
     public static List<String> getAllCourseNames() {
         List<String> courseNames = new ArrayList<>();
         String sql = "SELECT DISTINCT courseName FROM Courses";
-        try (Statement stmt = connect().createStatement();
+        try (Connection conn = reader();
+             Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             while (rs.next()) {
                 courseNames.add(rs.getString("courseName"));
@@ -1027,37 +2007,14 @@ public class Database {
         return courseNames;
     }
 
-    /**
-     * Inner class to represent a time range.
-     * Helps in checking overlapping schedules.
-     */
-    private static class timeRange {
-        LocalTime start;
-        LocalTime end;
-
-        public timeRange(LocalTime start, LocalTime end) {
-            this.start = start;
-            this.end = end;
-        }
-
-        /**
-         * Checks if this time range overlaps with another.
-         *
-         * @param other The other time range to check against.
-         * @return True if there is an overlap, false otherwise.
-         */
-        public boolean overlapsWith(timeRange other) {
-            return (this.start.isBefore(other.end) && other.start.isBefore(this.end));
-        }
-    }
-
     public static Course getCourseInfo(String courseName) {
         String sql = "SELECT * FROM Courses WHERE courseName = ?";
-        String sql2 = "SELECT classroomName FROM Allocated WHERE courseName = ?";
+        String sql2 = ALLOCATED_CLASSROOM_SQL;
         String sql3 = "SELECT capacity FROM Classrooms WHERE classroomName = ?";
         Course course = null;
 
-        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try (Connection conn = reader();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, courseName);
             ResultSet rs = pstmt.executeQuery();
 
@@ -1066,7 +2023,7 @@ public class Database {
                 String lecturer = rs.getString("lecturer");
 
                 // Fetch enrolled students
-                List<String> enrolledStudentNames = getStudentsEnrolledInCourse(courseName);
+                List<String> enrolledStudentNames = getStudentsEnrolledInCourse(conn, courseName);
                 List<Student> enrolledStudents = new ArrayList<>();
                 for (String studentName : enrolledStudentNames) {
                     enrolledStudents.add(new Student(studentName, new ArrayList<>()));
@@ -0,0 +1,346 @@
+package com.example.timetablemanager;
+
+import javafx.concurrent.Task;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.IsoFields;
+import java.util.*;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzipped backups of the timetable database under {@code saves/}, e.g. dbLog[22.12.24_13.25.07].db.gz
+ * (gunzip one to get a database file the app can open again).
+ *
+ * A backup is a copy made with SQLite's online backup API from a reader connection, so it is
+ * consistent even while the app keeps writing. start() opens the read transaction on the calling
+ * thread and returns right away: the backup holds the database as it was at that moment, even if
+ * the caller clears it next, while the copy, compression and cleanup run on a background thread.
+ *
+ * After each backup the retention policy (see Retention) deletes old backups, and the time and
+ * size of the backup are appended to saves/backups.csv.
+ */
+public class DatabaseBackup {
+
+    private static final String PREFIX = "dbLog[";
+    private static final String SUFFIX = ".db.gz";
+    private static final String PART_SUFFIX = ".part";
+    private static final String HISTORY_FILE = "backups.csv";
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private static final File savesDir = new File(System.getProperty("timetablemanager.backupDir", "saves"));
+
+    /**
+     * Starts a backup of the current database on a background thread.
+     *
+     * @return The running backup, or null if the database holds no timetable worth keeping.
+     */
+    public static Backup start() throws SQLException {
+        Connection conn = pin();
+        if (conn == null) {
+            return null;
+        }
+        long startedAt = System.currentTimeMillis();
+        Backup task = new Backup(conn, backupName(startedAt), startedAt);
+        task.setOnSucceeded(e -> System.out.println("Backed up the database to " + task.getValue()));
+        task.setOnFailed(e -> {
+            System.err.println("Database backup failed: " + task.getException().getMessage());
+            task.getException().printStackTrace();
+        });
+
+        Thread thread = new Thread(task, "db-backup");
+        thread.setDaemon(true);
+        thread.start();
+        return task;
+    }
+
+    /**
+     * Backs up the current database on the calling thread, for callers that are off the UI thread already.
+     *
+     * @return The backup, or null if the database holds no timetable worth keeping.
+     */
+    static Result run() throws SQLException, IOException {
+        Connection conn = pin();
+        if (conn == null) {
+            return null;
+        }
+        long startedAt = System.currentTimeMillis();
+        Result result = backup(conn, backupName(startedAt), startedAt);
+        System.out.println("Backed up the database to " + result);
+        return result;
+    }
+
+    /**
+     * @return The compressed backups, newest first.
+     */
+    static List<File> list() {
+        List<File> backups = new ArrayList<>();
+        File[] files = savesDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.getName().startsWith(PREFIX) && file.getName().endsWith(SUFFIX)) {
+                    backups.add(file);
+                }
+            }
+        }
+        backups.sort(Comparator.comparingLong(File::lastModified).reversed());
+        return backups;
+    }
+
+    private static String backupName(long startedAt) {
+        return PREFIX + new SimpleDateFormat("dd.MM.yy_HH.mm.ss").format(new Date(startedAt)) + "].db";
+    }
+
+    /**
+     * Borrows a reader and opens the read transaction the backup will copy; later writes are not part of it.
+     *
+     * @return The reader, to be released by backup(), or null if the database is empty.
+     */
+    private static Connection pin() throws SQLException {
+        Connection conn = Database.reader();
+        try {
+            conn.setAutoCommit(false);
+            boolean hasData;
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery(
+                         "SELECT EXISTS(SELECT 1 FROM Courses) OR EXISTS(SELECT 1 FROM Classrooms)")) {
+                hasData = rs.next() && rs.getBoolean(1);
+            }
+            if (!hasData) {
+                release(conn);
+                return null;
+            }
+        } catch (SQLException | RuntimeException e) {
+            release(conn);
+            throw e;
+        }
+        return conn;
+    }
+
+    private static Result backup(Connection conn, String name, long startedAt) throws SQLException, IOException {
+        // One backup at a time touches saves/
+        synchronized (DatabaseBackup.class) {
+            if (!savesDir.exists()) {
+                savesDir.mkdirs();
+            }
+            File copy = new File(savesDir, name + PART_SUFFIX);
+            File compressedPart = new File(savesDir, name + ".gz" + PART_SUFFIX);
+            File compressed = new File(savesDir, name + ".gz");
+            try {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.executeUpdate("backup to \"" + copy.getAbsolutePath() + "\"");
+                } finally {
+                    release(conn);
+                }
+                try (OutputStream out = new GZIPOutputStream(
+                        new BufferedOutputStream(new FileOutputStream(compressedPart), BUFFER_BYTES), BUFFER_BYTES)) {
+                    Files.copy(copy.toPath(), out);
+                }
+                Files.move(compressedPart.toPath(), compressed.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+                Result result = new Result(compressed, copy.length(), compressed.length(),
+                        System.currentTimeMillis() - startedAt);
+                appendHistory(result, startedAt);
+                applyRetention(Retention.fromSystemProperties());
+                return result;
+            } finally {
+                copy.delete();
+                compressedPart.delete();
+            }
+        }
+    }
+
+    /**
+     * Ends the read transaction and gives the connection back to the pool the way it was lent.
+     */
+    private static void release(Connection conn) {
+        try {
+            conn.rollback();
+            conn.setAutoCommit(true);
+        } catch (SQLException e) {
+            System.err.println("Error while releasing the backup connection: " + e.getMessage());
+        }
+        try {
+            conn.close();
+        } catch (SQLException e) {
+            System.err.println("Error while releasing the backup connection: " + e.getMessage());
+        }
+    }
+
+    private static void appendHistory(Result result, long startedAt) {
+        File history = new File(savesDir, HISTORY_FILE);
+        boolean header = !history.exists();
+        try (PrintWriter out = new PrintWriter(new FileWriter(history, true))) {
+            if (header) {
+                out.println("Time;File;DatabaseBytes;BackupBytes;Millis");
+            }
+            out.println(Instant.ofEpochMilli(startedAt) + ";" + result.getFile().getName() + ";"
+                    + result.getDatabaseBytes() + ";" + result.getBackupBytes() + ";" + result.getMillis());
+        } catch (IOException e) {
+            System.err.println("Error while recording the backup: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Deletes the backups the policy does not keep, and parts left behind by interrupted backups.
+     * Only the compressed backups this class writes are counted; uncompressed dbLog[...].db copies
+     * made by older versions belong to the user and are left alone.
+     *
+     * @return The number of backups deleted.
+     */
+    static int applyRetention(Retention retention) {
+        File[] files = savesDir.listFiles();
+        if (files == null) {
+            return 0;
+        }
+        List<File> backups = new ArrayList<>();
+        for (File file : files) {
+            String name = file.getName();
+            if (!name.startsWith(PREFIX)) {
+                continue;
+            }
+            if (name.endsWith(PART_SUFFIX)) {
+                file.delete(); // only one backup runs at a time, so this one was interrupted
+            } else if (name.endsWith(SUFFIX)) {
+                backups.add(file);
+            }
+        }
+        backups.sort(Comparator.comparingLong(File::lastModified).reversed());
+
+        Set<File> keep = new HashSet<>(backups.subList(0, Math.min(retention.getKeepLast(), backups.size())));
+        Set<LocalDate> days = new HashSet<>();
+        Set<Integer> weeks = new HashSet<>();
+        for (File backup : backups) {
+            LocalDate date = Instant.ofEpochMilli(backup.lastModified()).atZone(ZoneId.systemDefault()).toLocalDate();
+            // Newest first, so the first backup seen of a day or week is the one that stays
+            if (days.size() < retention.getKeepDaily() && days.add(date)) {
+                keep.add(backup);
+            }
+            int week = date.get(IsoFields.WEEK_BASED_YEAR) * 100 + date.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR);
+            if (weeks.size() < retention.getKeepWeekly() && weeks.add(week)) {
+                keep.add(backup);
+            }
+        }
+
+        int deleted = 0;
+        for (File backup : backups) {
+            if (!keep.contains(backup) && backup.delete()) {
+                deleted++;
+            }
+        }
+        if (deleted > 0) {
+            System.out.println("Deleted " + deleted + " old backup(s) from " + savesDir.getAbsolutePath());
+        }
+        return deleted;
+    }
+
+    /**
+     * Which backups survive: the newest {@code keepLast}, plus the newest of each of the last
+     * {@code keepDaily} days and {@code keepWeekly} weeks that have one.
+     */
+    public static class Retention {
+        private final int keepLast;
+        private final int keepDaily;
+        private final int keepWeekly;
+
+        public Retention(int keepLast, int keepDaily, int keepWeekly) {
+            this.keepLast = keepLast;
+            this.keepDaily = keepDaily;
+            this.keepWeekly = keepWeekly;
+        }
+
+        /**
+         * The policy set with -Dtimetablemanager.backup.keepLast, .keepDaily and .keepWeekly
+         * (defaults 10, 7 and 4).
+         */
+        public static Retention fromSystemProperties() {
+            return new Retention(
+                    Integer.getInteger("timetablemanager.backup.keepLast", 10),
+                    Integer.getInteger("timetablemanager.backup.keepDaily", 7),
+                    Integer.getInteger("timetablemanager.backup.keepWeekly", 4));
+        }
+
+        public int getKeepLast() {
+            return keepLast;
+        }
+
+        public int getKeepDaily() {
+            return keepDaily;
+        }
+
+        public int getKeepWeekly() {
+            return keepWeekly;
+        }
+    }
+
+    /**
+     * A backup started by start(); the file it is written to is known before it is done.
+     */
+    public static class Backup extends Task<Result> {
+        private final Connection conn;
+        private final String name;
+        private final long startedAt;
+
+        Backup(Connection conn, String name, long startedAt) {
+            this.conn = conn;
+            this.name = name;
+            this.startedAt = startedAt;
+        }
+
+        public File getFile() {
+            return new File(savesDir, name + ".gz");
+        }
+
+        @Override
+        protected Result call() throws Exception {
+            return backup(conn, name, startedAt);
+        }
+    }
+
+    /**
+     * A finished backup.
+     */
+    public static class Result {
+        private final File file;
+        private final long databaseBytes;
+        private final long backupBytes;
+        private final long millis;
+
+        Result(File file, long databaseBytes, long backupBytes, long millis) {
+            this.file = file;
+            this.databaseBytes = databaseBytes;
+            this.backupBytes = backupBytes;
+            this.millis = millis;
+        }
+
+        public File getFile() {
+            return file;
+        }
+
+        public long getDatabaseBytes() {
+            return databaseBytes;
+        }
+
+        public long getBackupBytes() {
+            return backupBytes;
+        }
+
+        public long getMillis() {
+            return millis;
+        }
+
+        @Override
+        public String toString() {
+            return file.getAbsolutePath() + " (" + databaseBytes + " -> " + backupBytes + " bytes, " + millis + " ms)";
+        }
+    }
+}
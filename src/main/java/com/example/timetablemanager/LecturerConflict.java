@@ -0,0 +1,39 @@
+package com.example.timetablemanager;
+
+/**
+ * Two courses of the same lecturer that overlap in time.
+ */
+public class LecturerConflict {
+    private final String lecturer;
+    private final String firstCourse;
+    private final String secondCourse;
+    private final String day;
+
+    public LecturerConflict(String lecturer, String firstCourse, String secondCourse, String day) {
+        this.lecturer = lecturer;
+        this.firstCourse = firstCourse;
+        this.secondCourse = secondCourse;
+        this.day = day;
+    }
+
+    public String getLecturer() {
+        return lecturer;
+    }
+
+    public String getFirstCourse() {
+        return firstCourse;
+    }
+
+    public String getSecondCourse() {
+        return secondCourse;
+    }
+
+    public String getDay() {
+        return day;
+    }
+
+    @Override
+    public String toString() {
+        return lecturer + ": " + firstCourse + " and " + secondCourse + " overlap on " + day;
+    }
+}
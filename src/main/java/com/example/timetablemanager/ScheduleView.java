@@ -0,0 +1,539 @@
+package com.example.timetablemanager;
+
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.geometry.Orientation;
+import javafx.geometry.VPos;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.control.ScrollBar;
+import javafx.scene.control.Tooltip;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.input.ScrollEvent;
+import javafx.scene.layout.Region;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+import javafx.scene.text.TextAlignment;
+import javafx.util.Duration;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * A weekly schedule (days as columns, lecture slots as rows, see TimeSlots) drawn on one Canvas,
+ * used by the schedule screens instead of a GridPane holding a Label per slot.
+ *
+ * The view shows one or more lanes side by side, e.g. one week per classroom. Only the columns in
+ * view are drawn and the view always has the same three nodes, however many lanes there are;
+ * lanes that do not fit scroll sideways with the scroll bar or the mouse wheel.
+ *
+ * setEntries compares the new entries with the ones on screen slot by slot and repaints only the
+ * slots that changed. Hovering an entry shows its tooltip, double-clicking it calls the handler
+ * set with setOnEntryDoubleClicked.
+ */
+public final class ScheduleView extends Region {
+
+    private static final int CELLS_PER_LANE = TimeSlots.DAY_COUNT * TimeSlots.SLOTS_PER_DAY;
+    // Lanes shown without scrolling when the view is laid out at its preferred width
+    private static final int PREF_VISIBLE_LANES = 2;
+
+    private static final Color HEADER_FILL = Color.web("#d3d3d3");
+    private static final Color ROW_FILL = Color.web("#ffffff");
+    private static final Color ALTERNATE_ROW_FILL = Color.web("#f0f0f0");
+    private static final Color GRID_LINE = Color.web("#e0e0e0");
+    private static final Color HEADER_TEXT = Color.web("#000000");
+    private static final Color PLACEHOLDER_TEXT = Color.web("#333333");
+    private static final Font HEADER_FONT = Font.font("System", FontWeight.BOLD, 12);
+    private static final Font ENTRY_FONT = Font.font("System", FontWeight.BOLD, 12);
+    private static final Font PLACEHOLDER_FONT = Font.font("System", 14);
+
+    private final Canvas canvas = new Canvas();
+    private final ScrollBar scrollBar = new ScrollBar();
+    private final Tooltip tooltip = new Tooltip();
+
+    private double prefColumnWidth = 70;
+    private double prefRowHeight = 30;
+    private double timeColumnWidth = 60;
+    private double headerHeight = 30;
+
+    // Size of a slot as last laid out
+    private double columnWidth;
+    private double rowHeight;
+
+    private List<String> lanes = List.of("");
+    private final Map<String, Integer> laneIndexes = new HashMap<>();
+    // The entry drawn in each slot, per lane, indexed by day * SLOTS_PER_DAY + slot
+    private Entry[][] cells = new Entry[1][CELLS_PER_LANE];
+    private int entryCount;
+    // Slots to repaint, indexed by lane * CELLS_PER_LANE + cell
+    private final BitSet dirty = new BitSet();
+    private boolean repaintAll = true;
+
+    private String placeholder;
+
+    private final Set<String> blinkingCourses = new HashSet<>();
+    private Timeline blinkTimeline;
+    private boolean blinkHidden;
+
+    private Entry hovered;
+    private Consumer<Course> onEntryDoubleClicked;
+
+    public ScheduleView() {
+        laneIndexes.put("", 0);
+        scrollBar.setOrientation(Orientation.HORIZONTAL);
+        scrollBar.setVisible(false);
+        scrollBar.valueProperty().addListener((obs, oldVal, newVal) -> repaint(true));
+        getChildren().addAll(canvas, scrollBar);
+
+        tooltip.setShowDelay(Duration.ZERO);
+        tooltip.setHideDelay(Duration.ZERO);
+        tooltip.setShowDuration(Duration.INDEFINITE);
+
+        addEventHandler(MouseEvent.MOUSE_MOVED, this::updateTooltip);
+        addEventHandler(MouseEvent.MOUSE_EXITED, event -> hideTooltip());
+        addEventHandler(MouseEvent.MOUSE_CLICKED, event -> {
+            if (event.getButton() == MouseButton.PRIMARY && event.getClickCount() == 2 && onEntryDoubleClicked != null) {
+                Entry entry = entryAt(event.getX(), event.getY());
+                if (entry != null) {
+                    hideTooltip();
+                    onEntryDoubleClicked.accept(entry.getCourse());
+                }
+            }
+        });
+        addEventHandler(ScrollEvent.SCROLL, event -> {
+            // Scroll sideways with a horizontal wheel or Shift, leave vertical scrolling to the parent
+            double delta = event.getDeltaX() != 0 ? event.getDeltaX() : event.isShiftDown() ? event.getDeltaY() : 0;
+            if (delta != 0 && scrollBar.isVisible()) {
+                scrollBar.setValue(Math.max(0, Math.min(scrollBar.getMax(), scrollBar.getValue() - delta)));
+                event.consume();
+            }
+        });
+    }
+
+    /**
+     * Sets the preferred size of a slot; the slots grow to fill the view when it is larger.
+     */
+    public void setCellSize(double width, double height) {
+        prefColumnWidth = width;
+        prefRowHeight = height;
+        timeColumnWidth = Math.max(50, Math.min(width, 80));
+        headerHeight = Math.max(height, 24);
+        requestLayout();
+    }
+
+    /**
+     * @param placeholder Text shown over the empty grid when there are no entries, or null for none.
+     */
+    public void setPlaceholder(String placeholder) {
+        this.placeholder = placeholder;
+        repaint(true);
+    }
+
+    /**
+     * Sets the lanes shown side by side, each a full week with its name above the days. Entries are
+     * placed by their lane name; a view with a single unnamed lane ("") shows no lane names.
+     * The entries are cleared.
+     */
+    public void setLanes(List<String> lanes) {
+        this.lanes = lanes.isEmpty() ? List.of("") : new ArrayList<>(lanes);
+        laneIndexes.clear();
+        for (int i = 0; i < this.lanes.size(); i++) {
+            laneIndexes.putIfAbsent(this.lanes.get(i), i);
+        }
+        cells = new Entry[this.lanes.size()][CELLS_PER_LANE];
+        entryCount = 0;
+        hovered = null;
+        scrollBar.setValue(0);
+        requestLayout();
+        repaint(true);
+    }
+
+    public List<String> getLanes() {
+        return Collections.unmodifiableList(lanes);
+    }
+
+    /**
+     * Shows the given entries instead of the current ones, repainting the slots that look different.
+     * Where entries overlap, the later one is drawn. Entries of courses outside the grid, or whose
+     * lane is not shown, are skipped.
+     */
+    public void setEntries(Collection<Entry> entries) {
+        Entry[][] next = new Entry[lanes.size()][CELLS_PER_LANE];
+        int placed = 0;
+        for (Entry entry : entries) {
+            Integer lane = laneIndexes.get(entry.getLane() == null && lanes.size() == 1 ? lanes.get(0) : entry.getLane());
+            Course course = entry.getCourse();
+            int day = course.getDayIndex();
+            int start = course.getStartSlot();
+            int end = course.getEndSlot();
+            if (lane == null || day < 0 || start < 0) {
+                continue;
+            }
+            for (int slot = start; slot < end; slot++) {
+                next[lane][day * TimeSlots.SLOTS_PER_DAY + slot] = entry;
+            }
+            placed++;
+        }
+
+        boolean blink = false;
+        for (int lane = 0; lane < next.length; lane++) {
+            for (int cell = 0; cell < CELLS_PER_LANE; cell++) {
+                Entry entry = next[lane][cell];
+                if (!Entry.looksSame(cells[lane][cell], entry)) {
+                    dirty.set(lane * CELLS_PER_LANE + cell);
+                    if (entry != null && entry.isBlinking()) {
+                        blink |= blinkingCourses.add(entry.getCourse().getCourseID());
+                    }
+                }
+            }
+        }
+        if (placeholder != null && (entryCount == 0) != (placed == 0)) {
+            repaintAll = true;
+        }
+        cells = next;
+        entryCount = placed;
+        hovered = null;
+        hideTooltip();
+        repaint(false);
+        if (blink) {
+            startBlinking(5);
+        }
+    }
+
+    public void clear() {
+        setEntries(List.of());
+    }
+
+    /**
+     * Blinks the slots of the course four times, e.g. to point out a course that was just added.
+     */
+    public void blink(String courseId) {
+        blinkingCourses.add(courseId);
+        startBlinking(4);
+    }
+
+    /**
+     * @param handler Called with the course of an entry that is double-clicked.
+     */
+    public void setOnEntryDoubleClicked(Consumer<Course> handler) {
+        this.onEntryDoubleClicked = handler;
+    }
+
+    private void startBlinking(int times) {
+        if (blinkTimeline != null) {
+            blinkTimeline.stop();
+        }
+        blinkTimeline = new Timeline(
+                new KeyFrame(Duration.seconds(0), event -> setBlinkHidden(false)),
+                new KeyFrame(Duration.seconds(0.5), event -> setBlinkHidden(true)),
+                new KeyFrame(Duration.seconds(1), event -> setBlinkHidden(false))
+        );
+        blinkTimeline.setCycleCount(times);
+        blinkTimeline.setOnFinished(event -> {
+            setBlinkHidden(false);
+            blinkingCourses.clear();
+        });
+        blinkTimeline.play();
+    }
+
+    private void setBlinkHidden(boolean hidden) {
+        if (blinkHidden == hidden) {
+            return;
+        }
+        blinkHidden = hidden;
+        for (int lane = 0; lane < cells.length; lane++) {
+            for (int cell = 0; cell < CELLS_PER_LANE; cell++) {
+                Entry entry = cells[lane][cell];
+                if (entry != null && blinkingCourses.contains(entry.getCourse().getCourseID())) {
+                    dirty.set(lane * CELLS_PER_LANE + cell);
+                }
+            }
+        }
+        repaint(false);
+    }
+
+    @Override
+    protected double computePrefWidth(double height) {
+        int columns = Math.min(lanes.size(), PREF_VISIBLE_LANES) * TimeSlots.DAY_COUNT;
+        return timeColumnWidth + columns * prefColumnWidth;
+    }
+
+    @Override
+    protected double computePrefHeight(double width) {
+        double height = gridTop() + TimeSlots.SLOTS_PER_DAY * prefRowHeight;
+        return lanes.size() > PREF_VISIBLE_LANES ? height + scrollBar.prefHeight(-1) : height;
+    }
+
+    @Override
+    protected double computeMinWidth(double height) {
+        return timeColumnWidth + TimeSlots.DAY_COUNT * Math.min(prefColumnWidth, 40);
+    }
+
+    @Override
+    protected double computeMinHeight(double width) {
+        return gridTop() + TimeSlots.SLOTS_PER_DAY * Math.min(prefRowHeight, 20);
+    }
+
+    @Override
+    protected void layoutChildren() {
+        double width = getWidth();
+        double viewWidth = Math.max(0, width - timeColumnWidth);
+        int columns = lanes.size() * TimeSlots.DAY_COUNT;
+        columnWidth = Math.max(Math.min(prefColumnWidth, 40), viewWidth / columns);
+        double contentWidth = columns * columnWidth;
+
+        boolean scrolls = contentWidth > viewWidth + 0.5;
+        double barHeight = scrolls ? scrollBar.prefHeight(-1) : 0;
+        scrollBar.setVisible(scrolls);
+        scrollBar.setMin(0);
+        scrollBar.setMax(Math.max(0, contentWidth - viewWidth));
+        scrollBar.setVisibleAmount(viewWidth);
+        scrollBar.setUnitIncrement(columnWidth);
+        scrollBar.setBlockIncrement(Math.max(columnWidth, viewWidth - columnWidth));
+        if (scrollBar.getValue() > scrollBar.getMax()) {
+            scrollBar.setValue(scrollBar.getMax());
+        }
+        scrollBar.resizeRelocate(timeColumnWidth, getHeight() - barHeight, viewWidth, barHeight);
+
+        rowHeight = Math.max(Math.min(prefRowHeight, 20), (getHeight() - barHeight - gridTop()) / TimeSlots.SLOTS_PER_DAY);
+        canvas.setWidth(width);
+        canvas.setHeight(gridTop() + TimeSlots.SLOTS_PER_DAY * rowHeight);
+        repaint(true);
+    }
+
+    private boolean showsLaneNames() {
+        return lanes.size() > 1 || !lanes.get(0).isEmpty();
+    }
+
+    /**
+     * @return The height of the headers above the first slot.
+     */
+    private double gridTop() {
+        return showsLaneNames() ? 2 * headerHeight : headerHeight;
+    }
+
+    private double scrollX() {
+        return scrollBar.isVisible() ? scrollBar.getValue() : 0;
+    }
+
+    private void repaint(boolean all) {
+        repaintAll |= all;
+        if (columnWidth <= 0 || canvas.getWidth() <= 0) {
+            return; // not laid out yet, layoutChildren paints everything
+        }
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        int columns = lanes.size() * TimeSlots.DAY_COUNT;
+        int firstColumn = (int) Math.max(0, Math.floor(scrollX() / columnWidth));
+        int lastColumn = (int) Math.min(columns - 1, Math.floor((scrollX() + canvas.getWidth() - timeColumnWidth) / columnWidth));
+
+        if (repaintAll) {
+            gc.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                for (int slot = 0; slot < TimeSlots.SLOTS_PER_DAY; slot++) {
+                    paintCell(gc, column, slot);
+                }
+            }
+            paintHeaders(gc, firstColumn, lastColumn);
+            if (placeholder != null && entryCount == 0) {
+                gc.setFont(PLACEHOLDER_FONT);
+                gc.setFill(PLACEHOLDER_TEXT);
+                gc.setTextAlign(TextAlignment.CENTER);
+                gc.setTextBaseline(VPos.CENTER);
+                double viewWidth = canvas.getWidth() - timeColumnWidth;
+                gc.fillText(placeholder, timeColumnWidth + viewWidth / 2,
+                        gridTop() + TimeSlots.SLOTS_PER_DAY * rowHeight / 2, viewWidth - 8);
+            }
+            repaintAll = false;
+        } else {
+            for (int i = dirty.nextSetBit(0); i >= 0; i = dirty.nextSetBit(i + 1)) {
+                int lane = i / CELLS_PER_LANE;
+                int cell = i % CELLS_PER_LANE;
+                int column = lane * TimeSlots.DAY_COUNT + cell / TimeSlots.SLOTS_PER_DAY;
+                if (column >= firstColumn && column <= lastColumn) {
+                    paintCell(gc, column, cell % TimeSlots.SLOTS_PER_DAY);
+                }
+            }
+        }
+        dirty.clear();
+    }
+
+    /**
+     * Paints one slot, clipped to the right of the time column.
+     */
+    private void paintCell(GraphicsContext gc, int column, int slot) {
+        double x = timeColumnWidth + column * columnWidth - scrollX();
+        double left = Math.max(x, timeColumnWidth);
+        double right = x + columnWidth;
+        if (right <= left) {
+            return;
+        }
+        double y = gridTop() + slot * rowHeight;
+        int lane = column / TimeSlots.DAY_COUNT;
+        Entry entry = cells[lane][(column % TimeSlots.DAY_COUNT) * TimeSlots.SLOTS_PER_DAY + slot];
+        if (entry != null && blinkHidden && blinkingCourses.contains(entry.getCourse().getCourseID())) {
+            entry = null;
+        }
+
+        gc.setFill(entry != null ? entry.getFill() : slot % 2 == 1 ? ALTERNATE_ROW_FILL : ROW_FILL);
+        gc.fillRect(left, y, right - left, rowHeight);
+        gc.setStroke(GRID_LINE);
+        gc.setLineWidth(1);
+        gc.strokeRect(left + 0.5, y + 0.5, right - left - 1, rowHeight - 1);
+        if (entry != null && right - left > 8) {
+            gc.setFont(ENTRY_FONT);
+            gc.setFill(entry.getTextFill());
+            gc.setTextAlign(TextAlignment.CENTER);
+            gc.setTextBaseline(VPos.CENTER);
+            gc.fillText(entry.getText(), (left + right) / 2, y + rowHeight / 2, right - left - 6);
+        }
+    }
+
+    private void paintHeaders(GraphicsContext gc, int firstColumn, int lastColumn) {
+        gc.setFont(HEADER_FONT);
+        gc.setTextAlign(TextAlignment.CENTER);
+        gc.setTextBaseline(VPos.CENTER);
+        gc.setLineWidth(1);
+        double dayTop = gridTop() - headerHeight;
+
+        for (int column = firstColumn; column <= lastColumn; column++) {
+            double x = timeColumnWidth + column * columnWidth - scrollX();
+            paintHeaderCell(gc, TimeSlots.DAYS.get(column % TimeSlots.DAY_COUNT), x, dayTop, columnWidth, headerHeight);
+        }
+        if (showsLaneNames()) {
+            double laneWidth = TimeSlots.DAY_COUNT * columnWidth;
+            for (int lane = firstColumn / TimeSlots.DAY_COUNT; lane <= lastColumn / TimeSlots.DAY_COUNT; lane++) {
+                double x = timeColumnWidth + lane * laneWidth - scrollX();
+                // Keep the name of a lane that is partly scrolled away over its visible part
+                double left = Math.max(x, timeColumnWidth);
+                paintHeaderCell(gc, lanes.get(lane), left, 0, x + laneWidth - left, headerHeight);
+            }
+        }
+
+        gc.setFill(ROW_FILL);
+        gc.fillRect(0, 0, timeColumnWidth, canvas.getHeight());
+        paintHeaderCell(gc, "Time", 0, 0, timeColumnWidth, gridTop());
+        for (int slot = 0; slot < TimeSlots.SLOTS_PER_DAY; slot++) {
+            paintHeaderCell(gc, TimeSlots.TIMES.get(slot), 0, gridTop() + slot * rowHeight, timeColumnWidth, rowHeight);
+        }
+    }
+
+    private void paintHeaderCell(GraphicsContext gc, String text, double x, double y, double width, double height) {
+        if (width <= 0) {
+            return;
+        }
+        gc.setFill(HEADER_FILL);
+        gc.fillRect(x, y, width, height);
+        gc.setStroke(GRID_LINE);
+        gc.strokeRect(x + 0.5, y + 0.5, width - 1, height - 1);
+        gc.setFill(HEADER_TEXT);
+        gc.fillText(text, x + width / 2, y + height / 2, Math.max(1, width - 6));
+    }
+
+    /**
+     * @return The entry drawn at the given point of the view, or null if there is none.
+     */
+    private Entry entryAt(double x, double y) {
+        if (x < timeColumnWidth || y < gridTop() || columnWidth <= 0 || rowHeight <= 0) {
+            return null;
+        }
+        int column = (int) ((x - timeColumnWidth + scrollX()) / columnWidth);
+        int slot = (int) ((y - gridTop()) / rowHeight);
+        if (column >= lanes.size() * TimeSlots.DAY_COUNT || slot >= TimeSlots.SLOTS_PER_DAY) {
+            return null;
+        }
+        return cells[column / TimeSlots.DAY_COUNT][(column % TimeSlots.DAY_COUNT) * TimeSlots.SLOTS_PER_DAY + slot];
+    }
+
+    private void updateTooltip(MouseEvent event) {
+        Entry entry = entryAt(event.getX(), event.getY());
+        if (entry == hovered) {
+            return;
+        }
+        hovered = entry;
+        if (entry == null || entry.getTooltip() == null || getScene() == null) {
+            tooltip.hide();
+        } else {
+            tooltip.setText(entry.getTooltip());
+            tooltip.show(this, event.getScreenX() + 12, event.getScreenY() + 12);
+        }
+    }
+
+    private void hideTooltip() {
+        hovered = null;
+        tooltip.hide();
+    }
+
+    /**
+     * A course as shown in the schedule: the slots it covers in its lane, filled with its color
+     * and labelled with its course ID.
+     */
+    public static class Entry {
+        private final Course course;
+        private final String lane;
+        private final Color fill;
+        private final Color textFill;
+        private final String tooltip;
+        private final boolean blinking;
+
+        /**
+         * @param lane     The lane the course is shown in, or null in a view with a single lane.
+         * @param tooltip  Shown while the mouse is over the course, or null for none.
+         * @param blinking Whether the slots blink when they first show the course, e.g. for a course not saved yet.
+         */
+        public Entry(Course course, String lane, Color fill, Color textFill, String tooltip, boolean blinking) {
+            this.course = course;
+            this.lane = lane;
+            this.fill = fill;
+            this.textFill = textFill;
+            this.tooltip = tooltip;
+            this.blinking = blinking;
+        }
+
+        public Entry(Course course, Color fill, Color textFill) {
+            this(course, null, fill, textFill, null, false);
+        }
+
+        public Course getCourse() {
+            return course;
+        }
+
+        public String getLane() {
+            return lane;
+        }
+
+        public String getText() {
+            return course.getCourseID();
+        }
+
+        public Color getFill() {
+            return fill;
+        }
+
+        public Color getTextFill() {
+            return textFill;
+        }
+
+        public String getTooltip() {
+            return tooltip;
+        }
+
+        public boolean isBlinking() {
+            return blinking;
+        }
+
+        /**
+         * Whether a slot drawn with one entry would look the same drawn with the other.
+         */
+        static boolean looksSame(Entry a, Entry b) {
+            if (a == b) {
+                return true;
+            }
+            if (a == null || b == null) {
+                return false;
+            }
+            return a.getText().equals(b.getText()) && a.fill.equals(b.fill) && a.textFill.equals(b.textFill);
+        }
+    }
+}
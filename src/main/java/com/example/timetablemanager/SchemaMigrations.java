@@ -0,0 +1,261 @@
+package com.example.timetablemanager;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Brings any timetable database up to the current schema. The schema version is kept in
+ * SQLite's {@code PRAGMA user_version}; every migration runs in its own transaction and
+ * bumps the version, so old databases (including copies under saves/) are upgraded the
+ * first time they are opened and a database is never migrated twice.
+ *
+ * Version 0 is the original schema created by Database.createTables.
+ */
+final class SchemaMigrations {
+
+    private SchemaMigrations() {
+    }
+
+    /**
+     * One schema step; {@code apply} runs inside the migration's transaction.
+     */
+    private interface Migration {
+        void apply(Connection conn) throws SQLException;
+    }
+
+    private static final Migration[] MIGRATIONS = {
+            SchemaMigrations::addTimeSlotColumns,   // 0 -> 1
+            SchemaMigrations::useIntegerForeignKeys, // 1 -> 2
+            SchemaMigrations::addJournal,            // 2 -> 3
+    };
+
+    /**
+     * Applies every migration the database has not seen yet.
+     */
+    static void migrate(Connection conn) throws SQLException {
+        int version = userVersion(conn);
+        if (version > MIGRATIONS.length) {
+            System.err.println("Database schema version " + version + " is newer than this application ("
+                    + MIGRATIONS.length + ").");
+            return;
+        }
+
+        if (version == MIGRATIONS.length) {
+            return;
+        }
+
+        // Tables are rebuilt by copying, which must not trigger ON DELETE CASCADE; the pragma
+        // has no effect inside a transaction, so it is switched around the whole run
+        boolean foreignKeys = pragmaEnabled(conn, "foreign_keys");
+        setPragma(conn, "foreign_keys", false);
+        try {
+            for (int i = version; i < MIGRATIONS.length; i++) {
+                boolean autoCommit = conn.getAutoCommit();
+                try {
+                    conn.setAutoCommit(false);
+                    MIGRATIONS[i].apply(conn);
+                    try (Statement stmt = conn.createStatement()) {
+                        stmt.execute("PRAGMA user_version = " + (i + 1));
+                    }
+                    conn.commit();
+                    System.out.println("Database migrated to schema version " + (i + 1) + ".");
+                } catch (SQLException e) {
+                    conn.rollback();
+                    System.err.println("Migration to schema version " + (i + 1) + " failed: " + e.getMessage());
+                    throw e;
+                } finally {
+                    conn.setAutoCommit(autoCommit);
+                }
+            }
+            reportForeignKeyViolations(conn);
+        } finally {
+            setPragma(conn, "foreign_keys", foreignKeys);
+        }
+    }
+
+    private static boolean pragmaEnabled(Connection conn, String pragma) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA " + pragma)) {
+            return rs.next() && rs.getInt(1) != 0;
+        }
+    }
+
+    private static void setPragma(Connection conn, String pragma, boolean enabled) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("PRAGMA " + pragma + " = " + (enabled ? "ON" : "OFF"));
+        }
+    }
+
+    /**
+     * Logs rows that point at missing parents after migrating; they are kept, but SQLite will
+     * reject changes to them while foreign keys are enforced.
+     */
+    private static void reportForeignKeyViolations(Connection conn) throws SQLException {
+        int violations = 0;
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA foreign_key_check")) {
+            while (rs.next()) {
+                violations++;
+            }
+        }
+        if (violations > 0) {
+            System.err.println("Database has " + violations + " row(s) referencing missing rows after migration.");
+        }
+    }
+
+    static int userVersion(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA user_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    /**
+     * Adds numeric dayOfWeek / startSlot / endSlot columns to Courses (see TimeSlots), fills them
+     * from timeToStart and indexes them, so overlap checks can be plain range predicates.
+     * timeToStart itself is rewritten to the canonical "Monday 08:30" form. Rows whose time
+     * cannot be parsed keep NULL slots.
+     */
+    private static void addTimeSlotColumns(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("ALTER TABLE Courses ADD COLUMN dayOfWeek INTEGER");
+            stmt.execute("ALTER TABLE Courses ADD COLUMN startSlot INTEGER");
+            stmt.execute("ALTER TABLE Courses ADD COLUMN endSlot INTEGER");
+        }
+
+        // Read everything first; updating the table while a cursor is open on it is not reliable in SQLite
+        List<Object[]> rows = new ArrayList<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT courseId, timeToStart, duration FROM Courses")) {
+            while (rs.next()) {
+                rows.add(new Object[]{rs.getInt("courseId"), rs.getString("timeToStart"), rs.getInt("duration")});
+            }
+        }
+
+        String update = "UPDATE Courses SET timeToStart = ?, dayOfWeek = ?, startSlot = ?, endSlot = ? WHERE courseId = ?";
+        try (PreparedStatement pstmt = conn.prepareStatement(update)) {
+            for (Object[] row : rows) {
+                String timeToStart = (String) row[1];
+                pstmt.setString(1, TimeSlots.normalize(timeToStart));
+                bindTimeSlots(pstmt, 2, timeToStart, (Integer) row[2]);
+                pstmt.setInt(5, (Integer) row[0]);
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+        }
+
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_courses_time_slot ON Courses (dayOfWeek, startSlot, endSlot)");
+        }
+    }
+
+    /**
+     * Rebuilds Allocated and Enrollments so they reference Courses, Classrooms and Students by
+     * their integer ids instead of by name, with an index for every way Database reads them:
+     * <ul>
+     *     <li>Allocated (courseId, classroomId): classroom of a course</li>
+     *     <li>Allocated (classroomId, courseId): courses in a classroom</li>
+     *     <li>Enrollments UNIQUE (courseId, studentId): students of a course, no duplicate enrollments</li>
+     *     <li>Enrollments (studentId, courseId): courses of a student</li>
+     * </ul>
+     * Students that were only mentioned in Enrollments are added to Students. Rows pointing at a
+     * course or classroom that does not exist cannot be expressed any more and are dropped.
+     */
+    private static void useIntegerForeignKeys(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("""
+                    CREATE TABLE Allocated_new (
+                        allocationID INTEGER PRIMARY KEY AUTOINCREMENT,
+                        courseId INTEGER NOT NULL REFERENCES Courses (courseId) ON DELETE CASCADE,
+                        classroomId INTEGER NOT NULL REFERENCES Classrooms (classroomId) ON DELETE CASCADE
+                    )
+                    """);
+            stmt.execute("""
+                    INSERT INTO Allocated_new (allocationID, courseId, classroomId)
+                    SELECT a.allocationID, c.courseId, cl.classroomId
+                    FROM Allocated a
+                    JOIN Courses c ON c.courseName = a.courseName
+                    JOIN Classrooms cl ON cl.classroomName = a.classroomName
+                    """);
+            stmt.execute("DROP TABLE Allocated");
+            stmt.execute("ALTER TABLE Allocated_new RENAME TO Allocated");
+            stmt.execute("CREATE INDEX idx_allocated_course ON Allocated (courseId, classroomId)");
+            stmt.execute("CREATE INDEX idx_allocated_classroom ON Allocated (classroomId, courseId)");
+
+            stmt.execute("INSERT OR IGNORE INTO Students (studentName) SELECT DISTINCT studentName FROM Enrollments");
+            stmt.execute("""
+                    CREATE TABLE Enrollments_new (
+                        enrollmentId INTEGER PRIMARY KEY AUTOINCREMENT,
+                        courseId INTEGER NOT NULL REFERENCES Courses (courseId) ON DELETE CASCADE,
+                        studentId INTEGER NOT NULL REFERENCES Students (studentId) ON DELETE CASCADE,
+                        UNIQUE (courseId, studentId)
+                    )
+                    """);
+            stmt.execute("""
+                    INSERT OR IGNORE INTO Enrollments_new (courseId, studentId)
+                    SELECT c.courseId, s.studentId
+                    FROM Enrollments e
+                    JOIN Courses c ON c.courseName = e.courseName
+                    JOIN Students s ON s.studentName = e.studentName
+                    ORDER BY e.enrollmentId
+                    """);
+            stmt.execute("DROP TABLE Enrollments");
+            stmt.execute("ALTER TABLE Enrollments_new RENAME TO Enrollments");
+            stmt.execute("CREATE INDEX idx_enrollments_student ON Enrollments (studentId, courseId)");
+        }
+    }
+
+    /**
+     * Adds the Journal table (see ChangeJournal). Its first row tells where the journaled history
+     * starts: from an empty timetable (CLEAR), or from data that was there before the journal (IMPORT).
+     */
+    private static void addJournal(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("""
+                    CREATE TABLE Journal (
+                        seq INTEGER PRIMARY KEY AUTOINCREMENT,
+                        time INTEGER NOT NULL,
+                        kind INTEGER NOT NULL,
+                        target INTEGER,
+                        description TEXT NOT NULL,
+                        ops BLOB
+                    )
+                    """);
+        }
+        boolean hasData;
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(
+                     "SELECT EXISTS(SELECT 1 FROM Courses) OR EXISTS(SELECT 1 FROM Classrooms)")) {
+            hasData = rs.next() && rs.getBoolean(1);
+        }
+        ChangeJournal.append(conn, hasData ? ChangeJournal.Kind.IMPORT : ChangeJournal.Kind.CLEAR, 0,
+                "Journal started", null);
+    }
+
+    /**
+     * Binds dayOfWeek, startSlot and endSlot of the given time to three consecutive parameters,
+     * NULL for times outside the slot grid.
+     */
+    static void bindTimeSlots(PreparedStatement pstmt, int firstIndex, String timeToStart, int duration) throws SQLException {
+        String time = TimeSlots.timePart(timeToStart);
+        int day = TimeSlots.dayIndex(TimeSlots.dayPart(timeToStart));
+        int start = TimeSlots.startSlot(time);
+        bindTimeSlots(pstmt, firstIndex, day, start, start < 0 ? -1 : TimeSlots.endSlot(time, duration));
+    }
+
+    /**
+     * Same as above for slots that were already computed (-1 = outside the grid).
+     */
+    static void bindTimeSlots(PreparedStatement pstmt, int firstIndex, int day, int startSlot, int endSlot) throws SQLException {
+        if (day < 0 || startSlot < 0) {
+            pstmt.setNull(firstIndex, Types.INTEGER);
+            pstmt.setNull(firstIndex + 1, Types.INTEGER);
+            pstmt.setNull(firstIndex + 2, Types.INTEGER);
+        } else {
+            pstmt.setInt(firstIndex, day);
+            pstmt.setInt(firstIndex + 1, startSlot);
+            pstmt.setInt(firstIndex + 2, endSlot);
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.example.timetablemanager;
+
+import java.util.*;
+
+/**
+ * In-memory occupancy of the weekly slot grid (see {@link TimeSlots}) for a set of owners,
+ * e.g. classrooms. Every owner gets a 112-bit bitmap (7 days x 16 slots) stored in two longs:
+ * days 0-3 live in the first word and days 4-6 in the second, so a "day D, slots s..e" test
+ * is a single mask and AND.
+ *
+ * Next to the bitmap the index remembers which courses occupy each slot, so it can also
+ * report conflicts and ignore a given course (useful while swapping).
+ */
+public class SlotOccupancyIndex {
+
+    private static final int DAYS_PER_WORD = 4;
+
+    private final Map<String, Occupancy> owners = new HashMap<>();
+    private final Map<String, Set<String>> ownersByCourse = new HashMap<>();
+
+    /**
+     * Marks the slots [startSlot, endSlot) of the given day as used by the course.
+     */
+    public synchronized void add(String owner, String courseId, int day, int startSlot, int endSlot) {
+        if (!isValidRange(day, startSlot, endSlot)) {
+            return;
+        }
+        Occupancy occupancy = owners.computeIfAbsent(owner, k -> new Occupancy());
+        occupancy.add(courseId, day, startSlot, endSlot);
+        ownersByCourse.computeIfAbsent(courseId, k -> new HashSet<>()).add(owner);
+    }
+
+    /**
+     * Frees every slot the course occupies for the given owner.
+     */
+    public synchronized void remove(String owner, String courseId) {
+        Occupancy occupancy = owners.get(owner);
+        if (occupancy != null) {
+            occupancy.remove(courseId);
+        }
+        Set<String> courseOwners = ownersByCourse.get(courseId);
+        if (courseOwners != null) {
+            courseOwners.remove(owner);
+            if (courseOwners.isEmpty()) {
+                ownersByCourse.remove(courseId);
+            }
+        }
+    }
+
+    /**
+     * Frees every slot the course occupies, for all owners.
+     */
+    public synchronized void removeCourse(String courseId) {
+        Set<String> courseOwners = ownersByCourse.remove(courseId);
+        if (courseOwners == null) {
+            return;
+        }
+        for (String owner : courseOwners) {
+            Occupancy occupancy = owners.get(owner);
+            if (occupancy != null) {
+                occupancy.remove(courseId);
+            }
+        }
+    }
+
+    /**
+     * @return True if none of the slots [startSlot, endSlot) of the day is used by the owner.
+     */
+    public synchronized boolean isFree(String owner, int day, int startSlot, int endSlot) {
+        if (!isValidRange(day, startSlot, endSlot)) {
+            return false;
+        }
+        Occupancy occupancy = owners.get(owner);
+        return occupancy == null || (occupancy.words[day / DAYS_PER_WORD] & mask(day, startSlot, endSlot)) == 0;
+    }
+
+    /**
+     * Same as {@link #isFree(String, int, int, int)} but slots used only by {@code ignoredCourseId} count as free.
+     */
+    public synchronized boolean isFree(String owner, int day, int startSlot, int endSlot, String ignoredCourseId) {
+        if (isFree(owner, day, startSlot, endSlot)) {
+            return true;
+        }
+        if (!isValidRange(day, startSlot, endSlot)) {
+            return false;
+        }
+        for (String courseId : occupants(owner, day, startSlot, endSlot)) {
+            if (!courseId.equals(ignoredCourseId)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return The IDs of the courses using any of the slots [startSlot, endSlot) of the day.
+     */
+    public synchronized Set<String> occupants(String owner, int day, int startSlot, int endSlot) {
+        Set<String> result = new LinkedHashSet<>();
+        Occupancy occupancy = owners.get(owner);
+        if (occupancy == null || !isValidRange(day, startSlot, endSlot)
+                || (occupancy.words[day / DAYS_PER_WORD] & mask(day, startSlot, endSlot)) == 0) {
+            return result;
+        }
+        for (int slot = startSlot; slot < endSlot; slot++) {
+            List<String> courses = occupancy.slots[bitIndex(day, slot)];
+            if (courses != null) {
+                result.addAll(courses);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Checks many owners against the same slots under a single lock. Owners whose bitmap is
+     * free cost one AND; only clashing owners have their courses looked up.
+     *
+     * @return Owner -> IDs of the courses in the way (ignoring {@code ignoredCourseId}), for clashing owners only.
+     */
+    public synchronized Map<String, Set<String>> conflicts(Collection<String> candidates, int day, int startSlot, int endSlot,
+                                                           String ignoredCourseId) {
+        Map<String, Set<String>> result = new LinkedHashMap<>();
+        if (!isValidRange(day, startSlot, endSlot)) {
+            return result;
+        }
+        long mask = mask(day, startSlot, endSlot);
+        for (String owner : candidates) {
+            Occupancy occupancy = owners.get(owner);
+            if (occupancy == null || (occupancy.words[day / DAYS_PER_WORD] & mask) == 0) {
+                continue;
+            }
+            Set<String> courses = occupants(owner, day, startSlot, endSlot);
+            courses.remove(ignoredCourseId);
+            if (!courses.isEmpty()) {
+                result.put(owner, courses);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return The owners currently holding at least one course.
+     */
+    public synchronized Set<String> owners() {
+        return new HashSet<>(owners.keySet());
+    }
+
+    public synchronized void clear() {
+        owners.clear();
+        ownersByCourse.clear();
+    }
+
+    private static boolean isValidRange(int day, int startSlot, int endSlot) {
+        return day >= 0 && day < TimeSlots.DAY_COUNT
+                && startSlot >= 0 && startSlot < endSlot && endSlot <= TimeSlots.SLOTS_PER_DAY;
+    }
+
+    private static long mask(int day, int startSlot, int endSlot) {
+        int shift = (day % DAYS_PER_WORD) * TimeSlots.SLOTS_PER_DAY + startSlot;
+        return ((1L << (endSlot - startSlot)) - 1) << shift;
+    }
+
+    private static int bitIndex(int day, int slot) {
+        return day * TimeSlots.SLOTS_PER_DAY + slot;
+    }
+
+    /**
+     * Bitmap plus per-slot course lists for one owner.
+     */
+    private static class Occupancy {
+        private final long[] words = new long[2];
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private final List<String>[] slots = new List[TimeSlots.DAY_COUNT * TimeSlots.SLOTS_PER_DAY];
+        private final Map<String, List<int[]>> placements = new HashMap<>();
+
+        void add(String courseId, int day, int startSlot, int endSlot) {
+            placements.computeIfAbsent(courseId, k -> new ArrayList<>()).add(new int[]{day, startSlot, endSlot});
+            for (int slot = startSlot; slot < endSlot; slot++) {
+                int index = bitIndex(day, slot);
+                if (slots[index] == null) {
+                    slots[index] = new ArrayList<>(1);
+                }
+                slots[index].add(courseId);
+            }
+            words[day / DAYS_PER_WORD] |= mask(day, startSlot, endSlot);
+        }
+
+        void remove(String courseId) {
+            List<int[]> courseRanges = placements.remove(courseId);
+            if (courseRanges == null) {
+                return;
+            }
+            for (int[] range : courseRanges) {
+                int day = range[0];
+                for (int slot = range[1]; slot < range[2]; slot++) {
+                    int index = bitIndex(day, slot);
+                    List<String> courses = slots[index];
+                    if (courses == null) {
+                        continue;
+                    }
+                    courses.remove(courseId);
+                    if (courses.isEmpty()) {
+                        slots[index] = null;
+                        words[day / DAYS_PER_WORD] &= ~mask(day, slot, slot + 1);
+                    }
+                }
+            }
+        }
+    }
+}
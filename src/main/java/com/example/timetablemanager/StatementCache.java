@@ -0,0 +1,161 @@
+package com.example.timetablemanager;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LRU cache of prepared statements for one pooled connection, keyed by SQL text.
+ *
+ * Callers keep using {@code try (PreparedStatement pstmt = conn.prepareStatement(sql))}; the
+ * statement they get is a wrapper whose close() resets the statement (open result set,
+ * parameters, batch) and keeps it for the next caller instead of closing it.
+ *
+ * A connection is only used by one thread at a time (see ConnectionPool), so the cache is not
+ * synchronized. If the same SQL is prepared again while the cached statement is still open
+ * (nested use on the writer), the second caller gets a plain, uncached statement.
+ */
+class StatementCache {
+
+    private final Connection connection;
+    private final int capacity;
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+    private final LinkedHashMap<String, Entry> statements;
+
+    StatementCache(Connection connection, int capacity, AtomicLong hits, AtomicLong misses) {
+        this.connection = connection;
+        this.capacity = capacity;
+        this.hits = hits;
+        this.misses = misses;
+        this.statements = new LinkedHashMap<>(capacity, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, StatementCache.Entry> eldest) {
+                if (size() <= StatementCache.this.capacity) {
+                    return false;
+                }
+                eldest.getValue().evict();
+                return true;
+            }
+        };
+    }
+
+    /**
+     * @return A statement for the given SQL, reused from the cache when possible.
+     */
+    PreparedStatement prepare(String sql) throws SQLException {
+        Entry entry = statements.get(sql);
+        if (entry != null && entry.inUse) {
+            misses.incrementAndGet();
+            return connection.prepareStatement(sql);
+        }
+        if (entry == null || entry.evicted) {
+            misses.incrementAndGet();
+            entry = new Entry(connection.prepareStatement(sql));
+            statements.put(sql, entry);
+        } else {
+            hits.incrementAndGet();
+        }
+        entry.inUse = true;
+        return entry.checkOut();
+    }
+
+    /**
+     * Closes every cached statement, e.g. before the connection itself is closed.
+     */
+    void clear() {
+        for (Entry entry : new ArrayList<>(statements.values())) {
+            entry.evict();
+        }
+        statements.clear();
+    }
+
+    /**
+     * A cached statement and the result set of its last executeQuery.
+     */
+    private static class Entry {
+        final PreparedStatement statement;
+        ResultSet openResultSet;
+        boolean inUse;
+        boolean evicted;
+
+        Entry(PreparedStatement statement) {
+            this.statement = statement;
+        }
+
+        PreparedStatement checkOut() {
+            boolean[] returned = {false};
+            return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class},
+                    (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "close":
+                                if (!returned[0]) {
+                                    returned[0] = true;
+                                    checkIn();
+                                }
+                                return null;
+                            case "isClosed":
+                                return returned[0] || statement.isClosed();
+                            default:
+                                if (returned[0]) {
+                                    throw new SQLException("Statement has already been closed");
+                                }
+                        }
+                        Object result;
+                        try {
+                            result = method.invoke(statement, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                        if (result instanceof ResultSet rs) {
+                            openResultSet = rs;
+                        }
+                        return result;
+                    });
+        }
+
+        /**
+         * Resets the statement for the next caller; an open result set would keep SQLite's read
+         * transaction (and WAL snapshot) alive.
+         */
+        void checkIn() throws SQLException {
+            inUse = false;
+            if (evicted) {
+                statement.close();
+                return;
+            }
+            try {
+                if (openResultSet != null) {
+                    openResultSet.close();
+                }
+                statement.clearParameters();
+                statement.clearBatch();
+            } catch (SQLException e) {
+                evicted = true;
+                statement.close();
+                throw e;
+            } finally {
+                openResultSet = null;
+            }
+        }
+
+        void evict() {
+            evicted = true;
+            if (!inUse) {
+                try {
+                    statement.close();
+                } catch (SQLException e) {
+                    System.err.println("Error while closing cached statement: " + e.getMessage());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.timetablemanager;
+
+import java.util.*;
+
+/**
+ * Sorted prefix index over student names, used by the student picker to filter tens of thousands
+ * of students on every keystroke.
+ *
+ * Every word of a name starts one key: the lowercase rest of the name from that word on, so
+ * "Ayse Demir" has the keys "ayse demir" and "demir". The keys are sorted once, and the names
+ * matching a search text are the owners of the keys that start with it, found by binary search.
+ * A search therefore matches the start of any word of a name, e.g. "dem" or "ayse d", and costs
+ * O(log n + matches) instead of lowercasing and scanning every name.
+ */
+public class StudentNameIndex {
+
+    private final List<String> names;
+    private final Map<String, Integer> idsByName;
+    private final String[] keys;
+    private final int[] owners;
+
+    /**
+     * @param names Distinct student names; they are kept sorted, ignoring case.
+     */
+    public StudentNameIndex(Collection<String> names) {
+        List<String> sorted = new ArrayList<>(new LinkedHashSet<>(names));
+        sorted.sort(String.CASE_INSENSITIVE_ORDER);
+        this.names = Collections.unmodifiableList(sorted);
+
+        idsByName = new HashMap<>(sorted.size() * 2);
+        List<Key> entries = new ArrayList<>(sorted.size() * 2);
+        for (int id = 0; id < sorted.size(); id++) {
+            String name = sorted.get(id);
+            idsByName.put(name, id);
+            String lower = name.toLowerCase(Locale.ROOT);
+            for (int i = 0; i < lower.length(); i++) {
+                if (!Character.isWhitespace(lower.charAt(i)) && (i == 0 || Character.isWhitespace(lower.charAt(i - 1)))) {
+                    entries.add(new Key(lower.substring(i), id));
+                }
+            }
+        }
+        entries.sort(Comparator.comparing(Key::text));
+
+        keys = new String[entries.size()];
+        owners = new int[entries.size()];
+        for (int i = 0; i < entries.size(); i++) {
+            keys[i] = entries.get(i).text();
+            owners[i] = entries.get(i).owner();
+        }
+    }
+
+    /**
+     * @return All names, sorted ignoring case; the position of a name is its id.
+     */
+    public List<String> getNames() {
+        return names;
+    }
+
+    /**
+     * @return The id of the name, or -1 if it is not indexed.
+     */
+    public int idOf(String name) {
+        Integer id = idsByName.get(name);
+        return id == null ? -1 : id;
+    }
+
+    public int size() {
+        return names.size();
+    }
+
+    /**
+     * @return The ids of the names with a word starting with the search text; all names if it is blank.
+     */
+    public BitSet search(String text) {
+        BitSet matches = new BitSet(names.size());
+        String prefix = text == null ? "" : text.strip().toLowerCase(Locale.ROOT);
+        if (prefix.isEmpty()) {
+            matches.set(0, names.size());
+            return matches;
+        }
+        for (int i = lowerBound(prefix); i < keys.length && keys[i].startsWith(prefix); i++) {
+            matches.set(owners[i]);
+        }
+        return matches;
+    }
+
+    /**
+     * @return The first key position that is not less than the prefix.
+     */
+    private int lowerBound(String prefix) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid].compareTo(prefix) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private record Key(String text, int owner) {
+    }
+}
@@ -0,0 +1,284 @@
+package com.example.timetablemanager;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * The weekly timetable of every student, kept ready so the student scheduler shows a student
+ * with one map lookup instead of collecting and placing the courses each time.
+ *
+ * Each student has an array with one cell per slot of the week (see TimeSlots) holding the
+ * courses that take place in it, usually one, more if the student has a clash. Courses whose
+ * time is outside the grid are kept with the student but not placed in a cell.
+ *
+ * The timetables follow the repository through its change events: enrolling or withdrawing a
+ * student changes only the cells of that course in that student's week. Like CourseSearchIndex,
+ * a reload only marks the timetables stale; they are built again by the next lookup, or ahead of
+ * time by prepare(). Lookups may run on any thread and return copies.
+ */
+public final class StudentTimetables implements TimetableRepository.Listener {
+
+    private static final int CELLS = TimeSlots.DAY_COUNT * TimeSlots.SLOTS_PER_DAY;
+
+    private final TimetableRepository repository;
+
+    private final Map<String, WeeklyTimetable> byStudent = new HashMap<>();
+    // The students each course is placed for, to find who was enrolled or withdrawn on a change
+    private final Map<Course, Set<String>> placedFor = new IdentityHashMap<>();
+    // Whether the timetables have to be built from the repository before the next lookup
+    private boolean stale = true;
+
+    public StudentTimetables(TimetableRepository repository) {
+        this.repository = repository;
+        repository.addListener(this);
+    }
+
+    /**
+     * Called by the repository while it holds its lock.
+     */
+    @Override
+    public synchronized void changed(TimetableRepository.Change change) {
+        if (stale) {
+            return; // the rebuild reads the repository as it is then
+        }
+        Course course = change.getCourse();
+        switch (change.getType()) {
+            case RELOADED -> stale = true;
+            case ADDED, ENROLLMENT_CHANGED -> update(course);
+            case REMOVED -> remove(course);
+            case CLASSROOM_CHANGED -> {
+                // The cells hold the course itself, which already shows its new classroom
+            }
+        }
+    }
+
+    /**
+     * Builds the timetables now if they are stale, so the next lookup answers right away.
+     */
+    public void prepare() {
+        synchronized (this) {
+            if (!stale) {
+                return;
+            }
+        }
+        // Locks in the same order as changed(): repository first, so no change slips in while building
+        synchronized (repository) {
+            synchronized (this) {
+                if (stale) {
+                    long start = System.nanoTime();
+                    byStudent.clear();
+                    placedFor.clear();
+                    for (Course course : repository.getAll()) {
+                        update(course);
+                    }
+                    stale = false;
+                    System.out.printf("Built the timetables of %d students in %.1f ms%n", byStudent.size(), (System.nanoTime() - start) / 1e6);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return A copy of the student's week; empty if the student has no courses.
+     */
+    public WeeklyTimetable get(String studentName) {
+        prepare();
+        synchronized (this) {
+            WeeklyTimetable timetable = byStudent.get(studentName);
+            return timetable == null ? new WeeklyTimetable(studentName) : new WeeklyTimetable(timetable);
+        }
+    }
+
+    /**
+     * @return The names of all students with at least one course, sorted.
+     */
+    public List<String> getStudentNames() {
+        prepare();
+        synchronized (this) {
+            List<String> names = new ArrayList<>(byStudent.keySet());
+            Collections.sort(names);
+            return names;
+        }
+    }
+
+    /**
+     * Writes the timetable of every student to a ';' separated file, one line per course of a
+     * student in weekly order: Student;Day;Time;Course;Classroom;Lecturer;Duration.
+     * The timetables are copied first, so changes are not held up while the file is written.
+     *
+     * @return The number of students written.
+     */
+    public int exportCsv(Path file) throws IOException {
+        prepare();
+        List<WeeklyTimetable> timetables;
+        synchronized (this) {
+            timetables = new ArrayList<>(byStudent.size());
+            for (WeeklyTimetable timetable : byStudent.values()) {
+                timetables.add(new WeeklyTimetable(timetable));
+            }
+        }
+        timetables.sort(Comparator.comparing(WeeklyTimetable::getStudentName));
+
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("Student;Day;Time;Course;Classroom;Lecturer;Duration");
+            writer.newLine();
+            for (WeeklyTimetable timetable : timetables) {
+                for (Course course : timetable.getCourses()) {
+                    writer.write(timetable.getStudentName() + ";" + TimeSlots.dayPart(course.getTimeToStart()) + ";"
+                            + TimeSlots.timePart(course.getTimeToStart()) + ";" + course.getCourseID() + ";"
+                            + course.getClassroom() + ";" + course.getLecturer() + ";" + course.getDuration());
+                    writer.newLine();
+                }
+            }
+        }
+        return timetables.size();
+    }
+
+    /**
+     * Places the course for the students enrolled now and takes it out of the weeks of those
+     * who are not anymore.
+     */
+    private void update(Course course) {
+        Set<String> enrolled = new HashSet<>();
+        for (Student student : course.getStudents()) {
+            enrolled.add(student.getFullName());
+        }
+        Set<String> placed = placedFor.getOrDefault(course, Collections.emptySet());
+        for (String name : placed) {
+            if (!enrolled.contains(name)) {
+                unplace(name, course);
+            }
+        }
+        for (String name : enrolled) {
+            if (!placed.contains(name)) {
+                byStudent.computeIfAbsent(name, WeeklyTimetable::new).add(course);
+            }
+        }
+        if (enrolled.isEmpty()) {
+            placedFor.remove(course);
+        } else {
+            placedFor.put(course, enrolled);
+        }
+    }
+
+    private void remove(Course course) {
+        Set<String> placed = placedFor.remove(course);
+        if (placed != null) {
+            for (String name : placed) {
+                unplace(name, course);
+            }
+        }
+    }
+
+    private void unplace(String name, Course course) {
+        WeeklyTimetable timetable = byStudent.get(name);
+        if (timetable != null && timetable.remove(course) && timetable.isEmpty()) {
+            byStudent.remove(name);
+        }
+    }
+
+    /**
+     * The week of one student: the courses in each slot, indexed by day * SLOTS_PER_DAY + slot.
+     */
+    public static class WeeklyTimetable {
+
+        private static final Course[] NONE = new Course[0];
+
+        private final String studentName;
+        private final Course[][] cells = new Course[CELLS][];
+        private final List<Course> courses = new ArrayList<>();
+
+        WeeklyTimetable(String studentName) {
+            this.studentName = studentName;
+        }
+
+        WeeklyTimetable(WeeklyTimetable other) {
+            this.studentName = other.studentName;
+            System.arraycopy(other.cells, 0, cells, 0, CELLS); // cells are replaced, never changed in place
+            courses.addAll(other.courses);
+        }
+
+        public String getStudentName() {
+            return studentName;
+        }
+
+        /**
+         * @param day  0-based day (Monday = 0).
+         * @param slot 0-based slot of the day, see TimeSlots.
+         * @return The courses taking place in the slot; more than one means a clash.
+         */
+        public List<Course> getCourses(int day, int slot) {
+            if (day < 0 || day >= TimeSlots.DAY_COUNT || slot < 0 || slot >= TimeSlots.SLOTS_PER_DAY) {
+                return new ArrayList<>();
+            }
+            Course[] cell = cells[day * TimeSlots.SLOTS_PER_DAY + slot];
+            return cell == null ? new ArrayList<>() : new ArrayList<>(Arrays.asList(cell));
+        }
+
+        /**
+         * @return All courses of the student, in weekly order; courses outside the grid come last.
+         */
+        public List<Course> getCourses() {
+            List<Course> result = new ArrayList<>(courses);
+            result.sort(Comparator.comparingInt(WeeklyTimetable::firstCell));
+            return result;
+        }
+
+        public boolean isEmpty() {
+            return courses.isEmpty();
+        }
+
+        private void add(Course course) {
+            courses.add(course);
+            int first = firstCell(course);
+            if (first == Integer.MAX_VALUE) {
+                return;
+            }
+            for (int cell = first; cell < lastCell(course); cell++) {
+                Course[] old = cells[cell] == null ? NONE : cells[cell];
+                Course[] updated = Arrays.copyOf(old, old.length + 1);
+                updated[old.length] = course;
+                cells[cell] = updated;
+            }
+        }
+
+        private boolean remove(Course course) {
+            if (!courses.remove(course)) {
+                return false;
+            }
+            int first = firstCell(course);
+            if (first == Integer.MAX_VALUE) {
+                return true;
+            }
+            for (int cell = first; cell < lastCell(course); cell++) {
+                Course[] old = cells[cell];
+                if (old == null) {
+                    continue;
+                }
+                Course[] updated = Arrays.stream(old).filter(c -> c != course).toArray(Course[]::new);
+                cells[cell] = updated.length == 0 ? null : updated;
+            }
+            return true;
+        }
+
+        /**
+         * @return The first cell of the course, or Integer.MAX_VALUE if it is outside the grid.
+         */
+        private static int firstCell(Course course) {
+            int day = course.getDayIndex();
+            int slot = course.getStartSlot();
+            return day < 0 || slot < 0 ? Integer.MAX_VALUE : day * TimeSlots.SLOTS_PER_DAY + slot;
+        }
+
+        private static int lastCell(Course course) {
+            int end = course.getEndSlot();
+            int day = course.getDayIndex();
+            int endOfDay = (day + 1) * TimeSlots.SLOTS_PER_DAY;
+            return end < 0 ? endOfDay : Math.min(endOfDay, day * TimeSlots.SLOTS_PER_DAY + end);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.timetablemanager;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Interns values by their raw bytes. Looking up a name that was seen before allocates nothing;
+ * only the first occurrence of a name is decoded (and turned into a value by {@code factory}).
+ * Safe to share between parser threads.
+ *
+ * @param <T> The value kept per distinct name, e.g. the String itself.
+ */
+class SymbolTable<T> {
+
+    private final ConcurrentHashMap<Key, T> symbols = new ConcurrentHashMap<>();
+    private final Function<String, T> factory;
+    private final ThreadLocal<Key> probes = ThreadLocal.withInitial(Key::new);
+
+    SymbolTable(Function<String, T> factory) {
+        this.factory = factory;
+    }
+
+    /**
+     * @return Interned Strings.
+     */
+    static SymbolTable<String> ofStrings() {
+        return new SymbolTable<>(Function.identity());
+    }
+
+    /**
+     * @return The value for the bytes {@code [start, end)} of the buffer.
+     */
+    T intern(ByteBuffer buffer, int start, int end) {
+        Key probe = probes.get().read(buffer, start, end);
+        T value = symbols.get(probe);
+        if (value != null) {
+            return value;
+        }
+        Key key = probe.copy();
+        T created = factory.apply(new String(key.bytes, Charset.defaultCharset()));
+        T existing = symbols.putIfAbsent(key, created);
+        return existing != null ? existing : created;
+    }
+
+    /**
+     * @return The number of distinct names seen so far.
+     */
+    int size() {
+        return symbols.size();
+    }
+
+    /**
+     * The bytes of a name. The thread-local probe reuses its array for every lookup (only the first
+     * {@code length} bytes count); stored keys own an exact copy.
+     */
+    private static final class Key {
+        private byte[] bytes = new byte[64];
+        private int length;
+        private int hash;
+
+        Key read(ByteBuffer buffer, int start, int end) {
+            length = end - start;
+            if (bytes.length < length) {
+                bytes = new byte[Math.max(length, bytes.length * 2)];
+            }
+            buffer.get(start, bytes, 0, length);
+            int h = 1;
+            for (int i = 0; i < length; i++) {
+                h = 31 * h + bytes[i];
+            }
+            hash = h;
+            return this;
+        }
+
+        Key copy() {
+            Key key = new Key();
+            key.bytes = Arrays.copyOf(bytes, length);
+            key.length = length;
+            key.hash = hash;
+            return key;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key other && other.hash == hash
+                    && Arrays.equals(bytes, 0, length, other.bytes, 0, other.length);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.timetablemanager;
+
+import java.util.List;
+
+/**
+ * Maps "Day HH:mm" course times onto the weekly slot grid used by the schedule screens:
+ * 7 days (Monday..Sunday) and 16 lecture slots per day starting at 08:30,
+ * each slot being a 45 minute lecture followed by a 10 minute break.
+ */
+public final class TimeSlots {
+
+    public static final List<String> DAYS = List.of(
+            "Monday", "Tuesday", "Wednesday", "Thursday", "Friday", "Saturday", "Sunday");
+    public static final List<String> TIMES = List.of(
+            "08:30", "09:25", "10:20", "11:15", "12:10",
+            "13:05", "14:00", "14:55", "15:50", "16:45",
+            "17:40", "18:35", "19:30", "20:25", "21:20", "22:15");
+
+    public static final int DAY_COUNT = DAYS.size();
+    public static final int SLOTS_PER_DAY = TIMES.size();
+
+    private static final int FIRST_SLOT_MINUTES = 8 * 60 + 30;
+    private static final int SLOT_MINUTES = 45 + 10; // Lecture + Break
+    private static final int LECTURE_MINUTES = 45;
+
+    private TimeSlots() {
+    }
+
+    /**
+     * @return The 0-based index of the day (Monday = 0), or -1 if it is not a valid day.
+     */
+    public static int dayIndex(String day) {
+        if (day == null) {
+            return -1;
+        }
+        String trimmed = day.trim();
+        for (int i = 0; i < DAY_COUNT; i++) {
+            if (DAYS.get(i).equalsIgnoreCase(trimmed)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Parses "8:30" or "08:30" into minutes after midnight.
+     *
+     * @return The minutes, or -1 if the time cannot be parsed.
+     */
+    public static int toMinutes(String time) {
+        if (time == null) {
+            return -1;
+        }
+        String trimmed = time.trim();
+        int colon = trimmed.indexOf(':');
+        if (colon < 1 || colon > 2 || trimmed.length() != colon + 3) {
+            return -1;
+        }
+        int hours = 0;
+        for (int i = 0; i < colon; i++) {
+            char ch = trimmed.charAt(i);
+            if (ch < '0' || ch > '9') return -1;
+            hours = hours * 10 + (ch - '0');
+        }
+        char m1 = trimmed.charAt(colon + 1);
+        char m2 = trimmed.charAt(colon + 2);
+        if (m1 < '0' || m1 > '5' || m2 < '0' || m2 > '9' || hours > 23) {
+            return -1;
+        }
+        return hours * 60 + (m1 - '0') * 10 + (m2 - '0');
+    }
+
+    /**
+     * @return The slot a lecture starting at the given time falls into, or -1 if it is outside the grid.
+     */
+    public static int startSlot(String time) {
+        int minutes = toMinutes(time);
+        if (minutes < FIRST_SLOT_MINUTES) {
+            return -1;
+        }
+        int slot = (minutes - FIRST_SLOT_MINUTES) / SLOT_MINUTES;
+        return slot < SLOTS_PER_DAY ? slot : -1;
+    }
+
+    /**
+     * Exclusive end slot of a course lasting {@code duration} lectures from the given time.
+     * Times that do not sit on a slot boundary cover every slot they touch.
+     *
+     * @return The end slot (at most {@link #SLOTS_PER_DAY}), or -1 if the start is outside the grid.
+     */
+    public static int endSlot(String time, int duration) {
+        int minutes = toMinutes(time);
+        if (startSlot(time) < 0) {
+            return -1;
+        }
+        int lastLectureEnd = minutes + Math.max(duration - 1, 0) * SLOT_MINUTES + LECTURE_MINUTES;
+        int end = (lastLectureEnd - FIRST_SLOT_MINUTES + SLOT_MINUTES - 1) / SLOT_MINUTES;
+        return Math.min(end, SLOTS_PER_DAY);
+    }
+
+    /**
+     * @return True if a course lasting {@code duration} lectures from the given time starts on the
+     * grid and its last lecture ends within the day; endSlot() is cut at the end of the day otherwise.
+     */
+    public static boolean fitsInDay(String time, int duration) {
+        if (startSlot(time) < 0 || duration < 1) {
+            return false;
+        }
+        int lastLectureEnd = toMinutes(time) + (duration - 1) * SLOT_MINUTES + LECTURE_MINUTES;
+        return lastLectureEnd <= FIRST_SLOT_MINUTES + SLOTS_PER_DAY * SLOT_MINUTES;
+    }
+
+    /**
+     * Brings "monday 8:30" and similar spellings into the canonical "Monday 08:30" form.
+     *
+     * @return The canonical form, or the input unchanged if it cannot be parsed.
+     */
+    public static String normalize(String timeToStart) {
+        int day = dayIndex(dayPart(timeToStart));
+        int minutes = toMinutes(timePart(timeToStart));
+        if (day < 0 || minutes < 0) {
+            return timeToStart;
+        }
+        int hours = minutes / 60;
+        int mins = minutes % 60;
+        return DAYS.get(day) + (hours < 10 ? " 0" : " ") + hours + (mins < 10 ? ":0" : ":") + mins;
+    }
+
+    /**
+     * @return The day part of a "Day HH:mm" string, or null if there is none.
+     */
+    public static String dayPart(String timeToStart) {
+        return part(timeToStart, 0);
+    }
+
+    /**
+     * @return The time part of a "Day HH:mm" string, or null if there is none.
+     */
+    public static String timePart(String timeToStart) {
+        return part(timeToStart, 1);
+    }
+
+    /**
+     * Same as {@code timeToStart.trim().split("\\s+")[index]} when there are at least two parts,
+     * without compiling a regex on every call (this runs for every imported course line).
+     */
+    private static String part(String timeToStart, int index) {
+        if (timeToStart == null) {
+            return null;
+        }
+        String trimmed = timeToStart.trim();
+        int length = trimmed.length();
+        int firstEnd = 0;
+        while (firstEnd < length && !isWhitespace(trimmed.charAt(firstEnd))) {
+            firstEnd++;
+        }
+        int secondStart = firstEnd;
+        while (secondStart < length && isWhitespace(trimmed.charAt(secondStart))) {
+            secondStart++;
+        }
+        if (secondStart == length) {
+            return null; // Only one part
+        }
+        if (index == 0) {
+            return trimmed.substring(0, firstEnd);
+        }
+        int secondEnd = secondStart;
+        while (secondEnd < length && !isWhitespace(trimmed.charAt(secondEnd))) {
+            secondEnd++;
+        }
+        return trimmed.substring(secondStart, secondEnd);
+    }
+
+    // The characters of the regex class \s
+    private static boolean isWhitespace(char ch) {
+        return ch == ' ' || ch == '\t' || ch == '\n' || ch == '\u000B' || ch == '\f' || ch == '\r';
+    }
+}
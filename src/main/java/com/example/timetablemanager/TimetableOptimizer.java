@@ -0,0 +1,444 @@
+package com.example.timetablemanager;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Improves an existing classroom allocation. Starting from the courses' current classrooms
+ * (the Allocated table) it minimises
+ * <pre>
+ *     wasted seats (capacity - enrolled)
+ *   + OVERFLOW_WEIGHT * students that do not fit
+ *   + ROOM_CHANGE_WEIGHT * room changes of lecturers between consecutive courses of a day
+ * </pre>
+ * Only the classroom of a course is changed, never its time, and a move is only made if the
+ * target room is free and large enough.
+ *
+ * The search is simulated annealing. A fixed number of independent chains (8 by default) run in a
+ * ForkJoinPool sized to the cores, each with its own seed derived from the given seed, and the
+ * best chain wins (ties go to the lower chain number). The number of chains does not depend on the
+ * number of cores, so the same seed gives the same result on every machine.
+ *
+ * Chains stop after a fixed number of iterations or when the time budget runs out, whichever
+ * comes first. A run that hits the time budget depends on the speed of the machine; without a
+ * budget (setTimeBudgetMillis(0)) the result depends only on the seed and the settings.
+ */
+public class TimetableOptimizer {
+
+    public static final int OVERFLOW_WEIGHT = 100;
+    public static final int ROOM_CHANGE_WEIGHT = 10;
+    public static final int DEFAULT_CHAINS = 8;
+
+    private static final int SLOTS = TimeSlots.DAY_COUNT * TimeSlots.SLOTS_PER_DAY;
+    private static final double START_TEMPERATURE = 50.0;
+    private static final double END_TEMPERATURE = 0.05;
+
+    /**
+     * One classroom change proposed by the optimizer.
+     */
+    public static class Change {
+        private final String courseId;
+        private final String fromClassroom;
+        private final String toClassroom;
+
+        public Change(String courseId, String fromClassroom, String toClassroom) {
+            this.courseId = courseId;
+            this.fromClassroom = fromClassroom;
+            this.toClassroom = toClassroom;
+        }
+
+        public String getCourseId() {
+            return courseId;
+        }
+
+        public String getFromClassroom() {
+            return fromClassroom;
+        }
+
+        public String getToClassroom() {
+            return toClassroom;
+        }
+
+        @Override
+        public String toString() {
+            return courseId + ": " + fromClassroom + " -> " + toClassroom;
+        }
+    }
+
+    /**
+     * The improved assignment, the changes relative to the start and the cost before and after.
+     */
+    public static class Result {
+        private final Map<String, String> assignment;
+        private final List<Change> changes;
+        private final long initialCost;
+        private final long finalCost;
+        private final long iterations;
+
+        Result(Map<String, String> assignment, List<Change> changes, long initialCost, long finalCost, long iterations) {
+            this.assignment = assignment;
+            this.changes = changes;
+            this.initialCost = initialCost;
+            this.finalCost = finalCost;
+            this.iterations = iterations;
+        }
+
+        public Map<String, String> getAssignment() {
+            return assignment;
+        }
+
+        public List<Change> getChanges() {
+            return changes;
+        }
+
+        public long getInitialCost() {
+            return initialCost;
+        }
+
+        public long getFinalCost() {
+            return finalCost;
+        }
+
+        public long getIterations() {
+            return iterations;
+        }
+    }
+
+    // Problem data shared (read-only) by all chains
+    private final String[] courseIds;
+    private final int[] enrolled;
+    private final int[] day;
+    private final int[] startSlot;
+    private final int[] endSlot;
+    private final int[] initialRoom;
+    private final int[] groupOf;
+    private final int[][] groups;
+    private final int[][] fittingRooms;
+    private final String[] roomNames;
+    private final int[] roomCapacity;
+
+    private long timeBudgetMillis = 5_000;
+    private long iterationsPerChain = 500_000;
+    private int chains = DEFAULT_CHAINS;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * @param courses             All courses; only those with a classroom and a valid time are optimized.
+     * @param classroomCapacities Classroom name -> capacity.
+     */
+    public TimetableOptimizer(List<Course> courses, Map<String, Integer> classroomCapacities) {
+        roomNames = classroomCapacities.keySet().toArray(new String[0]);
+        roomCapacity = new int[roomNames.length];
+        Map<String, Integer> roomIndex = new HashMap<>();
+        for (int i = 0; i < roomNames.length; i++) {
+            roomCapacity[i] = classroomCapacities.get(roomNames[i]);
+            roomIndex.put(roomNames[i], i);
+        }
+
+        List<Course> movable = new ArrayList<>();
+        for (Course course : courses) {
+            String time = TimeSlots.timePart(course.getTimeToStart());
+            if (course.getClassroom() != null && roomIndex.containsKey(course.getClassroom())
+                    && TimeSlots.dayIndex(TimeSlots.dayPart(course.getTimeToStart())) >= 0
+                    && TimeSlots.startSlot(time) >= 0) {
+                movable.add(course);
+            }
+        }
+
+        int n = movable.size();
+        courseIds = new String[n];
+        enrolled = new int[n];
+        day = new int[n];
+        startSlot = new int[n];
+        endSlot = new int[n];
+        initialRoom = new int[n];
+        groupOf = new int[n];
+        fittingRooms = new int[n][];
+
+        Map<String, List<Integer>> lecturerDays = new LinkedHashMap<>();
+        for (int c = 0; c < n; c++) {
+            Course course = movable.get(c);
+            String time = TimeSlots.timePart(course.getTimeToStart());
+            courseIds[c] = course.getCourseID();
+            enrolled[c] = course.getStudents() != null ? course.getStudents().size() : 0;
+            day[c] = TimeSlots.dayIndex(TimeSlots.dayPart(course.getTimeToStart()));
+            startSlot[c] = TimeSlots.startSlot(time);
+            endSlot[c] = TimeSlots.endSlot(time, course.getDuration());
+            initialRoom[c] = roomIndex.get(course.getClassroom());
+
+            List<Integer> fitting = new ArrayList<>();
+            for (int r = 0; r < roomNames.length; r++) {
+                if (roomCapacity[r] >= enrolled[c]) {
+                    fitting.add(r);
+                }
+            }
+            fittingRooms[c] = fitting.stream().mapToInt(Integer::intValue).toArray();
+
+            // Grouped like the lecturer conflict index, so both agree on who the same lecturer is
+            String lecturer = Database.lecturerKey(course.getLecturer());
+            if (lecturer != null) {
+                lecturerDays.computeIfAbsent(lecturer + "|" + day[c], k -> new ArrayList<>()).add(c);
+            }
+        }
+
+        Arrays.fill(groupOf, -1);
+        groups = new int[lecturerDays.size()][];
+        int g = 0;
+        for (List<Integer> members : lecturerDays.values()) {
+            members.sort(Comparator.comparingInt(c -> startSlot[c]));
+            groups[g] = members.stream().mapToInt(Integer::intValue).toArray();
+            for (int c : groups[g]) {
+                groupOf[c] = g;
+            }
+            g++;
+        }
+    }
+
+    /**
+     * @param timeBudgetMillis Wall-clock limit of a run; 0 or less for none, which keeps runs reproducible.
+     */
+    public TimetableOptimizer setTimeBudgetMillis(long timeBudgetMillis) {
+        this.timeBudgetMillis = timeBudgetMillis;
+        return this;
+    }
+
+    public TimetableOptimizer setIterationsPerChain(long iterationsPerChain) {
+        this.iterationsPerChain = iterationsPerChain;
+        return this;
+    }
+
+    /**
+     * @param chains Number of independent chains; part of what makes a seed reproducible.
+     */
+    public TimetableOptimizer setChains(int chains) {
+        this.chains = Math.max(1, chains);
+        return this;
+    }
+
+    /**
+     * @param parallelism Threads the chains run on; does not change the result.
+     */
+    public TimetableOptimizer setParallelism(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+        return this;
+    }
+
+    /**
+     * Runs the annealing chains and returns the best assignment found.
+     *
+     * @param seed Base seed; the same seed gives the same result as long as the time budget is not hit.
+     */
+    public Result optimize(long seed) {
+        long deadline = timeBudgetMillis > 0 ? System.nanoTime() + timeBudgetMillis * 1_000_000L : Long.MAX_VALUE;
+        long initialCost = totalCost(initialRoom);
+
+        ForkJoinPool pool = new ForkJoinPool(Math.min(parallelism, chains));
+        ChainResult best;
+        try {
+            best = pool.invoke(new ChainTask(seed, 0, chains, deadline));
+        } finally {
+            pool.shutdown();
+        }
+
+        Map<String, String> assignment = new LinkedHashMap<>();
+        List<Change> changes = new ArrayList<>();
+        for (int c = 0; c < courseIds.length; c++) {
+            assignment.put(courseIds[c], roomNames[best.rooms[c]]);
+            if (best.rooms[c] != initialRoom[c]) {
+                changes.add(new Change(courseIds[c], roomNames[initialRoom[c]], roomNames[best.rooms[c]]));
+            }
+        }
+        return new Result(assignment, changes, initialCost, best.cost, best.iterations);
+    }
+
+    /**
+     * Splits the chains in halves until one is left, then runs it.
+     */
+    @SuppressWarnings("serial") // never serialized
+    private class ChainTask extends RecursiveTask<ChainResult> {
+        private final long seed;
+        private final int firstChain;
+        private final int chainCount;
+        private final long deadline;
+
+        ChainTask(long seed, int firstChain, int chainCount, long deadline) {
+            this.seed = seed;
+            this.firstChain = firstChain;
+            this.chainCount = chainCount;
+            this.deadline = deadline;
+        }
+
+        @Override
+        protected ChainResult compute() {
+            if (chainCount == 1) {
+                return runChain(new SplittableRandom(seed * 31 + firstChain), deadline);
+            }
+            int half = chainCount / 2;
+            ChainTask left = new ChainTask(seed, firstChain, half, deadline);
+            ChainTask right = new ChainTask(seed, firstChain + half, chainCount - half, deadline);
+            left.fork();
+            ChainResult rightResult = right.compute();
+            ChainResult leftResult = left.join();
+            long iterations = leftResult.iterations + rightResult.iterations;
+            ChainResult winner = rightResult.cost < leftResult.cost ? rightResult : leftResult;
+            return new ChainResult(winner.rooms, winner.cost, iterations);
+        }
+    }
+
+    private static class ChainResult {
+        final int[] rooms;
+        final long cost;
+        final long iterations;
+
+        ChainResult(int[] rooms, long cost, long iterations) {
+            this.rooms = rooms;
+            this.cost = cost;
+            this.iterations = iterations;
+        }
+    }
+
+    private ChainResult runChain(SplittableRandom random, long deadline) {
+        int n = courseIds.length;
+        int[] room = initialRoom.clone();
+        int[] used = new int[roomNames.length * SLOTS];
+        for (int c = 0; c < n; c++) {
+            occupy(used, room[c], c, 1);
+        }
+
+        long cost = totalCost(room);
+        int[] bestRooms = room.clone();
+        long bestCost = cost;
+        if (n == 0 || roomNames.length < 2) {
+            return new ChainResult(bestRooms, bestCost, 0);
+        }
+
+        double coolingRate = Math.log(END_TEMPERATURE / START_TEMPERATURE) / iterationsPerChain;
+        long iteration = 0;
+        for (; iteration < iterationsPerChain; iteration++) {
+            if ((iteration & 1023) == 0 && deadline != Long.MAX_VALUE && System.nanoTime() > deadline) {
+                break;
+            }
+            double temperature = START_TEMPERATURE * Math.exp(coolingRate * iteration);
+
+            int a = random.nextInt(n);
+            long delta;
+            if (random.nextBoolean()) {
+                // Relocate course a into another free room that fits
+                int[] candidates = fittingRooms[a];
+                if (candidates.length == 0) continue;
+                int target = candidates[random.nextInt(candidates.length)];
+                if (target == room[a] || !isFree(used, target, a, -1)) continue;
+
+                delta = courseCost(a, target) - courseCost(a, room[a]) + groupDelta(room, a, target, -1, 0);
+                if (accept(delta, temperature, random)) {
+                    occupy(used, room[a], a, -1);
+                    room[a] = target;
+                    occupy(used, target, a, 1);
+                    cost += delta;
+                }
+            } else {
+                // Swap the rooms of courses a and b
+                int b = random.nextInt(n);
+                int roomA = room[a];
+                int roomB = room[b];
+                if (roomA == roomB || roomCapacity[roomB] < enrolled[a] || roomCapacity[roomA] < enrolled[b]) continue;
+                if (!isFree(used, roomB, a, b) || !isFree(used, roomA, b, a)) continue;
+
+                delta = courseCost(a, roomB) - courseCost(a, roomA) + courseCost(b, roomA) - courseCost(b, roomB)
+                        + groupDelta(room, a, roomB, b, roomA);
+                if (accept(delta, temperature, random)) {
+                    occupy(used, roomA, a, -1);
+                    occupy(used, roomB, b, -1);
+                    room[a] = roomB;
+                    room[b] = roomA;
+                    occupy(used, roomB, a, 1);
+                    occupy(used, roomA, b, 1);
+                    cost += delta;
+                }
+            }
+
+            if (cost < bestCost) {
+                bestCost = cost;
+                System.arraycopy(room, 0, bestRooms, 0, n);
+            }
+        }
+        return new ChainResult(bestRooms, bestCost, iteration);
+    }
+
+    private static boolean accept(long delta, double temperature, SplittableRandom random) {
+        return delta <= 0 || random.nextDouble() < Math.exp(-delta / temperature);
+    }
+
+    /**
+     * @return True if room r has none of course c's slots taken, not counting course {@code ignored}.
+     */
+    private boolean isFree(int[] used, int r, int c, int ignored) {
+        int base = r * SLOTS + day[c] * TimeSlots.SLOTS_PER_DAY;
+        for (int s = startSlot[c]; s < endSlot[c]; s++) {
+            int count = used[base + s];
+            if (ignored >= 0 && day[ignored] == day[c] && s >= startSlot[ignored] && s < endSlot[ignored]) {
+                count--;
+            }
+            if (count > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void occupy(int[] used, int r, int c, int amount) {
+        int base = r * SLOTS + day[c] * TimeSlots.SLOTS_PER_DAY;
+        for (int s = startSlot[c]; s < endSlot[c]; s++) {
+            used[base + s] += amount;
+        }
+    }
+
+    private long courseCost(int c, int r) {
+        int spare = roomCapacity[r] - enrolled[c];
+        return spare >= 0 ? spare : (long) -spare * OVERFLOW_WEIGHT;
+    }
+
+    /**
+     * Change in weighted room changes when course a moves to roomA and (if b >= 0) course b moves to roomB.
+     */
+    private long groupDelta(int[] room, int a, int roomA, int b, int roomB) {
+        int oldA = room[a];
+        int oldB = b >= 0 ? room[b] : -1;
+        int groupA = groupOf[a];
+        int groupB = b >= 0 ? groupOf[b] : -1;
+
+        long before = roomChanges(room, groupA) + (groupB != groupA ? roomChanges(room, groupB) : 0);
+        room[a] = roomA;
+        if (b >= 0) room[b] = roomB;
+        long after = roomChanges(room, groupA) + (groupB != groupA ? roomChanges(room, groupB) : 0);
+        room[a] = oldA;
+        if (b >= 0) room[b] = oldB;
+        return (after - before) * ROOM_CHANGE_WEIGHT;
+    }
+
+    private int roomChanges(int[] room, int group) {
+        if (group < 0) {
+            return 0;
+        }
+        int[] members = groups[group];
+        int changes = 0;
+        for (int i = 1; i < members.length; i++) {
+            if (room[members[i]] != room[members[i - 1]]) {
+                changes++;
+            }
+        }
+        return changes;
+    }
+
+    private long totalCost(int[] room) {
+        long cost = 0;
+        for (int c = 0; c < courseIds.length; c++) {
+            cost += courseCost(c, room[c]);
+        }
+        for (int g = 0; g < groups.length; g++) {
+            cost += (long) roomChanges(room, g) * ROOM_CHANGE_WEIGHT;
+        }
+        return cost;
+    }
+}
@@ -0,0 +1,286 @@
+package com.example.timetablemanager;
+
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * The courses of the timetable in memory, with hash indexes by course ID, classroom, lecturer,
+ * day and student name, so a lookup costs one map access instead of a scan over every course.
+ *
+ * The indexes are keyed by the values a course had when it was indexed, so changes to a stored
+ * course go through the repository (setClassroom, enroll, unenroll, or put with a replacement)
+ * rather than through the Course setters. Results are copies; changing them does not change
+ * the repository.
+ *
+ * Every change is published to the registered listeners as a {@link Change}, so views can patch
+ * the rows of the affected course instead of reading the whole timetable again. Listeners are
+ * called on the thread that made the change, which is not always the JavaFX thread.
+ */
+public class TimetableRepository {
+
+    private final Map<String, Course> byId = new LinkedHashMap<>();
+    private final Map<String, Set<Course>> byClassroom = new HashMap<>();
+    private final Map<String, Set<Course>> byLecturer = new HashMap<>();
+    private final Map<String, Set<Course>> byStudent = new HashMap<>();
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private final Set<Course>[] byDay = new Set[TimeSlots.DAY_COUNT];
+
+    // One Student per name, shared by all courses the student is enrolled in
+    private final Map<String, Student> students = new HashMap<>();
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    public TimetableRepository() {
+        for (int day = 0; day < byDay.length; day++) {
+            byDay[day] = new LinkedHashSet<>();
+        }
+    }
+
+    /**
+     * Replaces the contents with the given courses, e.g. after the timetable was loaded again.
+     */
+    public synchronized void replaceAll(Collection<Course> courses) {
+        removeAll();
+        for (Course course : courses) {
+            if (byId.put(course.getCourseID(), course) == null) {
+                index(course);
+            }
+        }
+        fire(Change.Type.RELOADED, null);
+    }
+
+    public synchronized void clear() {
+        removeAll();
+        fire(Change.Type.RELOADED, null);
+    }
+
+    private void removeAll() {
+        byId.clear();
+        byClassroom.clear();
+        byLecturer.clear();
+        byStudent.clear();
+        for (Set<Course> day : byDay) {
+            day.clear();
+        }
+        students.clear();
+    }
+
+    /**
+     * Adds the course, or replaces the stored course with the same ID (an update).
+     */
+    public synchronized void put(Course course) {
+        Course previous = byId.put(course.getCourseID(), course);
+        if (previous != null) {
+            unindex(previous);
+            fire(Change.Type.REMOVED, previous);
+        }
+        index(course);
+        fire(Change.Type.ADDED, course);
+    }
+
+    /**
+     * @return The removed course, or null if there was none with this ID.
+     */
+    public synchronized Course remove(String courseId) {
+        Course removed = byId.remove(courseId);
+        if (removed != null) {
+            unindex(removed);
+            fire(Change.Type.REMOVED, removed);
+        }
+        return removed;
+    }
+
+    /**
+     * Moves a stored course to another classroom ("" for none).
+     */
+    public synchronized void setClassroom(String courseId, String classroom, int capacity) {
+        Course course = byId.get(courseId);
+        if (course == null) {
+            return;
+        }
+        removeFrom(byClassroom, classroomKey(course.getClassroom()), course);
+        course.setClassroom(classroom);
+        course.setCapacity(capacity);
+        addTo(byClassroom, classroomKey(classroom), course);
+        fire(Change.Type.CLASSROOM_CHANGED, course);
+    }
+
+    /**
+     * Adds the student to a stored course's student list, unless already enrolled.
+     */
+    public synchronized void enroll(String courseId, String studentName) {
+        Course course = byId.get(courseId);
+        if (course == null || studentName == null || !addTo(byStudent, studentName, course)) {
+            return;
+        }
+        Student student = students.computeIfAbsent(studentName, name -> new Student(name, new ArrayList<>()));
+        course.getStudents().add(student);
+        student.getEnrolledCourses().add(course);
+        fire(Change.Type.ENROLLMENT_CHANGED, course);
+    }
+
+    public synchronized void unenroll(String courseId, String studentName) {
+        Course course = byId.get(courseId);
+        if (course == null || !removeFrom(byStudent, studentName, course)) {
+            return;
+        }
+        course.getStudents().removeIf(student -> student.getFullName().equals(studentName));
+        Student student = students.get(studentName);
+        if (student != null) {
+            student.getEnrolledCourses().remove(course);
+        }
+        fire(Change.Type.ENROLLMENT_CHANGED, course);
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    private void fire(Change.Type type, Course course) {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        Change change = new Change(type, course);
+        for (Listener listener : listeners) {
+            listener.changed(change);
+        }
+    }
+
+    public synchronized Course get(String courseId) {
+        return byId.get(courseId);
+    }
+
+    public synchronized boolean contains(String courseId) {
+        return byId.containsKey(courseId);
+    }
+
+    public synchronized int size() {
+        return byId.size();
+    }
+
+    /**
+     * @return All courses, in the order they were added.
+     */
+    public synchronized List<Course> getAll() {
+        return new ArrayList<>(byId.values());
+    }
+
+    public synchronized List<Course> getByClassroom(String classroom) {
+        return copy(byClassroom.get(classroomKey(classroom)));
+    }
+
+    /**
+     * @param lecturer Compared ignoring case and extra spaces, like the lecturer conflict checks.
+     */
+    public synchronized List<Course> getByLecturer(String lecturer) {
+        return copy(byLecturer.get(Database.lecturerKey(lecturer)));
+    }
+
+    /**
+     * @param day 0-based day (Monday = 0), see TimeSlots.
+     */
+    public synchronized List<Course> getByDay(int day) {
+        return day >= 0 && day < byDay.length ? new ArrayList<>(byDay[day]) : new ArrayList<>();
+    }
+
+    public synchronized List<Course> getByStudent(String studentName) {
+        return copy(byStudent.get(studentName));
+    }
+
+    private void index(Course course) {
+        addTo(byClassroom, classroomKey(course.getClassroom()), course);
+        addTo(byLecturer, Database.lecturerKey(course.getLecturer()), course);
+        int day = course.getDayIndex();
+        if (day >= 0) {
+            byDay[day].add(course);
+        }
+        for (Student student : course.getStudents()) {
+            addTo(byStudent, student.getFullName(), course);
+            students.putIfAbsent(student.getFullName(), student);
+        }
+    }
+
+    private void unindex(Course course) {
+        removeFrom(byClassroom, classroomKey(course.getClassroom()), course);
+        removeFrom(byLecturer, Database.lecturerKey(course.getLecturer()), course);
+        int day = course.getDayIndex();
+        if (day >= 0) {
+            byDay[day].remove(course);
+        }
+        for (Student student : course.getStudents()) {
+            removeFrom(byStudent, student.getFullName(), course);
+        }
+    }
+
+    /**
+     * Unallocated courses are not indexed by classroom.
+     */
+    private static String classroomKey(String classroom) {
+        return classroom == null || classroom.isEmpty() ? null : classroom;
+    }
+
+    private static boolean addTo(Map<String, Set<Course>> index, String key, Course course) {
+        return key != null && index.computeIfAbsent(key, k -> new LinkedHashSet<>()).add(course);
+    }
+
+    private static boolean removeFrom(Map<String, Set<Course>> index, String key, Course course) {
+        Set<Course> courses = key == null ? null : index.get(key);
+        if (courses == null || !courses.remove(course)) {
+            return false;
+        }
+        if (courses.isEmpty()) {
+            index.remove(key);
+        }
+        return true;
+    }
+
+    private static List<Course> copy(Set<Course> courses) {
+        return courses == null ? new ArrayList<>() : new ArrayList<>(courses);
+    }
+
+    /**
+     * Receives every change made to the repository.
+     */
+    public interface Listener {
+        void changed(Change change);
+    }
+
+    /**
+     * One change to the repository: a course that was added or removed, moved to another
+     * classroom or whose students changed, or a reload that replaced everything.
+     */
+    public static class Change {
+
+        public enum Type {
+            ADDED, REMOVED, CLASSROOM_CHANGED, ENROLLMENT_CHANGED, RELOADED
+        }
+
+        private final Type type;
+        private final Course course;
+
+        Change(Type type, Course course) {
+            this.type = type;
+            this.course = course;
+        }
+
+        public Type getType() {
+            return type;
+        }
+
+        /**
+         * @return The course concerned, or null for RELOADED.
+         */
+        public Course getCourse() {
+            return course;
+        }
+
+        @Override
+        public String toString() {
+            return course == null ? type.toString() : type + " " + course.getCourseID();
+        }
+    }
+}
@@ -0,0 +1,443 @@
+package com.example.timetablemanager;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * A compact binary copy of what Database loads into memory (classrooms, courses, students and
+ * enrollments), so that startup can skip the SQL load. Database.shutdown writes it after a clean
+ * shutdown; Database.connect reads it and uses it only if the database file is exactly as it
+ * was then, and falls back to SQL otherwise.
+ *
+ * Layout (big-endian):
+ * <pre>
+ * header       magic "TTMS", format version, DB file length, DB file modification time,
+ *              payload length, CRC32 of the payload
+ * dictionary   count, offsets[count + 1], UTF-8 bytes: every distinct name, lecturer and time;
+ *              the sections below refer to strings by index, -1 = null
+ * classrooms   count, name[count], capacity[count]
+ * students     count, name[count]
+ * courses      count, name[count], lecturer[count], timeToStart[count], classroom[count],
+ *              capacity[count], duration[count], day[count], startSlot[count], endSlot[count] (bytes)
+ * enrollments  first[courses + 1], student[first[courses]]: the students of course i are
+ *              student[first[i]] .. student[first[i + 1] - 1] (compressed sparse rows)
+ * </pre>
+ * Rows are stored in the order the SQL loaders return them, so both paths build the same model.
+ */
+class TimetableSnapshot {
+
+    static final String FILE_NAME = "TimetableManagement.snapshot";
+
+    private static final int MAGIC = 0x54544D53; // "TTMS"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 8 + 4 + 4;
+
+    private final String[] dictionary;
+    private final IntBuffer classroomNames;
+    private final IntBuffer classroomCapacities;
+    private final IntBuffer studentNames;
+    private final IntBuffer courseNames;
+    private final IntBuffer lecturers;
+    private final IntBuffer timesToStart;
+    private final IntBuffer classrooms;
+    private final IntBuffer capacities;
+    private final IntBuffer durations;
+    private final ByteBuffer days;
+    private final ByteBuffer startSlots;
+    private final ByteBuffer endSlots;
+    private final IntBuffer firstEnrollment;
+    private final IntBuffer enrolledStudents;
+
+    private final ByteBuffer payload;
+    private int position;
+
+    /**
+     * Reads the sections as views of the payload; only the dictionary is decoded.
+     */
+    private TimetableSnapshot(ByteBuffer payload) {
+        this.payload = payload;
+        int strings = nextInt();
+        IntBuffer offsets = ints(strings + 1);
+        byte[] utf8 = new byte[offsets.get(strings)];
+        payload.get(position, utf8);
+        position += utf8.length;
+        dictionary = new String[strings];
+        for (int i = 0; i < strings; i++) {
+            dictionary[i] = new String(utf8, offsets.get(i), offsets.get(i + 1) - offsets.get(i), StandardCharsets.UTF_8);
+        }
+
+        int classroomCount = nextInt();
+        classroomNames = ints(classroomCount);
+        classroomCapacities = ints(classroomCount);
+
+        studentNames = ints(nextInt());
+
+        int courseCount = nextInt();
+        courseNames = ints(courseCount);
+        lecturers = ints(courseCount);
+        timesToStart = ints(courseCount);
+        classrooms = ints(courseCount);
+        capacities = ints(courseCount);
+        durations = ints(courseCount);
+        days = bytes(courseCount);
+        startSlots = bytes(courseCount);
+        endSlots = bytes(courseCount);
+        firstEnrollment = ints(courseCount + 1);
+        enrolledStudents = ints(firstEnrollment.get(courseCount));
+        if (position != payload.limit()) {
+            throw new IllegalStateException("Snapshot has " + (payload.limit() - position) + " trailing bytes");
+        }
+    }
+
+    private int nextInt() {
+        int value = payload.getInt(position);
+        position += 4;
+        return value;
+    }
+
+    private IntBuffer ints(int count) {
+        IntBuffer view = payload.slice(position, count * 4).asIntBuffer();
+        position += count * 4;
+        return view;
+    }
+
+    private ByteBuffer bytes(int count) {
+        ByteBuffer view = payload.slice(position, count);
+        position += count;
+        return view;
+    }
+
+    private String string(int index) {
+        return index < 0 ? null : dictionary[index];
+    }
+
+    /**
+     * Reads the snapshot if it belongs to the current state of the database file. It is read into
+     * the heap rather than mapped: on Windows a mapped file cannot be replaced or deleted until the
+     * mapping is collected, and write() replaces it on shutdown.
+     *
+     * @return The snapshot, or null if there is none or it cannot be used (the reason is logged).
+     */
+    static TimetableSnapshot open(File snapshotFile, File dbFile) {
+        if (!snapshotFile.isFile()) {
+            return null;
+        }
+        if (!dbFile.isFile() || snapshotFile.lastModified() <= dbFile.lastModified()) {
+            return reject("it is older than the database");
+        }
+        File walFile = new File(dbFile.getPath() + "-wal");
+        if (walFile.length() > 0) {
+            return reject("the database has uncheckpointed changes");
+        }
+        try (FileChannel channel = FileChannel.open(snapshotFile.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES || size > Integer.MAX_VALUE) {
+                return reject("it is truncated");
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    return reject("it is truncated");
+                }
+            }
+            buffer.flip();
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                return reject("it has an unknown format");
+            }
+            if (buffer.getLong(8) != dbFile.length() || buffer.getLong(16) != dbFile.lastModified()) {
+                return reject("the database was changed after it was written");
+            }
+            int payloadLength = buffer.getInt(24);
+            if (payloadLength != size - HEADER_BYTES) {
+                return reject("it is truncated");
+            }
+            ByteBuffer payload = buffer.slice(HEADER_BYTES, payloadLength);
+            CRC32 crc = new CRC32();
+            crc.update(payload.duplicate());
+            if ((int) crc.getValue() != buffer.getInt(28)) {
+                return reject("its checksum does not match");
+            }
+            return new TimetableSnapshot(payload);
+        } catch (IOException | RuntimeException e) {
+            return reject(e.toString());
+        }
+    }
+
+    private static TimetableSnapshot reject(String reason) {
+        System.out.println("Not using the timetable snapshot: " + reason + ".");
+        return null;
+    }
+
+    /**
+     * @return Classroom name -> capacity, as Database.loadClassrooms builds it.
+     */
+    Map<String, Integer> classroomCapacities() {
+        Map<String, Integer> capacitiesByName = new LinkedHashMap<>();
+        for (int i = 0; i < classroomNames.limit(); i++) {
+            capacitiesByName.putIfAbsent(string(classroomNames.get(i)), classroomCapacities.get(i));
+        }
+        return capacitiesByName;
+    }
+
+    /**
+     * @return The course graph, as Database.loadCourseGraph builds it: students are shared between courses.
+     */
+    List<Course> courses() {
+        int courseCount = courseNames.limit();
+        List<Course> courses = new ArrayList<>(courseCount);
+        Student[] students = new Student[dictionary.length];
+        for (int i = 0; i < courseCount; i++) {
+            int first = firstEnrollment.get(i);
+            int end = firstEnrollment.get(i + 1);
+            String classroom = string(classrooms.get(i));
+            Course course = new Course(string(courseNames.get(i)), capacities.get(i), new ArrayList<>(end - first),
+                    classroom != null ? classroom : "", string(timesToStart.get(i)), durations.get(i),
+                    string(lecturers.get(i)));
+            for (int e = first; e < end; e++) {
+                int name = enrolledStudents.get(e);
+                Student student = students[name];
+                if (student == null) {
+                    student = new Student(dictionary[name], new ArrayList<>());
+                    students[name] = student;
+                }
+                course.getStudents().add(student);
+                student.getEnrolledCourses().add(course);
+            }
+            courses.add(course);
+        }
+        return courses;
+    }
+
+    /**
+     * @return Every student, as Database.loadStudents builds them (not linked to courses).
+     */
+    List<Student> students() {
+        List<Student> students = new ArrayList<>(studentNames.limit());
+        for (int i = 0; i < studentNames.limit(); i++) {
+            students.add(new Student(string(studentNames.get(i)), new ArrayList<>()));
+        }
+        return students;
+    }
+
+    // Slots of the course at the same index as in courses() (see TimeSlots, -1 = outside the grid)
+
+    int day(int course) {
+        return days.get(course);
+    }
+
+    int startSlot(int course) {
+        return startSlots.get(course);
+    }
+
+    int endSlot(int course) {
+        return endSlots.get(course);
+    }
+
+    /**
+     * Reads everything the snapshot holds from the database, with the same queries as the SQL loaders.
+     *
+     * @return The payload, to be passed to write() once the database file is final.
+     */
+    static byte[] read(Connection conn) throws SQLException {
+        Map<String, Integer> dictionary = new HashMap<>();
+        List<String> strings = new ArrayList<>();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (Statement stmt = conn.createStatement();
+             DataOutputStream out = new DataOutputStream(bytes)) {
+            IntList classroomNames = new IntList();
+            IntList classroomCapacities = new IntList();
+            try (ResultSet rs = stmt.executeQuery(Database.CLASSROOMS_SQL)) {
+                while (rs.next()) {
+                    classroomNames.add(id(dictionary, strings, rs.getString("classroomName")));
+                    classroomCapacities.add(rs.getInt("capacity"));
+                }
+            }
+
+            IntList studentNames = new IntList();
+            try (ResultSet rs = stmt.executeQuery(Database.STUDENTS_SQL)) {
+                while (rs.next()) {
+                    studentNames.add(id(dictionary, strings, rs.getString("studentName")));
+                }
+            }
+
+            Map<String, Integer> courseIndex = new HashMap<>();
+            IntList courseNames = new IntList();
+            IntList lecturers = new IntList();
+            IntList timesToStart = new IntList();
+            IntList classrooms = new IntList();
+            IntList capacities = new IntList();
+            IntList durations = new IntList();
+            IntList days = new IntList();
+            IntList startSlots = new IntList();
+            IntList endSlots = new IntList();
+            try (ResultSet rs = stmt.executeQuery(Database.COURSE_GRAPH_SQL)) {
+                while (rs.next()) {
+                    String courseName = rs.getString("courseName");
+                    if (courseIndex.containsKey(courseName)) {
+                        continue; // Only the first allocation of a course counts, as in loadCourseGraph
+                    }
+                    courseIndex.put(courseName, courseIndex.size());
+                    String classroomName = rs.getString("classroomName");
+                    String timeToStart = rs.getString("timeToStart");
+                    int duration = rs.getInt("duration");
+                    courseNames.add(id(dictionary, strings, courseName));
+                    lecturers.add(id(dictionary, strings, rs.getString("lecturer")));
+                    timesToStart.add(id(dictionary, strings, timeToStart));
+                    classrooms.add(id(dictionary, strings, classroomName));
+                    capacities.add(classroomName != null ? rs.getInt("capacity") : 0);
+                    durations.add(duration);
+                    // The same computation as the occupancy indexes do on a SQL load
+                    String time = TimeSlots.timePart(timeToStart);
+                    days.add(TimeSlots.dayIndex(TimeSlots.dayPart(timeToStart)));
+                    startSlots.add(TimeSlots.startSlot(time));
+                    endSlots.add(TimeSlots.endSlot(time, duration));
+                }
+            }
+
+            // Enrollments come grouped by course; counting sort them into rows, keeping their order
+            IntList enrollmentCourses = new IntList();
+            IntList enrollmentStudents = new IntList();
+            try (ResultSet rs = stmt.executeQuery(Database.ENROLLMENT_GRAPH_SQL)) {
+                while (rs.next()) {
+                    Integer course = courseIndex.get(rs.getString("courseName"));
+                    if (course != null) {
+                        enrollmentCourses.add(course);
+                        enrollmentStudents.add(id(dictionary, strings, rs.getString("studentName")));
+                    }
+                }
+            }
+            int courseCount = courseNames.size;
+            int[] first = new int[courseCount + 1];
+            for (int i = 0; i < enrollmentCourses.size; i++) {
+                first[enrollmentCourses.values[i] + 1]++;
+            }
+            for (int i = 0; i < courseCount; i++) {
+                first[i + 1] += first[i];
+            }
+            int[] next = Arrays.copyOf(first, courseCount);
+            int[] students = new int[enrollmentCourses.size];
+            for (int i = 0; i < enrollmentCourses.size; i++) {
+                students[next[enrollmentCourses.values[i]]++] = enrollmentStudents.values[i];
+            }
+
+            // Dictionary
+            out.writeInt(strings.size());
+            ByteArrayOutputStream utf8 = new ByteArrayOutputStream();
+            out.writeInt(0);
+            for (String string : strings) {
+                utf8.write(string.getBytes(StandardCharsets.UTF_8));
+                out.writeInt(utf8.size());
+            }
+            utf8.writeTo(out);
+
+            out.writeInt(classroomNames.size);
+            classroomNames.writeTo(out);
+            classroomCapacities.writeTo(out);
+
+            out.writeInt(studentNames.size);
+            studentNames.writeTo(out);
+
+            out.writeInt(courseCount);
+            courseNames.writeTo(out);
+            lecturers.writeTo(out);
+            timesToStart.writeTo(out);
+            classrooms.writeTo(out);
+            capacities.writeTo(out);
+            durations.writeTo(out);
+            days.writeBytesTo(out);
+            startSlots.writeBytesTo(out);
+            endSlots.writeBytesTo(out);
+            for (int value : first) {
+                out.writeInt(value);
+            }
+            for (int value : students) {
+                out.writeInt(value);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // ByteArrayOutputStream does not throw
+        }
+        return bytes.toByteArray();
+    }
+
+    private static int id(Map<String, Integer> dictionary, List<String> strings, String value) {
+        if (value == null) {
+            return -1;
+        }
+        Integer id = dictionary.get(value);
+        if (id == null) {
+            id = strings.size();
+            dictionary.put(value, id);
+            strings.add(value);
+        }
+        return id;
+    }
+
+    /**
+     * Writes the snapshot for the database file as it is now; call it only after the database was
+     * closed, so its length and modification time do not change any more. The file is replaced
+     * atomically, so a crash never leaves a half-written snapshot behind.
+     */
+    static void write(File snapshotFile, byte[] payload, File dbFile) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES)
+                .putInt(MAGIC)
+                .putInt(VERSION)
+                .putLong(dbFile.length())
+                .putLong(dbFile.lastModified())
+                .putInt(payload.length)
+                .putInt((int) crc.getValue());
+
+        File tempFile = new File(snapshotFile.getPath() + ".tmp");
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(tempFile))) {
+            out.write(header.array());
+            out.write(payload);
+        }
+        try {
+            Files.move(tempFile.toPath(), snapshotFile.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * A growable int array, to collect columns without boxing.
+     */
+    private static class IntList {
+        int[] values = new int[1024];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        void writeTo(DataOutputStream out) throws IOException {
+            for (int i = 0; i < size; i++) {
+                out.writeInt(values[i]);
+            }
+        }
+
+        void writeBytesTo(DataOutputStream out) throws IOException {
+            for (int i = 0; i < size; i++) {
+                out.writeByte(values[i]);
+            }
+        }
+    }
+}
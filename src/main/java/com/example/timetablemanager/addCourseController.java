@@ -1,19 +1,14 @@
 package com.example.timetablemanager;
 
 import javafx.application.Platform;
-import javafx.animation.KeyFrame;
-import javafx.animation.Timeline;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
-import javafx.geometry.Insets;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.image.Image;
-import javafx.scene.layout.ColumnConstraints;
-import javafx.scene.layout.GridPane;
-import javafx.scene.layout.RowConstraints;
 import javafx.scene.paint.Color;
 import javafx.stage.Stage;
 import javafx.util.Callback;
@@ -53,7 +48,7 @@ public class addCourseController { // Renamed to follow Java conventions
     private ComboBox<String> comboTime;  // ComboBox for Time
 
     @FXML
-    private GridPane scheduleGridPane;    // GridPane for Schedule
+    private ScheduleView scheduleView;    // Weekly schedule of the selected classroom
 
     private ObservableList<Student> selectedStudents = FXCollections.observableArrayList();
 
@@ -68,9 +63,6 @@ public class addCourseController { // Renamed to follow Java conventions
     // Temporary list to store courses not yet saved to the database
     private final ObservableList<Course> tempCourses = FXCollections.observableArrayList();
 
-    // Track the newly added course for blinking
-    private String newlyAddedCourseKey = null;
-
     // Map to hold courseID to Color mapping
     private final Map<String, Color> courseColors = new HashMap<>();
 
@@ -80,6 +72,9 @@ public class addCourseController { // Renamed to follow Java conventions
     // Flag to prevent recursive listener calls
     private boolean isUpdatingSelection = false;
 
+    // Incremented on every day/time change so late availability results can be ignored
+    private long classroomOptionsRequest = 0;
+
     @FXML
     public void initialize() {
         // Ensure the database is connected
@@ -186,8 +181,8 @@ public class addCourseController { // Renamed to follow Java conventions
         // Set default prompt text
         comboClassroom.setPromptText("Select Classroom");
 
-        // Initialize Schedule GridPane
-        initializeScheduleGridPane();
+        // Initialize the schedule view
+        scheduleView.setCellSize(120, 50);
 
         // Add listeners to input fields to update temporary course in real-time
         addInputListeners();
@@ -198,7 +193,7 @@ public class addCourseController { // Renamed to follow Java conventions
         btnBack.setOnAction(event -> switchScene("mainLayout.fxml"));
 
         // Populate schedule with existing allocations from the database
-        populateScheduleGridPane();
+        populateSchedule();
     }
 
     /**
@@ -212,18 +207,18 @@ public class addCourseController { // Renamed to follow Java conventions
         comboDay.valueProperty().addListener((obs, oldVal, newVal) -> {
             updateClassroomOptions();
             // Populate schedule when day changes
-            populateScheduleGridPane();
+            populateSchedule();
             updateTempCourse();
         });
         comboTime.valueProperty().addListener((obs, oldVal, newVal) -> {
             updateClassroomOptions();
             // Populate schedule when time changes
-            populateScheduleGridPane();
+            populateSchedule();
             updateTempCourse();
         });
         comboClassroom.valueProperty().addListener((obs, oldVal, newVal) -> {
             // Populate schedule when classroom changes
-            populateScheduleGridPane();
+            populateSchedule();
             updateTempCourse();
         });
     }
@@ -257,287 +252,110 @@ public class addCourseController { // Renamed to follow Java conventions
             // Remove existing temp course with the same courseID before adding the updated one
             tempCourses.removeIf(course -> course.getCourseID().equals(tempCourse.getCourseID()));
             tempCourses.add(tempCourse);
-            populateScheduleGridPane(); // Re-populate to reflect changes
+            populateSchedule(); // Re-populate to reflect changes
         } else {
             // If any field is missing, remove all temporary courses
             if (!tempCourses.isEmpty()) {
                 tempCourses.clear();
-                populateScheduleGridPane(); // Re-populate to remove temporary allocations
+                populateSchedule(); // Re-populate to remove temporary allocations
             }
         }
     }
 
     /**
      * Updates the available classrooms based on selected day, time, and duration.
+     * Availability is computed on a background thread; results of an older selection are dropped.
      */
     private void updateClassroomOptions() {
         String selectedDay = comboDay.getValue();
         String selectedTime = comboTime.getValue();
         int duration = spinnerDuration.getValue();
+        long request = ++classroomOptionsRequest;
 
-        if (selectedDay != null && selectedTime != null) {
-            List<Classroom> allClassrooms = new ArrayList<>();
-            List<String> classroomsWithCapacities = Database.getAllClassroomsWithCapacities();
-
-            for (String classroomEntry : classroomsWithCapacities) {
-                String[] parts = classroomEntry.split(" \\| ");
-                String classroomName = parts[0];
-                int capacity = Integer.parseInt(parts[1]);
-
-                boolean available = Database.isClassroomAvailable(classroomName, selectedDay, selectedTime, duration);
-                List<Course> conflictingCourses = new ArrayList<>();
-
-                if (!available) {
-                    conflictingCourses = Database.getConflictingCourses(classroomName, selectedDay, selectedTime, duration);
-                }
-
-                Classroom classroom = new Classroom(classroomName, capacity, available, conflictingCourses);
-                allClassrooms.add(classroom); // Add all classrooms, regardless of availability
-            }
-
-            // Update ComboBox with all classrooms
-            comboClassroom.setItems(FXCollections.observableArrayList(allClassrooms));
-
-            // Optionally, show a message if no classrooms are available
-            boolean anyAvailable = allClassrooms.stream().anyMatch(Classroom::isAvailable);
-            if (!anyAvailable) {
-                showAlert("Information", "No classrooms are available for the selected day and time.");
+        Task<List<Classroom>> availabilityTask = new Task<>() {
+            @Override
+            protected List<Classroom> call() {
+                return Database.getClassroomAvailability(selectedDay, selectedTime, duration);
             }
+        };
 
-            // Clear previous classroom selection
-            comboClassroom.getSelectionModel().clearSelection();
-            previousSelectedClassroom = null;
-        } else {
-            // If day or time is not selected, show all classrooms as available
-            List<Classroom> allClassrooms = new ArrayList<>();
-            List<String> classroomsWithCapacities = Database.getAllClassroomsWithCapacities();
-
-            for (String classroomEntry : classroomsWithCapacities) {
-                String[] parts = classroomEntry.split(" \\| ");
-                String classroomName = parts[0];
-                int capacity = Integer.parseInt(parts[1]);
-
-                // Assume available if day or time is not selected
-                Classroom classroom = new Classroom(classroomName, capacity, true, new ArrayList<>());
-                allClassrooms.add(classroom);
+        availabilityTask.setOnSucceeded(event -> {
+            if (request != classroomOptionsRequest) {
+                return; // The user changed day/time again in the meantime
             }
+            List<Classroom> allClassrooms = availabilityTask.getValue();
 
+            // Update ComboBox with all classrooms, regardless of availability
             comboClassroom.setItems(FXCollections.observableArrayList(allClassrooms));
-        }
-    }
 
-    /**
-     * Initializes the Schedule GridPane with days as columns and times as rows.
-     */
-    private void initializeScheduleGridPane() {
-        // Clear any existing content
-        scheduleGridPane.getChildren().clear();
-        scheduleGridPane.getColumnConstraints().clear();
-        scheduleGridPane.getRowConstraints().clear();
-
-        // Set padding and gaps
-        scheduleGridPane.setPadding(new Insets(10));
-        scheduleGridPane.setHgap(1);
-        scheduleGridPane.setVgap(1);
-
-        // Define column constraints for days (+1 for time labels)
-        ColumnConstraints timeColumn = new ColumnConstraints();
-        timeColumn.setPrefWidth(120);
-        timeColumn.setHalignment(javafx.geometry.HPos.CENTER);
-        scheduleGridPane.getColumnConstraints().add(timeColumn); // Column 0 for Time labels
-
-        for (int i = 0; i < days.size(); i++) {
-            ColumnConstraints colConst = new ColumnConstraints();
-            colConst.setPrefWidth(120);
-            colConst.setHalignment(javafx.geometry.HPos.CENTER);
-            scheduleGridPane.getColumnConstraints().add(colConst);
-        }
+            if (selectedDay != null && selectedTime != null) {
+                // Optionally, show a message if no classrooms are available
+                boolean anyAvailable = allClassrooms.stream().anyMatch(Classroom::isAvailable);
+                if (!anyAvailable) {
+                    showAlert("Information", "No classrooms are available for the selected day and time.");
+                }
 
-        // Define row constraints for time slots (+1 for day headers)
-        RowConstraints headerRow = new RowConstraints();
-        headerRow.setPrefHeight(50);
-        headerRow.setValignment(javafx.geometry.VPos.CENTER);
-        scheduleGridPane.getRowConstraints().add(headerRow); // Row 0 for Day headers
-
-        for (int i = 0; i < times.size(); i++) {
-            RowConstraints rowConst = new RowConstraints();
-            rowConst.setPrefHeight(50);
-            rowConst.setValignment(javafx.geometry.VPos.CENTER);
-            scheduleGridPane.getRowConstraints().add(rowConst);
-        }
+                // Clear previous classroom selection
+                comboClassroom.getSelectionModel().clearSelection();
+                previousSelectedClassroom = null;
+            }
+        });
 
-        // Add Day Headers
-        scheduleGridPane.add(new Label("Time"), 0, 0); // Top-left corner
-        for (int col = 1; col <= days.size(); col++) {
-            Label dayLabel = new Label(days.get(col - 1));
-            dayLabel.setStyle("-fx-font-weight: bold; -fx-background-color: #d3d3d3; -fx-alignment: CENTER;");
-            scheduleGridPane.add(dayLabel, col, 0);
-        }
+        availabilityTask.setOnFailed(event ->
+                System.err.println("Error while checking classroom availability: " + availabilityTask.getException()));
 
-        // Add Time Labels and empty cells
-        for (int row = 1; row <= times.size(); row++) {
-            // Add Time Label
-            Label timeLabel = new Label(times.get(row - 1));
-            timeLabel.setStyle("-fx-font-weight: bold; -fx-background-color: #d3d3d3; -fx-alignment: CENTER_LEFT;");
-            scheduleGridPane.add(timeLabel, 0, row);
-
-            // Add Empty Cells
-            for (int col = 1; col <= days.size(); col++) {
-                Label emptyLabel = new Label();
-                emptyLabel.setStyle("-fx-border-color: #e0e0e0; -fx-border-width: 0.5; -fx-background-color: " + (row % 2 == 0 ? "#f0f0f0;" : "#ffffff;"));
-                emptyLabel.setPrefSize(120, 50); // Match column width and row height
-                scheduleGridPane.add(emptyLabel, col, row);
-            }
-        }
+        Thread thread = new Thread(availabilityTask);
+        thread.setDaemon(true);
+        thread.start();
     }
 
     /**
-     * Allocates a course in the Schedule GridPane.
+     * Creates the schedule entry of a course, with its details in the tooltip.
      *
-     * @param course      The course to allocate.
+     * @param course      The course to show.
      * @param isTemporary Indicates if the course is temporary (not yet saved).
      */
-    private void allocateCourseInSchedule(Course course, boolean isTemporary) {
-        String timeToStart = course.getTimeToStart(); // e.g., "Monday 08:30"
-        String[] parts = timeToStart.split(" ");
-        if (parts.length < 2) return;
-
-        String day = parts[0];
-        String time = parts[1];
-
-        // Find column index for the day
-        int col = days.indexOf(day) + 1;
-        if (col == 0) return; // Day not found
-
-        // Find row index for the time
-        int startRow = times.indexOf(time) + 1;
-        if (startRow == 0) return; // Time not found
-
-        int duration = course.getDuration(); // Number of consecutive time slots
-
+    private ScheduleView.Entry createScheduleEntry(Course course, boolean isTemporary) {
+        // Prepare additional course details for the tooltip
+        int capacity = course.getCapacity();
+        int enrolledCount = course.getStudents() != null ? course.getStudents().size() : 0;
+        String endTime = getEndTime(TimeSlots.timePart(course.getTimeToStart()), course.getDuration());
+        String tooltip = "Course ID: " + course.getCourseID() + "\n" +
+                "Lecturer: " + course.getLecturer() + "\n" +
+                "Capacity: " + capacity + "\n" +
+                "Enrolled Students: " + enrolledCount + "\n" +
+                "Time: " + course.getTimeToStart() + " - " + endTime;
+
+        if (isTemporary) {
+            // Gold with black text for visibility, blinking until the course is saved
+            return new ScheduleView.Entry(course, null, Color.web("#FFD700"), Color.BLACK, tooltip, true);
+        }
         // Assign a color to the course if not already assigned
         Color courseColor = courseColors.computeIfAbsent(course.getCourseID(), k -> generateColorForCourse(k));
-        String colorHex = toRgbString(courseColor);
-
-        for (int i = 0; i < duration; i++) {
-            int row = startRow + i;
-            if (row > times.size()) break; // Avoid exceeding grid
-
-            // Remove any existing node in this cell (empty label or previous course label)
-            javafx.scene.Node nodeToRemove = getNodeFromGridPane(col, row);
-            if (nodeToRemove != null) {
-                scheduleGridPane.getChildren().remove(nodeToRemove);
-            }
-
-            // Create the label for this part of the course
-            Label allocationLabel = new Label(course.getCourseID());
-            allocationLabel.setStyle(
-                    "-fx-background-color: " + colorHex + ";" +
-                            "-fx-text-fill: #ffffff;" +
-                            "-fx-alignment: CENTER;" +
-                            "-fx-font-weight: bold;" +
-                            "-fx-padding: 5px;" +
-                            "-fx-border-color: #e0e0e0;" +
-                            "-fx-border-width: 0.5px;"
-            );
-
-            if (isTemporary) {
-                allocationLabel.setStyle(
-                        "-fx-background-color: #FFD700;" + // Gold color for temporary
-                                "-fx-text-fill: #000000;" +        // Black text for visibility
-                                "-fx-alignment: CENTER;" +
-                                "-fx-font-weight: bold;" +
-                                "-fx-padding: 5px;" +
-                                "-fx-border-color: #e0e0e0;" +
-                                "-fx-border-width: 0.5px;"
-                );
-                blinkLabel(allocationLabel);
-            }
-
-            // Prepare additional course details for the tooltip
-            int capacity = course.getCapacity();
-            int enrolledCount = course.getStudents() != null ? course.getStudents().size() : 0;
-            String endTime = getEndTime(time, duration);
-
-            Tooltip tooltip = new Tooltip(
-                    "Course ID: " + course.getCourseID() + "\n" +
-                            "Lecturer: " + course.getLecturer() + "\n" +
-                            "Capacity: " + capacity + "\n" +
-                            "Enrolled Students: " + enrolledCount + "\n" +
-                            "Time: " + course.getTimeToStart() + " - " + endTime
-            );
-
-            tooltip.setShowDelay(Duration.ZERO);
-            tooltip.setHideDelay(Duration.ZERO);
-            tooltip.setShowDuration(Duration.INDEFINITE);
-            Tooltip.install(allocationLabel, tooltip);
-
-            // Assign the label to the specific cell in the schedule
-            scheduleGridPane.add(allocationLabel, col, row);
-        }
+        return new ScheduleView.Entry(course, null, courseColor, Color.WHITE, tooltip, false);
     }
 
-
     /**
-     * Applies a blinking animation to a label.
-     *
-     * @param label The label to apply the blinking effect.
+     * Populates the schedule with both saved and temporary course allocations.
+     * The view repaints only the slots that changed since the last call.
      */
-    private void blinkLabel(Label label) {
-        Timeline timeline = new Timeline(
-                new KeyFrame(Duration.seconds(0), event -> label.setOpacity(1)),
-                new KeyFrame(Duration.seconds(0.5), event -> label.setOpacity(0)),
-                new KeyFrame(Duration.seconds(1), event -> label.setOpacity(1))
-        );
-        timeline.setCycleCount(5); // Blink 5 times
-        timeline.play();
-    }
-
-    /**
-     * Populates the Schedule GridPane with both saved and temporary course allocations.
-     */
-    private void populateScheduleGridPane() {
-        // Re-initialize the GridPane to clear existing allocations
-        initializeScheduleGridPane();
+    private void populateSchedule() {
+        List<ScheduleView.Entry> entries = new ArrayList<>();
 
         // Allocate saved courses from the database
         Classroom selectedClassroom = comboClassroom.getValue();
-        if (selectedClassroom == null) {
-            return; // No classroom selected
-        }
-
-        List<Course> savedAllocations = Database.getAllAllocatedClassrooms(selectedClassroom.getClassroomName());
-        for (Course course : savedAllocations) {
-            allocateCourseInSchedule(course, false);
-        }
-
-        // Allocate temporary courses
-        for (Course tempCourse : tempCourses) {
-            allocateCourseInSchedule(tempCourse, true);
-        }
-
-        // Apply alternating row colors for better readability
-        applyAlternatingRowColors();
-    }
+        if (selectedClassroom != null) {
+            List<Course> savedAllocations = Database.getRepository().getByClassroom(selectedClassroom.getClassroomName());
+            for (Course course : savedAllocations) {
+                entries.add(createScheduleEntry(course, false));
+            }
 
-    /**
-     * Retrieves a node from the GridPane based on column and row indices.
-     *
-     * @param col The column index.
-     * @param row The row index.
-     * @return The node at the specified position, or null if none exists.
-     */
-    private javafx.scene.Node getNodeFromGridPane(int col, int row) {
-        for (javafx.scene.Node node : scheduleGridPane.getChildren()) {
-            Integer nodeCol = GridPane.getColumnIndex(node);
-            Integer nodeRow = GridPane.getRowIndex(node);
-            if (nodeCol == null) nodeCol = 0;
-            if (nodeRow == null) nodeRow = 0;
-            if (nodeCol == col && nodeRow == row) {
-                return node;
+            // Allocate temporary courses
+            for (Course tempCourse : tempCourses) {
+                entries.add(createScheduleEntry(tempCourse, true));
             }
         }
-        return null;
+        scheduleView.setEntries(entries);
     }
 
     /**
@@ -633,7 +451,7 @@ public class addCourseController { // Renamed to follow Java conventions
 
 
     /**
-     * Creates a new course and updates the schedule GridPane.
+     * Creates a new course and updates the schedule.
      */
     private void createCourse() {
         String courseID = txtCourseID.getText().trim();
@@ -704,6 +522,24 @@ public class addCourseController { // Renamed to follow Java conventions
             System.out.println("Availability Check Passed: Classroom is available.");
         }
 
+        // The lecturer cannot teach two courses at once
+        Set<String> lecturerConflicts = Database.getLecturerConflicts(lecturer, timeToStart, duration, null);
+        if (!lecturerConflicts.isEmpty()) {
+            showAlert("Error", "Lecturer '" + lecturer + "' already teaches " + String.join(", ", lecturerConflicts)
+                    + " at this time.");
+            System.out.println("Lecturer Check Failed: " + lecturerConflicts);
+            return;
+        }
+
+        // Students who already have another course at this time
+        Map<String, Set<String>> clashes = Database.getStudentClashes(
+                selectedStudents.stream().map(Student::getFullName).distinct().toList(),
+                timeToStart, duration, null);
+        if (!clashes.isEmpty() && !confirmStudentClashes(clashes)) {
+            System.out.println("Course creation cancelled: " + clashes.size() + " student clash(es).");
+            return;
+        }
+
         // Prepare course data
         Course newCourse = new Course(
                 courseID,
@@ -715,33 +551,33 @@ public class addCourseController { // Renamed to follow Java conventions
                 lecturer
         );
 
-        // Save the course to the database
+        // Save the course and its enrollments in one transaction, so a single undo takes all of it back
         try {
+            Database.beginTransaction();
             Database.addCourseWithAllocation(courseID, lecturer, duration, timeToStart, classroom);
             System.out.println("Course added to the database successfully.");
+
+            // Enroll selected students
+            for (Student student : selectedStudents) {
+                if (!Database.isEnrollmentExists(courseID, student.getFullName())) {
+                    Database.addEnrollment(courseID, student.getFullName());
+                    System.out.println("Student enrolled: " + student.getFullName());
+                }
+            }
+            Database.commitTransaction();
         } catch (SQLException e) {
+            Database.rollbackTransaction();
             showAlert("Error", "Failed to create course and allocate classroom: " + e.getMessage());
             e.printStackTrace();
             return;
         }
 
-        // Enroll selected students
-        for (Student student : selectedStudents) {
-            if (!Database.isEnrollmentExists(courseID, student.getFullName())) {
-                Database.addEnrollment(courseID, student.getFullName());
-                System.out.println("Student enrolled: " + student.getFullName());
-            }
-        }
-
         showAlert("Success", "Course created successfully: " + courseID);
         System.out.println("Course creation process completed successfully.");
 
-        // Track the newly added course for blinking (if desired)
-        newlyAddedCourseKey = selectedDay + "_" + selectedTime;
-
         // Remove the temporary course if present
         tempCourses.remove(newCourse);
-        populateScheduleGridPane();
+        populateSchedule();
 
         // Optionally, trigger blinking effect for the newly added course
         blinkNewCourse(newCourse);
@@ -761,44 +597,7 @@ public class addCourseController { // Renamed to follow Java conventions
      * @param course The newly added course.
      */
     private void blinkNewCourse(Course course) {
-        String timeToStart = course.getTimeToStart(); // e.g., "Monday 08:30"
-        String[] parts = timeToStart.split(" ");
-        if (parts.length < 2) return;
-
-        String day = parts[0];
-        String time = parts[1];
-
-        // Find the column index for the day
-        int col = days.indexOf(day) + 1;
-        if (col == 0) return; // Day not found
-
-        // Find the row index for the time
-        int startRow = times.indexOf(time) + 1;
-        if (startRow == 0) return; // Time not found
-
-        int duration = course.getDuration(); // Number of consecutive time slots
-
-        // Apply blinking to each block
-        for (int i = 0; i < duration; i++) {
-            int row = startRow + i;
-            if (row > times.size()) break; // Avoid exceeding grid
-
-            javafx.scene.Node targetNode = getNodeFromGridPane(col, row);
-            if (targetNode instanceof Label) {
-                Label label = (Label) targetNode;
-                Timeline timeline = new Timeline(
-                        new KeyFrame(Duration.seconds(0), event -> label.setOpacity(1)),
-                        new KeyFrame(Duration.seconds(0.5), event -> label.setOpacity(0)),
-                        new KeyFrame(Duration.seconds(1), event -> label.setOpacity(1))
-                );
-                timeline.setCycleCount(4); // Blink 4 times
-                timeline.play();
-            }
-        }
-
-        // Reset the key after blinking
-        Timeline resetTimeline = new Timeline(new KeyFrame(Duration.seconds(duration), event -> newlyAddedCourseKey = null));
-        resetTimeline.play();
+        scheduleView.blink(course.getCourseID());
     }
 
     /**
@@ -828,9 +627,6 @@ public class addCourseController { // Renamed to follow Java conventions
             if (!(newRoot instanceof javafx.scene.Parent)) {
                 throw new IllegalArgumentException("Loaded root is not a valid JavaFX parent node.");
             }
-            ttManagerController controller = loader.getController();
-            controller.refreshTable(); // Refresh the TableView
-
             Stage stage = (Stage) btnBack.getScene().getWindow();
             Scene scene = stage.getScene();
             scene.setRoot((javafx.scene.Parent) newRoot);
@@ -853,6 +649,30 @@ public class addCourseController { // Renamed to follow Java conventions
      * @param title   The title of the alert.
      * @param message The content message of the alert.
      */
+    /**
+     * Lists the students with a clashing course and asks whether to create the course anyway.
+     *
+     * @return True if the user wants to continue regardless of the clashes.
+     */
+    private boolean confirmStudentClashes(Map<String, Set<String>> clashes) {
+        StringBuilder message = new StringBuilder();
+        int shown = 0;
+        for (Map.Entry<String, Set<String>> clash : clashes.entrySet()) {
+            if (shown++ == 20) {
+                message.append("\n...");
+                break;
+            }
+            message.append(clash.getKey()).append(": ").append(String.join(", ", clash.getValue())).append("\n");
+        }
+
+        ButtonType btnCreateAnyway = new ButtonType("Create Anyway");
+        ButtonType btnCancel = new ButtonType("Cancel", ButtonBar.ButtonData.CANCEL_CLOSE);
+        Alert alert = new Alert(Alert.AlertType.WARNING, message.toString(), btnCreateAnyway, btnCancel);
+        alert.setTitle("Schedule Clash");
+        alert.setHeaderText(clashes.size() + " student(s) already have another course at this time.");
+        return alert.showAndWait().orElse(btnCancel) == btnCreateAnyway;
+    }
+
     private void showAlert(String title, String message) {
         Alert alert = new Alert(Alert.AlertType.INFORMATION);
 
@@ -870,38 +690,6 @@ public class addCourseController { // Renamed to follow Java conventions
         alert.showAndWait();
     }
 
-    /**
-     * Applies alternating row colors to the Schedule GridPane for better readability.
-     */
-    private void applyAlternatingRowColors() {
-        for (int row = 1; row <= times.size(); row++) {
-            for (int col = 1; col <= days.size(); col++) {
-                javafx.scene.Node node = getNodeFromGridPane(col, row);
-                if (node instanceof Label && ((Label) node).getText().isEmpty()) {
-                    // Apply alternating background colors
-                    if (row % 2 == 0) {
-                        node.setStyle(node.getStyle() + "; -fx-background-color: #f0f0f0;");
-                    } else {
-                        node.setStyle(node.getStyle() + "; -fx-background-color: #ffffff;");
-                    }
-                }
-            }
-        }
-    }
-
-    /**
-     * Converts a JavaFX Color to its RGB Hex String representation.
-     *
-     * @param color The Color to convert.
-     * @return The RGB Hex String (e.g., "#FFAABB").
-     */
-    private String toRgbString(Color color) {
-        return String.format("#%02X%02X%02X",
-                (int) (color.getRed() * 255),
-                (int) (color.getGreen() * 255),
-                (int) (color.getBlue() * 255));
-    }
-
     /**
      * Generates a unique color based on the course ID.
      *
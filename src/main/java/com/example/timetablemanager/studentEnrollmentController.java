@@ -17,12 +17,13 @@ import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.paint.Color;
 
-import java.io.File;
 import java.io.IOException;
-import java.sql.*;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 public class studentEnrollmentController {
 
@@ -43,10 +44,6 @@ public class studentEnrollmentController {
     @FXML
     private Label lblEnrolledCount;
 
-    private static final String dbPath = System.getProperty("user.home") + File.separator + "Documents" + File.separator + "TimetableManagement";
-    private static final String DB_URL = "jdbc:sqlite:" + dbPath + File.separator + "TimetableManagement.db";
-    private Connection conn;
-
     // Store all courses for selection
     private List<Course> allCourses = new ArrayList<>();
     // Store currently enrolled students for the selected course
@@ -54,19 +51,13 @@ public class studentEnrollmentController {
     // Store updated enrollments after editing
     private ObservableList<Student> updatedStudents = FXCollections.observableArrayList();
 
+    private BackgroundLoader loader;
+
     @FXML
     public void initialize() {
-        try {
-            conn = DriverManager.getConnection(DB_URL);
-            System.out.println("Connected to the database.");
-            loadCourses();
-        } catch (SQLException e) {
-            System.err.println("Failed to connect to the database: " + e.getMessage());
-            showAlert(Alert.AlertType.ERROR, "Database Connection Error", "Unable to connect to the database.");
-        }
-
-        // Populate ComboBox with courses
-        comboCourses.setItems(FXCollections.observableArrayList(allCourses));
+        loader = new BackgroundLoader("Student Enrollment", comboCourses);
+        Database.connect();
+        loadCourses();
 
         // Set a cell factory to show the courseID in the ComboBox
         comboCourses.setCellFactory(cb -> new ListCell<>() {
@@ -98,6 +89,10 @@ public class studentEnrollmentController {
                 loadEnrolledStudentsForCourse(newVal);
                 displayCourseDetails(newVal);
             } else {
+                loader.cancel("enrolled students");
+                listViewEnrolledStudents.setPlaceholder(null);
+                btnEditEnrollment.setDisable(false);
+                btnSaveChanges.setDisable(false);
                 listViewEnrolledStudents.getItems().clear();
                 clearCourseDetails();
                 lblEnrolledCount.setText("Enrolled Students: 0");
@@ -110,89 +105,42 @@ public class studentEnrollmentController {
     }
 
     private void loadCourses() {
-        String query = "SELECT courseName, lecturer, duration, timeToStart FROM Courses";
-        allCourses.clear();
-        try (PreparedStatement pstmt = conn.prepareStatement(query);
-             ResultSet rs = pstmt.executeQuery()) {
-
-            while (rs.next()) {
-                String courseName = rs.getString("courseName");
-                String lecturer = rs.getString("lecturer");
-                int duration = rs.getInt("duration");
-                String timeToStart = rs.getString("timeToStart");
-
-                // Find if this course is allocated to a classroom
-                String allocatedQuery = "SELECT classroomName FROM Allocated WHERE courseName = ?";
-                String classroomName = "";
-                try (PreparedStatement allocStmt = conn.prepareStatement(allocatedQuery)) {
-                    allocStmt.setString(1, courseName);
-                    try (ResultSet allocRS = allocStmt.executeQuery()) {
-                        if (allocRS.next()) {
-                            classroomName = allocRS.getString("classroomName");
-                        }
-                    }
-                }
-
-                // If classroom is assigned, get its capacity
-                int classroomCapacity = 0;
-                if (!classroomName.isEmpty()) {
-                    String capacityQuery = "SELECT capacity FROM Classrooms WHERE classroomName = ?";
-                    try (PreparedStatement capStmt = conn.prepareStatement(capacityQuery)) {
-                        capStmt.setString(1, classroomName);
-                        try (ResultSet capRS = capStmt.executeQuery()) {
-                            if (capRS.next()) {
-                                classroomCapacity = capRS.getInt("capacity");
-                            }
-                        }
-                    }
-                }
-
-                // Create the course object with classroom capacity
-                Course c = new Course(courseName, classroomCapacity, new ArrayList<>(), classroomName, timeToStart, duration, lecturer);
-                allCourses.add(c);
-            }
-
-        } catch (SQLException e) {
-            System.err.println("Error loading courses: " + e.getMessage());
-            showAlert(Alert.AlertType.ERROR, "Database Error", "Unable to load courses from the database.");
-        }
-    }
-
-
-    /**
-     * Fetches the capacity of the given classroom from the database.
-     */
-    private int getClassroomCapacity(String classroomName) {
-        String sql = "SELECT capacity FROM Classrooms WHERE classroomName = ?";
-        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, classroomName);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getInt("capacity");
-                }
-            }
-        } catch (SQLException e) {
-            System.err.println("Error fetching classroom capacity: " + e.getMessage());
-        }
-        return 0;
+        String prompt = comboCourses.getPromptText();
+        comboCourses.setPromptText("Loading courses...");
+        comboCourses.setDisable(true);
+        // Courses come with their classroom and its capacity from the in-memory model
+        loader.load("courses", Database::getAllCourses, courses -> {
+            allCourses.clear();
+            allCourses.addAll(courses);
+
+            // Populate ComboBox with courses
+            comboCourses.setItems(FXCollections.observableArrayList(allCourses));
+            comboCourses.setPromptText(prompt);
+            comboCourses.setDisable(false);
+        }, error -> comboCourses.setPromptText("Could not load the courses"));
     }
 
     private void loadEnrolledStudentsForCourse(Course course) {
         // Clear previous data
         enrolledStudents.clear();
+        updatedStudents.clear();
+        listViewEnrolledStudents.getItems().clear();
+        listViewEnrolledStudents.setPlaceholder(new Label("Loading students..."));
+        lblEnrolledCount.setText("Enrolled Students: ...");
+        btnEditEnrollment.setDisable(true);
+        btnSaveChanges.setDisable(true);
+
+        loader.load("enrolled students", () -> Database.getStudentsEnrolledInCourse(course.getCourseID()), names -> {
+            listViewEnrolledStudents.setPlaceholder(null);
+            btnEditEnrollment.setDisable(false);
+            btnSaveChanges.setDisable(false);
+            showEnrolledStudents(names);
+        }, error -> listViewEnrolledStudents.setPlaceholder(new Label("Could not load the students")));
+    }
 
-        String query = "SELECT DISTINCT studentName FROM Enrollments WHERE courseName = ?";
-        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
-            pstmt.setString(1, course.getCourseID());
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    String name = rs.getString("studentName");
-                    enrolledStudents.add(new Student(name, new ArrayList<>()));
-                }
-            }
-        } catch (SQLException e) {
-            System.err.println("Error loading enrolled students: " + e.getMessage());
-            showAlert(Alert.AlertType.ERROR, "Database Error", "Unable to load enrolled students.");
+    private void showEnrolledStudents(List<String> names) {
+        for (String name : names) {
+            enrolledStudents.add(new Student(name, new ArrayList<>()));
         }
 
         // Update the ListView with student names
@@ -318,44 +266,51 @@ public class studentEnrollmentController {
             return; // Exit after handling the alert
         }
 
-        // Proceed with saving enrollments
-        try {
-            conn.setAutoCommit(false); // Start transaction
-
-            // Delete existing enrollments for the course
-            String deleteSQL = "DELETE FROM Enrollments WHERE courseName = ?";
-            try (PreparedStatement deleteStmt = conn.prepareStatement(deleteSQL)) {
-                deleteStmt.setString(1, selectedCourse.getCourseID());
-                deleteStmt.executeUpdate();
-            }
+        List<String> studentNames = updatedStudents.stream().map(Student::getFullName).distinct().toList();
 
-            // Insert the new enrollments
-            String insertSQL = "INSERT INTO Enrollments (courseName, studentName) VALUES (?, ?)";
-            try (PreparedStatement insertStmt = conn.prepareStatement(insertSQL)) {
-                for (Student student : updatedStudents) {
-                    insertStmt.setString(1, selectedCourse.getCourseID());
-                    insertStmt.setString(2, student.getFullName());
-                    insertStmt.addBatch();
-                }
-                insertStmt.executeBatch();
-            }
+        // Students who already have another course at this time
+        Map<String, Set<String>> clashes = Database.getStudentClashes(studentNames,
+                selectedCourse.getTimeToStart(), selectedCourse.getDuration(), selectedCourse.getCourseID());
+        if (!clashes.isEmpty() && !confirmStudentClashes(clashes)) {
+            return;
+        }
 
-            conn.commit(); // Commit transaction
-            conn.setAutoCommit(true);
+        // Proceed with saving enrollments
+        try {
+            Database.replaceEnrollments(selectedCourse.getCourseID(), studentNames);
 
             showAlert(Alert.AlertType.INFORMATION, "Success", "Enrollments updated for course: " + selectedCourse.getCourseID());
             switchScene("mainLayout.fxml");
 
         } catch (SQLException e) {
-            try {
-                conn.rollback(); // Rollback transaction on error
-            } catch (SQLException rollbackEx) {
-                System.err.println("Error during rollback: " + rollbackEx.getMessage());
-            }
             showAlert(Alert.AlertType.ERROR, "Database Error", "Failed to update enrollments: " + e.getMessage());
         }
     }
 
+    /**
+     * Lists the students with a clashing course and asks whether to save anyway.
+     *
+     * @return True if the user wants to save regardless of the clashes.
+     */
+    private boolean confirmStudentClashes(Map<String, Set<String>> clashes) {
+        StringBuilder message = new StringBuilder();
+        int shown = 0;
+        for (Map.Entry<String, Set<String>> clash : clashes.entrySet()) {
+            if (shown++ == 20) {
+                message.append("\n...");
+                break;
+            }
+            message.append(clash.getKey()).append(": ").append(String.join(", ", clash.getValue())).append("\n");
+        }
+
+        ButtonType btnSaveAnyway = new ButtonType("Save Anyway");
+        ButtonType btnCancel = new ButtonType("Cancel", ButtonBar.ButtonData.CANCEL_CLOSE);
+        Alert alert = new Alert(Alert.AlertType.WARNING, message.toString(), btnSaveAnyway, btnCancel);
+        alert.setTitle("Schedule Clash");
+        alert.setHeaderText(clashes.size() + " student(s) already have another course at this time.");
+        return alert.showAndWait().orElse(btnCancel) == btnSaveAnyway;
+    }
+
     private void showNoClassroomAssignedAlert() {
         Alert alert = new Alert(Alert.AlertType.WARNING);
         alert.setTitle("No Classroom Assigned");
@@ -464,12 +419,6 @@ public class studentEnrollmentController {
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/com/example/timetablemanager/" + fxmlFile));
             javafx.scene.Parent newRoot = loader.load();
 
-            // Assuming the target controller has a method called refreshData() or similar
-            Object controller = loader.getController();
-            if (controller instanceof ttManagerController) {
-                ((ttManagerController) controller).refreshTable(); // Adjust method name as needed
-            }
-
             Stage stage = (Stage) btnCancel.getScene().getWindow();
             Scene scene = stage.getScene();
             scene.setRoot(newRoot);
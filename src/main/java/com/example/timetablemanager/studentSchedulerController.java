@@ -2,153 +2,75 @@ package com.example.timetablemanager;
 
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
-import javafx.scene.layout.GridPane;
+import javafx.scene.paint.Color;
 import javafx.stage.Stage;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
 public class studentSchedulerController {
 
-    @FXML
-    private GridPane schedulerGrid;
+    private static final Color COURSE_FILL = Color.web("#CCCC66");
 
-    private List<Course> allCourses;
+    @FXML
+    private ScheduleView scheduleView;
 
     private String selectedStudent;
 
     private Course selectedCourse;
     private CourseSchedulerController controller;
 
+    private BackgroundLoader loader;
+
     @FXML
     public void initialize() {
+        loader = new BackgroundLoader("Student Scheduler", scheduleView);
+        scheduleView.setCellSize(90, 40);
+        scheduleView.setOnEntryDoubleClicked(course ->
+                // Prompt withdrawal confirmation
+                Delete("Warning", "Are you sure you want to withdraw from " + course.getCourseID() + "?", course.getCourseID()));
+
         // Initialize scheduler when controller is loaded
         showStudent();
     }
 
     public void showStudent() {
-        allCourses = Database.getAllCourses();
+        String student = getSelectedStudent();
+        scheduleView.setPlaceholder("Loading courses...");
+        loader.load("enrolled courses", () -> scheduleEntries(student), entries -> {
+            scheduleView.setPlaceholder(entries.isEmpty() ? "No enrolled courses" : null);
+            scheduleView.setEntries(entries);
+        });
+    }
 
-        List<Course> enrolledCourses = Database.loadCoursesForStudent1(getSelectedStudent());
+    /**
+     * Builds the schedule of the student; runs in the background.
+     */
+    private static List<ScheduleView.Entry> scheduleEntries(String student) {
+        List<Course> enrolledCourses = Database.getStudentTimetables().get(student).getCourses();
 
-        if (enrolledCourses == null || enrolledCourses.isEmpty()) {
+        if (enrolledCourses.isEmpty()) {
             System.out.println("No enrolled courses found.");
-            return;
+            return new ArrayList<>();
         } else {
             System.out.println("Enrolled courses loaded.");
         }
 
+        List<ScheduleView.Entry> entries = new ArrayList<>();
         for (Course course : enrolledCourses) {
             System.out.println("Course Time: " + course.getTimeToStart());
-        }
-
-        for (Course course : enrolledCourses) {
-
-            Label classLabel = new Label(course.getCourseID());
-
-            Course selectedCourseObject = allCourses.stream()
-                    .filter(e -> e.getCourseID().equals(course.getCourseID()))
-                    .findFirst().orElse(null);
-
-            if (selectedCourseObject == null) {
-                showAlert("Error", "Invalid selection. Please try again.");
-                continue; // Continue to next course instead of returning
-            }
-
-            int duration = selectedCourseObject.getDuration();
-            String timeToStart = selectedCourseObject.getTimeToStart();
 
-            // Parse timeToStart
-            String[] timeParts = timeToStart.split(" ");
-            if (timeParts.length != 2) {
-                System.err.println("Invalid timeToStart format: " + timeToStart);
+            if (course.getDayIndex() < 0 || course.getStartSlot() < 0) {
+                System.err.println("Invalid timeToStart: " + course.getTimeToStart());
                 continue;
             }
-            String day = timeParts[0];
-            String time = timeParts[1];
 
-            int colIndex = getDayColumnIndex(day);
-            int rowIndex = getTimeRowIndex(time);
-
-            System.out.println("Parsed Indices -> Row: " + rowIndex + ", Column: " + colIndex);
-
-            if (colIndex == 0 || rowIndex == 0) {
-                System.err.println("Invalid indices for Row: " + rowIndex + ", Column: " + colIndex);
-                continue;
-            }
-
-            classLabel.setStyle(
-                    "-fx-background-color: #CCCC66; " +
-                            "-fx-padding: 10; " +
-                            "-fx-font-size: 18px; " +
-                            "-fx-font-weight: normal; " +
-                            "-fx-text-fill: #FFFFFF; " +
-                            "-fx-wrap-text: true; " +
-                            "-fx-alignment: center;");
-
-            classLabel.setMaxSize(Double.MAX_VALUE, Double.MAX_VALUE); // Fit Label within GridPane
-            schedulerGrid.add(classLabel, colIndex, rowIndex); // Add Label to GridPane
-            GridPane.setRowSpan(classLabel, duration); // Span rows based on duration
-
-            classLabel.setOnMouseClicked(event -> {
-                if (event.getClickCount() == 2) {
-                    // Prompt withdrawal confirmation
-                    Delete("Warning", "Are you sure you want to withdraw from " + course.getCourseID() + "?", course.getCourseID());
-                }
-            });
-        }
-    }
-
-    private int getDayColumnIndex(String day) {
-        switch (day.toLowerCase()) {
-            case "monday":
-                return 1;
-            case "tuesday":
-                return 2;
-            case "wednesday":
-                return 3;
-            case "thursday":
-                return 4;
-            case "friday":
-                return 5;
-            case "saturday":
-                return 6;
-            case "sunday":
-                return 7;
-            default:
-                System.err.println("Unrecognized day: " + day);
-                return 0;  // Invalid day
-        }
-    }
-
-    private int getTimeRowIndex(String time) {
-        switch (time) {
-            case "8:30":
-                return 1;
-            case "9:25":
-                return 2;
-            case "10:20":
-                return 3;
-            case "11:15":
-                return 4;
-            case "12:10":
-                return 5;
-            case "13:05":
-                return 6;
-            case "14:00":
-                return 7;
-            case "14:55":
-                return 8;
-            case "15:50":
-                return 9;
-            case "16:45":
-                return 10;
-            case "17:40":
-                return 11;
-            default:
-                System.err.println("Unrecognized time: " + time);
-                return 0;  // Invalid time
+            String tooltip = course.getCourseID() + " (" + course.getTimeToStart() + ")\n" +
+                    "Double-click to withdraw";
+            entries.add(new ScheduleView.Entry(course, null, COURSE_FILL, Color.WHITE, tooltip, false));
         }
+        return entries;
     }
 
     // Getter and Setter methods
@@ -177,9 +99,8 @@ public class studentSchedulerController {
         alert.showAndWait();
     }
 
-    // Refresh the GridPane to reflect changes
-    private void refreshGridPane() {
-        schedulerGrid.getChildren().clear();
+    // Refresh the schedule to reflect changes
+    private void refreshSchedule() {
         this.showStudent();
     }
 
@@ -204,23 +125,16 @@ public class studentSchedulerController {
             if (result.get() == withdrawButton) {
                 Database.removeStudentFromCourse(courseId, getSelectedStudent());
                 alert.close();
-                Stage stage = (Stage) schedulerGrid.getScene().getWindow();
-
-                // Reload courses
-                allCourses.clear();
-                Database.reloadCourses();
-                allCourses = Database.getAllCourses();
+                Stage stage = (Stage) scheduleView.getScene().getWindow();
 
-                Course selectedCourseObject = allCourses.stream()
-                        .filter(e -> e.getCourseID().equals(courseId))
-                        .findFirst().orElse(null);
+                Course selectedCourseObject = Database.getRepository().get(courseId);
 
                 if (controller != null && selectedCourseObject != null) {
                     controller.setCourseData(Database.getCourseInfo(controller.getMainController().getSelectedCourse().getCourseID()));
                 }
 
                 // Refresh the scheduler view
-               // refreshGridPane();
+               // refreshSchedule();
                 stage.close();
             } else if (result.get() == cancelButton) {
                 alert.close();
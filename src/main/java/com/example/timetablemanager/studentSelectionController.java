@@ -2,15 +2,14 @@ package com.example.timetablemanager;
 
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.collections.transformation.FilteredList;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.scene.image.Image;
 import javafx.stage.Stage;
 
-import java.io.File;
 import java.sql.*;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
 
 public class studentSelectionController {
 
@@ -29,23 +28,25 @@ public class studentSelectionController {
     @FXML
     private Label lblSelectionInfo;  // <-- The label from FXML
 
-    private static final String dbPath = System.getProperty("user.home")
-            + File.separator
-            + "Documents"
-            + File.separator
-            + "TimetableManagement";
-    private static final String DB_URL = "jdbc:sqlite:" + dbPath + File.separator + "TimetableManagement.db";
-    private Connection conn;
-
-    private List<Student> allStudents = new ArrayList<>();
     private ObservableList<Student> selectedStudents = FXCollections.observableArrayList();
 
+    // All student names; the available list shows those matching the search and not selected yet
+    private StudentNameIndex index = new StudentNameIndex(List.of());
+    private final ObservableList<String> allNames = FXCollections.observableArrayList();
+    private final FilteredList<String> availableNames = new FilteredList<>(allNames);
+    private final Set<String> selectedNames = new HashSet<>();
+    private BitSet matches = new BitSet();
+
     /**
      * If we know the actual classroom capacity, store it here.
      * If not, set it to -1 => means "unknown capacity => '?'"
      */
     private int courseCapacity = -1;
 
+    private BackgroundLoader loader;
+    // Students to pre-select once the student list has loaded
+    private List<String> pendingSelection;
+
     /**
      * Optionally, set the capacity from outside.
      * If it is unknown, you can call setCourseCapacity(-1).
@@ -58,42 +59,36 @@ public class studentSelectionController {
 
     @FXML
     public void initialize() {
-        try {
-            conn = DriverManager.getConnection(DB_URL);
-            System.out.println("Connected to the database.");
-            loadStudents();
-        } catch (SQLException e) {
-            System.err.println("Failed to connect to the database: " + e.getMessage());
-        }
+        loader = new BackgroundLoader("Student Selection", listViewAvailable);
+        loadStudents();
 
         // Enable multiple selection in ListView
         listViewAvailable.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
         listViewSelected.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
 
         // Filter students on search input
-        searchField.textProperty().addListener((observable, oldValue, newValue) -> {
-            List<String> filtered = allStudents.stream()
-                    .filter(student -> student.getFullName().toLowerCase()
-                            .contains(newValue.toLowerCase()))
-                    .map(Student::getFullName)
-                    .distinct()
-                    .toList();
-            listViewAvailable.setItems(FXCollections.observableArrayList(filtered));
-        });
+        listViewAvailable.setItems(availableNames);
+        searchField.textProperty().addListener((observable, oldValue, newValue) -> showAvailable(newValue));
 
         // ADD BUTTON
         btnAdd.setOnAction(event -> {
-            ObservableList<String> selectedItems = listViewAvailable.getSelectionModel().getSelectedItems();
-            listViewSelected.getItems().addAll(selectedItems);
-            listViewAvailable.getItems().removeAll(selectedItems);
+            List<String> added = new ArrayList<>();
+            for (String name : new ArrayList<>(listViewAvailable.getSelectionModel().getSelectedItems())) {
+                if (selectedNames.add(name)) {
+                    added.add(name);
+                }
+            }
+            listViewSelected.getItems().addAll(added);
+            refreshAvailable();
             updateSelectionInfo();
         });
 
         // REMOVE BUTTON
         btnRemove.setOnAction(event -> {
-            ObservableList<String> selectedItems = listViewSelected.getSelectionModel().getSelectedItems();
-            listViewAvailable.getItems().addAll(selectedItems);
-            listViewSelected.getItems().removeAll(selectedItems);
+            Set<String> removed = new HashSet<>(listViewSelected.getSelectionModel().getSelectedItems());
+            selectedNames.removeAll(removed);
+            listViewSelected.getItems().removeIf(removed::contains);
+            refreshAvailable();
             updateSelectionInfo();
         });
 
@@ -103,58 +98,84 @@ public class studentSelectionController {
         // SAVE BUTTON => finalize selection
         btnSave.setOnAction(event -> {
             // Build a new list of selectedStudents from listViewSelected
-            ObservableList<String> selectedItems = listViewSelected.getItems();
-            selectedStudents.clear();
-            selectedStudents.addAll(
-                    allStudents.stream()
-                            .filter(stu -> selectedItems.contains(stu.getFullName()))
-                            .toList()
-            );
+            List<Student> students = new ArrayList<>();
+            for (String name : listViewSelected.getItems()) {
+                students.add(new Student(name, new ArrayList<>()));
+            }
+            selectedStudents.setAll(students);
             // Close popup => or do capacity checks, etc.
             closeStage();
         });
     }
 
     /**
-     * Load all student names from DB into allStudents + show them in listViewAvailable.
+     * Load all student names from DB into the name index + show them in listViewAvailable.
+     * The query and the index run in the background; until they are done the list shows a placeholder and Save is disabled.
      */
     private void loadStudents() {
+        listViewAvailable.setPlaceholder(new Label("Loading students..."));
+        btnSave.setDisable(true);
+        loader.load("students", () -> new StudentNameIndex(queryStudents()), loaded -> {
+            index = loaded;
+            allNames.setAll(loaded.getNames());
+            listViewAvailable.setPlaceholder(null);
+            btnSave.setDisable(false);
+            showAvailable(searchField.getText());
+            if (pendingSelection != null) {
+                setInitiallySelectedStudents(pendingSelection);
+                pendingSelection = null;
+            }
+        }, error -> listViewAvailable.setPlaceholder(new Label("Could not load the students")));
+    }
+
+    private static List<String> queryStudents() throws SQLException {
         String query = "SELECT DISTINCT studentName FROM Students"; // Using DISTINCT
-        try (PreparedStatement pstmt = conn.prepareStatement(query);
+        List<String> names = new ArrayList<>();
+        try (Connection conn = Database.reader();
+             PreparedStatement pstmt = conn.prepareStatement(query);
              ResultSet rs = pstmt.executeQuery()) {
 
-            allStudents.clear();
             while (rs.next()) {
-                String name = rs.getString("studentName");
-                allStudents.add(new Student(name, new ArrayList<>()));
+                names.add(rs.getString("studentName"));
             }
-            // Remove duplicates if any, just to be safe
-            allStudents = allStudents.stream().distinct().toList();
-
-            listViewAvailable.setItems(FXCollections.observableArrayList(
-                    allStudents.stream()
-                            .map(Student::getFullName)
-                            .distinct()
-                            .toList()
-            ));
-        } catch (SQLException e) {
-            System.err.println("Error loading students: " + e.getMessage());
         }
+        return names; // StudentNameIndex drops duplicates, just to be safe
+    }
+
+    /**
+     * Shows the students with a word of their name starting with the search text.
+     */
+    private void showAvailable(String search) {
+        matches = index.search(search);
+        refreshAvailable();
+    }
+
+    /**
+     * Filters the available list again after the search or the selection changed.
+     */
+    private void refreshAvailable() {
+        BitSet shown = matches;
+        StudentNameIndex names = index;
+        availableNames.setPredicate(name -> shown.get(names.idOf(name)) && !selectedNames.contains(name));
     }
 
     /**
      * If we want to pre-select certain students before the popup.
      */
     public void setInitiallySelectedStudents(List<String> selectedStudentNames) {
+        if (loader.isLoading("students")) {
+            pendingSelection = selectedStudentNames;
+            return;
+        }
         // Move these students from available to selected initially
         List<String> toSelect = new ArrayList<>();
         for (String name : selectedStudentNames) {
-            if (listViewAvailable.getItems().contains(name)) {
+            if (index.idOf(name) >= 0 && selectedNames.add(name)) {
                 toSelect.add(name);
             }
         }
-        listViewAvailable.getItems().removeAll(toSelect);
         listViewSelected.getItems().addAll(toSelect);
+        refreshAvailable();
 
         updateSelectionInfo();
     }
@@ -13,6 +13,7 @@ import javafx.util.Duration; // Import added for Tooltip delays
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 public class swapClassroomController {
@@ -156,9 +157,6 @@ public class swapClassroomController {
 
         // Back button => switch scene
         btnBack.setOnAction(event -> switchScene("mainLayout.fxml"));
-
-        // Attempt to refresh main table (if needed)
-        refreshTimetableView();
     }
 
     /**
@@ -320,20 +318,22 @@ public class swapClassroomController {
             // Commit Transaction
             Database.commitTransaction();
 
-            // Update local references
-            selectedCourseA.setClassroom(oldClassB);
-            selectedCourseB.setClassroom(oldClassA);
-
-            // Show success
-            showAlert("Success", "Courses' classrooms have been swapped successfully!");
+            // Show success; a swap never changes times, but point out lecturers that are double-booked anyway
+            StringBuilder message = new StringBuilder("Courses' classrooms have been swapped successfully!");
+            for (Course course : List.of(selectedCourseA, selectedCourseB)) {
+                Set<String> conflicts = Database.getLecturerConflicts(course.getLecturer(), course.getTimeToStart(),
+                        course.getDuration(), course.getCourseID());
+                if (!conflicts.isEmpty()) {
+                    message.append("\nNote: ").append(course.getLecturer()).append(" also teaches ")
+                            .append(String.join(", ", conflicts)).append(" during ").append(course.getCourseID()).append(".");
+                }
+            }
+            showAlert("Success", message.toString());
 
-            // Refresh the displayed classroom info
+            // Refresh the displayed classroom info; the main table updates the two rows on its own
             handleCourseSelectionA();
             handleCourseSelectionB();
 
-            // Refresh Timetable
-            refreshTimetableView();
-
         } catch (Exception e) {
             // Rollback Transaction in case of any failure
             Database.rollbackTransaction();
@@ -358,12 +358,6 @@ public class swapClassroomController {
         classroomCapacityB = "";
     }
 
-    private void refreshTimetableView() {
-        if (mainController != null) {
-            mainController.refreshTable();
-        }
-    }
-
     private void switchScene(String fxmlFile) {
         try {
             FXMLLoader loader = new FXMLLoader(
@@ -1,8 +1,11 @@
 package com.example.timetablemanager;
 
+import javafx.animation.PauseTransition;
 import javafx.application.HostServices;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Node;
@@ -10,22 +13,27 @@ import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.control.Button;
+import javafx.scene.control.Menu;
 import javafx.scene.control.MenuBar;
 import javafx.scene.control.MenuItem;
 import javafx.scene.control.TextField;
 import javafx.scene.image.Image;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
+import javafx.util.Duration;
 
 import java.awt.*;
 import java.io.*;
 import java.net.URI;
+import java.sql.SQLException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
-import java.util.LinkedHashMap;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 public class ttManagerController {
 
@@ -41,6 +49,12 @@ public class ttManagerController {
     private MenuItem menuImportCSV, menuLoadTimetable, menuSaveTimetable, menuExportTimetable, menuExit;
     @FXML
     private MenuItem menuUserManual, menuAbout;
+    @FXML
+    private MenuItem menuLecturerConflicts;
+    @FXML
+    private Menu menuEdit;
+    @FXML
+    private MenuItem menuUndo, menuRedo, menuHistory;
 
     @FXML
     private TableView<Course> timetableTable;
@@ -51,6 +65,18 @@ public class ttManagerController {
     @FXML
     private TableColumn<Course, Integer> durationColumn;
 
+    // Search as you type: the table is filtered once typing pauses this long
+    private static final int SEARCH_DELAY_MILLIS = 150;
+
+    private final PauseTransition searchDelay = new PauseTransition(Duration.millis(SEARCH_DELAY_MILLIS));
+
+    // Listener of the main table on screen; replaced whenever mainLayout is loaded again
+    private static TimetableRepository.Listener tableListener;
+
+    // Timetable changes not applied to the table yet, see onTimetableChange
+    private final List<TimetableRepository.Change> pendingChanges = new ArrayList<>();
+    private boolean patchScheduled;
+
     @FXML
     public void initialize() {
         // Course ID
@@ -108,8 +134,15 @@ public class ttManagerController {
         });
 
 
-        // Populate table with current timetable courses
-        timetableTable.setItems(FXCollections.observableArrayList(TimetableManager.getTimetable()));
+        // Populate table with current timetable courses and follow their changes from now on
+        showCourses();
+        listenForChanges();
+        prepareIndexes();
+
+        // Search as you type, or right away with Enter or the Search button
+        searchDelay.setOnFinished(event -> showCourses());
+        txtSearch.textProperty().addListener((obs, oldVal, newVal) -> searchDelay.playFromStart());
+        txtSearch.setOnAction(event -> performSearch());
 
         // Buttons and menu actions
         btnSearch.setOnAction(event -> performSearch());
@@ -127,11 +160,16 @@ public class ttManagerController {
         } );
   //      menuLoadTimetable.setOnAction(event -> showAlert("Load Timetable", "Load Timetable not attached yet."));
     //    menuSaveTimetable.setOnAction(event -> showAlert("Save Timetable", "Save Timetable not attached yet."));
-      //  menuExportTimetable.setOnAction(event -> showAlert("Export Timetable", "Export Timetable not attached yet."));
-        menuExit.setOnAction(event -> System.exit(0));
+        menuExportTimetable.setOnAction(event -> exportStudentTimetables());
+        menuExit.setOnAction(event -> Platform.exit()); // runs TimetableManager.stop(), unlike System.exit
         menuUserManual.setOnAction(event -> menuUserManualMethod());
+        menuLecturerConflicts.setOnAction(event -> showLecturerConflicts());
+        menuEdit.setOnShowing(event -> updateUndoMenu());
+        menuUndo.setOnAction(event -> undoOrRedo(true));
+        menuRedo.setOnAction(event -> undoOrRedo(false));
+        menuHistory.setOnAction(event -> restoreEarlierVersion());
+        updateUndoMenu();
        // menuAbout.setOnAction(event -> showAlert("About", "About not attached yet."));
-        timetableTable.setItems(FXCollections.observableArrayList(TimetableManager.getTimetable()));
     }
 
     public Course getSelectedCourse() {
@@ -162,58 +200,253 @@ public class ttManagerController {
     }
 
 
-    private void performSearch() {
-        String searchText = txtSearch.getText().toLowerCase();
+    /**
+     * Lists every lecturer that is scheduled for two courses at the same time.
+     */
+    private void showLecturerConflicts() {
+        List<LecturerConflict> conflicts = Database.getAllLecturerConflicts();
+        if (conflicts.isEmpty()) {
+            showAlert("Lecturer Conflicts", "No lecturer is scheduled for two courses at the same time.");
+            return;
+        }
+        StringBuilder message = new StringBuilder(conflicts.size() + " conflict(s) found:");
+        for (int i = 0; i < conflicts.size(); i++) {
+            if (i == 30) {
+                message.append("\n...");
+                break;
+            }
+            message.append("\n").append(conflicts.get(i));
+        }
+        showAlert("Lecturer Conflicts", message.toString());
+    }
 
+    /**
+     * Names the change Undo and Redo would apply, e.g. "Undo Move CENG101 to M102".
+     */
+    private void updateUndoMenu() {
+        String undo = Database.getUndoDescription();
+        String redo = Database.getRedoDescription();
+        menuUndo.setText(undo == null ? "Undo" : "Undo " + undo);
+        menuUndo.setDisable(undo == null);
+        menuRedo.setText(redo == null ? "Redo" : "Redo " + redo);
+        menuRedo.setDisable(redo == null);
+    }
 
-        List<Course> filteredCourses = TimetableManager.getTimetable().stream()
-                .filter(course -> course.getCourseID().toLowerCase().contains(searchText)
-                        || course.getTimeToStart().toLowerCase().contains(searchText)
-                        || String.valueOf(course.getDuration()).contains(searchText)
-                        || course.getLecturer().toLowerCase().contains(searchText))
-                .collect(Collectors.toList());
+    private void undoOrRedo(boolean undo) {
+        try {
+            if (undo) {
+                Database.undo();
+            } else {
+                Database.redo();
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            showAlert("Error", "Failed to " + (undo ? "undo" : "redo") + " the change: " + e.getMessage());
+        }
+        updateUndoMenu();
+    }
 
-        timetableTable.getItems().setAll(filteredCourses);
-        txtSearch.clear();
+    /**
+     * Lets the user pick an entry of the change journal and brings the whole timetable back to
+     * how it was right after it. The current state is backed up first.
+     */
+    private void restoreEarlierVersion() {
+        List<ChangeJournal.Entry> entries;
+        try {
+            entries = Database.getJournal(200);
+        } catch (SQLException e) {
+            e.printStackTrace();
+            showAlert("Error", "Failed to read the change history: " + e.getMessage());
+            return;
+        }
+        if (entries.size() < 2) {
+            showAlert("Restore Earlier Version", "There are no earlier versions to restore yet.");
+            return;
+        }
+
+        ChoiceDialog<ChangeJournal.Entry> dialog = new ChoiceDialog<>(entries.get(1), entries.subList(1, entries.size()));
+        dialog.setTitle("Restore Earlier Version");
+        dialog.setHeaderText("Restore the timetable to how it was right after:");
+        dialog.setContentText("Change:");
+        ChangeJournal.Entry entry = dialog.showAndWait().orElse(null);
+        if (entry == null) {
+            return;
+        }
 
+        Alert confirm = new Alert(Alert.AlertType.CONFIRMATION,
+                "Every change after \"" + entry.getDescription() + "\" will be reverted. "
+                        + "The current timetable is backed up to the saves folder first.",
+                ButtonType.OK, ButtonType.CANCEL);
+        confirm.setTitle("Restore Earlier Version");
+        confirm.setHeaderText(null);
+        if (confirm.showAndWait().orElse(ButtonType.CANCEL) != ButtonType.OK) {
+            return;
+        }
+
+        Task<Void> restoreTask = new Task<>() {
+            @Override
+            protected Void call() throws Exception {
+                Database.restoreTo(entry.getSeq());
+                return null;
+            }
+        };
+        restoreTask.setOnSucceeded(event -> {
+            showAlert("Restore Earlier Version", "The timetable was restored to: " + entry.getDescription());
+        });
+        restoreTask.setOnFailed(event -> {
+            Throwable ex = restoreTask.getException();
+            ex.printStackTrace();
+            showAlert("Error", "Failed to restore the timetable: " + ex.getMessage());
+        });
+
+        Thread thread = new Thread(restoreTask, "db-restore");
+        thread.setDaemon(true);
+        thread.start();
     }
 
+    /**
+     * Writes the weekly timetable of every student to a CSV file chosen by the user.
+     */
+    private void exportStudentTimetables() {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Export Student Timetables");
+        fileChooser.setInitialFileName("student_timetables.csv");
+        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV Files", "*.csv"));
+        File file = fileChooser.showSaveDialog(timetableTable.getScene().getWindow());
+        if (file == null) {
+            return;
+        }
+
+        Task<Integer> exportTask = new Task<>() {
+            @Override
+            protected Integer call() throws Exception {
+                return Database.getStudentTimetables().exportCsv(file.toPath());
+            }
+        };
+        exportTask.setOnSucceeded(event -> {
+            showAlert("Export Student Timetables", "Exported the timetables of " + exportTask.getValue()
+                    + " students to " + file.getName() + ".");
+        });
+        exportTask.setOnFailed(event -> {
+            Throwable ex = exportTask.getException();
+            ex.printStackTrace();
+            showAlert("Error", "Failed to export the student timetables: " + ex.getMessage());
+        });
 
+        Thread thread = new Thread(exportTask, "timetable-export");
+        thread.setDaemon(true);
+        thread.start();
+    }
 
+    private void performSearch() {
+        searchDelay.stop();
+        showCourses();
+    }
+
+    /**
+     * Loads the timetable from the database again, e.g. after a CSV import. Changes made through
+     * Database reach the table on their own (see onTimetableChange) and need no refresh.
+     */
     public void refreshTable() {
-        // Reload courses from the database to get updated assignments
-        Database.reloadCourses();
-
-        // Removing duplicate courses by courseID
-        List<Course> original = Database.getAllCourses();
-        LinkedHashMap<String, Course> uniqueCourses = new LinkedHashMap<>();
-        for (Course c : original) {
-            uniqueCourses.put(c.getCourseID(), c);
+        Database.reloadCourses(); // The reload is published as RELOADED, which refills the table
+    }
+
+    /**
+     * Fills the table with the courses matching the search box, or all courses if it is empty.
+     * See CourseSearchIndex for the query syntax.
+     */
+    private void showCourses() {
+        String query = txtSearch.getText();
+        List<Course> courses = query == null || query.isBlank()
+                ? Database.getAllCourses()
+                : Database.getSearchIndex().search(query);
+        timetableTable.setItems(FXCollections.observableArrayList(courses));
+    }
+
+    private boolean isSearching() {
+        return txtSearch.getText() != null && !txtSearch.getText().isBlank();
+    }
+
+    /**
+     * Builds the search index and the student timetables in the background after the timetable
+     * was (re)loaded, so the first search or student schedule does not wait for them.
+     */
+    private void prepareIndexes() {
+        Thread thread = new Thread(() -> {
+            Database.getSearchIndex().prepare();
+            Database.getStudentTimetables().prepare();
+        }, "timetable-indexes");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Subscribes this table to the timetable, in place of the table of an earlier mainLayout.
+     */
+    private void listenForChanges() {
+        TimetableRepository repository = Database.getRepository();
+        if (tableListener != null) {
+            repository.removeListener(tableListener);
         }
+        tableListener = this::onTimetableChange;
+        repository.addListener(tableListener);
+    }
 
-        // For each unique course, remove duplicate students
-        for (Course c : uniqueCourses.values()) {
-            LinkedHashMap<String, Student> uniqueStudents = new LinkedHashMap<>();
-            for (Student s : c.getStudents()) {
-                // Use getFullName(), getStudentId(), or another unique field as the key
-                // Assuming fullName is unique for demonstration:
-                uniqueStudents.put(s.getFullName(), s);
+    /**
+     * Queues a change of the timetable, made on any thread. The queued changes are applied together
+     * on the JavaFX thread, so e.g. a batch of moves updates each affected row once.
+     */
+    private void onTimetableChange(TimetableRepository.Change change) {
+        synchronized (pendingChanges) {
+            if (change.getType() == TimetableRepository.Change.Type.RELOADED) {
+                pendingChanges.clear(); // Everything is read again anyway
+            }
+            pendingChanges.add(change);
+            if (patchScheduled) {
+                return;
             }
-            // Replace the course's student list with a new list of unique students
-            c.setStudents(new ArrayList<>(uniqueStudents.values()));
+            patchScheduled = true;
         }
+        Platform.runLater(this::patchTable);
+    }
 
-        ObservableList<Course> updatedCourses = FXCollections.observableArrayList(uniqueCourses.values());
-        timetableTable.setItems(updatedCourses);
+    /**
+     * Applies the queued changes to the rows they concern; only a reload replaces all rows.
+     */
+    private void patchTable() {
+        List<TimetableRepository.Change> changes;
+        synchronized (pendingChanges) {
+            changes = new ArrayList<>(pendingChanges);
+            pendingChanges.clear();
+            patchScheduled = false;
+        }
 
-        // Update TimetableManager
-        TimetableManager.getTimetable().clear(); // Clear old timetable
-        TimetableManager.getTimetable().addAll(updatedCourses);
+        if (isSearching()) {
+            // Changed courses may start or stop matching, so run the search again
+            showCourses();
+            return;
+        }
 
-        // Update the table with the filtered, unique courses
-        // Step 3: Update the table with the filtered, unique courses
-        timetableTable.getItems().clear();
-        timetableTable.setItems(FXCollections.observableArrayList(uniqueCourses.values()));
+        ObservableList<Course> rows = timetableTable.getItems();
+        Set<Course> updated = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (TimetableRepository.Change change : changes) {
+            Course course = change.getCourse();
+            switch (change.getType()) {
+                case RELOADED -> {
+                    showCourses();
+                    rows = timetableTable.getItems();
+                    prepareIndexes();
+                }
+                case ADDED -> rows.add(course);
+                case REMOVED -> rows.remove(course);
+                case CLASSROOM_CHANGED, ENROLLMENT_CHANGED -> {
+                    int row = updated.add(course) ? rows.indexOf(course) : -1;
+                    if (row >= 0) {
+                        rows.set(row, course); // Replacing the row with itself redraws just that row
+                    }
+                }
+            }
+        }
     }
 
     public void loadTimetableFromCSV(File file) {
@@ -241,14 +474,8 @@ public class ttManagerController {
 
            // stage.setOnCloseRequest(event -> refreshTable());  // Refresh table when the course scheduler window is closed
 
-            //TIMETABLE UPDATES
+            // Changes made in the course details reach the table as timetable events
             stage.showAndWait();
-            TimetableManager.getTimetable().clear();
-            Database.loadAllCourses();
-            TimetableManager.getTimetable().addAll(Database.getAllCourses());
-            timetableTable.getItems().clear();
-            timetableTable.setItems(FXCollections.observableArrayList(TimetableManager.getTimetable()));
-
 
         } catch (IOException e) {
             e.printStackTrace();
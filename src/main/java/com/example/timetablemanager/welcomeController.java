@@ -1,6 +1,7 @@
 package com.example.timetablemanager;
 
 import javafx.concurrent.Task;
+import javafx.concurrent.Worker;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.control.*;
@@ -12,12 +13,9 @@ import javafx.scene.Parent;
 
 import java.io.*;
 import java.net.URL;
-import java.nio.file.Files;
-import java.nio.file.StandardCopyOption;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
-import java.text.SimpleDateFormat;
 import java.util.*;
 
 public class welcomeController {
@@ -37,6 +35,12 @@ public class welcomeController {
     @FXML
     private javafx.scene.image.ImageView logoImageView;
 
+    // The running CSV import, if any
+    private Task<CsvImporter.Changes> integrationTask;
+    // Whether it replaces the timetable, and the backup of the timetable it replaces (null if there was none)
+    private boolean replacingTimetable;
+    private DatabaseBackup.Backup replacedTimetableBackup;
+
     @FXML
     public void initialize() {
         loadLogo();
@@ -72,8 +76,8 @@ public class welcomeController {
             if (userWantsExistingDB) {
                 // user wants to keep using existing DB
                 try {
-                    Connection conn = Database.connect();
-                    if (conn == null) {
+                    Database.connect();
+                    if (Database.getPoolMetrics() == null) {
                         throw new SQLException("Failed to connect to the existing database.");
                     }
                     // Clear and re-fetch in-memory data
@@ -105,8 +109,7 @@ public class welcomeController {
 
         try {
             // 2) Clear the DB so it's truly blank
-            Connection conn = Database.connect();
-            clearDatabase(conn); // new method (see below)
+            clearDatabase(); // new method (see below)
 
             // 3) Load the main layout
             FXMLLoader fxmlLoader = new FXMLLoader(
@@ -130,10 +133,12 @@ public class welcomeController {
     /**
      * "Open CSV" button => user picks 2 CSV files manually.
      * Once chosen, we:
-     *  1) Backup existing DB if it exists
-     *  2) Clear the DB
-     *  3) Integrate CSV data into the now-empty DB
-     *  4) Load main layout
+     *  1) If the DB already holds a timetable, ask whether to update it or replace it
+     *  2) Backup existing DB if it exists
+     *  3) Clear the DB (replace only)
+     *  4) Integrate CSV data: a full import into the now-empty DB, or a delta import that keeps
+     *     the classroom allocations of unchanged courses
+     *  5) Load main layout
      */
     @FXML
     public void selectAndAnalyzeCSVFiles() {
@@ -171,13 +176,24 @@ public class welcomeController {
             return;
         }
 
-        // 1) Backup existing DB if present
-        backupExistingDbFile();
+        // 1) Update the existing timetable in place or replace it
+        boolean delta = false;
+        if (Database.hasCourses()) {
+            ButtonType mode = showImportModeAlert();
+            if (mode == ButtonType.CANCEL) {
+                return;
+            }
+            delta = mode == ButtonType.YES;
+        }
+
+        // 2) Backup existing DB if present
+        replacedTimetableBackup = backupExistingDbFile();
 
         try {
-            // 2) Clear the DB so it's truly blank
-            Connection conn = Database.connect();
-            clearDatabase(conn);
+            // 3) Clear the DB so it's truly blank
+            if (!delta) {
+                clearDatabase();
+            }
 
             // Show progress + integrate files
             selectedFilesLabel.setText("Selected Course File: " + courseFile.getName() +
@@ -189,8 +205,8 @@ public class welcomeController {
             progressBar.setVisible(true);
             cancelButton.setVisible(true);
 
-            // 3) Now run database integration
-            runDatabaseIntegrationTask(courseFile, classroomFile);
+            // 4) Now run database integration
+            runDatabaseIntegrationTask(courseFile, classroomFile, delta);
         } catch (SQLException e) {
             e.printStackTrace();
             showAlert(Alert.AlertType.ERROR, "Error",
@@ -199,60 +215,64 @@ public class welcomeController {
     }
 
     /**
-     * Utility: If a TimetableManagement.db already exists in Documents, copy it
-     * to `saves/` directory under your project root, named with a timestamp,
-     * e.g. dbLog[22.12.24](13.25).db
+     * Utility: backs up the current timetable to the `saves/` directory, e.g.
+     * dbLog[22.12.24_13.25.07].db.gz (see DatabaseBackup). Only the start of the backup happens
+     * here; it captures the database as it is now, so the caller may clear it right away.
+     *
+     * @return The running backup, or null if there was nothing to back up or it could not start.
      */
-    private void backupExistingDbFile() {
-        File dbDir = new File(System.getProperty("user.home"),
-                "Documents" + File.separator + "TimetableManagement");
-        File dbFile = new File(dbDir, "TimetableManagement.db");
-
-        if (!dbFile.exists()) {
-            return; // no DB => no backup needed
+    private DatabaseBackup.Backup backupExistingDbFile() {
+        try {
+            return DatabaseBackup.start();
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return null;
         }
+    }
 
-        // Build saves/ subdirectory in your project root
-        File savesDir = new File("saves");
-        if (!savesDir.exists()) {
-            savesDir.mkdirs();
+    /**
+     * A full import commits chunk by chunk into the cleared database, so when it fails or is
+     * cancelled the timetable holds only the part of the CSV files imported until then.
+     */
+    private String partialImportMessage() {
+        String message = "The timetable now holds only part of the CSV files.";
+        if (replacedTimetableBackup == null) {
+            return message + " Import the files again to get the whole timetable.";
         }
-
-        // Create a date-time stamp for the backup name
-        String timeStamp = new SimpleDateFormat("dd.MM.yy_HH.mm")
-                .format(new Date());
-        String backupName = "dbLog[" + timeStamp + "].db";
-
-        File backupFile = new File(savesDir, backupName);
-        try {
-            Files.copy(dbFile.toPath(), backupFile.toPath(),
-                    StandardCopyOption.REPLACE_EXISTING);
-            System.out.println("Backed up existing DB to: " + backupFile.getAbsolutePath());
-        } catch (IOException e) {
-            e.printStackTrace();
+        if (replacedTimetableBackup.getState() == Worker.State.FAILED) {
+            return message + " The backup of the previous timetable failed: "
+                    + replacedTimetableBackup.getException().getMessage();
         }
+        return message + " The previous timetable was backed up to\n"
+                + replacedTimetableBackup.getFile().getAbsolutePath()
+                + "\n(gunzip it to open it again), or import the files again.";
     }
 
     /**
      * Clears all rows from every table, effectively leaving an empty DB.
      * Adjust if you have constraints or special table dependencies.
      */
-    private void clearDatabase(Connection conn) throws SQLException {
-        // Because of foreign keys, might need to disable/enable constraints or
-        // delete in correct order. For example:
-        try (PreparedStatement ps1 = conn.prepareStatement("DELETE FROM Allocated");
-             PreparedStatement ps2 = conn.prepareStatement("DELETE FROM Enrollments");
-             PreparedStatement ps3 = conn.prepareStatement("DELETE FROM Students");
-             PreparedStatement ps4 = conn.prepareStatement("DELETE FROM Classrooms");
-             PreparedStatement ps5 = conn.prepareStatement("DELETE FROM Courses")) {
-            ps1.executeUpdate();
-            ps2.executeUpdate();
-            ps3.executeUpdate();
-            ps4.executeUpdate();
-            ps5.executeUpdate();
-        }
+    private void clearDatabase() throws SQLException {
+        // Children before parents because of the foreign keys; all or nothing, with its journal row
+        Database.inTransaction(conn -> {
+            try (PreparedStatement ps1 = conn.prepareStatement("DELETE FROM Allocated");
+                 PreparedStatement ps2 = conn.prepareStatement("DELETE FROM Enrollments");
+                 PreparedStatement ps3 = conn.prepareStatement("DELETE FROM Students");
+                 PreparedStatement ps4 = conn.prepareStatement("DELETE FROM Classrooms");
+                 PreparedStatement ps5 = conn.prepareStatement("DELETE FROM Courses")) {
+                ps1.executeUpdate();
+                ps2.executeUpdate();
+                ps3.executeUpdate();
+                ps4.executeUpdate();
+                ps5.executeUpdate();
+                // Earlier changes can't be undone on an empty timetable, but stay in the journal for restoring
+                ChangeJournal.append(conn, ChangeJournal.Kind.CLEAR, 0, "Cleared the timetable", null);
+            }
+            return null;
+        });
         // Also clear in-memory lists:
         TimetableManager.getTimetable().clear();
+        Database.reloadCourses();
         System.out.println("Database tables cleared. Now empty.");
     }
 
@@ -277,155 +297,57 @@ public class welcomeController {
     }
 
     /**
-     * Run a background Task to read and integrate the CSV data into the (now-blank) DB.
+     * Run a background Task to read and integrate the CSV data into the DB: into the now-blank DB,
+     * or, with {@code delta}, as a diff against its current contents.
      */
-    private void runDatabaseIntegrationTask(File courseCSV, File classroomCSV) {
-        Task<Void> integrationTask = new Task<>() {
+    private void runDatabaseIntegrationTask(File courseCSV, File classroomCSV, boolean delta) {
+        replacingTimetable = !delta;
+        integrationTask = new Task<>() {
             @Override
-            protected Void call() throws Exception {
-                Connection conn = Database.connect();
-                if (conn == null) {
-                    throw new SQLException("Failed to connect to database.");
-                }
-                // Disable auto-commit for transaction
-                conn.setAutoCommit(false);
-
-                int totalSteps = countLines(courseCSV) - 1; // minus 1 for header
-                totalSteps += (countLines(classroomCSV) - 1);
-                if (totalSteps <= 0) totalSteps = 1;
-
-                int currentStep = 0;
-
-                String insertCourseSQL =
-                        "INSERT OR REPLACE INTO Courses (courseName, lecturer, duration, timeToStart) "
-                                + "VALUES (?, ?, ?, ?)";
-                PreparedStatement courseStmt = conn.prepareStatement(insertCourseSQL);
-
-                String insertStudentSQL =
-                        "INSERT OR REPLACE INTO Students (studentName) VALUES (?)";
-                PreparedStatement studentStmt = conn.prepareStatement(insertStudentSQL);
-
-                String insertEnrollmentSQL =
-                        "INSERT OR REPLACE INTO Enrollments (courseName, studentName) VALUES (?, ?)";
-                PreparedStatement enrollmentStmt = conn.prepareStatement(insertEnrollmentSQL);
-
-                String insertClassroomSQL =
-                        "INSERT OR REPLACE INTO Classrooms (classroomName, capacity) VALUES (?, ?)";
-                PreparedStatement classroomStmt = conn.prepareStatement(insertClassroomSQL);
-
-                // 1) Process Course CSV
-                try (BufferedReader br = new BufferedReader(new FileReader(courseCSV))) {
-                    String line = br.readLine(); // skip header
-                    while ((line = br.readLine()) != null) {
-                        String[] columns = line.split(";");
-                        if (columns.length < 4) {
-                            System.err.println("Skipping invalid line: " + line);
-                            continue;
-                        }
-                        String courseName = columns[0];
-                        String startTime = columns[1];
-
-                        String durStr = columns[2].replaceAll("[^0-9]", "");
-                        int duration = 0;
-                        if (!durStr.isEmpty()) {
-                            try {
-                                duration = Integer.parseInt(durStr);
-                            } catch (NumberFormatException e) {
-                                System.err.println("Invalid duration for " + courseName + ": " + columns[2]);
-                                continue;
-                            }
-                        }
-                        String lecturer = columns[3];
-
-                        // Next columns might be students
-                        List<String> students = new ArrayList<>();
-                        for (int i = 4; i < columns.length; i++) {
-                            students.add(columns[i]);
-                        }
-
-                        // Insert course
-                        courseStmt.setString(1, courseName);
-                        courseStmt.setString(2, lecturer);
-                        courseStmt.setInt(3, duration);
-                        courseStmt.setString(4, startTime);
-                        courseStmt.addBatch();
-
-                        // Insert students + enrollments
-                        for (String s : students) {
-                            studentStmt.setString(1, s);
-                            studentStmt.addBatch();
-
-                            enrollmentStmt.setString(1, courseName);
-                            enrollmentStmt.setString(2, s);
-                            enrollmentStmt.addBatch();
-                        }
-
-                        currentStep++;
-                        updateProgress(currentStep, totalSteps);
+            protected CsvImporter.Changes call() throws Exception {
+                CsvImporter.Changes changes = null;
+                // The writer is held for the whole import; readers are not blocked meanwhile
+                try (Connection conn = Database.writer()) {
+                    CsvImporter importer = new CsvImporter()
+                            .setProgressListener((bytesRead, totalBytes) -> updateProgress(bytesRead, totalBytes))
+                            .setCancelled(this::isCancelled);
+                    if (delta) {
+                        changes = importer.importDelta(conn, courseCSV, classroomCSV);
+                        System.out.println("CSV delta import finished:\n" + changes);
+                    } else {
+                        CsvImporter.Result result = importer.importFiles(conn, courseCSV, classroomCSV);
+                        System.out.println("CSV import finished: " + result);
                     }
                 }
 
-                // 2) Process Classroom CSV
-                try (BufferedReader br = new BufferedReader(new FileReader(classroomCSV))) {
-                    String line = br.readLine(); // skip header
-                    while ((line = br.readLine()) != null) {
-                        String[] columns = line.split(";");
-                        if (columns.length < 2) {
-                            System.err.println("Skipping invalid line: " + line);
-                            continue;
-                        }
-                        String classroomName = columns[0];
-                        String capacityStr = columns[1];
-
-                        int capacity;
-                        try {
-                            capacity = Integer.parseInt(capacityStr);
-                        } catch (NumberFormatException e) {
-                            System.err.println("Invalid capacity for classroom " + classroomName);
-                            continue;
-                        }
-
-                        // Insert classroom
-                        classroomStmt.setString(1, classroomName);
-                        classroomStmt.setInt(2, capacity);
-                        classroomStmt.addBatch();
-
-                        currentStep++;
-                        updateProgress(currentStep, totalSteps);
-                    }
-                }
-
-                // Execute batches
-                courseStmt.executeBatch();
-                studentStmt.executeBatch();
-                enrollmentStmt.executeBatch();
-                classroomStmt.executeBatch();
-
-                // commit
-                conn.commit();
-                conn.setAutoCommit(true);
-
                 // Reload into in-memory list
                 TimetableManager.getTimetable().clear();
                 TimetableManager.getTimetable().addAll(Database.getAllCourses());
 
-                return null;
+                return changes;
             }
         };
 
         // On success
-        integrationTask.setOnSucceeded(event -> navigateToMainLayout());
+        integrationTask.setOnSucceeded(event -> {
+            CsvImporter.Changes changes = integrationTask.getValue();
+            if (changes != null) {
+                showAlert(Alert.AlertType.INFORMATION, "Import Summary",
+                        changes.isEmpty() ? "The CSV files match the current timetable; nothing changed."
+                                : changes.toString());
+            }
+            // Restoring to a point after this import replays the journal onto this backup
+            backupExistingDbFile();
+            navigateToMainLayout();
+        });
 
         // On fail
         integrationTask.setOnFailed(event -> {
             Throwable ex = integrationTask.getException();
             showAlert(Alert.AlertType.ERROR,
-                    "Error", "Database integration failed: " + ex.getMessage());
+                    "Error", "Database integration failed: " + ex.getMessage()
+                            + (delta ? "\nThe timetable was left unchanged." : "\n\n" + partialImportMessage()));
             System.err.println("DB integration failed: " + ex.getMessage());
-            try {
-                Connection c = Database.connect();
-                if (c != null) c.rollback();
-            } catch (SQLException ignored) {}
         });
 
         progressBar.progressProperty().bind(integrationTask.progressProperty());
@@ -435,16 +357,6 @@ public class welcomeController {
         thread.start();
     }
 
-    private int countLines(File file) throws IOException {
-        int lines = 0;
-        try (BufferedReader br = new BufferedReader(new FileReader(file))) {
-            while (br.readLine() != null) {
-                lines++;
-            }
-        }
-        return lines;
-    }
-
     /**
      * Once DB is integrated or loaded, navigate to main layout.
      */
@@ -489,9 +401,56 @@ public class welcomeController {
         startBlankButton.setVisible(true);
         openCSVButton.setVisible(true);
 
+        // Stop a running import; a full import keeps the chunks it already committed, a delta import is rolled back
+        boolean partial = false;
+        if (integrationTask != null && integrationTask.isRunning()) {
+            integrationTask.cancel();
+            partial = replacingTimetable;
+        }
+
         // Disconnect from DB and clear in-memory timetable
         Database.close();
         TimetableManager.getTimetable().clear();
+
+        if (partial) {
+            showAlert(Alert.AlertType.WARNING, "Import Cancelled", partialImportMessage());
+        }
+    }
+
+    /**
+     * Asks how CSV files are imported into a DB that already holds a timetable.
+     *
+     * @return YES to update the timetable in place, NO to replace it, CANCEL to stop.
+     */
+    private ButtonType showImportModeAlert() {
+        Alert alert = new Alert(Alert.AlertType.CONFIRMATION);
+        try {
+            Stage stage = (Stage) alert.getDialogPane().getScene().getWindow();
+            stage.getIcons().add(new Image(
+                    getClass().getResourceAsStream("/com/example/timetablemanager/icons/alert.png")));
+        } catch (RuntimeException e) {
+            System.err.println("Couldn't load alert icon");
+            e.printStackTrace();
+        }
+
+        alert.setTitle("Existing Timetable Found");
+        alert.setHeaderText(null);
+        alert.setContentText(
+                "The database already contains a timetable.\n\n"
+                        + "Update it: only the differences to the CSV files are applied, and classroom "
+                        + "allocations of unchanged courses are kept.\n"
+                        + "Replace it: the database is cleared and the CSV files are imported from scratch."
+        );
+
+        ButtonType updateButton = new ButtonType("Update", ButtonBar.ButtonData.YES);
+        ButtonType replaceButton = new ButtonType("Replace", ButtonBar.ButtonData.NO);
+        alert.getButtonTypes().setAll(updateButton, replaceButton, ButtonType.CANCEL);
+
+        ButtonType choice = alert.showAndWait().orElse(ButtonType.CANCEL);
+        if (choice == updateButton) {
+            return ButtonType.YES;
+        }
+        return choice == replaceButton ? ButtonType.NO : ButtonType.CANCEL;
     }
 
     /**
@@ -0,0 +1,62 @@
+package com.example.timetablemanager;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClassroomAssignmentSolverTest {
+
+    @Test
+    void badTimesAreReportedAsSuchEvenWhenNoRoomIsFree() {
+        Map<String, Integer> rooms = new LinkedHashMap<>();
+        rooms.put("R1", 30);
+        List<Course> courses = List.of(
+                course("FIXED", 5, "R1", "Monday 21:20", 2),
+                course("LATE", 5, "", "Monday 22:15", 2),
+                course("NO_DAY", 5, "", "Someday 08:30", 1),
+                course("EMPTY", 5, "", "Monday 21:20", 0),
+                course("TAKEN", 5, "", "Monday 22:15", 1));
+
+        ClassroomAssignmentSolver.Result result = new ClassroomAssignmentSolver(courses, rooms).solve();
+
+        assertTrue(result.getAssignments().isEmpty());
+        Map<String, String> unplaced = result.getUnplaced();
+        assertTrue(unplaced.get("LATE").startsWith("Runs past the end of the day"), unplaced.get("LATE"));
+        assertTrue(unplaced.get("NO_DAY").startsWith("Invalid or missing time"), unplaced.get("NO_DAY"));
+        assertTrue(unplaced.get("EMPTY").startsWith("Invalid duration"), unplaced.get("EMPTY"));
+        assertTrue(unplaced.get("TAKEN").contains("are taken"), unplaced.get("TAKEN"));
+    }
+
+    @Test
+    void coursesGoToTheSmallestFreeRoomThatHoldsThem() {
+        Map<String, Integer> rooms = new LinkedHashMap<>();
+        rooms.put("BIG", 100);
+        rooms.put("SMALL", 10);
+        rooms.put("MEDIUM", 30);
+        List<Course> courses = List.of(
+                course("A", 20, "", "Tuesday 08:30", 2),
+                course("B", 20, "", "Tuesday 09:25", 1),
+                course("C", 5, "", "Tuesday 22:15", 1),
+                course("D", 200, "", "Tuesday 08:30", 1));
+
+        ClassroomAssignmentSolver.Result result = new ClassroomAssignmentSolver(courses, rooms).solve();
+
+        assertEquals("MEDIUM", result.getAssignments().get("A"));
+        assertEquals("BIG", result.getAssignments().get("B"));
+        assertEquals("SMALL", result.getAssignments().get("C"));
+        assertTrue(result.getUnplaced().get("D").startsWith("No classroom can hold 200 students"));
+    }
+
+    private static Course course(String name, int students, String classroom, String timeToStart, int duration) {
+        List<Student> enrolled = new ArrayList<>();
+        for (int i = 0; i < students; i++) {
+            enrolled.add(new Student(name + " student " + i, new ArrayList<>()));
+        }
+        return new Course(name, 0, enrolled, classroom, timeToStart, duration, "Lecturer");
+    }
+}
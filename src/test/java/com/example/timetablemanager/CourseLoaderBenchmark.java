@@ -0,0 +1,252 @@
+package com.example.timetablemanager;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stand-alone benchmark comparing the old per-course (N+1) loader with
+ * Database.loadCourseGraph on a synthetic database.
+ *
+ * Run with (after mvn test-compile):
+ * java -cp target/classes:target/test-classes:sqlite-jdbc.jar com.example.timetablemanager.CourseLoaderBenchmark [courses] [enrollments]
+ *
+ * The benchmark works on a temporary directory and never touches the user's database.
+ */
+public class CourseLoaderBenchmark {
+
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws Exception {
+        int courseCount = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int enrollmentCount = args.length > 1 ? Integer.parseInt(args[1]) : 40000;
+
+        File dir = Files.createTempDirectory("ttm-bench").toFile();
+        System.setProperty("timetablemanager.dbPath", dir.getAbsolutePath());
+        System.setProperty("timetablemanager.backupDir", new File(dir, "saves").getAbsolutePath());
+
+        Database.connect();
+        try (Connection writer = Database.writer()) {
+            populate(writer, courseCount, enrollmentCount);
+        }
+
+        Connection conn = Database.reader();
+
+        // Warm-up both paths once so the JIT and SQLite page cache are comparable
+        loadPerCourse(conn);
+        Database.loadCourseGraph(conn);
+
+        AtomicInteger legacyQueries = new AtomicInteger();
+        Connection legacyConn = countingConnection(conn, legacyQueries);
+        long legacyNanos = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            loadPerCourse(legacyConn);
+            legacyNanos += System.nanoTime() - start;
+        }
+
+        AtomicInteger graphQueries = new AtomicInteger();
+        Connection graphConn = countingConnection(conn, graphQueries);
+        long graphNanos = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            Database.loadCourseGraph(graphConn);
+            graphNanos += System.nanoTime() - start;
+        }
+
+        System.out.printf("Courses: %d, enrollments: %d%n", courseCount, enrollmentCount);
+        System.out.printf("Per-course loader: %6d queries, %8.2f ms%n",
+                legacyQueries.get() / ROUNDS, legacyNanos / 1e6 / ROUNDS);
+        System.out.printf("Join loader:       %6d queries, %8.2f ms%n",
+                graphQueries.get() / ROUNDS, graphNanos / 1e6 / ROUNDS);
+
+        conn.close();
+
+        // Startup: the whole connect() from SQL, then from the snapshot a clean shutdown leaves behind
+        File snapshot = new File(dir, TimetableSnapshot.FILE_NAME);
+        long sqlNanos = 0;
+        long snapshotNanos = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            Database.close();
+            Files.deleteIfExists(snapshot.toPath());
+            long start = System.nanoTime();
+            Database.connect();
+            sqlNanos += System.nanoTime() - start;
+
+            Database.shutdown();
+            start = System.nanoTime();
+            Database.connect();
+            snapshotNanos += System.nanoTime() - start;
+        }
+        System.out.printf("Startup from SQL:      %8.2f ms%n", sqlNanos / 1e6 / ROUNDS);
+        System.out.printf("Startup from snapshot: %8.2f ms (%d bytes)%n",
+                snapshotNanos / 1e6 / ROUNDS, snapshot.length());
+
+        Database.close();
+        deleteRecursively(dir);
+    }
+
+    /**
+     * Fills the empty benchmark database with courses, classrooms, allocations and enrollments.
+     */
+    private static void populate(Connection conn, int courseCount, int enrollmentCount) throws SQLException {
+        Random random = new Random(42);
+        int classroomCount = Math.max(1, courseCount / 20);
+        int studentCount = Math.max(1, enrollmentCount / 8);
+        String[] days = {"Monday", "Tuesday", "Wednesday", "Thursday", "Friday"};
+        String[] times = {"08:30", "09:25", "10:20", "11:15", "12:10", "13:05", "14:00", "14:55"};
+
+        conn.setAutoCommit(false);
+        try (PreparedStatement course = conn.prepareStatement(
+                "INSERT INTO Courses (courseName, lecturer, duration, timeToStart) VALUES (?, ?, ?, ?)");
+             PreparedStatement classroom = conn.prepareStatement(
+                     "INSERT INTO Classrooms (classroomName, capacity) VALUES (?, ?)");
+             PreparedStatement allocation = conn.prepareStatement(Database.INSERT_ALLOCATION_SQL);
+             PreparedStatement student = conn.prepareStatement(
+                     "INSERT INTO Students (studentName) VALUES (?)");
+             PreparedStatement enrollment = conn.prepareStatement(Database.INSERT_ENROLLMENT_SQL)) {
+
+            for (int i = 0; i < classroomCount; i++) {
+                classroom.setString(1, "C" + i);
+                classroom.setInt(2, 20 + random.nextInt(100));
+                classroom.addBatch();
+            }
+            for (int i = 0; i < courseCount; i++) {
+                course.setString(1, "COURSE" + i);
+                course.setString(2, "Lecturer" + random.nextInt(courseCount / 4 + 1));
+                course.setInt(3, 1 + random.nextInt(3));
+                course.setString(4, days[random.nextInt(days.length)] + " " + times[random.nextInt(times.length)]);
+                course.addBatch();
+                if (random.nextInt(10) < 8) {
+                    allocation.setString(1, "COURSE" + i);
+                    allocation.setString(2, "C" + random.nextInt(classroomCount));
+                    allocation.addBatch();
+                }
+            }
+            for (int i = 0; i < studentCount; i++) {
+                student.setString(1, "Student" + i);
+                student.addBatch();
+            }
+            for (int i = 0; i < enrollmentCount; i++) {
+                enrollment.setString(1, "COURSE" + random.nextInt(courseCount));
+                enrollment.setString(2, "Student" + random.nextInt(studentCount));
+                enrollment.addBatch();
+            }
+            classroom.executeBatch();
+            course.executeBatch();
+            allocation.executeBatch();
+            student.executeBatch();
+            enrollment.executeBatch();
+            conn.commit();
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * The loader as it was before the join rewrite: one enrollment query, one allocation
+     * query and one capacity query per course, each with a freshly prepared statement.
+     */
+    private static List<Course> loadPerCourse(Connection conn) throws SQLException {
+        List<Course> courses = new ArrayList<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT DISTINCT courseName, timeToStart, duration, lecturer FROM Courses")) {
+            while (rs.next()) {
+                String courseName = rs.getString("courseName");
+
+                List<Student> students = new ArrayList<>();
+                try (PreparedStatement pstmt = conn.prepareStatement(
+                        "SELECT s.studentName FROM Enrollments e JOIN Students s ON s.studentId = e.studentId "
+                                + "WHERE e.courseId = (SELECT courseId FROM Courses WHERE courseName = ?)")) {
+                    pstmt.setString(1, courseName);
+                    try (ResultSet rs1 = pstmt.executeQuery()) {
+                        while (rs1.next()) {
+                            students.add(new Student(rs1.getString("studentName"), new ArrayList<>()));
+                        }
+                    }
+                }
+
+                String classroomName = "";
+                try (PreparedStatement pstmt = conn.prepareStatement(
+                        "SELECT cl.classroomName FROM Allocated a JOIN Classrooms cl ON cl.classroomId = a.classroomId "
+                                + "WHERE a.courseId = (SELECT courseId FROM Courses WHERE courseName = ?)")) {
+                    pstmt.setString(1, courseName);
+                    try (ResultSet rs2 = pstmt.executeQuery()) {
+                        if (rs2.next()) {
+                            classroomName = rs2.getString("classroomName");
+                        }
+                    }
+                }
+
+                int capacity = 0;
+                if (!classroomName.isEmpty()) {
+                    try (PreparedStatement pstmt = conn.prepareStatement(
+                            "SELECT capacity FROM Classrooms WHERE classroomName = ?")) {
+                        pstmt.setString(1, classroomName);
+                        try (ResultSet rs3 = pstmt.executeQuery()) {
+                            if (rs3.next()) {
+                                capacity = rs3.getInt("capacity");
+                            }
+                        }
+                    }
+                }
+
+                courses.add(new Course(courseName, capacity, students, classroomName,
+                        rs.getString("timeToStart"), rs.getInt("duration"), rs.getString("lecturer")));
+            }
+        }
+        return courses;
+    }
+
+    /**
+     * Wraps a connection so that every statement execution increments the given counter.
+     */
+    static Connection countingConnection(Connection target, AtomicInteger counter) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(target, method, args);
+                    if (result instanceof PreparedStatement ps) {
+                        return countingStatement(ps, PreparedStatement.class, counter);
+                    }
+                    if (result instanceof Statement st) {
+                        return countingStatement(st, Statement.class, counter);
+                    }
+                    return result;
+                });
+    }
+
+    private static <T extends Statement> T countingStatement(T target, Class<T> type, AtomicInteger counter) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    if (method.getName().startsWith("execute")) {
+                        counter.incrementAndGet();
+                    }
+                    return invoke(target, method, args);
+                }));
+    }
+
+    private static Object invoke(Object target, java.lang.reflect.Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    static void deleteRecursively(File file) throws IOException {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        Files.deleteIfExists(file.toPath());
+    }
+}
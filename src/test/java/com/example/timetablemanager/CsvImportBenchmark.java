@@ -0,0 +1,204 @@
+package com.example.timetablemanager;
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Stand-alone benchmark for CsvImporter on a synthetic course file:
+ * <ul>
+ *     <li>the old serial parsing (BufferedReader, split(";"), replaceAll, TimeSlots.normalize)</li>
+ *     <li>the parse stages of the pipeline (mapped tokenizer and symbol table) with one parser thread
+ *     and with all cores</li>
+ *     <li>a full import into a temporary database, then a delta import of the same files over it</li>
+ * </ul>
+ * Besides the time, every parse run reports how much heap all threads allocated during the run.
+ *
+ * Run with (after mvn test-compile):
+ * java -cp target/classes:target/test-classes:sqlite-jdbc.jar com.example.timetablemanager.CsvImportBenchmark [lines] [importLines]
+ *
+ * The benchmark works on a temporary directory and never touches the user's database.
+ */
+public class CsvImportBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int lineCount = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int importLineCount = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        File dir = Files.createTempDirectory("ttm-csv-bench").toFile();
+        // Before anything loads Database, which reads the paths once
+        System.setProperty("timetablemanager.dbPath", dir.getAbsolutePath());
+        System.setProperty("timetablemanager.backupDir", new File(dir, "saves").getAbsolutePath());
+        File courseCsv = new File(dir, "courses.csv");
+        File importCsv = new File(dir, "courses-import.csv");
+        File classroomCsv = new File(dir, "classrooms.csv");
+        writeCourses(courseCsv, lineCount);
+        writeCourses(importCsv, importLineCount);
+        try (PrintWriter writer = new PrintWriter(new FileWriter(classroomCsv))) {
+            writer.println("Classroom;Capacity");
+            for (int i = 0; i < 200; i++) {
+                writer.println("C" + i + ";" + (20 + i % 100));
+            }
+        }
+        double megabytes = courseCsv.length() / 1e6;
+        System.out.printf("Course file: %d lines, %.1f MB, %d cores%n", lineCount, megabytes, cores);
+
+        startAllocationSampler();
+
+        // Warm-up so the JIT has compiled both parsers
+        parseSerially(courseCsv);
+        new CsvImporter().parseCourses(courseCsv);
+
+        long allocated = allocatedBytes();
+        long start = System.nanoTime();
+        int serialCourses = parseSerially(courseCsv);
+        report("Serial split/replaceAll", serialCourses, megabytes, System.nanoTime() - start, allocated);
+
+        allocated = allocatedBytes();
+        start = System.nanoTime();
+        CsvImporter single = new CsvImporter().setParallelism(1);
+        int singleCourses = single.parseCourses(courseCsv).getCourses();
+        report("Pipeline, 1 parser", singleCourses, megabytes, System.nanoTime() - start, allocated);
+
+        allocated = allocatedBytes();
+        start = System.nanoTime();
+        int parallelCourses = new CsvImporter().setParallelism(cores).parseCourses(courseCsv).getCourses();
+        report("Pipeline, " + cores + " parsers", parallelCourses, megabytes, System.nanoTime() - start, allocated);
+        System.out.printf("Distinct names: %d%n", single.distinctNames());
+
+        Database.connect();
+        start = System.nanoTime();
+        CsvImporter.Result imported;
+        try (Connection conn = Database.writer()) {
+            imported = new CsvImporter().importFiles(conn, importCsv, classroomCsv);
+        }
+        long importNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        CsvImporter.Changes changes;
+        try (Connection conn = Database.writer()) {
+            changes = new CsvImporter().importDelta(conn, importCsv, classroomCsv);
+        }
+        long deltaNanos = System.nanoTime() - start;
+        Database.close();
+        System.out.printf("Full import of %d lines: %s, %.0f ms (%.0f lines/s)%n", importLineCount, imported,
+                importNanos / 1e6, importLineCount / (importNanos / 1e9));
+        System.out.printf("Delta re-import of the same files: %.0f ms (%.0f%% of the full import), nothing changed: %b%n",
+                deltaNanos / 1e6, 100.0 * deltaNanos / importNanos, changes.isEmpty());
+
+        CourseLoaderBenchmark.deleteRecursively(dir);
+    }
+
+    private static void report(String label, int courses, double megabytes, long nanos, long allocatedBefore) {
+        double seconds = nanos / 1e9;
+        double allocatedMegabytes = (allocatedBytes() - allocatedBefore) / 1e6;
+        System.out.printf("%-26s %8d courses, %8.0f ms, %7.1f MB/s, %10.0f lines/s, %8.1f MB allocated%n",
+                label, courses, nanos / 1e6, megabytes / seconds, courses / seconds, allocatedMegabytes);
+    }
+
+    // Last allocation count seen per thread id, so threads that ended (parser pools) still count
+    private static final Map<Long, Long> allocatedByThread = new ConcurrentHashMap<>();
+    private static final int SAMPLE_MILLIS = 5;
+
+    /**
+     * @return Heap bytes allocated by all threads the benchmark has seen since the JVM started, or 0
+     * if the JVM cannot tell.
+     */
+    private static long allocatedBytes() {
+        sampleAllocations();
+        long total = 0;
+        for (long bytes : allocatedByThread.values()) {
+            total += bytes;
+        }
+        return total;
+    }
+
+    /**
+     * Records the allocation count of every live thread. ThreadMXBean only reports live threads,
+     * so a daemon thread samples every few milliseconds while the benchmark runs; a thread that
+     * ends loses at most the allocations since the last sample.
+     */
+    private static void sampleAllocations() {
+        try {
+            if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+                    && threads.isThreadAllocatedMemorySupported()) {
+                long[] ids = threads.getAllThreadIds();
+                long[] bytes = threads.getThreadAllocatedBytes(ids);
+                for (int i = 0; i < ids.length; i++) {
+                    if (bytes[i] >= 0) {
+                        allocatedByThread.merge(ids[i], bytes[i], Math::max);
+                    }
+                }
+            }
+        } catch (LinkageError e) {
+            // jdk.management is not part of this runtime
+        }
+    }
+
+    private static void startAllocationSampler() {
+        Thread sampler = new Thread(() -> {
+            while (true) {
+                sampleAllocations();
+                try {
+                    Thread.sleep(SAMPLE_MILLIS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }, "allocation-sampler");
+        sampler.setDaemon(true);
+        sampler.start();
+    }
+
+    private static void writeCourses(File file, int lines) throws IOException {
+        Random random = new Random(42);
+        String[] days = {"Monday", "Tuesday", "Wednesday", "Thursday", "Friday"};
+        String[] times = {"08:30", "09:25", "10:20", "11:15", "12:10", "13:05", "14:00", "14:55"};
+        try (PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(file), 1 << 16))) {
+            writer.println("Course;TimeToStart;DurationInLectureHours;Lecturer;Students");
+            for (int i = 0; i < lines; i++) {
+                StringBuilder line = new StringBuilder();
+                line.append("COURSE").append(i).append(';')
+                        .append(days[random.nextInt(days.length)]).append(' ').append(times[random.nextInt(times.length)])
+                        .append(';').append(1 + random.nextInt(3))
+                        .append(";Lecturer").append(random.nextInt(2000));
+                int students = random.nextInt(4);
+                for (int s = 0; s < students; s++) {
+                    line.append(";Student").append(random.nextInt(50_000));
+                }
+                writer.println(line);
+            }
+        }
+    }
+
+    /**
+     * Parsing as the import task did it before the pipeline: one thread, regex based splitting.
+     */
+    private static int parseSerially(File file) throws IOException {
+        int courses = 0;
+        try (BufferedReader br = new BufferedReader(new FileReader(file))) {
+            String line = br.readLine(); // skip header
+            while ((line = br.readLine()) != null) {
+                String[] columns = line.split(";");
+                if (columns.length < 4) {
+                    continue;
+                }
+                String durStr = columns[2].replaceAll("[^0-9]", "");
+                int duration = durStr.isEmpty() ? 0 : Integer.parseInt(durStr);
+                // Slot columns, as Database.bindCourse computed them on the import thread
+                String timeToStart = TimeSlots.normalize(columns[1]);
+                String time = TimeSlots.timePart(timeToStart);
+                int day = TimeSlots.dayIndex(TimeSlots.dayPart(timeToStart));
+                int endSlot = TimeSlots.endSlot(time, duration);
+                if (day >= -1 && endSlot >= -1) {
+                    courses++;
+                }
+            }
+        }
+        return courses;
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.timetablemanager;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The parse stages of CsvImporter must count the same courses and enrollments as reading the
+ * course file with readLine() and split(";"), however the file is cut into blocks and windows.
+ */
+class CsvImporterTest {
+
+    private static final String[] LINE_ENDINGS = {"\n", "\r\n", "\r"};
+
+    @TempDir
+    File dir;
+
+    @Test
+    void smallBlocksAndWindowsParseLikeReadLineAndSplit() throws Exception {
+        Random random = new Random(3);
+        for (int file = 0; file < 40; file++) {
+            String text = randomCourseFile(random, 1 + random.nextInt(40), random.nextBoolean());
+            File csv = new File(dir, "courses" + file + ".csv");
+            Files.writeString(csv.toPath(), text, Charset.defaultCharset());
+            int[] expected = countWithSplit(text);
+
+            for (int blockBytes = 1; blockBytes <= 64; blockBytes += 1 + random.nextInt(8)) {
+                for (int windowBytes : new int[]{64, 97, 256, 1 << 20}) {
+                    CsvImporter.Result result = new CsvImporter()
+                            .setParallelism(1 + random.nextInt(3))
+                            .setBufferSizes(blockBytes, windowBytes)
+                            .parseCourses(csv);
+                    String sizes = "blocks of " + blockBytes + ", windows of " + windowBytes + " in " + csv.getName();
+                    assertEquals(expected[0], result.getCourses(), "courses, " + sizes);
+                    assertEquals(expected[1], result.getEnrollments(), "enrollments, " + sizes);
+                    assertEquals(expected[2], result.getSkippedLines(), "skipped lines, " + sizes);
+                }
+            }
+        }
+    }
+
+    @Test
+    void lastLineWithoutLineBreakLongerThanABlock() throws Exception {
+        String text = "Course;TimeToStart;Duration;Lecturer;Students\n"
+                + "SE115;Monday 08:30;2;Dr. Kaya;Ali;Veli\r\n"
+                + "SE116;Tuesday 09:25;3;Dr. Demir;Ayse;Fatma;Zeynep";
+        File csv = new File(dir, "courses.csv");
+        Files.writeString(csv.toPath(), text, Charset.defaultCharset());
+
+        CsvImporter.Result result = new CsvImporter().setBufferSizes(8, 64).parseCourses(csv);
+        assertEquals(2, result.getCourses());
+        assertEquals(5, result.getEnrollments());
+    }
+
+    /**
+     * @return Courses, enrollments and skipped lines, counted the way the import did before the pipeline.
+     */
+    private static int[] countWithSplit(String text) throws IOException {
+        int[] counts = new int[3];
+        try (BufferedReader reader = new BufferedReader(new StringReader(text))) {
+            String line = reader.readLine(); // header
+            while ((line = reader.readLine()) != null) {
+                String[] columns = line.split(";");
+                if (columns.length < 4) {
+                    counts[2]++;
+                    continue;
+                }
+                counts[0]++;
+                counts[1] += columns.length - 4;
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Lines shorter than the smallest window, with mixed line endings, empty lines, empty and
+     * missing fields.
+     */
+    private static String randomCourseFile(Random random, int lines, boolean lineBreakAtEnd) {
+        String[] lecturers = {"Dr. Kaya", "Yılmaz", "", " "};
+        String[] students = {"Ali", "Çağrı", "", "Zeynep", "Öz"};
+        StringBuilder text = new StringBuilder("Course;TimeToStart;Duration;Lecturer;Students");
+        for (int i = 0; i < lines; i++) {
+            text.append(LINE_ENDINGS[random.nextInt(LINE_ENDINGS.length)]);
+            int kind = random.nextInt(10);
+            if (kind == 0) {
+                continue; // empty line
+            }
+            if (kind == 1) {
+                text.append("SE").append(i).append(";Monday 08:30");
+                continue;
+            }
+            text.append("SE").append(i).append(";Friday 14:00;").append(1 + random.nextInt(3)).append(';')
+                    .append(lecturers[random.nextInt(lecturers.length)]);
+            int count = random.nextInt(4);
+            for (int s = 0; s < count; s++) {
+                text.append(';').append(students[random.nextInt(students.length)]);
+            }
+        }
+        if (lineBreakAtEnd) {
+            text.append(LINE_ENDINGS[random.nextInt(LINE_ENDINGS.length)]);
+        }
+        return text.toString();
+    }
+}
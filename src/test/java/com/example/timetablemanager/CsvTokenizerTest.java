@@ -0,0 +1,143 @@
+package com.example.timetablemanager;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * CsvTokenizer must read a file like {@code readLine()} followed by {@code split(";")}.
+ */
+class CsvTokenizerTest {
+
+    private static final String[] EDGE_CASE_LINES = {
+            "", "a", "a;b", "a;b;", "a;;", ";", ";;", ";a", ";;a", "a;;b", " ; ", "a; ;",
+            "SE115;Monday 08:30;2;Dr. Yılmaz;Çağrı Öz;Ali", "SE115;Monday 08:30;2;Dr. Yılmaz;;",
+            "only;three;fields", ";;;;;;;;;;;;;;;;;;x", "a;b;c;d;e;f;g;h;i;j;k;l;m;n;o;p;q;r;s;t;u"
+    };
+
+    private static final String[] LINE_ENDINGS = {"\n", "\r\n", "\r"};
+
+    @Test
+    void fieldsMatchSplitOnEdgeCaseLines() throws IOException {
+        for (String line : EDGE_CASE_LINES) {
+            assertSameAsReadLineAndSplit(line);
+            for (String ending : LINE_ENDINGS) {
+                assertSameAsReadLineAndSplit(line + ending);
+                assertSameAsReadLineAndSplit(line + ending + line);
+            }
+        }
+    }
+
+    @Test
+    void linesEndLikeReadLine() throws IOException {
+        String[] texts = {
+                "", "\n", "\r", "\r\n", "\n\n", "\r\r", "\r\n\r\n", "\n\r", "a\r\r\nb", "a\n\r\nb",
+                "a\r", "a\r\n", "a\n\n", "\r\na", "a;b\r\n;\r\n;;x;;\n", "header\nx;y\r\n\r\nz"
+        };
+        for (String text : texts) {
+            assertSameAsReadLineAndSplit(text);
+        }
+    }
+
+    @Test
+    void randomTextMatchesReadLineAndSplit() throws IOException {
+        Random random = new Random(1);
+        for (int i = 0; i < 2000; i++) {
+            assertSameAsReadLineAndSplit(randomText(random, random.nextInt(60)));
+        }
+    }
+
+    @Test
+    void cuttingAtLineBoundaryKeepsTheLines() throws IOException {
+        Random random = new Random(2);
+        for (int i = 0; i < 2000; i++) {
+            byte[] bytes = randomText(random, 1 + random.nextInt(60)).getBytes(Charset.defaultCharset());
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            int start = random.nextInt(bytes.length);
+            int end = start + random.nextInt(bytes.length - start + 1);
+
+            int cut = CsvImporter.lineBoundary(buffer, start, end, bytes.length);
+            if (cut < 0) {
+                continue;
+            }
+            assertTrue(cut > start && cut <= bytes.length);
+            byte last = bytes[cut - 1];
+            assertTrue(last == '\n' || last == '\r' && cut < bytes.length && bytes[cut] != '\n',
+                    "cut must follow a complete line break");
+
+            List<List<String>> whole = tokenize(buffer, start, bytes.length);
+            List<List<String>> pieces = tokenize(buffer, start, cut);
+            pieces.addAll(tokenize(buffer, cut, bytes.length));
+            assertEquals(whole, pieces, "cut at " + cut + " of " + Arrays.toString(bytes));
+        }
+    }
+
+    @Test
+    void digitsIgnoreEverythingButDigits() {
+        String line = "2;2 hours;;x;007;99999999999";
+        CsvTokenizer tokenizer = tokenizer(line);
+        assertTrue(tokenizer.nextLine());
+        assertEquals(2, tokenizer.digits(0));
+        assertEquals(2, tokenizer.digits(1));
+        assertEquals(0, tokenizer.digits(2));
+        assertEquals(0, tokenizer.digits(3));
+        assertEquals(7, tokenizer.digits(4));
+        assertEquals(-1, tokenizer.digits(5));
+    }
+
+    private static void assertSameAsReadLineAndSplit(String text) throws IOException {
+        List<List<String>> expected = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new StringReader(text))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                expected.add(Arrays.asList(line.split(";")));
+            }
+        }
+        byte[] bytes = text.getBytes(Charset.defaultCharset());
+        assertEquals(expected, tokenize(ByteBuffer.wrap(bytes), 0, bytes.length), () -> "text: " + escape(text));
+    }
+
+    private static List<List<String>> tokenize(ByteBuffer buffer, int start, int end) {
+        CsvTokenizer tokenizer = new CsvTokenizer(buffer, start, end);
+        List<List<String>> lines = new ArrayList<>();
+        while (tokenizer.nextLine()) {
+            List<String> fields = new ArrayList<>();
+            for (int i = 0; i < tokenizer.fieldCount(); i++) {
+                fields.add(tokenizer.fieldText(i));
+            }
+            lines.add(fields);
+        }
+        return lines;
+    }
+
+    private static CsvTokenizer tokenizer(String text) {
+        byte[] bytes = text.getBytes(Charset.defaultCharset());
+        return new CsvTokenizer(ByteBuffer.wrap(bytes), 0, bytes.length);
+    }
+
+    /**
+     * Text made mostly of separators and line breaks, so the edge cases come up often.
+     */
+    static String randomText(Random random, int length) {
+        String[] pieces = {";", ";", "\n", "\r", "\r\n", "a", "bc", " ", "ç", "08:30"};
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            text.append(pieces[random.nextInt(pieces.length)]);
+        }
+        return text.toString();
+    }
+
+    private static String escape(String text) {
+        return text.replace("\r", "\\r").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.timetablemanager;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.sql.*;
+
+/**
+ * Stand-alone benchmark for single-row inserts in autocommit mode (one transaction per row, the
+ * way addStudent / addEnrollment write), comparing:
+ * <ul>
+ *     <li>a plain connection with SQLite's defaults (rollback journal, synchronous = FULL) that
+ *     prepares every statement anew, as Database did before the connection pool</li>
+ *     <li>the pooled writer (WAL, synchronous = NORMAL, statement cache)</li>
+ * </ul>
+ *
+ * Run with (after mvn test-compile):
+ * java -cp target/classes:target/test-classes:sqlite-jdbc.jar com.example.timetablemanager.InsertThroughputBenchmark [rows]
+ *
+ * The benchmark works on temporary directories and never touches the user's database.
+ */
+public class InsertThroughputBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+
+        File plainDir = Files.createTempDirectory("ttm-insert-plain").toFile();
+        File pooledDir = Files.createTempDirectory("ttm-insert-pooled").toFile();
+        System.setProperty("timetablemanager.dbPath", pooledDir.getAbsolutePath());
+        System.setProperty("timetablemanager.backupDir", new File(pooledDir, "saves").getAbsolutePath());
+
+        File plainDb = new File(plainDir, "TimetableManagement.db");
+        double plainRate;
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + plainDb.getAbsolutePath())) {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("CREATE TABLE Students (studentId INTEGER PRIMARY KEY AUTOINCREMENT, studentName TEXT NOT NULL UNIQUE)");
+            }
+            plainRate = insertRows(conn, rows);
+        }
+
+        Database.connect();
+        double pooledRate;
+        try (Connection conn = Database.writer()) {
+            pooledRate = insertRows(conn, rows);
+        }
+        ConnectionPool.Metrics metrics = Database.getPoolMetrics();
+        Database.close();
+
+        System.out.printf("Rows: %d%n", rows);
+        System.out.printf("Default connection: %10.0f inserts/s%n", plainRate);
+        System.out.printf("Pooled writer:      %10.0f inserts/s (%.1fx)%n", pooledRate, pooledRate / plainRate);
+        System.out.printf("Statement cache:    %d hits / %d misses%n",
+                metrics.getStatementCacheHits(), metrics.getStatementCacheMisses());
+
+        CourseLoaderBenchmark.deleteRecursively(plainDir);
+        CourseLoaderBenchmark.deleteRecursively(pooledDir);
+    }
+
+    /**
+     * Inserts the rows one by one, preparing the statement for every row like the Database methods do.
+     *
+     * @return Inserts per second.
+     */
+    private static double insertRows(Connection conn, int rows) throws SQLException {
+        long start = System.nanoTime();
+        for (int i = 0; i < rows; i++) {
+            try (PreparedStatement pstmt = conn.prepareStatement(Database.INSERT_STUDENT_SQL)) {
+                pstmt.setString(1, "Student" + i);
+                pstmt.executeUpdate();
+            }
+        }
+        return rows / ((System.nanoTime() - start) / 1e9);
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.timetablemanager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Stand-alone benchmark comparing the old substring scan of the main table search with
+ * CourseSearchIndex on a synthetic in-memory timetable.
+ *
+ * Run with (after mvn test-compile):
+ * java -cp target/classes:target/test-classes com.example.timetablemanager.SearchIndexBenchmark [courses] [studentsPerCourse]
+ *
+ * No database is involved.
+ */
+public class SearchIndexBenchmark {
+
+    private static final int ROUNDS = 200;
+    private static final String[] QUERIES = {
+            "se115", "lecturer:yilmaz", "room:m1", "student:\"student 12345\"",
+            "monday 08:30", "mon room:m10", "student:ali lecturer:kaya friday", "zz"
+    };
+
+    public static void main(String[] args) {
+        int courseCount = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int studentsPerCourse = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        TimetableRepository repository = new TimetableRepository();
+        repository.replaceAll(generate(courseCount, studentsPerCourse));
+
+        long start = System.nanoTime();
+        CourseSearchIndex index = new CourseSearchIndex(repository);
+        System.out.printf("Indexed %d courses in %.1f ms%n", index.size(), (System.nanoTime() - start) / 1e6);
+
+        List<Course> all = repository.getAll();
+        // Warm-up both paths so the JIT has compiled them
+        for (int i = 0; i < 20; i++) {
+            for (String query : QUERIES) {
+                index.search(query);
+                scan(all, query);
+            }
+        }
+
+        System.out.println("Query; Matches; Scan ms; Index ms");
+        for (String query : QUERIES) {
+            long scanNanos = 0;
+            long indexNanos = 0;
+            int matches = 0;
+            for (int i = 0; i < ROUNDS; i++) {
+                long t = System.nanoTime();
+                scan(all, query);
+                scanNanos += System.nanoTime() - t;
+
+                t = System.nanoTime();
+                matches = index.search(query).size();
+                indexNanos += System.nanoTime() - t;
+            }
+            System.out.printf(Locale.ROOT, "%s; %d; %.3f; %.3f%n", query, matches,
+                    scanNanos / 1e6 / ROUNDS, indexNanos / 1e6 / ROUNDS);
+        }
+
+        // A move re-indexes only the room of the course
+        Course moved = all.get(all.size() / 2);
+        start = System.nanoTime();
+        repository.setClassroom(moved.getCourseID(), "X999", 40);
+        System.out.printf(Locale.ROOT, "Moving a course updated the index in %.3f ms, room:x999 finds %d%n",
+                (System.nanoTime() - start) / 1e6, index.search("room:x999").size());
+    }
+
+    /**
+     * The search of the main table before the index: every term must be contained in one field.
+     */
+    private static List<Course> scan(List<Course> courses, String query) {
+        List<CourseSearchIndex.Term> terms = CourseSearchIndex.parse(query);
+        List<Course> result = new ArrayList<>();
+        for (Course course : courses) {
+            boolean all = true;
+            for (CourseSearchIndex.Term term : terms) {
+                if (!scanMatches(course, term)) {
+                    all = false;
+                    break;
+                }
+            }
+            if (all) {
+                result.add(course);
+            }
+        }
+        return result;
+    }
+
+    private static boolean scanMatches(Course course, CourseSearchIndex.Term term) {
+        CourseSearchIndex.Field field = term.field;
+        if ((field == null || field == CourseSearchIndex.Field.ID) && contains(course.getCourseID(), term.text)
+                || (field == null || field == CourseSearchIndex.Field.LECTURER) && contains(course.getLecturer(), term.text)
+                || (field == null || field == CourseSearchIndex.Field.TIME) && contains(course.getTimeToStart(), term.text)
+                || (field == null || field == CourseSearchIndex.Field.ROOM) && contains(course.getClassroom(), term.text)) {
+            return true;
+        }
+        if (field == null || field == CourseSearchIndex.Field.STUDENT) {
+            for (Student student : course.getStudents()) {
+                if (contains(student.getFullName(), term.text)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean contains(String value, String term) {
+        return value != null && value.toLowerCase(Locale.ROOT).contains(term);
+    }
+
+    private static List<Course> generate(int courseCount, int studentsPerCourse) {
+        Random random = new Random(42);
+        String[] surnames = {"Yilmaz", "Kaya", "Demir", "Sahin", "Celik", "Yildiz", "Aydin", "Ozturk", "Arslan", "Dogan"};
+        String[] names = {"Ali", "Ayse", "Mehmet", "Fatma", "Mustafa", "Zeynep", "Emre", "Elif", "Can", "Deniz"};
+        int studentPool = Math.max(1, courseCount / 2);
+
+        List<Course> courses = new ArrayList<>(courseCount);
+        for (int i = 0; i < courseCount; i++) {
+            List<Student> students = new ArrayList<>(studentsPerCourse);
+            for (int s = 0; s < studentsPerCourse; s++) {
+                int student = random.nextInt(studentPool);
+                students.add(new Student(names[student % names.length] + " Student " + student, new ArrayList<>()));
+            }
+            String lecturer = names[random.nextInt(names.length)] + " " + surnames[random.nextInt(surnames.length)] + " " + random.nextInt(200);
+            String time = TimeSlots.DAYS.get(random.nextInt(TimeSlots.DAY_COUNT)) + " "
+                    + TimeSlots.TIMES.get(random.nextInt(TimeSlots.SLOTS_PER_DAY - 2));
+            String room = "M" + random.nextInt(300);
+            courses.add(new Course(String.format("SE%d", 100 + i), 40, students, room, time, 2, lecturer));
+        }
+        return courses;
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.timetablemanager;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SymbolTableTest {
+
+    @Test
+    void sameBytesGiveTheSameInstanceWhereverTheyAre() {
+        ByteBuffer buffer = bytes("Ali;Veli;Ali;Al;Alice");
+        SymbolTable<String> symbols = SymbolTable.ofStrings();
+
+        String first = symbols.intern(buffer, 0, 3);
+        String second = symbols.intern(buffer, 9, 12);
+        assertEquals("Ali", first);
+        assertSame(first, second);
+        assertEquals("Veli", symbols.intern(buffer, 4, 8));
+        // Prefixes of a known name are names of their own
+        assertEquals("Al", symbols.intern(buffer, 13, 15));
+        assertEquals("Alice", symbols.intern(buffer, 16, 21));
+        assertEquals(4, symbols.size());
+    }
+
+    @Test
+    void decodesNonAsciiAndLongNames() {
+        String longName = "Prof. Dr. " + "Çağlayan ".repeat(20) + "Öztürk";
+        ByteBuffer buffer = bytes("Dr. Yılmaz;" + longName);
+        int split = "Dr. Yılmaz".getBytes(Charset.defaultCharset()).length;
+        SymbolTable<String> symbols = SymbolTable.ofStrings();
+
+        assertEquals("Dr. Yılmaz", symbols.intern(buffer, 0, split));
+        assertEquals(longName, symbols.intern(buffer, split + 1, buffer.capacity()));
+        assertEquals("", symbols.intern(buffer, 0, 0));
+        assertSame(symbols.intern(buffer, split + 1, buffer.capacity()), symbols.intern(buffer, split + 1, buffer.capacity()));
+    }
+
+    @Test
+    void everyNameHasOneInstanceAcrossThreads() throws Exception {
+        StringBuilder text = new StringBuilder();
+        List<int[]> names = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            String name = "Student " + (i % 100);
+            names.add(new int[]{text.length(), text.length() + name.length()});
+            text.append(name).append(';');
+        }
+        ByteBuffer buffer = bytes(text.toString());
+        AtomicInteger created = new AtomicInteger();
+        SymbolTable<String> symbols = new SymbolTable<>(name -> {
+            created.incrementAndGet();
+            return name;
+        });
+
+        ExecutorService threads = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<String>>> results = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                results.add(threads.submit(() -> {
+                    List<String> interned = new ArrayList<>();
+                    for (int[] name : names) {
+                        interned.add(symbols.intern(buffer, name[0], name[1]));
+                    }
+                    return interned;
+                }));
+            }
+            List<String> reference = results.get(0).get();
+            for (Future<List<String>> result : results) {
+                List<String> interned = result.get();
+                for (int i = 0; i < interned.size(); i++) {
+                    assertSame(reference.get(i), interned.get(i));
+                }
+            }
+        } finally {
+            threads.shutdownNow();
+        }
+        assertEquals(100, symbols.size());
+        // putIfAbsent may lose a race and drop a value, but every name ends up with one instance
+        assertTrue(created.get() >= 100);
+    }
+
+    private static ByteBuffer bytes(String text) {
+        return ByteBuffer.wrap(text.getBytes(Charset.defaultCharset()));
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.timetablemanager;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimetableOptimizerTest {
+
+    private static final long SEED = 42;
+    private static final int ITERATIONS = 20_000;
+
+    @Test
+    void sameSeedGivesSameChangesWhateverTheParallelism() {
+        List<Course> courses = generateCourses(300);
+        Map<String, Integer> capacities = generateClassrooms(25);
+
+        TimetableOptimizer.Result single = optimize(courses, capacities, 1);
+        TimetableOptimizer.Result parallel = optimize(courses, capacities, 4);
+        TimetableOptimizer.Result again = optimize(courses, capacities, 4);
+
+        assertFalse(single.getChanges().isEmpty(), "the generated allocation should leave room for improvement");
+        assertEquals(describe(single), describe(parallel));
+        assertEquals(describe(parallel), describe(again));
+        assertEquals(single.getFinalCost(), parallel.getFinalCost());
+        assertEquals((long) TimetableOptimizer.DEFAULT_CHAINS * ITERATIONS, parallel.getIterations());
+        assertTrue(single.getFinalCost() <= single.getInitialCost());
+    }
+
+    @Test
+    void lecturersAreGroupedLikeTheConflictIndex() {
+        Locale defaultLocale = Locale.getDefault();
+        Locale.setDefault(Locale.forLanguageTag("tr-TR"));
+        try {
+            // The same lecturer in two rooms in a row: one room change, no wasted seats
+            List<Course> courses = List.of(
+                    course("SE101", "R1", "Monday 08:30", "Dr. ILKER Demir", 10),
+                    course("SE102", "R2", "Monday 09:25", "dr.  ilker   demir", 10));
+            Map<String, Integer> capacities = Map.of("R1", 10, "R2", 10);
+
+            TimetableOptimizer.Result result = new TimetableOptimizer(courses, capacities)
+                    .setTimeBudgetMillis(0)
+                    .setIterationsPerChain(1_000)
+                    .optimize(SEED);
+
+            assertEquals(TimetableOptimizer.ROOM_CHANGE_WEIGHT, result.getInitialCost());
+            assertEquals(Database.lecturerKey("Dr. ILKER Demir"), Database.lecturerKey("dr.  ilker   demir"));
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+    }
+
+    private static TimetableOptimizer.Result optimize(List<Course> courses, Map<String, Integer> capacities, int parallelism) {
+        return new TimetableOptimizer(courses, capacities)
+                .setTimeBudgetMillis(0)
+                .setIterationsPerChain(ITERATIONS)
+                .setParallelism(parallelism)
+                .optimize(SEED);
+    }
+
+    private static List<String> describe(TimetableOptimizer.Result result) {
+        return result.getChanges().stream().map(TimetableOptimizer.Change::toString).toList();
+    }
+
+    private static Map<String, Integer> generateClassrooms(int count) {
+        Map<String, Integer> capacities = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            capacities.put("R" + i, 20 + (i % 5) * 20);
+        }
+        return capacities;
+    }
+
+    /**
+     * Every course gets a room of its slot that is free, picked without looking at the size.
+     */
+    private static List<Course> generateCourses(int count) {
+        Random random = new Random(7);
+        Set<String> taken = new HashSet<>();
+        List<Course> courses = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int day = random.nextInt(5);
+            int slot = random.nextInt(TimeSlots.SLOTS_PER_DAY);
+            String time = TimeSlots.DAYS.get(day) + " " + TimeSlots.TIMES.get(slot);
+            String room = null;
+            for (int r = random.nextInt(25), tries = 0; tries < 25; r = (r + 1) % 25, tries++) {
+                if (taken.add("R" + r + "|" + time)) {
+                    room = "R" + r;
+                    break;
+                }
+            }
+            if (room != null) {
+                courses.add(course("SE" + i, room, time, "Lecturer " + random.nextInt(40), 5 + random.nextInt(60)));
+            }
+        }
+        return courses;
+    }
+
+    private static Course course(String id, String room, String time, String lecturer, int students) {
+        List<Student> enrolled = new ArrayList<>();
+        for (int s = 0; s < students; s++) {
+            enrolled.add(new Student(id + " Student " + s, new ArrayList<>()));
+        }
+        return new Course(id, 0, enrolled, room, time, 1, lecturer);
+    }
+}